@@ -0,0 +1,74 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.jshift.kit.common.util.UserConfigurationCompare;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Comparison of a desired with a live resource, done for every resource when applying
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConfigCompareBenchmark {
+
+    @Param({"1", "10"})
+    public int containers;
+
+    private Deployment desired;
+    private Deployment equal;
+    private Deployment changed;
+
+    @Setup
+    public void setup() {
+        desired = Fixtures.deployment("app", containers, 20);
+        equal = Fixtures.deployment("app", containers, 20);
+        // Differs only in the last environment variable of the last container
+        changed = new DeploymentBuilder(Fixtures.deployment("app", containers, 20))
+            .editSpec().editTemplate().editSpec()
+              .editLastContainer().editLastEnv().withValue("changed").endEnv().endContainer()
+            .endSpec().endTemplate().endSpec()
+            .build();
+    }
+
+    @Benchmark
+    public boolean configEqual() {
+        return UserConfigurationCompare.configEqual(desired, equal);
+    }
+
+    @Benchmark
+    public boolean configChanged() {
+        return UserConfigurationCompare.configEqual(desired, changed);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import io.jshift.kit.build.maven.MavenBuildContext;
+import io.jshift.kit.build.maven.assembly.DockerAssemblyManager;
+import io.jshift.kit.config.image.build.BuildConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Settings;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.UnArchiver;
+import org.codehaus.plexus.archiver.manager.ArchiverManager;
+import org.codehaus.plexus.archiver.manager.NoSuchArchiverException;
+import org.codehaus.plexus.archiver.tar.TarArchiver;
+import org.codehaus.plexus.components.io.resources.PlexusIoResourceCollection;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation of the tar archive sent to the Docker daemon for a build with an own Dockerfile
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DockerAssemblyBenchmark {
+
+    @Param({"100", "1000"})
+    public int files;
+
+    @Param({"4096"})
+    public int fileSize;
+
+    private File baseDir;
+    private DockerAssemblyManager assemblyManager;
+    private MavenBuildContext buildContext;
+    private BuildConfiguration buildConfig;
+
+    @Setup
+    public void setup() throws Exception {
+        baseDir = Fixtures.createTempDir();
+        File contextDir = Fixtures.createContextDir(new File(baseDir, "src/main/docker"), files, fileSize);
+        FileUtils.write(new File(contextDir, "Dockerfile"), "FROM busybox\nCOPY . /app\n", StandardCharsets.UTF_8);
+
+        Model model = new Model();
+        model.setGroupId("io.jshift.benchmark");
+        model.setArtifactId("app");
+        model.setVersion("1.0.0");
+        Build build = new Build();
+        build.setDirectory(new File(baseDir, "target").getAbsolutePath());
+        model.setBuild(build);
+        MavenProject project = new MavenProject(model);
+        project.setFile(new File(baseDir, "pom.xml"));
+
+        Settings settings = new Settings();
+        @SuppressWarnings("deprecation")
+        MavenSession session = new MavenSession(null, settings, null, null, null, Collections.<String>emptyList(),
+                                                baseDir.getAbsolutePath(), null, null, new Date());
+        buildContext = new MavenBuildContext.Builder()
+            .session(session)
+            .project(project)
+            .settings(settings)
+            .sourceDirectory("src/main/docker")
+            .outputDirectory("target/docker")
+            .reactorProjects(Collections.singletonList(project))
+            .build();
+
+        buildConfig = new BuildConfiguration.Builder()
+            .contextDir(contextDir.getAbsolutePath())
+            .build();
+        buildConfig.initAndValidate(Fixtures.QUIET_LOG);
+
+        // The manager is a Plexus component, so wire the only collaborator needed for this mode by hand
+        assemblyManager = new DockerAssemblyManager();
+        Field field = DockerAssemblyManager.class.getDeclaredField("archiverManager");
+        field.setAccessible(true);
+        field.set(assemblyManager, new TarArchiverManager());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteDir(baseDir);
+    }
+
+    @Benchmark
+    public File createDockerTarArchive() throws IOException {
+        return assemblyManager.createDockerTarArchive("bench/app:latest", buildContext, buildConfig, Fixtures.QUIET_LOG);
+    }
+
+    private static class TarArchiverManager implements ArchiverManager {
+
+        @Override
+        public Archiver getArchiver(String archiverName) throws NoSuchArchiverException {
+            if (!"tar".equals(archiverName)) {
+                throw new NoSuchArchiverException(archiverName);
+            }
+            TarArchiver archiver = new TarArchiver();
+            archiver.enableLogging(new ConsoleLogger(Logger.LEVEL_DISABLED, "tar"));
+            return archiver;
+        }
+
+        @Override
+        public Archiver getArchiver(File file) throws NoSuchArchiverException {
+            return getArchiver(file.getName().substring(file.getName().lastIndexOf('.') + 1));
+        }
+
+        @Override
+        public UnArchiver getUnArchiver(String unArchiverName) throws NoSuchArchiverException {
+            throw new NoSuchArchiverException(unArchiverName);
+        }
+
+        @Override
+        public UnArchiver getUnArchiver(File file) throws NoSuchArchiverException {
+            throw new NoSuchArchiverException(file.getName());
+        }
+
+        @Override
+        public PlexusIoResourceCollection getResourceCollection(File file) throws NoSuchArchiverException {
+            throw new NoSuchArchiverException(file.getName());
+        }
+
+        @Override
+        public PlexusIoResourceCollection getResourceCollection(String resourceCollectionName) throws NoSuchArchiverException {
+            throw new NoSuchArchiverException(resourceCollectionName);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.jshift.enricher.generic.DefaultControllerEnricher;
+import io.jshift.enricher.generic.DefaultMetadataEnricher;
+import io.jshift.enricher.generic.DefaultServiceEnricher;
+import io.jshift.enricher.generic.ImageEnricher;
+import io.jshift.enricher.generic.NameEnricher;
+import io.jshift.enricher.generic.PodAnnotationEnricher;
+import io.jshift.enricher.generic.PortNameEnricher;
+import io.jshift.enricher.generic.ProjectLabelEnricher;
+import io.jshift.enricher.generic.RemoveBuildAnnotationsEnricher;
+import io.jshift.enricher.generic.RevisionHistoryEnricher;
+import io.jshift.kit.build.service.docker.ImageConfiguration;
+import io.jshift.kit.config.image.build.BuildConfiguration;
+import io.jshift.kit.config.resource.PlatformMode;
+import io.jshift.kit.config.resource.ProcessorConfig;
+import io.jshift.maven.enricher.api.Enricher;
+import io.jshift.maven.enricher.api.MavenEnricherContext;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The generic enrichers, in the order of the default profile, applied to a list of resources
+ * like it is read from the resource fragments of a project
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EnricherChainBenchmark {
+
+    @Param({"1", "10"})
+    public int applications;
+
+    private File baseDir;
+    private List<Enricher> enrichers;
+    private List<HasMetadata> resources;
+
+    @Setup
+    public void setup() throws IOException {
+        baseDir = Fixtures.createTempDir();
+
+        Model model = new Model();
+        model.setGroupId("io.jshift.benchmark");
+        model.setArtifactId("app");
+        model.setVersion("1.0.0");
+        model.setPackaging("jar");
+        Build build = new Build();
+        build.setDirectory(new File(baseDir, "target").getAbsolutePath());
+        build.setOutputDirectory(new File(baseDir, "target/classes").getAbsolutePath());
+        model.setBuild(build);
+        MavenProject project = new MavenProject(model);
+        project.setFile(new File(baseDir, "pom.xml"));
+
+        List<ImageConfiguration> images = new ArrayList<>();
+        for (int i = 0; i < applications; i++) {
+            images.add(new ImageConfiguration.Builder()
+                           .name("registry.example.com/bench/app-" + i + ":1.0.0")
+                           .alias("app-" + i)
+                           .buildConfig(new BuildConfiguration.Builder()
+                                            .from("openjdk:8-jre")
+                                            .ports(Arrays.asList("8080", "8778"))
+                                            .build())
+                           .build());
+        }
+
+        MavenEnricherContext context = new MavenEnricherContext.Builder()
+            .project(project)
+            .properties(new Properties())
+            .config(new ProcessorConfig())
+            .images(images)
+            .log(Fixtures.QUIET_LOG)
+            .processingInstructions(Collections.emptyMap())
+            .build();
+
+        enrichers = Arrays.asList(
+            new NameEnricher(context),
+            new ProjectLabelEnricher(context),
+            new DefaultMetadataEnricher(context),
+            new DefaultControllerEnricher(context),
+            new DefaultServiceEnricher(context),
+            new ImageEnricher(context),
+            new PortNameEnricher(context),
+            new PodAnnotationEnricher(context),
+            new RevisionHistoryEnricher(context),
+            new RemoveBuildAnnotationsEnricher(context));
+
+        resources = Fixtures.application(applications);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteDir(baseDir);
+    }
+
+    @Benchmark
+    public KubernetesList enrich() {
+        KubernetesListBuilder builder = new KubernetesListBuilder().withItems(resources);
+        for (Enricher enricher : enrichers) {
+            enricher.create(PlatformMode.kubernetes, builder);
+        }
+        for (Enricher enricher : enrichers) {
+            enricher.enrich(PlatformMode.kubernetes, builder);
+        }
+        return builder.build();
+    }
+}
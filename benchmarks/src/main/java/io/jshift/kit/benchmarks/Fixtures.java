@@ -0,0 +1,206 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.ContainerBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.IntOrString;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.jshift.kit.common.KitLogger;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Synthetic, reproducible input for the benchmarks. All random data is created from fixed
+ * seeds so that every run measures exactly the same work.
+ */
+public class Fixtures {
+
+    public static final long SEED = 42L;
+
+    // Logger which drops everything, so that benchmarks don't measure console output
+    public static final KitLogger QUIET_LOG = new KitLogger() {
+        @Override
+        public void debug(String format, Object... params) { }
+
+        @Override
+        public void info(String format, Object... params) { }
+
+        @Override
+        public void warn(String format, Object... params) { }
+
+        @Override
+        public void error(String format, Object... params) { }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+    };
+
+    private Fixtures() { }
+
+    public static Deployment deployment(String name, int containers, int envVars) {
+        List<Container> containerList = new ArrayList<>();
+        for (int i = 0; i < containers; i++) {
+            ContainerBuilder container = new ContainerBuilder()
+                .withName(name + "-" + i)
+                .withImage("registry.example.com/bench/" + name + ":1.0." + i)
+                .addNewPort().withContainerPort(8080 + i).withProtocol("TCP").withName("http-" + i).endPort()
+                .withNewResources()
+                  .addToLimits("memory", new Quantity("256Mi"))
+                  .addToRequests("cpu", new Quantity("100m"))
+                .endResources();
+            for (int j = 0; j < envVars; j++) {
+                container.addNewEnv().withName("ENV_" + j).withValue("value-" + j).endEnv();
+            }
+            containerList.add(container.build());
+        }
+        return new DeploymentBuilder()
+            .withNewMetadata()
+              .withName(name)
+              .addToLabels(labels(name))
+              .addToAnnotations("bench/description", "Synthetic deployment " + name)
+            .endMetadata()
+            .withNewSpec()
+              .withReplicas(1)
+              .withNewSelector().addToMatchLabels(labels(name)).endSelector()
+              .withNewTemplate()
+                .withNewMetadata().addToLabels(labels(name)).endMetadata()
+                .withNewSpec().withContainers(containerList).endSpec()
+              .endTemplate()
+            .endSpec()
+            .build();
+    }
+
+    public static Service service(String name) {
+        return new ServiceBuilder()
+            .withNewMetadata().withName(name).addToLabels(labels(name)).endMetadata()
+            .withNewSpec()
+              .addToSelector(labels(name))
+              .addNewPort().withName("http").withPort(80).withTargetPort(new IntOrString(8080)).withProtocol("TCP").endPort()
+            .endSpec()
+            .build();
+    }
+
+    public static ConfigMap configMap(String name, int entries) {
+        Random random = new Random(SEED);
+        ConfigMapBuilder builder = new ConfigMapBuilder()
+            .withNewMetadata().withName(name).addToLabels(labels(name)).endMetadata();
+        for (int i = 0; i < entries; i++) {
+            builder.addToData("key-" + i, Long.toHexString(random.nextLong()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return a deployment, a service and a config map for each application
+     */
+    public static List<HasMetadata> application(int applications) {
+        List<HasMetadata> ret = new ArrayList<>();
+        for (int i = 0; i < applications; i++) {
+            String name = "app-" + i;
+            ret.add(deployment(name, 2, 10));
+            ret.add(service(name));
+            ret.add(configMap(name, 10));
+        }
+        return ret;
+    }
+
+    /**
+     * Write resource fragments as found in <code>src/main/jshift</code>, named by the
+     * <code>&lt;name&gt;-&lt;type&gt;.yml</code> convention
+     */
+    public static File[] writeResourceFragments(File dir, int applications) throws IOException {
+        List<File> ret = new ArrayList<>();
+        for (HasMetadata resource : application(applications)) {
+            File file = new File(dir, resource.getMetadata().getName() + "-" + resource.getKind().toLowerCase() + ".yml");
+            FileUtils.write(file, Serialization.asYaml(resource), StandardCharsets.UTF_8);
+            ret.add(file);
+        }
+        return ret.toArray(new File[0]);
+    }
+
+    /**
+     * Create a directory with files of pseudo random content, spread over some sub directories
+     */
+    public static File createContextDir(File dir, int files, int fileSize) throws IOException {
+        Random random = new Random(SEED);
+        byte[] content = new byte[fileSize];
+        for (int i = 0; i < files; i++) {
+            random.nextBytes(content);
+            File file = new File(dir, "dir-" + (i % 10) + "/file-" + i + ".bin");
+            FileUtils.writeByteArrayToFile(file, content);
+        }
+        return dir;
+    }
+
+    /**
+     * Create a log stream in Docker's multiplexed format, with an eight byte header per frame
+     */
+    public static byte[] logFrames(int lines) {
+        Random random = new Random(SEED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < lines; i++) {
+            String line = String.format("2019-06-10T12:04:%02d.%09dZ line %d: %s\n",
+                                        i % 60, i, i, Long.toHexString(random.nextLong()));
+            byte[] payload = line.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer header = ByteBuffer.allocate(8);
+            header.put(0, (byte) (i % 7 == 0 ? 2 : 1));
+            header.putInt(4, payload.length);
+            out.write(header.array(), 0, 8);
+            out.write(payload, 0, payload.length);
+        }
+        return out.toByteArray();
+    }
+
+    public static File createTempDir() throws IOException {
+        return Files.createTempDirectory("jshift-benchmark").toFile();
+    }
+
+    public static void deleteDir(File dir) throws IOException {
+        if (dir != null) {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    private static Map<String, String> labels(String name) {
+        Map<String, String> ret = new LinkedHashMap<>();
+        ret.put("app", name);
+        ret.put("provider", "jshift");
+        ret.put("group", "io.jshift.benchmark");
+        return ret;
+    }
+}
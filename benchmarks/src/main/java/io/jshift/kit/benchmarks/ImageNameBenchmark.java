@@ -0,0 +1,76 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import io.jshift.kit.config.image.ImageName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of image names in the different forms found in configurations
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ImageNameBenchmark {
+
+    private static final String[] NAMES = {
+        "busybox",
+        "jshift/java-jboss-openjdk8-jdk:1.5",
+        "docker.io/library/openjdk:8-jre-alpine",
+        "registry.example.com:5000/team/service/backend:1.0.0-SNAPSHOT",
+        "quay.io/jshift/s2i-java@sha256:2b5e0d0c1d6f2a5e8a7bb8f4cd0c1e9d2b3c1f7e0a6d5c4b3a2918f7e6d5c4b3"
+    };
+
+    // More distinct names than ImageName caches, so that every name is actually parsed
+    private String[] distinctNames;
+    private int index;
+
+    @Setup
+    public void setup() {
+        distinctNames = new String[4096];
+        for (int i = 0; i < distinctNames.length; i++) {
+            distinctNames[i] = "registry-" + (i % 16) + ".example.com/team-" + i + "/service:1." + i;
+        }
+    }
+
+    @Benchmark
+    public void parseCommonNames(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(new ImageName(name).getFullName());
+        }
+    }
+
+    @Benchmark
+    public String parseDistinctNames() {
+        index = (index + 1) % distinctNames.length;
+        return new ImageName(distinctNames[index]).getFullName();
+    }
+}
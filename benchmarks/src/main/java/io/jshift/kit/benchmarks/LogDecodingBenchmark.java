@@ -0,0 +1,135 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import io.jshift.kit.build.service.docker.access.UrlBuilder;
+import io.jshift.kit.build.service.docker.access.log.LogCallback;
+import io.jshift.kit.build.service.docker.access.log.LogRequestor;
+import io.jshift.kit.build.service.docker.helper.Timestamp;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of a container log in Docker's multiplexed stream format, served from memory
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LogDecodingBenchmark {
+
+    @Param({"10000"})
+    public int lines;
+
+    private byte[] frames;
+    private UrlBuilder urlBuilder;
+
+    @Setup
+    public void setup() {
+        frames = Fixtures.logFrames(lines);
+        urlBuilder = new UrlBuilder("http://localhost:2375", "v1.40");
+    }
+
+    @Benchmark
+    public int fetchLogs() {
+        CountingCallback callback = new CountingCallback();
+        new LogRequestor(new CannedResponseClient(frames), urlBuilder, "container", callback).fetchLogs();
+        return callback.count;
+    }
+
+    private static class CountingCallback implements LogCallback {
+        private int count;
+
+        @Override
+        public void log(int type, Timestamp timestamp, String txt) {
+            count += txt.length();
+        }
+
+        @Override
+        public void error(String error) {
+            throw new IllegalStateException(error);
+        }
+
+        @Override
+        public void open() { }
+
+        @Override
+        public void close() { }
+    }
+
+    // Client answering every request with the same log stream
+    @SuppressWarnings("deprecation")
+    private static class CannedResponseClient extends CloseableHttpClient {
+        private final byte[] body;
+
+        CannedResponseClient(byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) {
+            CannedResponse response = new CannedResponse();
+            response.setEntity(new ByteArrayEntity(body));
+            return response;
+        }
+
+        @Override
+        public void close() { }
+
+        @Override
+        public HttpParams getParams() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ClientConnectionManager getConnectionManager() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class CannedResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        CannedResponse() {
+            super(HttpVersion.HTTP_1_1, 200, "OK");
+        }
+
+        @Override
+        public void close() throws IOException { }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.jshift.kit.config.resource.PlatformMode;
+import io.jshift.maven.enricher.api.util.KubernetesResourceUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading resource fragments from a directory and merging a fragment into a generated resource
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResourceFragmentsBenchmark {
+
+    // Three fragments per application, up to 600 fragments. From eight fragments on they are read in parallel.
+    @Param({"1", "10", "100", "200"})
+    public int applications;
+
+    private File dir;
+    private File[] fragments;
+
+    private Deployment fragment;
+    private Deployment generated;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Fixtures.createTempDir();
+        fragments = Fixtures.writeResourceFragments(dir, applications);
+
+        // A user fragment which only adds some environment variables to a generated deployment
+        generated = Fixtures.deployment("app", 1, 10);
+        fragment = new DeploymentBuilder()
+            .withNewMetadata().withName("app").addToLabels("tier", "backend").endMetadata()
+            .withNewSpec().withNewTemplate().withNewSpec()
+              .addNewContainer().addNewEnv().withName("EXTRA").withValue("value").endEnv().endContainer()
+            .endSpec().endTemplate().endSpec()
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteDir(dir);
+    }
+
+    @Benchmark
+    public KubernetesListBuilder readResourceFragments() throws IOException {
+        return KubernetesResourceUtil.readResourceFragmentsFrom(PlatformMode.kubernetes,
+                                                                KubernetesResourceUtil.DEFAULT_RESOURCE_VERSIONING,
+                                                                "app", fragments);
+    }
+
+    @Benchmark
+    public HasMetadata mergeResources() {
+        // Merging modifies its arguments, so work on copies
+        return KubernetesResourceUtil.mergeResources(new DeploymentBuilder(fragment).build(),
+                                                     new DeploymentBuilder(generated).build(),
+                                                     Fixtures.QUIET_LOG, false);
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import io.jshift.kit.build.service.docker.config.handler.property.ConfigKey;
+import io.jshift.kit.build.service.docker.config.handler.property.PropertyMode;
+import io.jshift.kit.build.service.docker.config.handler.property.ValueProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Lookup of all list and map keys of an image configured via properties, within a project
+ * with many unrelated properties
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ValueProviderBenchmark {
+
+    private static final ConfigKey[] LIST_KEYS = {
+        ConfigKey.PORTS, ConfigKey.TAGS, ConfigKey.VOLUMES, ConfigKey.LINKS, ConfigKey.DNS, ConfigKey.CAP_ADD,
+        ConfigKey.CAP_DROP, ConfigKey.EXTRA_HOSTS, ConfigKey.DEPENDS_ON, ConfigKey.RUN, ConfigKey.TMPFS
+    };
+
+    private static final ConfigKey[] MAP_KEYS = {
+        ConfigKey.ENV, ConfigKey.ENV_BUILD, ConfigKey.ENV_RUN, ConfigKey.LABELS, ConfigKey.ARGS, ConfigKey.HEALTHCHECK
+    };
+
+    @Param({"100", "5000"})
+    public int unrelatedProperties;
+
+    private Properties properties;
+
+    @Setup
+    public void setup() {
+        properties = new Properties();
+        for (int i = 0; i < unrelatedProperties; i++) {
+            properties.setProperty("project.property." + i, "value-" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            properties.setProperty("docker.ports." + i, String.valueOf(8080 + i));
+            properties.setProperty("docker.env.VAR_" + i, "value-" + i);
+        }
+    }
+
+    @Benchmark
+    public void lookupListsAndMaps(Blackhole blackhole) {
+        ValueProvider provider = new ValueProvider("docker", properties, PropertyMode.Only);
+        for (ConfigKey key : LIST_KEYS) {
+            blackhole.consume(provider.getList(key, null));
+        }
+        for (ConfigKey key : MAP_KEYS) {
+            blackhole.consume(provider.getMap(key, null));
+        }
+    }
+}
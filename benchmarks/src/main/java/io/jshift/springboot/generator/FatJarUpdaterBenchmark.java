@@ -0,0 +1,125 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.springboot.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.jshift.kit.benchmarks.Fixtures;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adding the libraries and classes of a devtools setup to a Spring Boot fat jar and unpacking the fat jar
+ * for a layered image. Lives in the package of the updater, which is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FatJarUpdaterBenchmark {
+
+    // Libraries within the fat jar, each with some compressible content
+    @Param({"50", "200"})
+    public int libs;
+
+    @Param({"65536"})
+    public int libSize;
+
+    private File dir;
+    private File fatJar;
+    private List<File> addedLibs;
+    private List<File> addedClasses;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Fixtures.createTempDir();
+        fatJar = new File(dir, "app.jar");
+        Random random = new Random(Fixtures.SEED);
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(fatJar)) {
+            for (int i = 0; i < libs; i++) {
+                addEntry(out, FatJarUpdater.getFatJarFullPath(new File("lib-" + i + ".jar"), true), content(random, libSize));
+            }
+            for (int i = 0; i < 100; i++) {
+                addEntry(out, FatJarUpdater.getFatJarFullPath(new File("App" + i + ".class"), false), content(random, 2048));
+            }
+        }
+
+        // Like the generator, which adds the devtools library and the application properties with its secret
+        File sources = new File(dir, "sources");
+        addedLibs = Collections.singletonList(writeFile(new File(sources, "spring-boot-devtools.jar"), content(random, libSize)));
+        addedClasses = Collections.singletonList(writeFile(new File(sources, "application.properties"), content(random, 256)));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteDir(dir);
+    }
+
+    @Benchmark
+    public long copyFilesToFatJar() throws IOException {
+        // Replacing the same entries again keeps the jar the same for every invocation
+        FatJarUpdater.copyFilesToFatJar(addedLibs, addedClasses, fatJar);
+        return fatJar.length();
+    }
+
+    @Benchmark
+    public File explode() throws IOException {
+        File target = new File(dir, "exploded");
+        FatJarUpdater.explode(fatJar, target);
+        return target;
+    }
+
+    private static void addEntry(ZipArchiveOutputStream out, String name, byte[] content) throws IOException {
+        out.putArchiveEntry(new ZipArchiveEntry(name));
+        out.write(content);
+        out.closeArchiveEntry();
+    }
+
+    private static File writeFile(File file, byte[] content) throws IOException {
+        FileUtils.writeByteArrayToFile(file, content);
+        return file;
+    }
+
+    // Hex text compresses to about half of its size, like class files
+    private static byte[] content(Random random, int size) {
+        StringBuilder ret = new StringBuilder(size);
+        while (ret.length() < size) {
+            ret.append(Long.toHexString(random.nextLong()));
+        }
+        return ret.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,113 @@
+package io.jshift.kit.build.api.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Event as received from the docker daemon's event stream.
+ *
+ * Daemons with API versions before 1.22 only send <code>status</code>, <code>id</code> and <code>from</code>,
+ * which are mapped to a container event.
+ */
+public class Event {
+
+    public static final String TYPE_CONTAINER = "container";
+    public static final String TYPE_IMAGE = "image";
+    public static final String TYPE_NETWORK = "network";
+
+    static final String TYPE = "Type";
+    static final String ACTION = "Action";
+    static final String ACTOR = "Actor";
+    static final String ACTOR_ID = "ID";
+    static final String ATTRIBUTES = "Attributes";
+    static final String STATUS = "status";
+    static final String ID = "id";
+    static final String TIME_NANO = "timeNano";
+    static final String TIME = "time";
+
+    private final JsonObject json;
+
+    public Event(JsonObject json) {
+        this.json = json;
+    }
+
+    /**
+     * Type of the object the event is about, e.g. <code>container</code>, <code>image</code> or <code>network</code>
+     *
+     * @return the type
+     */
+    public String getType() {
+        String type = getString(json, TYPE);
+        return type != null ? type : TYPE_CONTAINER;
+    }
+
+    /**
+     * What happened, e.g. <code>start</code>, <code>die</code> or <code>health_status: healthy</code>
+     *
+     * @return the action
+     */
+    public String getAction() {
+        String action = getString(json, ACTION);
+        return action != null ? action : getString(json, STATUS);
+    }
+
+    /**
+     * Full id of the object the event is about
+     *
+     * @return id of the container, image or network
+     */
+    public String getActorId() {
+        JsonObject actor = getActor();
+        String id = actor != null ? getString(actor, ACTOR_ID) : null;
+        return id != null ? id : getString(json, ID);
+    }
+
+    /**
+     * Attributes of the object, like a container's name and labels or the container connected to a network
+     *
+     * @return attributes, which might be empty
+     */
+    public Map<String, String> getAttributes() {
+        JsonObject actor = getActor();
+        if (actor == null || !actor.has(ATTRIBUTES) || !actor.get(ATTRIBUTES).isJsonObject()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> ret = new HashMap<>();
+        for (Map.Entry<String, JsonElement> entry : actor.getAsJsonObject(ATTRIBUTES).entrySet()) {
+            if (entry.getValue().isJsonPrimitive()) {
+                ret.put(entry.getKey(), entry.getValue().getAsString());
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Time when the event happened
+     *
+     * @return time in nano seconds since the epoch
+     */
+    public long getTimeNano() {
+        if (json.has(TIME_NANO)) {
+            return json.get(TIME_NANO).getAsLong();
+        }
+        return json.has(TIME) ? json.get(TIME).getAsLong() * 1000000000L : 0;
+    }
+
+    @Override
+    public String toString() {
+        return json.toString();
+    }
+
+    private JsonObject getActor() {
+        return json.has(ACTOR) && json.get(ACTOR).isJsonObject() ? json.getAsJsonObject(ACTOR) : null;
+    }
+
+    private static String getString(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+}
@@ -17,7 +17,6 @@ package io.jshift.kit.build.maven;/*
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
 
 import io.jshift.kit.build.maven.assembly.ArchiverCustomizer;
 import io.jshift.kit.build.maven.assembly.AssemblyFiles;
@@ -99,18 +98,6 @@ public class MavenArchiveService {
         }
     }
 
-    /**
-     * Create an tar archive from a set of assembly files. Only files which changed since the last call are included.
-     * @param entries changed files. List must not be empty or null
-     * @param imageName image's name
-     * @param mojoParameters
-     * @return created archive
-     */
-    public File createChangedFilesArchive(List<AssemblyFiles.Entry> entries, File assemblyDir,
-                                          String imageName, MavenBuildContext mojoParameters) throws IOException {
-        return dockerAssemblyManager.createChangedFilesArchive(entries, assemblyDir, imageName, mojoParameters);
-    }
-
     // =============================================
 
     public File createArchive(String imageName, BuildConfiguration buildConfig, MavenBuildContext ctx, KitLogger log)
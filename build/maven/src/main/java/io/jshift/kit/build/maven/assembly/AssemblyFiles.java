@@ -67,6 +67,24 @@ public class AssemblyFiles {
         return ret;
     }
 
+    /**
+     * Get the list of all entries whose source file has been deleted since the last call to
+     * this method. A deleted file which appears again is reported as updated by
+     * {@link #getUpdatedEntriesAndRefresh()}. ATTENTION: As a side effect this method also
+     * updates the state of entries.
+     *
+     * @return list of all entries which has been deleted since the last call to this method or an empty list
+     */
+    public List<Entry> getDeletedEntriesAndRefresh() {
+        List<Entry> ret = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.isDeleted()) {
+                ret.add(entry);
+            }
+        }
+        return ret;
+    }
+
     /**
      * Returns true if there are no entries
      */
@@ -89,6 +107,7 @@ public class AssemblyFiles {
     public static class Entry {
 
         private long lastModified;
+        private boolean deleted;
         private File srcFile;
         private File destFile;
 
@@ -122,6 +141,18 @@ public class AssemblyFiles {
             if (srcFile.lastModified() > lastModified) {
                 // Update last modified as a side effect
                 lastModified = srcFile.lastModified();
+                deleted = false;
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        boolean isDeleted() {
+            if (!deleted && !srcFile.exists()) {
+                // Reset last modified so that a re-created file counts as updated
+                deleted = true;
+                lastModified = 0;
                 return true;
             } else {
                 return false;
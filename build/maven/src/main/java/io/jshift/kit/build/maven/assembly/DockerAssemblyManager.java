@@ -22,7 +22,6 @@ import org.apache.maven.plugins.assembly.io.AssemblyReadException;
 import org.apache.maven.plugins.assembly.io.AssemblyReader;
 import org.apache.maven.plugins.assembly.model.Assembly;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.shared.utils.PathTool;
 import org.apache.maven.shared.utils.io.FileUtils;
 import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.manager.ArchiverManager;
@@ -111,8 +110,12 @@ public class DockerAssemblyManager {
         final List<ArchiverCustomizer> archiveCustomizers = new ArrayList<>();
 
         // Build up assembly. In dockerfile mode this must be added explicitly in the Dockerfile with an ADD
+        List<String> layers = null;
         if (hasAssemblyConfiguration(assemblyConfig)) {
             createAssemblyArchive(assemblyConfig, params, buildDirs);
+            if (isLayered(assemblyConfig, buildConfig, log)) {
+                layers = createLayers(assemblyConfig, params, buildDirs, log);
+            }
         }
         try {
             if (buildConfig.isDockerFileMode()) {
@@ -151,7 +154,7 @@ public class DockerAssemblyManager {
                 });
             } else {
                 // Create custom docker file in output dir
-                DockerFileBuilder builder = createDockerFileBuilder(buildConfig, assemblyConfig);
+                DockerFileBuilder builder = createDockerFileBuilder(buildConfig, assemblyConfig, layers);
                 builder.write(buildDirs.getOutputDirectory());
                 // Add own Dockerfile
                 final File dockerFile = new File(buildDirs.getOutputDirectory(), DOCKERFILE_NAME);
@@ -185,6 +188,37 @@ public class DockerAssemblyManager {
     }
 
 
+    private boolean isLayered(AssemblyConfiguration assemblyConfig, BuildConfiguration buildConfig, KitLogger log) {
+        if (!assemblyConfig.isLayered()) {
+            return false;
+        }
+        if (buildConfig.isDockerFileMode() || isArchive(assemblyConfig)) {
+            log.warn("Layered assembly is only supported for assembly mode 'dir' without an own Dockerfile. Using a single layer.");
+            return false;
+        }
+        return true;
+    }
+
+    // Split the assembly directory into layer directories, which are added separately
+    private List<String> createLayers(AssemblyConfiguration assemblyConfig, MavenBuildContext params, BuildDirs buildDirs, KitLogger log)
+            throws IOException {
+        List<String> applicationArchives = new ArrayList<>();
+        MavenProject project = params.getProject();
+        if (project.getBuild() != null && project.getBuild().getFinalName() != null) {
+            String finalName = project.getBuild().getFinalName();
+            applicationArchives.add(finalName + "." + project.getPackaging());
+            applicationArchives.add(finalName + ".jar");
+        }
+        if (project.getArtifact() != null && project.getArtifact().getFile() != null) {
+            applicationArchives.add(project.getArtifact().getFile().getName());
+        }
+        File outputDir = buildDirs.getOutputDirectory();
+        LayeredAssembly layeredAssembly = new LayeredAssembly(new File(outputDir, assemblyConfig.getName()),
+                                                              new File(outputDir, assemblyConfig.getName() + "-layers"),
+                                                              applicationArchives, log);
+        return layeredAssembly.split(buildDirs.getTemporaryRootDirectory());
+    }
+
     private void excludeDockerfile(DefaultFileSet fileSet, File dockerFile) {
         ArrayList<String> excludes =
             fileSet.getExcludes() != null ?
@@ -278,30 +312,6 @@ public class DockerAssemblyManager {
                assemblyConfig.getMode().isArchive();
     }
 
-    public File createChangedFilesArchive(List<AssemblyFiles.Entry> entries, File assemblyDirectory,
-                                          String imageName, MavenBuildContext mojoParameters)
-            throws IOException {
-        BuildDirs dirs = createBuildDirs(imageName, mojoParameters);
-        try {
-            File archive = new File(dirs.getTemporaryRootDirectory(), "changed-files.tar");
-            File archiveDir = createArchiveDir(dirs);
-            for (AssemblyFiles.Entry entry : entries) {
-                File dest = prepareChangedFilesArchivePath(archiveDir,entry.getDestFile(),assemblyDirectory);
-                FileUtils.copyFile(entry.getSrcFile(), dest);
-            }
-            return createChangedFilesTarBall(archive, archiveDir);
-        } catch (IOException exp) {
-            throw new IOException("Error while creating " + dirs.getTemporaryRootDirectory() +
-                                             "/changed-files.tar: " + exp);
-        }
-    }
-
-    private File prepareChangedFilesArchivePath(File archiveDir, File destFile, File assemblyDir) throws IOException {
-        // Replace build target dir from destfile and add changed-files build dir instead
-        String relativePath = PathTool.getRelativeFilePath(assemblyDir.getCanonicalPath(),destFile.getCanonicalPath());
-        return new File(archiveDir,relativePath);
-    }
-
     // Create final tar-ball to be used for building the archive to send to the Docker daemon
     private File createBuildTarBall(BuildDirs buildDirs, List<ArchiverCustomizer> archiverCustomizers,
                                     AssemblyConfiguration assemblyConfig, ArchiveCompression compression) throws IOException {
@@ -352,37 +362,6 @@ public class DockerAssemblyManager {
         }
     }
 
-    private File createChangedFilesTarBall(File archive, File archiveDir) throws IOException {
-        try {
-            TarArchiver archiver = (TarArchiver) archiverManager.getArchiver("tar");
-            archiver.setLongfile(TarLongFileMode.posix);
-            archiver.addFileSet(DefaultFileSet.fileSet(archiveDir));
-            archiver.setDestFile(archive);
-            archiver.createArchive();
-            return archive;
-        } catch (NoSuchArchiverException e) {
-            throw new IOException("No archiver for type 'tar' found", e);
-        } catch (IOException e) {
-            throw new IOException("Cannot create archive " + archive, e);
-        } catch (RuntimeException e) {
-            e.printStackTrace();
-            throw e;
-        }
-    }
-
-    private File createArchiveDir(BuildDirs dirs) throws IOException{
-        File archiveDir = new File(dirs.getTemporaryRootDirectory(), "changed-files");
-        if (archiveDir.exists()) {
-            // Remove old stuff to
-            FileUtils.cleanDirectory(archiveDir);
-        } else {
-            if (!archiveDir.mkdir()) {
-                throw new IOException("Cannot create " + archiveDir);
-            }
-        }
-        return archiveDir;
-    }
-
     private TarArchiver createBuildArchiver(File outputDir, File archive, AssemblyConfiguration assemblyConfig) throws NoSuchArchiverException {
         TarArchiver archiver = (TarArchiver) archiverManager.getArchiver("tar");
         archiver.setLongfile(TarLongFileMode.posix);
@@ -405,8 +384,13 @@ public class DockerAssemblyManager {
     }
 
     // visible for testing
-    @SuppressWarnings("deprecation")
     DockerFileBuilder createDockerFileBuilder(BuildConfiguration buildConfig, AssemblyConfiguration assemblyConfig) {
+        return createDockerFileBuilder(buildConfig, assemblyConfig, null);
+    }
+
+    // visible for testing
+    @SuppressWarnings("deprecation")
+    DockerFileBuilder createDockerFileBuilder(BuildConfiguration buildConfig, AssemblyConfiguration assemblyConfig, List<String> layers) {
         DockerFileBuilder builder =
                 new DockerFileBuilder()
                         .env(buildConfig.getEnv())
@@ -422,8 +406,16 @@ public class DockerAssemblyManager {
             builder.workdir(buildConfig.getWorkdir());
         }
         if (assemblyConfig != null) {
-            builder.add(assemblyConfig.getName(), "")
-                   .basedir(assemblyConfig.getTargetDir())
+            if (layers != null) {
+                // One COPY per layer, least frequently changing first
+                for (String layer : layers) {
+                    builder.add(layer, "");
+                }
+            } else {
+                builder.add(assemblyConfig.getName(), "");
+            }
+            builder.basedir(assemblyConfig.getTargetDir())
+                   .layered(layers != null)
                    .assemblyUser(assemblyConfig.getUser())
                    .exportTargetDir(assemblyConfig.exportTargetDir());
         } else {
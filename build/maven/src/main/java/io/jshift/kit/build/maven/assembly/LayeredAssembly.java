@@ -0,0 +1,228 @@
+package io.jshift.kit.build.maven.assembly;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import io.jshift.kit.common.KitLogger;
+import org.apache.maven.shared.utils.io.FileUtils;
+
+/**
+ * Splits up an assembly directory into layers, ordered from the least to the most frequently
+ * changing content. Each layer is copied into the image with its own <code>COPY</code>, so that
+ * an image rebuilt after a code change only differs in its topmost layers.
+ *
+ * The layers are:
+ *
+ * <ul>
+ *     <li>Release dependencies</li>
+ *     <li>Snapshot dependencies</li>
+ *     <li>Resources, i.e. everything which is neither a dependency nor a class of the application</li>
+ *     <li>Application classes and the application's own artifact</li>
+ * </ul>
+ */
+class LayeredAssembly {
+
+    enum Layer {
+        RELEASE_DEPENDENCIES("dependencies"),
+        SNAPSHOT_DEPENDENCIES("snapshot-dependencies"),
+        RESOURCES("resources"),
+        APPLICATION("application");
+
+        private final String dirName;
+
+        Layer(String dirName) {
+            this.dirName = dirName;
+        }
+
+        String getDirName() {
+            return ordinal() + "-" + dirName;
+        }
+    }
+
+    // Snapshots are either named after the version or have a timestamp when resolved from a remote repository
+    private static final Pattern SNAPSHOT_JAR = Pattern.compile("^.*-(SNAPSHOT|\\d{8}\\.\\d{6}-\\d+)(-[^/]+)?\\.jar$");
+
+    // Name of the file holding the checksums of the last build for reporting reuse
+    private static final String LAYER_CHECKSUMS = "layers.properties";
+
+    private final File assemblyDir;
+    private final File layersDir;
+    private final Collection<String> applicationArchives;
+    private final KitLogger log;
+
+    /**
+     * Constructor
+     *
+     * @param assemblyDir directory holding the assembly, which is empty afterwards
+     * @param layersDir directory in which to create a sub directory for each layer
+     * @param applicationArchives file names of the application's artifact, which belongs to the application layer
+     *                            when located at the top of the assembly
+     * @param log logger for reporting the layers
+     */
+    LayeredAssembly(File assemblyDir, File layersDir, Collection<String> applicationArchives, KitLogger log) {
+        this.assemblyDir = assemblyDir;
+        this.layersDir = layersDir;
+        this.applicationArchives = applicationArchives;
+        this.log = log;
+    }
+
+    /**
+     * Move all files of the assembly into their layers.
+     *
+     * @param checksumDir directory to keep the checksums for detecting reused layers in the next build
+     * @return paths of the non-empty layer directories, relative to the parent of the layers directory, in the
+     * order in which they should be added to the image
+     * @throws IOException if moving the files fails
+     */
+    List<String> split(File checksumDir) throws IOException {
+        if (layersDir.exists()) {
+            FileUtils.deleteDirectory(layersDir);
+        }
+        long[] sizes = new long[Layer.values().length];
+        int[] counts = new int[Layer.values().length];
+        if (assemblyDir.isDirectory()) {
+            Path root = assemblyDir.toPath();
+            List<Path> entries;
+            try (Stream<Path> stream = Files.walk(root)) {
+                entries = stream.filter(p -> !p.equals(root)).sorted().collect(Collectors.toList());
+            }
+            for (Path entry : entries) {
+                String relativePath = root.relativize(entry).toString().replace(File.separatorChar, '/');
+                if (Files.isDirectory(entry)) {
+                    // Keep empty directories which might be part of the assembly on purpose
+                    if (isEmptyDirectory(entry)) {
+                        Files.createDirectories(getLayerDir(Layer.RESOURCES).toPath().resolve(relativePath));
+                    }
+                    continue;
+                }
+                Layer layer = classify(relativePath);
+                Path target = getLayerDir(layer).toPath().resolve(relativePath);
+                Files.createDirectories(target.getParent());
+                Files.move(entry, target);
+                sizes[layer.ordinal()] += Files.size(target);
+                counts[layer.ordinal()]++;
+            }
+            FileUtils.deleteDirectory(assemblyDir);
+        }
+
+        Properties lastChecksums = loadChecksums(checksumDir);
+        Properties checksums = new Properties();
+        List<String> ret = new ArrayList<>();
+        long reused = 0;
+        long total = 0;
+        for (Layer layer : Layer.values()) {
+            File layerDir = getLayerDir(layer);
+            if (!layerDir.exists()) {
+                continue;
+            }
+            ret.add(layersDir.getName() + "/" + layer.getDirName());
+            String checksum = calculateChecksum(layerDir);
+            checksums.setProperty(layer.getDirName(), checksum);
+            boolean unchanged = checksum.equals(lastChecksums.getProperty(layer.getDirName()));
+            long size = sizes[layer.ordinal()];
+            total += size;
+            if (unchanged) {
+                reused += size;
+            }
+            log.info("Layer %-22s %10s in %5d files %s",
+                     layer.getDirName() + ":", formatSize(size), counts[layer.ordinal()], unchanged ? "(unchanged)" : "(changed)");
+        }
+        log.info("Layers: %s of %s unchanged since last build", formatSize(reused), formatSize(total));
+        storeChecksums(checksumDir, checksums);
+        return ret;
+    }
+
+    // visible for testing
+    Layer classify(String relativePath) {
+        String name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+        if (!relativePath.contains("/") && applicationArchives.contains(name)) {
+            return Layer.APPLICATION;
+        }
+        if (relativePath.startsWith("classes/") || relativePath.contains("/classes/")) {
+            return name.endsWith(".class") ? Layer.APPLICATION : Layer.RESOURCES;
+        }
+        if (name.endsWith(".jar")) {
+            return SNAPSHOT_JAR.matcher(name).matches() ? Layer.SNAPSHOT_DEPENDENCIES : Layer.RELEASE_DEPENDENCIES;
+        }
+        return Layer.RESOURCES;
+    }
+
+    private File getLayerDir(Layer layer) {
+        return new File(layersDir, layer.getDirName());
+    }
+
+    private boolean isEmptyDirectory(Path dir) throws IOException {
+        try (Stream<Path> children = Files.list(dir)) {
+            return !children.findAny().isPresent();
+        }
+    }
+
+    // Checksum over all paths and contents of a layer
+    private String calculateChecksum(File layerDir) throws IOException {
+        Path root = layerDir.toPath();
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[65536];
+        List<Path> entries;
+        try (Stream<Path> stream = Files.walk(root)) {
+            entries = stream.sorted().collect(Collectors.toList());
+        }
+        for (Path entry : entries) {
+            crc.update(root.relativize(entry).toString().getBytes(StandardCharsets.UTF_8));
+            if (Files.isRegularFile(entry)) {
+                try (InputStream in = new FileInputStream(entry.toFile())) {
+                    for (int read = in.read(buffer); read > -1; read = in.read(buffer)) {
+                        crc.update(buffer, 0, read);
+                    }
+                }
+            }
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    private Properties loadChecksums(File checksumDir) {
+        Properties ret = new Properties();
+        File file = new File(checksumDir, LAYER_CHECKSUMS);
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                ret.load(in);
+            } catch (IOException e) {
+                log.verbose("Cannot read layer checksums %s: %s", file, e.getMessage());
+            }
+        }
+        return ret;
+    }
+
+    private void storeChecksums(File checksumDir, Properties checksums) {
+        File file = new File(checksumDir, LAYER_CHECKSUMS);
+        try (OutputStream out = new FileOutputStream(file)) {
+            checksums.store(out, null);
+        } catch (IOException e) {
+            log.verbose("Cannot write layer checksums %s: %s", file, e.getMessage());
+        }
+    }
+
+    private static String formatSize(long size) {
+        if (size < 1024) {
+            return size + " B";
+        }
+        if (size < 1024 * 1024) {
+            return String.format("%.1f kB", size / 1024.0);
+        }
+        return String.format("%.1f MB", size / (1024.0 * 1024.0));
+    }
+}
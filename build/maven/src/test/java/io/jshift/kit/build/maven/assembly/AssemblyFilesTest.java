@@ -0,0 +1,63 @@
+package io.jshift.kit.build.maven.assembly;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AssemblyFilesTest {
+
+    private File dir;
+    private File src;
+    private AssemblyFiles files;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("assembly-files").toFile();
+        src = new File(dir, "app.jar");
+        File dest = new File(dir, "maven/app.jar");
+        FileUtils.writeStringToFile(src, "app", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(dest, "app", StandardCharsets.UTF_8);
+        files = new AssemblyFiles(dir);
+        files.addEntry(src, dest);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void deletedEntriesAreReportedOnce() {
+        assertTrue(src.delete());
+
+        assertTrue(files.getUpdatedEntriesAndRefresh().isEmpty());
+        List<AssemblyFiles.Entry> deleted = files.getDeletedEntriesAndRefresh();
+        assertEquals(1, deleted.size());
+        assertSame(src, deleted.get(0).getSrcFile());
+        assertTrue(files.getDeletedEntriesAndRefresh().isEmpty());
+    }
+
+    @Test
+    public void recreatedEntryIsUpdated() throws IOException {
+        assertTrue(src.delete());
+        assertEquals(1, files.getDeletedEntriesAndRefresh().size());
+
+        FileUtils.writeStringToFile(src, "app v2", StandardCharsets.UTF_8);
+
+        assertEquals(1, files.getUpdatedEntriesAndRefresh().size());
+        assertTrue(files.getDeletedEntriesAndRefresh().isEmpty());
+        assertTrue(src.delete());
+        assertEquals(1, files.getDeletedEntriesAndRefresh().size());
+    }
+}
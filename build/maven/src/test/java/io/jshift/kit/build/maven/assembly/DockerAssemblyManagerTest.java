@@ -40,6 +40,7 @@ import org.codehaus.plexus.util.ReflectionUtils;
 import org.junit.Test;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class DockerAssemblyManagerTest {
 
@@ -73,6 +74,33 @@ public class DockerAssemblyManagerTest {
         assertFalse(content.contains("VOLUME"));
     }
 
+    @Test
+    public void testLayeredAssembly() {
+        BuildConfiguration buildConfig = new BuildConfiguration.Builder().from("busybox").build();
+        AssemblyConfiguration assemblyConfig = new AssemblyConfiguration.Builder().layered(true).build();
+
+        DockerFileBuilder builder = assemblyManager.createDockerFileBuilder(buildConfig, assemblyConfig,
+            Arrays.asList("maven-layers/0-dependencies", "maven-layers/3-application"));
+        String content = builder.content();
+
+        assertTrue(content.indexOf("maven-layers/0-dependencies") < content.indexOf("maven-layers/3-application"));
+        assertFalse(content.contains("COPY maven "));
+    }
+
+    @Test
+    public void testLayeredAssemblyWithUser() {
+        BuildConfiguration buildConfig = new BuildConfiguration.Builder().from("busybox").build();
+        AssemblyConfiguration assemblyConfig = new AssemblyConfiguration.Builder().layered(true).user("jboss:jboss").build();
+
+        DockerFileBuilder builder = assemblyManager.createDockerFileBuilder(buildConfig, assemblyConfig,
+            Arrays.asList("maven-layers/0-dependencies", "maven-layers/3-application"));
+        String content = builder.content();
+
+        assertTrue(content.contains("COPY --chown=jboss:jboss maven-layers/0-dependencies /maven/"));
+        assertTrue(content.contains("COPY --chown=jboss:jboss maven-layers/3-application /maven/"));
+        assertFalse(content.contains("chown -R"));
+    }
+
     @Test
     public void assemblyFiles(@Injectable final MavenBuildContext mojoParams,
                               @Injectable final MavenProject project,
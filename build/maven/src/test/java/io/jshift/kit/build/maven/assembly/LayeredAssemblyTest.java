@@ -0,0 +1,120 @@
+package io.jshift.kit.build.maven.assembly;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.jshift.kit.common.KitLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static io.jshift.kit.build.maven.assembly.LayeredAssembly.Layer.APPLICATION;
+import static io.jshift.kit.build.maven.assembly.LayeredAssembly.Layer.RELEASE_DEPENDENCIES;
+import static io.jshift.kit.build.maven.assembly.LayeredAssembly.Layer.RESOURCES;
+import static io.jshift.kit.build.maven.assembly.LayeredAssembly.Layer.SNAPSHOT_DEPENDENCIES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LayeredAssemblyTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void classify() {
+        LayeredAssembly layered = new LayeredAssembly(null, null, Collections.singletonList("app.jar"), new KitLogger.StdoutLogger());
+
+        assertEquals(APPLICATION, layered.classify("app.jar"));
+        assertEquals(RELEASE_DEPENDENCIES, layered.classify("lib/app.jar"));
+        assertEquals(RELEASE_DEPENDENCIES, layered.classify("lib/guava-27.0.jar"));
+        assertEquals(SNAPSHOT_DEPENDENCIES, layered.classify("lib/common-1.0-SNAPSHOT.jar"));
+        assertEquals(SNAPSHOT_DEPENDENCIES, layered.classify("lib/common-1.0-20190401.120000-3.jar"));
+        assertEquals(SNAPSHOT_DEPENDENCIES, layered.classify("BOOT-INF/lib/common-1.0-SNAPSHOT-tests.jar"));
+        assertEquals(APPLICATION, layered.classify("classes/io/jshift/App.class"));
+        assertEquals(APPLICATION, layered.classify("BOOT-INF/classes/io/jshift/App.class"));
+        assertEquals(RESOURCES, layered.classify("BOOT-INF/classes/application.properties"));
+        assertEquals(RESOURCES, layered.classify("org/springframework/boot/loader/JarLauncher.class"));
+        assertEquals(RESOURCES, layered.classify("META-INF/MANIFEST.MF"));
+    }
+
+    @Test
+    public void split() throws IOException {
+        File assemblyDir = folder.newFolder("maven");
+        File layersDir = new File(folder.getRoot(), "maven-layers");
+        File checksumDir = folder.newFolder("tmp");
+        write(assemblyDir, "app.jar", "app");
+        write(assemblyDir, "lib/guava-27.0.jar", "guava");
+        write(assemblyDir, "lib/common-1.0-SNAPSHOT.jar", "common");
+        write(assemblyDir, "config/app.yml", "port: 8080");
+        new File(assemblyDir, "logs").mkdirs();
+
+        List<String> layers = createLayeredAssembly(assemblyDir, layersDir).split(checksumDir);
+
+        assertEquals(Arrays.asList("maven-layers/0-dependencies", "maven-layers/1-snapshot-dependencies",
+                                   "maven-layers/2-resources", "maven-layers/3-application"), layers);
+        assertFalse(assemblyDir.exists());
+        assertTrue(new File(layersDir, "0-dependencies/lib/guava-27.0.jar").exists());
+        assertTrue(new File(layersDir, "1-snapshot-dependencies/lib/common-1.0-SNAPSHOT.jar").exists());
+        assertTrue(new File(layersDir, "2-resources/config/app.yml").exists());
+        assertTrue(new File(layersDir, "2-resources/logs").isDirectory());
+        assertTrue(new File(layersDir, "3-application/app.jar").exists());
+        assertTrue(new File(checksumDir, "layers.properties").exists());
+    }
+
+    @Test
+    public void skipsEmptyLayers() throws IOException {
+        File assemblyDir = folder.newFolder("maven");
+        write(assemblyDir, "app.jar", "app");
+
+        List<String> layers = createLayeredAssembly(assemblyDir, new File(folder.getRoot(), "maven-layers"))
+            .split(folder.newFolder("tmp"));
+
+        assertEquals(Collections.singletonList("maven-layers/3-application"), layers);
+    }
+
+    @Test
+    public void reportsReusedLayers() throws IOException {
+        File layersDir = new File(folder.getRoot(), "maven-layers");
+        File checksumDir = folder.newFolder("tmp");
+        File assemblyDir = new File(folder.getRoot(), "maven");
+        write(assemblyDir, "app.jar", "app");
+        write(assemblyDir, "lib/guava-27.0.jar", "guava");
+        createLayeredAssembly(assemblyDir, layersDir).split(checksumDir);
+
+        // Only the application changed in the second build
+        write(assemblyDir, "app.jar", "app changed");
+        write(assemblyDir, "lib/guava-27.0.jar", "guava");
+        RecordingLogger log = new RecordingLogger();
+        new LayeredAssembly(assemblyDir, layersDir, Collections.singletonList("app.jar"), log).split(checksumDir);
+
+        assertTrue(log.messages.get(0), log.messages.get(0).contains("0-dependencies") && log.messages.get(0).contains("(unchanged)"));
+        assertTrue(log.messages.get(1), log.messages.get(1).contains("3-application") && log.messages.get(1).contains("(changed)"));
+        assertEquals("Layers: 5 B of 16 B unchanged since last build", log.messages.get(2));
+    }
+
+    private LayeredAssembly createLayeredAssembly(File assemblyDir, File layersDir) {
+        return new LayeredAssembly(assemblyDir, layersDir, Collections.singletonList("app.jar"), new KitLogger.StdoutLogger());
+    }
+
+    private void write(File dir, String path, String content) throws IOException {
+        File file = new File(dir, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class RecordingLogger extends KitLogger.StdoutLogger {
+        private final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void info(String format, Object... params) {
+            messages.add(String.format(format, params));
+        }
+    }
+}
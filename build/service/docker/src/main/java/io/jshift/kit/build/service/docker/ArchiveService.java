@@ -27,7 +27,6 @@ import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
 
 /**
  * @author roland
@@ -98,18 +97,6 @@ public class ArchiveService {
         }
     }
 
-    /**
-     * Create an tar archive from a set of assembly files. Only files which changed since the last call are included.
-     * @param entries changed files. List must not be empty or null
-     * @param imageName image's name
-     * @param mojoParameters
-     * @return created archive
-     */
-    public File createChangedFilesArchive(List<AssemblyFiles.Entry> entries, File assemblyDir,
-                                          String imageName, MavenBuildContext mojoParameters) throws IOException {
-        return dockerAssemblyManager.createChangedFilesArchive(entries, assemblyDir, imageName, mojoParameters);
-    }
-
     // =============================================
 
     File createArchive(String imageName, BuildConfiguration buildConfig, MavenBuildContext params, KitLogger log)
@@ -3,6 +3,7 @@ package io.jshift.kit.build.service.docker;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -70,11 +71,13 @@ public class BuildService {
         if (tags.size() > 0) {
             log.info("%s: Tag with %s", imageConfig.getDescription(), EnvUtil.stringJoin(tags, ","));
 
+            List<String> targetImages = new ArrayList<>();
             for (String tag : tags) {
                 if (tag != null) {
-                    docker.tag(imageName, new ImageName(imageName, tag).getFullName(), true);
+                    targetImages.add(new ImageName(imageName, tag).getFullName());
                 }
             }
+            docker.tag(imageName, targetImages, true);
 
             log.debug("Tagging image successful!");
         }
@@ -0,0 +1,286 @@
+package io.jshift.kit.build.service.docker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import io.jshift.kit.build.maven.assembly.AssemblyFiles;
+import io.jshift.kit.build.service.docker.access.DockerAccess;
+import io.jshift.kit.build.service.docker.access.ExecException;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CountingInputStream;
+
+/**
+ * Copies changed assembly files into a running container when watching in copy mode.
+ *
+ * Changes are collected until no further change arrived within a debounce window, so that a
+ * burst of saves results in a single copy. The changed files are sent as one tar archive which
+ * is created while it is streamed to the daemon. Files whose source has been deleted are removed
+ * from the container with an exec afterwards.
+ */
+public class ContainerFileSync {
+
+    // Default time in milliseconds without changes before pending changes are copied
+    public static final long DEFAULT_DEBOUNCE = 200;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private final DockerAccess docker;
+    private final RunService runService;
+    private final File assemblyDirectory;
+    private final long debounce;
+    private final LongSupplier clock;
+
+    // Pending changes by path relative to the assembly directory, null for deleted files
+    private final Map<String, File> pending = new LinkedHashMap<>();
+    private long lastChange;
+
+    public ContainerFileSync(DockerAccess docker, RunService runService, File assemblyDirectory, long debounce) {
+        this(docker, runService, assemblyDirectory, debounce, System::currentTimeMillis);
+    }
+
+    ContainerFileSync(DockerAccess docker, RunService runService, File assemblyDirectory, long debounce, LongSupplier clock) {
+        this.docker = docker;
+        this.runService = runService;
+        this.assemblyDirectory = assemblyDirectory;
+        this.debounce = debounce;
+        this.clock = clock;
+    }
+
+    /**
+     * Record changed and deleted files. A later change of a file replaces an earlier one.
+     *
+     * @param updated entries whose source file has been updated
+     * @param deleted entries whose source file has been deleted
+     * @throws IOException if the path of an entry cannot be resolved
+     */
+    public void addChanges(List<AssemblyFiles.Entry> updated, List<AssemblyFiles.Entry> deleted) throws IOException {
+        long now = clock.getAsLong();
+        for (AssemblyFiles.Entry entry : updated) {
+            pending.put(getRelativePath(entry.getDestFile()), entry.getSrcFile());
+            // Use the modification time when available, so that a change which happened well
+            // before it was detected is not delayed for another debounce window
+            lastChange = Math.max(lastChange, Math.min(now, entry.getSrcFile().lastModified()));
+        }
+        for (AssemblyFiles.Entry entry : deleted) {
+            pending.put(getRelativePath(entry.getDestFile()), null);
+            lastChange = now;
+        }
+    }
+
+    /**
+     * @return true if there are pending changes and no further change arrived within the debounce window
+     */
+    public boolean isReady() {
+        return !pending.isEmpty() && clock.getAsLong() - lastChange >= debounce;
+    }
+
+    /**
+     * Copy all pending changes into the container. Pending changes are cleared even when the
+     * copy fails, since retrying a failed copy on every poll would only repeat the error.
+     *
+     * @param containerId container to copy into
+     * @param containerBaseDir directory within the container corresponding to the assembly directory
+     * @param imageConfig configuration of the container's image, used for the exec removing files
+     * @return statistics about the copy
+     * @throws IOException if copying fails
+     * @throws ExecException if removing deleted files fails
+     */
+    public Result sync(String containerId, String containerBaseDir, ImageConfiguration imageConfig) throws IOException, ExecException {
+        Map<String, File> copied = new LinkedHashMap<>();
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, File> entry : pending.entrySet()) {
+            if (entry.getValue() != null) {
+                copied.put(entry.getKey(), entry.getValue());
+            } else {
+                removed.add(getContainerPath(containerBaseDir, entry.getKey()));
+            }
+        }
+        pending.clear();
+
+        long start = clock.getAsLong();
+        long bytes = 0;
+        if (!copied.isEmpty()) {
+            try (CountingInputStream archive = new CountingInputStream(new TarStream(copied))) {
+                docker.copyArchive(containerId, archive, containerBaseDir);
+                bytes = archive.getByteCount();
+            }
+        }
+        if (!removed.isEmpty()) {
+            List<String> command = new ArrayList<>();
+            command.add("rm");
+            command.add("-f");
+            command.add("--");
+            command.addAll(removed);
+            runService.execInContainer(containerId, command, imageConfig);
+        }
+        return new Result(copied.size(), removed.size(), bytes, clock.getAsLong() - start);
+    }
+
+    private String getRelativePath(File destFile) throws IOException {
+        String base = assemblyDirectory.getCanonicalPath();
+        String path = destFile.getCanonicalPath();
+        if (!path.startsWith(base + File.separator)) {
+            throw new IOException(destFile + " is not within the assembly directory " + assemblyDirectory);
+        }
+        return path.substring(base.length() + 1).replace(File.separatorChar, '/');
+    }
+
+    private String getContainerPath(String containerBaseDir, String relativePath) {
+        return containerBaseDir.endsWith("/") ? containerBaseDir + relativePath : containerBaseDir + "/" + relativePath;
+    }
+
+    // ===========================================================================================
+
+    /**
+     * Statistics of a single copy
+     */
+    public static class Result {
+        private final int copied;
+        private final int removed;
+        private final long bytes;
+        private final long durationMillis;
+
+        Result(int copied, int removed, long bytes, long durationMillis) {
+            this.copied = copied;
+            this.removed = removed;
+            this.bytes = bytes;
+            this.durationMillis = durationMillis;
+        }
+
+        public int getCopied() {
+            return copied;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("copied %d file%s (%s), removed %d file%s in %d ms",
+                                 copied, copied == 1 ? "" : "s", FileUtils.byteCountToDisplaySize(bytes),
+                                 removed, removed == 1 ? "" : "s", durationMillis);
+        }
+    }
+
+    // Tar archive which is created chunk by chunk while it is read, so that neither a
+    // temporary file nor the whole archive in memory is needed
+    private static class TarStream extends InputStream {
+
+        private final Iterator<Map.Entry<String, File>> files;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+        private final TarArchiveOutputStream tar = new TarArchiveOutputStream(buffer);
+        private final byte[] chunk = new byte[BUFFER_SIZE];
+
+        private byte[] data = new byte[0];
+        private int pos;
+
+        private InputStream current;
+        private long remaining;
+        private String currentName;
+        private boolean finished;
+
+        TarStream(Map<String, File> files) {
+            this.files = files.entrySet().iterator();
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (pos == data.length) {
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            int ret = Math.min(len, data.length - pos);
+            System.arraycopy(data, pos, b, off, ret);
+            pos += ret;
+            return ret;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+
+        // Write the next piece of the archive into the buffer. Returns false at the end of the archive.
+        private boolean fill() throws IOException {
+            buffer.reset();
+            if (current != null) {
+                int n = current.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+                if (n > 0) {
+                    tar.write(chunk, 0, n);
+                    remaining -= n;
+                } else {
+                    current.close();
+                    current = null;
+                    if (remaining > 0) {
+                        throw new IOException(currentName + " changed while being copied");
+                    }
+                    tar.closeArchiveEntry();
+                }
+            } else if (files.hasNext()) {
+                Map.Entry<String, File> next = files.next();
+                TarArchiveEntry entry = new TarArchiveEntry(next.getValue(), next.getKey());
+                entry.setMode(getMode(next.getValue(), entry.getMode()));
+                tar.putArchiveEntry(entry);
+                currentName = next.getKey();
+                remaining = entry.getSize();
+                current = new FileInputStream(next.getValue());
+            } else if (!finished) {
+                tar.close();
+                finished = true;
+            } else {
+                return false;
+            }
+            data = buffer.toByteArray();
+            pos = 0;
+            return true;
+        }
+
+        // Keep the permissions of the file, e.g. of scripts, instead of the default mode 0644
+        private int getMode(File file, int defaultMode) throws IOException {
+            int permissions = 0;
+            try {
+                for (PosixFilePermission permission : Files.getPosixFilePermissions(file.toPath())) {
+                    // The permissions are declared from owner read (0400) to others execute (0001)
+                    permissions |= 0400 >> permission.ordinal();
+                }
+            } catch (UnsupportedOperationException exp) {
+                // No POSIX file system, so only the executable flag is known
+                permissions = file.canExecute() ? 0755 : defaultMode & 0777;
+            }
+            return (defaultMode & ~0777) | permissions;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import io.jshift.kit.build.service.docker.access.DockerAccess;
 import io.jshift.kit.build.service.docker.access.DockerConnectionDetector;
 import io.jshift.kit.build.service.docker.access.DockerMachine;
 import io.jshift.kit.build.service.docker.access.hc.DockerAccessWithHcClient;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolConfig;
 import io.jshift.kit.build.service.docker.config.DockerMachineConfiguration;
 import io.jshift.kit.common.KitLogger;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -32,7 +33,7 @@ public class DockerAccessFactory {
                     dockerConnectionDetector.detectConnectionParameter(dockerAccessContext.getDockerHost(), dockerAccessContext.getCertPath());
             DockerAccess access = new DockerAccessWithHcClient(connectionParam.getUrl(),
                     connectionParam.getCertPath(),
-                    dockerAccessContext.getMaxConnections(),
+                    getConnectionPoolConfig(dockerAccessContext),
                     dockerAccessContext.getLog());
             access.start();
             setDockerHostAddressProperty(dockerAccessContext, connectionParam.getUrl());
@@ -43,6 +44,13 @@ public class DockerAccessFactory {
 
     }
 
+    private ConnectionPoolConfig getConnectionPoolConfig(DockerAccessContext dockerAccessContext) {
+        if (dockerAccessContext.getConnectionPool() != null) {
+            return dockerAccessContext.getConnectionPool();
+        }
+        return new ConnectionPoolConfig.Builder().maxConnections(dockerAccessContext.getMaxConnections()).build();
+    }
+
     private DockerConnectionDetector createDockerConnectionDetector(DockerAccessContext dockerAccessContext, KitLogger log) {
         return new DockerConnectionDetector(getDockerHostProviders(dockerAccessContext, log));
     }
@@ -121,6 +129,8 @@ public class DockerAccessFactory {
 
         private int maxConnections;
 
+        private ConnectionPoolConfig connectionPool;
+
         private KitLogger log;
 
         public DockerAccessContext() {
@@ -158,6 +168,10 @@ public class DockerAccessFactory {
             return maxConnections;
         }
 
+        public ConnectionPoolConfig getConnectionPool() {
+            return connectionPool;
+        }
+
         public KitLogger getLog() {
             return log;
         }
@@ -214,6 +228,11 @@ public class DockerAccessFactory {
                 return this;
             }
 
+            public Builder connectionPool(ConnectionPoolConfig connectionPool) {
+                context.connectionPool = connectionPool;
+                return this;
+            }
+
             public Builder log(KitLogger log) {
                 context.log = log;
                 return this;
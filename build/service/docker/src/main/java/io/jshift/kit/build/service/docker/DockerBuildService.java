@@ -2,6 +2,7 @@ package io.jshift.kit.build.service.docker;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -90,11 +91,13 @@ public class DockerBuildService implements BuildService {
         if (!tags.isEmpty()) {
             log.info("%s: Tag with %s", imageConfig.getDescription(), String.join(",",tags));
 
+            List<String> targetImages = new ArrayList<>();
             for (String tag : tags) {
                 if (tag != null) {
-                    docker.tag(imageName, new ImageName(imageName, tag).getFullName(), true);
+                    targetImages.add(new ImageName(imageName, tag).getFullName());
                 }
             }
+            docker.tag(imageName, targetImages, true);
 
             log.debug("Tagging image successful!");
         }
@@ -0,0 +1,151 @@
+package io.jshift.kit.build.service.docker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.jshift.kit.build.api.model.ContainerDetails;
+import io.jshift.kit.build.api.model.Event;
+import io.jshift.kit.build.service.docker.access.DockerAccess;
+import io.jshift.kit.build.service.docker.access.DockerAccessException;
+import io.jshift.kit.build.service.docker.access.events.EventCallback;
+import io.jshift.kit.build.service.docker.access.events.EventGetHandle;
+import io.jshift.kit.common.KitLogger;
+
+/**
+ * Cache for container details, which is kept up to date by subscribing to the daemon's events.
+ * Services waiting on a container's state can query it in a loop without hitting the daemon
+ * for every check.
+ *
+ * Cached container details are dropped as soon as an event for the container or one of its
+ * networks arrives. As long as the event stream is not established, or after it broke, nothing
+ * is cached and every lookup is delegated to the daemon.
+ *
+ * A single cache is shared by all services of a {@link ServiceHub} and has to be shut down together
+ * with it. Containers removed outside of the build are also dropped from the {@link ContainerTracker},
+ * so that they are not stopped again at the end.
+ */
+public class DockerStateCache implements EventCallback {
+
+    private final DockerAccess docker;
+    private final ContainerTracker tracker;
+    private final KitLogger log;
+
+    private final Map<String, ContainerDetails> containers = new ConcurrentHashMap<>();
+
+    // Incremented for every event, so that a lookup running concurrently with an event doesn't cache stale state
+    private final AtomicLong generation = new AtomicLong();
+
+    // Whether the event stream is open, only then results are cached
+    private volatile boolean active;
+
+    private EventGetHandle subscription;
+    private boolean subscribed;
+
+    public DockerStateCache(DockerAccess docker, KitLogger log) {
+        this(docker, null, log);
+    }
+
+    public DockerStateCache(DockerAccess docker, ContainerTracker tracker, KitLogger log) {
+        this.docker = docker;
+        this.tracker = tracker;
+        this.log = log;
+    }
+
+    /**
+     * Get the details of a container
+     *
+     * @param containerIdOrName container id or name
+     * @return the container details or <code>null</code> if no such container exists
+     * @throws DockerAccessException if the container cannot be inspected
+     */
+    public ContainerDetails getContainer(String containerIdOrName) throws DockerAccessException {
+        subscribe();
+        ContainerDetails ret = containers.get(containerIdOrName);
+        if (ret != null) {
+            return ret;
+        }
+        boolean cacheable = active;
+        long current = generation.get();
+        ret = docker.getContainer(containerIdOrName);
+        if (ret != null && cacheable && current == generation.get()) {
+            containers.put(containerIdOrName, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Stop receiving events and clear the cache
+     */
+    public synchronized void shutdown() {
+        if (subscription != null) {
+            subscription.finish();
+            subscription = null;
+        }
+        invalidateAll();
+    }
+
+    // Whether lookups are currently served from the cache, visible for testing
+    boolean isActive() {
+        return active;
+    }
+
+    // =================================================================================
+    // Event callback
+
+    @Override
+    public void open() {
+        log.debug("Receiving docker events for tracking container states");
+        active = true;
+    }
+
+    @Override
+    public void event(Event event) {
+        generation.incrementAndGet();
+        String type = event.getType();
+        if (Event.TYPE_CONTAINER.equals(type)) {
+            invalidateContainer(event.getActorId(), event.getAttributes().get("name"));
+            if (tracker != null && "destroy".equals(event.getAction()) && event.getActorId() != null &&
+                tracker.removeContainer(event.getActorId()) != null) {
+                log.debug("Container %s has been removed, not stopping it at the end", event.getActorId());
+            }
+        } else if (Event.TYPE_NETWORK.equals(type)) {
+            invalidateContainer(event.getAttributes().get("container"), null);
+        }
+    }
+
+    @Override
+    public void error(String error) {
+        log.debug("Docker events not available, querying container states directly: %s", error);
+    }
+
+    @Override
+    public void close() {
+        active = false;
+        invalidateAll();
+    }
+
+    // =================================================================================
+
+    private synchronized void subscribe() {
+        if (!subscribed) {
+            subscribed = true;
+            subscription = docker.getEventsAsync(this, "type", Event.TYPE_CONTAINER, "type", Event.TYPE_NETWORK);
+        }
+    }
+
+    private void invalidateContainer(String id, String name) {
+        if (id == null && name == null) {
+            containers.clear();
+            return;
+        }
+        containers.entrySet().removeIf(entry ->
+            (name != null && name.equals(entry.getKey())) ||
+            (id != null && (id.startsWith(entry.getKey()) || id.startsWith(entry.getValue().getId()))));
+    }
+
+    private void invalidateAll() {
+        generation.incrementAndGet();
+        containers.clear();
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Set;
 
 import io.jshift.kit.build.api.model.Container;
+import io.jshift.kit.build.api.model.ContainerDetails;
 import io.jshift.kit.build.api.model.Network;
 import io.jshift.kit.build.service.docker.access.DockerAccess;
 import io.jshift.kit.build.service.docker.access.DockerAccessException;
@@ -18,6 +19,9 @@ public class QueryService {
     // Access to docker daemon & logger
     private DockerAccess docker;
 
+    // Container states tracked via docker events, null if containers are always inspected directly
+    private DockerStateCache stateCache;
+
     /**
      * Constructor which gets its dependencies as args)
      *  @param docker remote access to docker daemon
@@ -26,6 +30,18 @@ public class QueryService {
         this.docker = docker;
     }
 
+    /**
+     * Constructor for a query service which caches container states as long as the docker
+     * daemon's event stream is available
+     *
+     * @param docker remote access to docker daemon
+     * @param stateCache cache for container states, which is shut down by the owner
+     */
+    public QueryService(DockerAccess docker, DockerStateCache stateCache) {
+        this.docker = docker;
+        this.stateCache = stateCache;
+    }
+
     /**
      * Get container by id
      *
@@ -48,7 +64,20 @@ public class QueryService {
      * @throws DockerAccessException in case of an remote error
      */
     public Container getContainer(final String containerIdOrName) throws DockerAccessException {
-        return docker.getContainer(containerIdOrName);
+        return getContainerDetails(containerIdOrName);
+    }
+
+    /**
+     * Get the details of a container, including its state and health. Lookups are served from
+     * a cache which is kept up to date by docker events, so this can be called in a loop when
+     * waiting for a state change.
+     *
+     * @param containerIdOrName name or id of container to lookup
+     * @return the container details or <code>null</code> if no container is available.
+     * @throws DockerAccessException in case of an remote error
+     */
+    public ContainerDetails getContainerDetails(final String containerIdOrName) throws DockerAccessException {
+        return stateCache != null ? stateCache.getContainer(containerIdOrName) : docker.getContainer(containerIdOrName);
     }
 
     /**
@@ -3,6 +3,8 @@ package io.jshift.kit.build.service.docker;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import io.jshift.kit.build.api.auth.AuthConfig;
@@ -54,16 +56,13 @@ public class RegistryService {
 
                 AuthConfig authConfig = createAuthConfig(true, new ImageName(name).getUser(), configuredRegistry, registryConfig);
 
+                List<String> tags = skipTag ? Collections.<String>emptyList() : buildConfig.getTags();
                 long start = System.currentTimeMillis();
-                docker.pushImage(name, authConfig, configuredRegistry, retries);
-                log.info("Pushed %s in %s", name, EnvUtil.formatDurationTill(start));
-
-                if (!skipTag) {
-                    for (String tag : imageConfig.getBuildConfiguration().getTags()) {
-                        if (tag != null) {
-                            docker.pushImage(new ImageName(name, tag).getFullName(), authConfig, configuredRegistry, retries);
-                        }
-                    }
+                docker.pushImage(name, tags, authConfig, configuredRegistry, retries);
+                if (tags.isEmpty()) {
+                    log.info("Pushed %s in %s", name, EnvUtil.formatDurationTill(start));
+                } else {
+                    log.info("Pushed %s with tags %s in %s", name, EnvUtil.stringJoin(tags, ","), EnvUtil.formatDurationTill(start));
                 }
             }
         }
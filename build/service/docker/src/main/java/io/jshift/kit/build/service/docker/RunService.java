@@ -104,9 +104,25 @@ public class RunService {
      * @throws DockerAccessException if access to the docker backend fails
      */
     public String execInContainer(String containerId, String command, ImageConfiguration imageConfiguration)
+        throws DockerAccessException, ExecException {
+        return execInContainer(containerId, Arrays.asList(EnvUtil.splitOnSpaceWithEscape(command)), imageConfiguration);
+    }
+
+    /**
+     * Create and start a Exec container with the given command, given as list of arguments
+     * which are passed as they are without any splitting.
+     *
+     * @param containerId container id to run exec command against
+     * @param command command and its arguments
+     * @param imageConfiguration configuration of the container's image
+     * @return the exec container id
+     *
+     * @throws DockerAccessException if access to the docker backend fails
+     */
+    public String execInContainer(String containerId, List<String> command, ImageConfiguration imageConfiguration)
         throws DockerAccessException, ExecException {
         Arguments arguments = new Arguments();
-        arguments.setExec(Arrays.asList(EnvUtil.splitOnSpaceWithEscape(command)));
+        arguments.setExec(command);
         String execContainerId = docker.createExecContainer(containerId, arguments);
         docker.startExecContainer(execContainerId, logConfig.createSpec(containerId, imageConfiguration));
 
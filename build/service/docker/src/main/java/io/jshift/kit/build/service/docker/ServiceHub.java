@@ -35,6 +35,9 @@ public class ServiceHub {
 
     private final DockerAccess dockerAccess;
 
+    // Container states shared by all services, subscribed to the docker events on first use
+    private final DockerStateCache stateCache;
+
     private final QueryService queryService;
     private final RunService runService;
     private final RegistryService registryService;
@@ -55,7 +58,8 @@ public class ServiceHub {
         archiveService = new ArchiveService(dockerAssemblyManager, logger);
 
         if (dockerAccess != null) {
-            queryService = new QueryService(dockerAccess);
+            stateCache = new DockerStateCache(dockerAccess, containerTracker, logger);
+            queryService = new QueryService(dockerAccess, stateCache);
             registryService = new RegistryService(dockerAccess, logger);
             runService = new RunService(dockerAccess, queryService, containerTracker, logSpecFactory, logger);
             buildService = new BuildService(dockerAccess, queryService, registryService, archiveService, logger);
@@ -63,6 +67,7 @@ public class ServiceHub {
             watchService = new WatchService(archiveService, buildService, dockerAccess, mojoExecutionService, queryService, runService, logger);
             waitService = new WaitService(dockerAccess, queryService, logger);
         } else {
+            stateCache = null;
             queryService = null;
             registryService = null;
             runService = null;
@@ -173,6 +178,17 @@ public class ServiceHub {
         return mojoExecutionService;
     }
 
+    /**
+     * Release the resources held by the services, i.e. stop receiving docker events.
+     * Must be called by the owner of the hub when it is not used anymore, before shutting down the docker access.
+     * Shutting down the docker access alone ends the event stream, too, but keeps the cache until then.
+     */
+    public void shutdown() {
+        if (stateCache != null) {
+            stateCache.shutdown();
+        }
+    }
+
     private synchronized void checkDockerAccessInitialization() {
         if (dockerAccess == null) {
             throw new IllegalStateException("Service hub created without a docker access to a docker daemon");
@@ -27,6 +27,11 @@ public class ServiceHubFactory {
 
     private LogOutputSpecFactory logOutputSpecFactory;
 
+    /**
+     * Create a service hub for a single execution. The caller owns the hub and must call
+     * {@link ServiceHub#shutdown()} when the execution is done, before shutting down the docker access.
+     * Hubs of parallel executions share this factory, so it can't shut them down itself.
+     */
     public ServiceHub createServiceHub(MavenProject project, MavenSession session, DockerAccess access, KitLogger log, LogOutputSpecFactory logSpecFactory) {
         this.logOutputSpecFactory = logSpecFactory;
         return new ServiceHub(access, containerTracker, pluginManager, dockerAssemblyManager, project, session,
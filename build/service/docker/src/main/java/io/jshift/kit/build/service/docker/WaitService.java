@@ -58,7 +58,7 @@ public class WaitService {
         }
 
         String logLine = extractCheckerLog(checkers);
-        ContainerRunningPrecondition precondition = new ContainerRunningPrecondition(dockerAccess, containerId);
+        ContainerRunningPrecondition precondition = new ContainerRunningPrecondition(queryService, containerId);
         try {
             long waited = WaitUtil.wait(precondition, timeout, checkers);
             log.info("%s: Waited %s %d ms", imageConfig.getDescription(), logLine, waited);
@@ -118,7 +118,7 @@ public class WaitService {
         }
 
         if (wait.getHealthy() == Boolean.TRUE) {
-            checkers.add(new HealthCheckChecker(dockerAccess, containerId, imageConfig.getDescription(), log));
+            checkers.add(new HealthCheckChecker(queryService, containerId, imageConfig.getDescription(), log));
         }
 
         if (wait.getExit() != null) {
@@ -216,18 +216,18 @@ public class WaitService {
 
     private class ContainerRunningPrecondition implements WaitUtil.Precondition {
         private final String containerId;
-        private final DockerAccess dockerAccess;
+        private final QueryService queryService;
         private Integer exitCode;
 
-        ContainerRunningPrecondition(DockerAccess dockerAccess, String containerId) {
-            this.dockerAccess = dockerAccess;
+        ContainerRunningPrecondition(QueryService queryService, String containerId) {
+            this.queryService = queryService;
             this.containerId = containerId;
         }
 
         @Override
         public boolean isOk() {
             try {
-                exitCode = dockerAccess.getContainer(containerId).getExitCode();
+                exitCode = queryService.getMandatoryContainer(containerId).getExitCode();
                 return exitCode == null;
             } catch (DockerAccessException e) {
                 return false;
@@ -1,6 +1,5 @@
 package io.jshift.kit.build.service.docker;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -121,22 +120,23 @@ public class WatchService {
         final ImageConfiguration imageConfig = watcher.getImageConfiguration();
 
         final AssemblyFiles files = archiveService.getAssemblyFiles(imageConfig, mojoParameters);
+        final ContainerFileSync sync = new ContainerFileSync(dockerAccess, runService, files.getAssemblyDirectory(),
+                                                             watcher.getWatchContext().getCopyDebounce());
         return new Runnable() {
             @Override
             public void run() {
-                List<AssemblyFiles.Entry> entries = files.getUpdatedEntriesAndRefresh();
-                if (entries != null && entries.size() > 0) {
-                    try {
+                try {
+                    sync.addChanges(files.getUpdatedEntriesAndRefresh(), files.getDeletedEntriesAndRefresh());
+                    if (sync.isReady()) {
                         log.info("%s: Assembly changed. Copying changed files to container ...", imageConfig.getDescription());
 
-                        File changedFilesArchive = archiveService.createChangedFilesArchive(entries, files.getAssemblyDirectory(),
-                                imageConfig.getName(), mojoParameters);
-                        dockerAccess.copyArchive(watcher.getContainerId(), changedFilesArchive, containerBaseDir);
+                        ContainerFileSync.Result result = sync.sync(watcher.getContainerId(), containerBaseDir, imageConfig);
+                        log.info("%s: Files %s", imageConfig.getDescription(), result);
                         callPostExec(watcher);
-                    } catch (IOException | ExecException e) {
-                        log.error("%s: Error when copying files to container %s: %s",
-                                  imageConfig.getDescription(), watcher.getContainerId(), e.getMessage());
                     }
+                } catch (IOException | ExecException e) {
+                    log.error("%s: Error when copying files to container %s: %s",
+                              imageConfig.getDescription(), watcher.getContainerId(), e.getMessage());
                 }
             }
         };
@@ -421,6 +421,8 @@ public class WatchService {
 
         private String containerNamePattern;
 
+        private long copyDebounce = ContainerFileSync.DEFAULT_DEBOUNCE;
+
         public WatchContext() {
         }
 
@@ -480,6 +482,10 @@ public class WatchService {
             return containerNamePattern;
         }
 
+        public long getCopyDebounce() {
+            return copyDebounce;
+        }
+
         public static class Builder {
 
             private WatchContext context;
@@ -587,6 +593,11 @@ public class WatchService {
                 return this;
             }
 
+            public Builder copyDebounce(long copyDebounce) {
+                context.copyDebounce = copyDebounce;
+                return this;
+            }
+
 
             public WatchContext build() {
                 return context;
@@ -7,6 +7,8 @@ import io.jshift.kit.build.api.model.ExecDetails;
 import io.jshift.kit.build.api.model.Network;
 import io.jshift.kit.build.api.model.NetworkCreateConfig;
 import io.jshift.kit.build.api.model.VolumeCreateConfig;
+import io.jshift.kit.build.service.docker.access.events.EventCallback;
+import io.jshift.kit.build.service.docker.access.events.EventGetHandle;
 import io.jshift.kit.build.service.docker.access.log.LogCallback;
 import io.jshift.kit.build.service.docker.access.log.LogGetHandle;
 import io.jshift.kit.build.service.docker.access.log.LogOutputSpec;
@@ -14,6 +16,8 @@ import io.jshift.kit.config.image.build.ArchiveCompression;
 import io.jshift.kit.config.image.build.Arguments;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -138,6 +142,18 @@ public interface DockerAccess {
     void copyArchive(String containerId, File archive, String targetPath)
             throws DockerAccessException;
 
+    /**
+     * Copy an archive (must be a tar) into a running container, reading it from a stream
+     * while it is sent. This avoids creating an archive file for every copy.
+     *
+     * @param containerId container to copy into
+     * @param archive stream providing the tar archive. It is read until its end and then closed.
+     * @param targetPath target path to use
+     * @throws DockerAccessException if the archive could not be copied
+     */
+    void copyArchive(String containerId, InputStream archive, String targetPath)
+            throws DockerAccessException;
+
     /**
      * Get logs for a container up to now synchronously.
      *
@@ -156,6 +172,17 @@ public interface DockerAccess {
      */
     LogGetHandle getLogAsync(String containerId, LogCallback callback);
 
+    /**
+     * Subscribe to the events of the docker daemon. This call starts a thread in the background which
+     * receives the events as they happen. It returns a handle which can be used to stop the subscription.
+     *
+     * @param callback to call for each event received
+     * @param filter filters given as key value pairs, e.g. "type", "container" or "label". Values for the
+     *               same key are combined with "or", different keys with "and"
+     * @return handle for managing the lifecycle of the thread
+     */
+    EventGetHandle getEventsAsync(EventCallback callback, String ... filter);
+
     /**
      * Remove a container with the given id
      *
@@ -174,6 +201,17 @@ public interface DockerAccess {
      */
     void loadImage(String image, File tarArchive) throws DockerAccessException;
 
+    /**
+     * Load an image from a stream, which is sent to the daemon while being read. This allows
+     * to pipe an image saved from one daemon directly into another one.
+     *
+     * @param image the image to load.
+     * @param source stream providing the (possibly compressed) archive. It is not closed.
+     * @return SHA-256 digest of the data sent, as hex string
+     * @throws DockerAccessException if the image couldn't be loaded.
+     */
+    String loadImage(String image, InputStream source) throws DockerAccessException;
+
     /**
      * Pull an image from a remote registry and store it locally.
      *
@@ -199,6 +237,22 @@ public interface DockerAccess {
      */
     void pushImage(String image, AuthConfig authConfig, String registry, int retries) throws DockerAccessException;
 
+    /**
+     * Push an image together with additional tags of the same repository. The image itself is pushed first,
+     * which uploads all layers. The additional tags are pushed afterwards in parallel, which only transfers
+     * their manifests since the layers exist in the registry already.
+     *
+     * Temporary tags for the registry are created and removed like for {@link #pushImage(String, AuthConfig, String, int)}.
+     *
+     * @param image image name to push
+     * @param tags additional tags to push, <code>null</code> entries and the image's own tag are ignored
+     * @param authConfig authentication configuration
+     * @param registry optional registry to which the image should be pushed.
+     * @param retries optional number of times each push should be retried on a 500 error
+     * @throws DockerAccessException in case pushing fails
+     */
+    void pushImage(String image, List<String> tags, AuthConfig authConfig, String registry, int retries) throws DockerAccessException;
+
     /**
      * Create an docker image from a given archive
      *
@@ -220,6 +274,16 @@ public interface DockerAccess {
      */
     void tag(String sourceImage, String targetImage, boolean force) throws DockerAccessException;
 
+    /**
+     * Alias an image with multiple names at once, with the tag requests sent in parallel
+     *
+     * @param sourceImage full name (including tag) of the image to alias
+     * @param targetImages the alias names
+     * @param force forced tagging
+     * @throws DockerAccessException if the original image doesn't exist or any of the tags cannot be added
+     */
+    void tag(String sourceImage, List<String> targetImages, boolean force) throws DockerAccessException;
+
     /**
      * Remove an image from this docker installation
      *
@@ -236,9 +300,21 @@ public interface DockerAccess {
      * @param image image to save
      * @param filename target filename
      * @param compression compression to use for the archive
-     * @throws DockerAccessException if an image cannot be removed
+     * @return SHA-256 digest of the written archive, as hex string
+     * @throws DockerAccessException if an image cannot be saved
+     */
+    String saveImage(String image, String filename, ArchiveCompression compression) throws DockerAccessException;
+
+    /**
+     * Save an image to a stream. The archive is compressed while it is received from the daemon.
+     *
+     * @param image image to save
+     * @param target stream to write the archive to. It is not closed.
+     * @param compression compression to use for the archive
+     * @return SHA-256 digest of the written archive, as hex string
+     * @throws DockerAccessException if an image cannot be saved
      */
-    void saveImage(String image, String filename, ArchiveCompression compression) throws DockerAccessException;
+    String saveImage(String image, OutputStream target, ArchiveCompression compression) throws DockerAccessException;
 
     /**
      * List all networks
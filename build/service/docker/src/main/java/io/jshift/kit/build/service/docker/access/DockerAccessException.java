@@ -10,6 +10,9 @@ import java.io.IOException;
  */
 public class DockerAccessException extends IOException {
 
+    // HTTP status of the failure as reported by the daemon or the registry, 0 if unknown
+    private int statusCode;
+
     /**
      * Constructor
      *
@@ -32,6 +35,26 @@ public class DockerAccessException extends IOException {
         super(String.format(format, args), cause);
     }
 
+    /**
+     * Set the HTTP status which is behind this failure
+     *
+     * @param statusCode HTTP status, 0 if unknown
+     * @return this exception
+     */
+    public DockerAccessException withStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+        return this;
+    }
+
+    /**
+     * Get the HTTP status which is behind this failure, e.g. 401 if a registry rejected the credentials
+     *
+     * @return HTTP status, 0 if unknown
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
     @Override
     public String getMessage() {
         if (getCause() != null) {
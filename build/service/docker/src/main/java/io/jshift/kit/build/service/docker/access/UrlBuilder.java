@@ -89,6 +89,12 @@ public final class UrlBuilder {
         return builder.build();
     }
 
+    public String events(String ... filter) {
+        Builder builder = u("events");
+        addFilters(builder, filter);
+        return builder.build();
+    }
+
     public String loadImage() {
         return u("images/load")
             .build();
@@ -219,7 +225,8 @@ public final class UrlBuilder {
            }
            JsonObject filters = new JsonObject();
            for (int i = 0; i < filter.length; i +=2) {
-               JsonArray value = new JsonArray();
+               // Values given for the same key are combined
+               JsonArray value = filters.has(filter[i]) ? filters.getAsJsonArray(filter[i]) : new JsonArray();
                value.add(filter[i+1]);
                filters.add(filter[i],value);
            }
@@ -19,12 +19,9 @@ public class EntityStreamReaderUtil {
     public static void processJsonStream(JsonEntityResponseHandler handler, InputStream stream) throws IOException {
         handler.start();
         try(JsonReader json = new JsonReader(new InputStreamReader(stream))) {
-            JsonParser parser = new JsonParser();
-
             json.setLenient(true);
             while (json.peek() != JsonToken.END_DOCUMENT) {
-                JsonElement element = parser.parse(json);
-                handler.process(element.getAsJsonObject());
+                handler.process(json);
             }
         } finally {
             handler.stop();
@@ -33,6 +30,20 @@ public class EntityStreamReaderUtil {
 
     public interface JsonEntityResponseHandler {
         void process(JsonObject toProcess) throws DockerAccessException;
+
+        /**
+         * Process the next JSON object of the stream. By default the object is parsed into a tree
+         * for {@link #process(JsonObject)}. Handlers which get many small messages can override this
+         * for reading the object's tokens directly.
+         *
+         * @param reader reader positioned before the next object
+         * @throws IOException if the object cannot be read or handled
+         */
+        default void process(JsonReader reader) throws IOException {
+            JsonElement element = new JsonParser().parse(reader);
+            process(element.getAsJsonObject());
+        }
+
         void start();
         void stop();
     }
@@ -0,0 +1,114 @@
+package io.jshift.kit.build.service.docker.access.chunked;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+import io.jshift.kit.common.KitLogger;
+
+/**
+ * Collects the progress of image layers during a pull or push and hands it over to the logger
+ * at a fixed frame rate.
+ *
+ * The daemon sends a progress message for every few kilobytes transferred, which adds up to
+ * thousands of messages per second for images with many layers. Only the latest state per layer
+ * is kept, and only layers which changed since the last frame are rendered.
+ */
+public class ProgressAggregator {
+
+    // Default time between two frames, in milliseconds
+    public static final long DEFAULT_FRAME_INTERVAL = 100;
+
+    private final KitLogger log;
+    private final long frameInterval;
+    private final LongSupplier clock;
+
+    // Latest state per layer in the order layers appeared, so that their lines stay in place
+    private final Map<String, LayerState> layers = new LinkedHashMap<>();
+    private int dirtyLayers;
+    private long lastFrame;
+
+    public ProgressAggregator(KitLogger log) {
+        this(log, DEFAULT_FRAME_INTERVAL, System::currentTimeMillis);
+    }
+
+    ProgressAggregator(KitLogger log, long frameInterval, LongSupplier clock) {
+        this.log = log;
+        this.frameInterval = frameInterval;
+        this.clock = clock;
+    }
+
+    /**
+     * Start a new progress display
+     */
+    public void start() {
+        layers.clear();
+        dirtyLayers = 0;
+        lastFrame = clock.getAsLong();
+        log.progressStart();
+    }
+
+    /**
+     * Record the progress of a layer, which is rendered with the next frame
+     *
+     * @param layerId layer
+     * @param status status like "Downloading" or "Pull complete"
+     * @param progress progress bar as sent by the daemon, might be empty
+     */
+    public void update(String layerId, String status, String progress) {
+        LayerState layer = layers.get(layerId);
+        if (layer == null) {
+            layer = new LayerState();
+            layers.put(layerId, layer);
+        } else if (Objects.equals(layer.status, status) && Objects.equals(layer.progress, progress)) {
+            return;
+        }
+        layer.status = status;
+        layer.progress = progress;
+        if (!layer.dirty) {
+            layer.dirty = true;
+            dirtyLayers++;
+        }
+
+        long now = clock.getAsLong();
+        if (now - lastFrame >= frameInterval) {
+            render();
+            lastFrame = now;
+        }
+    }
+
+    /**
+     * Render all pending updates, e.g. before other output is logged
+     */
+    public void flush() {
+        if (dirtyLayers > 0) {
+            render();
+        }
+    }
+
+    /**
+     * Render all pending updates and end the progress display
+     */
+    public void finish() {
+        flush();
+        log.progressFinished();
+    }
+
+    private void render() {
+        for (Map.Entry<String, LayerState> entry : layers.entrySet()) {
+            LayerState layer = entry.getValue();
+            if (layer.dirty) {
+                log.progressUpdate(entry.getKey(), layer.status, layer.progress);
+                layer.dirty = false;
+            }
+        }
+        dirtyLayers = 0;
+    }
+
+    private static class LayerState {
+        private String status;
+        private String progress;
+        private boolean dirty;
+    }
+}
@@ -1,62 +1,216 @@
 package io.jshift.kit.build.service.docker.access.chunked;
 
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.jshift.kit.build.service.docker.access.DockerAccessException;
 import io.jshift.kit.common.KitLogger;
 import io.jshift.kit.build.service.docker.access.DockerAccessException;
 
+import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
+
 public class PullOrPushResponseJsonHandler implements EntityStreamReaderUtil.JsonEntityResponseHandler {
 
+    // Error code of a registry which rejected the credentials, as formatted by the daemon
+    private static final String UNAUTHORIZED_PREFIX = "unauthorized:";
+
     private final KitLogger log;
+    private final ProgressAggregator progress;
 
     public PullOrPushResponseJsonHandler(KitLogger log) {
+        this(log, new ProgressAggregator(log));
+    }
+
+    PullOrPushResponseJsonHandler(KitLogger log, ProgressAggregator progress) {
         this.log = log;
+        this.progress = progress;
     }
 
     @Override
     public void process(JsonObject json) throws DockerAccessException {
-        if (json.has("progressDetail")) {
-            log.progressUpdate(getStringOrEmpty(json, "id"),
-                               getStringOrEmpty(json, "status"),
-                               getStringOrEmpty(json, "progress"));
-        } else if (json.has("error")) {
-            throwDockerAccessException(json);
+        Message message = new Message();
+        for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
+            JsonElement value = entry.getValue();
+            switch (entry.getKey()) {
+                case "progressDetail":
+                    message.progressDetail = true;
+                    break;
+                case "errorDetail":
+                    if (value.isJsonObject()) {
+                        JsonObject detail = value.getAsJsonObject();
+                        message.errorDetail = detail.has("message") ? detail.get("message").getAsString() : null;
+                        message.errorCode = detail.has("code") ? detail.get("code").getAsInt() : 0;
+                    }
+                    break;
+                default:
+                    message.set(entry.getKey(), value.isJsonPrimitive() ? value.getAsString() : null, value);
+            }
+        }
+        handle(message);
+    }
+
+    // Read the message token by token, since a pull consists of thousands of small progress messages
+    @Override
+    public void process(JsonReader reader) throws IOException {
+        Message message = new Message();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "progressDetail":
+                    message.progressDetail = true;
+                    reader.skipValue();
+                    break;
+                case "errorDetail":
+                    readErrorDetail(reader, message);
+                    break;
+                default:
+                    if (reader.peek() == JsonToken.STRING || reader.peek() == JsonToken.NUMBER || reader.peek() == JsonToken.BOOLEAN) {
+                        message.set(name, reader.nextString(), null);
+                    } else {
+                        message.set(name, null, new JsonParser().parse(reader));
+                    }
+            }
+        }
+        reader.endObject();
+        handle(message);
+    }
+
+    private void handle(Message message) throws DockerAccessException {
+        if (message.progressDetail) {
+            progress.update(orEmpty(message.id), orEmpty(message.status), orEmpty(message.progress));
+        } else if (message.error != null) {
+            throwDockerAccessException(message);
         } else {
+            progress.flush();
             log.progressFinished();
-            logInfoMessage(json);
+            logInfoMessage(message);
             log.progressStart();
         }
     }
 
-    private void logInfoMessage(JsonObject json) {
+    private void logInfoMessage(Message message) {
         String value;
-        if (json.has("stream")) {
-            value = json.get("stream").getAsString().replaceFirst("\n$", "");
-        } else if (json.has("status")) {
-            value = json.get("status").getAsString();
+        if (message.stream != null) {
+            value = message.stream.replaceFirst("\n$", "");
+        } else if (message.status != null) {
+            value = message.status;
         } else {
-            value = json.toString();
+            value = message.toJson().toString();
         }
         log.info("%s", value);
     }
 
-    private void throwDockerAccessException(JsonObject json) throws DockerAccessException {
-        String msg = json.get("error").getAsString().trim();
-        String details = json.getAsJsonObject("errorDetail").get("message").getAsString().trim();
-        throw new DockerAccessException("%s %s", msg, (msg.equals(details) ? "" : "(" + details + ")"));
+    private void throwDockerAccessException(Message message) throws DockerAccessException {
+        String msg = message.error.trim();
+        String details = message.errorDetail != null ? message.errorDetail.trim() : msg;
+        throw new DockerAccessException("%s %s", msg, (msg.equals(details) ? "" : "(" + details + ")"))
+            .withStatusCode(getStatusCode(message));
+    }
+
+    // The daemon sets the code only for some failures. Registry errors are reported with their error code
+    // as prefix, e.g. "unauthorized: authentication required" for the registry's UNAUTHORIZED (401).
+    private int getStatusCode(Message message) {
+        if (message.errorCode != 0) {
+            return message.errorCode;
+        }
+        String details = message.errorDetail != null ? message.errorDetail : message.error;
+        return details.trim().toLowerCase().startsWith(UNAUTHORIZED_PREFIX) ? HTTP_UNAUTHORIZED : 0;
     }
 
-    private String getStringOrEmpty(JsonObject json, String what) {
-        return json.has(what) ? json.get(what).getAsString() : "";
+    // Read the "message" and "code" fields of an error detail object
+    private void readErrorDetail(JsonReader reader, Message message) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if (name.equals("message")) {
+                message.errorDetail = reader.nextString();
+            } else if (name.equals("code") && reader.peek() == JsonToken.NUMBER) {
+                message.errorCode = reader.nextInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private String orEmpty(String value) {
+        return value != null ? value : "";
     }
 
     @Override
     public void start() {
-        log.progressStart();
+        progress.start();
     }
 
     @Override
     public void stop() {
-        log.progressFinished();
+        progress.finish();
+    }
+
+    // Fields of a single message sent by the daemon
+    private static class Message {
+        private String id;
+        private String status;
+        private String progress;
+        private String stream;
+        private String error;
+        private String errorDetail;
+        private int errorCode;
+        private boolean progressDetail;
+
+        // Any other fields, only kept for logging unknown messages
+        private JsonObject other;
+
+        void set(String name, String value, JsonElement element) {
+            switch (name) {
+                case "id":
+                    id = value;
+                    break;
+                case "status":
+                    status = value;
+                    break;
+                case "progress":
+                    progress = value;
+                    break;
+                case "stream":
+                    stream = value;
+                    break;
+                case "error":
+                    error = value;
+                    break;
+                default:
+                    if (other == null) {
+                        other = new JsonObject();
+                    }
+                    if (element != null) {
+                        other.add(name, element);
+                    } else {
+                        other.addProperty(name, value);
+                    }
+            }
+        }
+
+        JsonObject toJson() {
+            JsonObject ret = other != null ? other : new JsonObject();
+            if (id != null) {
+                ret.addProperty("id", id);
+            }
+            if (progress != null) {
+                ret.addProperty("progress", progress);
+            }
+            return ret;
+        }
     }
 }
@@ -0,0 +1,36 @@
+package io.jshift.kit.build.service.docker.access.events;
+
+import io.jshift.kit.build.api.model.Event;
+
+/**
+ * Callback for events received from the docker daemon. All methods are called
+ * from the thread receiving the events.
+ */
+public interface EventCallback {
+
+    /**
+     * Called when the event stream has been established. Every event happening after this
+     * call is guaranteed to be delivered while the stream is open.
+     */
+    void open();
+
+    /**
+     * Receive an event
+     *
+     * @param event event received
+     */
+    void event(Event event);
+
+    /**
+     * Called when the event stream could not be established or broke
+     *
+     * @param error error description
+     */
+    void error(String error);
+
+    /**
+     * Called when the event stream is closed, either because of an error or
+     * because it was finished from the outside.
+     */
+    void close();
+}
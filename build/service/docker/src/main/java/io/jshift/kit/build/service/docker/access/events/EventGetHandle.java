@@ -0,0 +1,18 @@
+package io.jshift.kit.build.service.docker.access.events;
+
+import io.jshift.kit.build.service.docker.access.DockerAccessException;
+
+/**
+ * Handle for an event subscription running in the background
+ */
+public interface EventGetHandle {
+
+    /**
+     * Stop receiving events
+     */
+    void finish();
+
+    boolean isError();
+
+    DockerAccessException getException();
+}
@@ -0,0 +1,124 @@
+package io.jshift.kit.build.service.docker.access.events;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import io.jshift.kit.build.api.model.Event;
+import io.jshift.kit.build.service.docker.access.DockerAccessException;
+import io.jshift.kit.build.service.docker.access.chunked.EntityStreamReaderUtil;
+import io.jshift.kit.build.service.docker.helper.RequestUtil;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * Receives the event stream of a docker daemon in a background thread. Events are parsed
+ * one by one as they arrive and handed over to a callback.
+ */
+public class EventRequestor extends Thread implements EventGetHandle {
+
+    private final CloseableHttpClient client;
+    private final String url;
+    private final EventCallback callback;
+
+    private volatile DockerAccessException exception;
+    private volatile boolean finished;
+
+    // Remember for asynchronous handling so that the request can be aborted from the outside.
+    // Guarded by the lock, so that a request is never aborted after the client has been closed
+    private final Object lock = new Object();
+    private HttpUriRequest request;
+
+    /**
+     * Create a requestor which starts receiving events when started
+     *
+     * @param client HTTP client to use, which is closed when the event stream ends
+     * @param url URL of the events endpoint including all filters
+     * @param callback callback to call for each event
+     */
+    public EventRequestor(CloseableHttpClient client, String url, EventCallback callback) {
+        super("docker-events");
+        setDaemon(true);
+        this.client = client;
+        this.url = url;
+        this.callback = callback;
+    }
+
+    @Override
+    public void run() {
+        try {
+            HttpUriRequest get = RequestUtil.newGet(url);
+            synchronized (lock) {
+                if (finished) {
+                    return;
+                }
+                request = get;
+            }
+            HttpResponse response = client.execute(get);
+            StatusLine status = response.getStatusLine();
+            if (status.getStatusCode() != 200) {
+                exception = new DockerAccessException("Error while requesting events (%s)", status);
+                callback.error(exception.getMessage());
+                return;
+            }
+            callback.open();
+            try (InputStream is = response.getEntity().getContent()) {
+                EntityStreamReaderUtil.processJsonStream(new EventJsonHandler(), is);
+            }
+        } catch (IOException | JsonParseException e) {
+            if (!finished) {
+                exception = new DockerAccessException(e, "Error while receiving events");
+                callback.error("Error while receiving events: " + e);
+            }
+        } finally {
+            synchronized (lock) {
+                request = null;
+            }
+            callback.close();
+            try {
+                client.close();
+            } catch (IOException e) {
+                // Nothing which can be done here
+            }
+        }
+    }
+
+    @Override
+    public void finish() {
+        synchronized (lock) {
+            finished = true;
+            if (request != null) {
+                request.abort();
+                request = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean isError() {
+        return exception != null;
+    }
+
+    @Override
+    public DockerAccessException getException() {
+        return exception;
+    }
+
+    private class EventJsonHandler implements EntityStreamReaderUtil.JsonEntityResponseHandler {
+
+        @Override
+        public void process(JsonObject json) {
+            callback.event(new Event(json));
+        }
+
+        // Lifecycle is handled by the callback itself
+        @Override
+        public void start() {}
+
+        @Override
+        public void stop() {}
+    }
+}
@@ -2,13 +2,19 @@ package io.jshift.kit.build.service.docker.access.hc;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import io.jshift.kit.build.service.docker.access.hc.http.HttpRequestException;
 import io.jshift.kit.build.service.docker.access.hc.util.ClientBuilder;
 import io.jshift.kit.build.service.docker.access.hc.util.ClientBuilder;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolStats;
+import io.jshift.kit.common.KitMetrics;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
@@ -20,18 +26,33 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.FileEntity;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 
 public class ApacheHttpClientDelegate {
 
+    // Requests which stream their request or response body and hence hold a connection for a long time:
+    // build, pull, push, load, save, logs, attach, archive up- and download, export and exec
+    private static final Pattern STREAMING_REQUEST_PATH = Pattern.compile(
+        ".*/(build|images/create|images/load|images/get|images/.+/(push|get)|" +
+        "containers/[^/]+/(logs|attach|archive|export)|exec/[^/]+/start)$");
+
+    // Parts of the request path which are replaced to get a stable operation name for metrics:
+    // the API version, ids of containers, execs, networks and volumes, and image names
+    private static final Pattern API_VERSION_PREFIX = Pattern.compile("^/v[0-9.]+");
+    private static final Pattern ID_SEGMENT = Pattern.compile("/(containers|exec|networks|volumes)/(?!(create|json|prune)$)[^/]+");
+    private static final Pattern IMAGE_NAME = Pattern.compile("/images/(?!(create|load|get|json|search|prune)$)(.+?)(/(json|push|tag|history|get))?$");
+
     private final ClientBuilder clientBuilder;
     private final CloseableHttpClient httpClient;
+    private final CloseableHttpClient streamingClient;
 
     public ApacheHttpClientDelegate(ClientBuilder clientBuilder, boolean pooled) throws IOException {
         this.clientBuilder = clientBuilder;
         this.httpClient = pooled ? clientBuilder.buildPooledClient() : clientBuilder.buildBasicClient();
+        this.streamingClient = pooled ? clientBuilder.buildStreamingClient() : httpClient;
     }
 
     public CloseableHttpClient createBasicClient()  {
@@ -46,8 +67,27 @@ public class ApacheHttpClientDelegate {
         return httpClient;
     }
 
+    public CloseableHttpClient getStreamingHttpClient() {
+        return streamingClient;
+    }
+
+    /**
+     * Usage of the connection pools for API calls and streaming requests
+     *
+     * @return one entry per pool, empty if no pools are used
+     */
+    public List<ConnectionPoolStats> getPoolStats() {
+        return clientBuilder.getPoolStats();
+    }
+
     public void close() throws IOException {
-        httpClient.close();
+        try {
+            httpClient.close();
+        } finally {
+            if (streamingClient != httpClient) {
+                streamingClient.close();
+            }
+        }
     }
 
     public int delete(String url, int... statusCodes) throws IOException {
@@ -65,20 +105,19 @@ public class ApacheHttpClientDelegate {
 
     public <T> T delete(String url, ResponseHandler<T> responseHandler, int... statusCodes)
         throws IOException {
-        return httpClient.execute(newDelete(url),
+        return execute(newDelete(url),
                                   new StatusCodeCheckerResponseHandler<>(responseHandler,
                                                                          statusCodes));
     }
 
     public String get(String url, int... statusCodes) throws IOException {
-        return httpClient.execute(newGet(url), new StatusCodeCheckerResponseHandler<>(
+        return execute(newGet(url), new StatusCodeCheckerResponseHandler<>(
             new BodyResponseHandler(), statusCodes));
     }
 
     public <T> T get(String url, ResponseHandler<T> responseHandler, int... statusCodes)
         throws IOException {
-        return httpClient
-            .execute(newGet(url), new StatusCodeCheckerResponseHandler<>(responseHandler, statusCodes));
+        return execute(newGet(url), new StatusCodeCheckerResponseHandler<>(responseHandler, statusCodes));
     }
     public static class BodyResponseHandler implements ResponseHandler<String> {
         @Override
@@ -101,12 +140,12 @@ public class ApacheHttpClientDelegate {
             request.addHeader(entry.getKey(), entry.getValue());
         }
 
-        return httpClient.execute(request, new StatusCodeCheckerResponseHandler<>(responseHandler, statusCodes));
+        return execute(request, new StatusCodeCheckerResponseHandler<>(responseHandler, statusCodes));
     }
 
     public <T> T post(String url, Object body, ResponseHandler<T> responseHandler,
                       int... statusCodes) throws IOException {
-        return httpClient.execute(newPost(url, body),
+        return execute(newPost(url, body),
                                   new StatusCodeCheckerResponseHandler<>(responseHandler,
                                                                          statusCodes));
     }
@@ -116,12 +155,41 @@ public class ApacheHttpClientDelegate {
     }
 
     public int put(String url, Object body, int... statusCodes) throws IOException {
-        return httpClient.execute(newPut(url, body),
+        return execute(newPut(url, body),
                                   new StatusCodeCheckerResponseHandler<>(new StatusCodeResponseHandler(), statusCodes));
     }
 
     // =========================================================================================
 
+    private <T> T execute(HttpUriRequest request, ResponseHandler<T> responseHandler) throws IOException {
+        if (!KitMetrics.isEnabled()) {
+            return getClientFor(request).execute(request, responseHandler);
+        }
+        try (KitMetrics.Span span = KitMetrics.span("docker", getOperationName(request), request.getURI().getPath())) {
+            return getClientFor(request).execute(request, responseHandler);
+        }
+    }
+
+    static String getOperationName(HttpUriRequest request) {
+        String path = request.getURI().getPath();
+        if (path == null) {
+            return request.getMethod();
+        }
+        path = API_VERSION_PREFIX.matcher(path).replaceFirst("");
+        path = ID_SEGMENT.matcher(path).replaceAll("/$1/{id}");
+        Matcher imageMatcher = IMAGE_NAME.matcher(path);
+        if (imageMatcher.find()) {
+            path = path.substring(0, imageMatcher.start()) + "/images/{name}" +
+                   (imageMatcher.group(3) != null ? imageMatcher.group(3) : "");
+        }
+        return request.getMethod() + " " + path;
+    }
+
+    private CloseableHttpClient getClientFor(HttpUriRequest request) {
+        String path = request.getURI().getPath();
+        return path != null && STREAMING_REQUEST_PATH.matcher(path).matches() ? streamingClient : httpClient;
+    }
+
     private HttpUriRequest addDefaultHeaders(HttpUriRequest req) {
         req.addHeader(HttpHeaders.ACCEPT, "*/*");
         req.addHeader(HttpHeaders.CONTENT_TYPE, "application/json");
@@ -154,6 +222,9 @@ public class ApacheHttpClientDelegate {
         if (entity != null) {
             if (entity instanceof File) {
                 request.setEntity(new FileEntity((File) entity));
+            } else if (entity instanceof InputStream) {
+                // Unknown length, so the stream is sent chunked
+                request.setEntity(new InputStreamEntity((InputStream) entity));
             } else {
                 request.setEntity(new StringEntity((String) entity, Charset.defaultCharset()));
             }
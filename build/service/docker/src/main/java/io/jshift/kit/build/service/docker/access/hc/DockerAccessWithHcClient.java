@@ -9,10 +9,17 @@ import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.io.OutputStream;
 import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -34,23 +41,33 @@ import io.jshift.kit.build.service.docker.access.UrlBuilder;
 import io.jshift.kit.build.service.docker.access.chunked.BuildJsonResponseHandler;
 import io.jshift.kit.build.service.docker.access.chunked.EntityStreamReaderUtil;
 import io.jshift.kit.build.service.docker.access.chunked.PullOrPushResponseJsonHandler;
+import io.jshift.kit.build.service.docker.access.events.EventCallback;
+import io.jshift.kit.build.service.docker.access.events.EventGetHandle;
+import io.jshift.kit.build.service.docker.access.events.EventRequestor;
 import io.jshift.kit.build.service.docker.access.hc.http.HttpClientBuilder;
 import io.jshift.kit.build.service.docker.access.hc.unix.UnixSocketClientBuilder;
 import io.jshift.kit.build.service.docker.access.hc.util.ClientBuilder;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolConfig;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolStats;
 import io.jshift.kit.build.service.docker.access.hc.win.NamedPipeClientBuilder;
 import io.jshift.kit.build.service.docker.access.log.DefaultLogCallback;
 import io.jshift.kit.build.service.docker.access.log.LogCallback;
 import io.jshift.kit.build.service.docker.access.log.LogGetHandle;
 import io.jshift.kit.build.service.docker.access.log.LogOutputSpec;
 import io.jshift.kit.build.service.docker.access.log.LogRequestor;
+import io.jshift.kit.build.service.docker.auth.AuthConfigCache;
 import io.jshift.kit.build.service.docker.helper.Timestamp;
 import io.jshift.kit.common.JsonFactory;
 import io.jshift.kit.common.KitLogger;
 import io.jshift.kit.common.util.EnvUtil;
+import io.jshift.kit.common.util.ParallelUtil;
 import io.jshift.kit.config.image.ImageName;
 import io.jshift.kit.config.image.build.ArchiveCompression;
 import io.jshift.kit.config.image.build.Arguments;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpResponseException;
@@ -64,6 +81,7 @@ import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_NO_CONTENT;
 import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 
 /**
  * Implementation using <a href="http://hc.apache.org/">Apache HttpComponents</a>
@@ -88,6 +106,13 @@ public class DockerAccessWithHcClient implements DockerAccess {
     // Base URL which is given through when using NamedPipe communication but is not really used
     private static final String NPIPE_URL = "npipe://127.0.0.1:1/";
 
+    // Buffer size and number of compression threads used when saving an image
+    private static final int IMAGE_BUFFER_SIZE = 65536;
+    private static final int COMPRESSION_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // Maximum number of tag or push requests for the tags of an image sent at the same time
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+
     // Minimal API version, independent of any feature used
     public static final String API_VERSION = "1.18";
 
@@ -97,6 +122,9 @@ public class DockerAccessWithHcClient implements DockerAccess {
     private final ApacheHttpClientDelegate delegate;
     private final UrlBuilder urlBuilder;
 
+    // Event subscriptions to finish on shutdown
+    private final List<EventRequestor> eventRequestors = new CopyOnWriteArrayList<>();
+
     /**
      * Create a new access for the given URL
      *
@@ -111,18 +139,34 @@ public class DockerAccessWithHcClient implements DockerAccess {
                                     String certPath,
                                     int maxConnections,
                                     KitLogger log) throws IOException {
+        this(baseUrl, certPath, new ConnectionPoolConfig.Builder().maxConnections(maxConnections).build(), log);
+    }
+
+    /**
+     * Create a new access for the given URL
+     *
+     * @param baseUrl  base URL for accessing the docker Daemon
+     * @param certPath used to build up a keystore with the given keys and certificates found in this
+     *                 directory
+     * @param poolConfig sizes and timeouts of the connection pools for API calls and streaming requests
+     * @param log      a log handler for printing out logging information
+     */
+    public DockerAccessWithHcClient(String baseUrl,
+                                    String certPath,
+                                    ConnectionPoolConfig poolConfig,
+                                    KitLogger log) throws IOException {
         URI uri = URI.create(baseUrl);
         if (uri.getScheme() == null) {
             throw new IllegalArgumentException("The docker access url '" + baseUrl + "' must contain a schema tcp://, unix:// or npipe://");
         }
         if (uri.getScheme().equalsIgnoreCase("unix")) {
-            this.delegate = createHttpClient(new UnixSocketClientBuilder(uri.getPath(), maxConnections, log));
+            this.delegate = createHttpClient(new UnixSocketClientBuilder(uri.getPath(), poolConfig, log));
             baseUrl = UNIX_URL;
         } else if (uri.getScheme().equalsIgnoreCase("npipe")) {
-            this.delegate = createHttpClient(new NamedPipeClientBuilder(uri.getPath(), maxConnections, log), false);
+            this.delegate = createHttpClient(new NamedPipeClientBuilder(uri.getPath(), poolConfig, log), false);
             baseUrl = NPIPE_URL;
         } else {
-            this.delegate = createHttpClient(new HttpClientBuilder(isSSL(baseUrl) ? certPath : null, maxConnections));
+            this.delegate = createHttpClient(new HttpClientBuilder(isSSL(baseUrl) ? certPath : null, poolConfig));
         }
 
         // Strip trailing slashes if any
@@ -273,9 +317,21 @@ public class DockerAccessWithHcClient implements DockerAccess {
         }
     }
 
+    @Override
+    public void copyArchive(String containerId, InputStream archive, String targetPath)
+            throws DockerAccessException {
+        try {
+            String url = urlBuilder.copyArchive(containerId, targetPath);
+            delegate.put(url, archive, HTTP_OK);
+        } catch (IOException e) {
+            throw new DockerAccessException(e, "Unable to copy archive to container [%s] with path %s",
+                    containerId, targetPath);
+        }
+    }
+
     @Override
     public void getLogSync(String containerId, LogCallback callback) {
-        LogRequestor extractor = new LogRequestor(delegate.getHttpClient(), urlBuilder, containerId, callback);
+        LogRequestor extractor = new LogRequestor(delegate.getStreamingHttpClient(), urlBuilder, containerId, callback);
         extractor.fetchLogs();
     }
 
@@ -286,6 +342,14 @@ public class DockerAccessWithHcClient implements DockerAccess {
         return extractor;
     }
 
+    @Override
+    public EventGetHandle getEventsAsync(EventCallback callback, String ... filter) {
+        EventRequestor requestor = new EventRequestor(delegate.createBasicClient(), urlBuilder.events(filter), callback);
+        eventRequestors.add(requestor);
+        requestor.start();
+        return requestor;
+    }
+
     @Override
     public List<Container> getContainersForImage(String image, boolean all) throws DockerAccessException {
         String url;
@@ -404,6 +468,23 @@ public class DockerAccessWithHcClient implements DockerAccess {
         }
     }
 
+    @Override
+    public String loadImage(String image, InputStream source) throws DockerAccessException {
+        String url = urlBuilder.loadImage();
+
+        try {
+            MessageDigest digest = createImageDigest();
+            // The entity closes the stream after sending it, which is up to the caller
+            delegate.post(url, new DigestInputStream(new CloseShieldInputStream(source), digest),
+                          new ApacheHttpClientDelegate.BodyAndStatusResponseHandler(), HTTP_OK);
+            String ret = Hex.encodeHexString(digest.digest());
+            log.debug("Loaded image %s (sha256:%s)", image, ret);
+            return ret;
+        } catch (IOException e) {
+            throw new DockerAccessException(e, "Unable to load %s", image);
+        }
+    }
+
     @Override
     public void pullImage(String image, AuthConfig authConfig, String registry)
             throws DockerAccessException {
@@ -414,6 +495,7 @@ public class DockerAccessWithHcClient implements DockerAccess {
             delegate.post(pullUrl, null, createAuthHeader(authConfig),
                     createPullOrPushResponseHandler(), HTTP_OK);
         } catch (IOException e) {
+            invalidateRejectedCredentials(authConfig, e);
             throw new DockerAccessException(e, "Unable to pull '%s'%s", image, (registry != null) ? " from registry '" + registry + "'" : "");
         }
     }
@@ -421,53 +503,148 @@ public class DockerAccessWithHcClient implements DockerAccess {
     @Override
     public void pushImage(String image, AuthConfig authConfig, String registry, int retries)
             throws DockerAccessException {
+        pushImage(image, Collections.<String>emptyList(), authConfig, registry, retries);
+    }
+
+    @Override
+    public void pushImage(String image, List<String> tags, AuthConfig authConfig, String registry, int retries)
+            throws DockerAccessException {
         ImageName name = new ImageName(image);
-        String pushUrl = urlBuilder.pushImage(name, registry);
-        String temporaryImage = tagTemporaryImage(name, registry);
+        List<ImageName> additionalNames = new ArrayList<>();
+        Set<String> seenTags = new HashSet<>(Collections.singleton(name.getTag()));
+        for (String tag : tags) {
+            if (tag != null && seenTags.add(tag)) {
+                additionalNames.add(new ImageName(image, tag));
+            }
+        }
+        List<ImageName> allNames = new ArrayList<>();
+        allNames.add(name);
+        allNames.addAll(additionalNames);
+
+        Map<String, String> authHeader = createAuthHeader(authConfig);
+        List<String> temporaryImages = new CopyOnWriteArrayList<>();
         DockerAccessException dae = null;
         try {
-            doPushImage(pushUrl, createAuthHeader(authConfig), createPullOrPushResponseHandler(), HTTP_OK, retries);
-        } catch (IOException e) {
-            dae = new DockerAccessException(e, "Unable to push '%s'%s", image, (registry != null) ? " to registry '" + registry + "'" : "");
+            runConcurrently(allNames, n -> {
+                String temporaryImage = tagTemporaryImage(n, registry);
+                if (temporaryImage != null) {
+                    temporaryImages.add(temporaryImage);
+                }
+            });
+            // The first push uploads the layers and shows the progress
+            doPushImage(name, registry, authHeader, createPullOrPushResponseHandler(), retries);
+            // All layers are in the registry now, so that only the manifests of the other tags are sent
+            runConcurrently(additionalNames, n -> doPushImage(n, registry, authHeader, createQuietPushResponseHandler(), retries));
+        } catch (DockerAccessException e) {
+            invalidateRejectedCredentials(authConfig, e);
+            dae = e;
             throw dae;
         } finally {
-            if (temporaryImage != null) {
+            removeTemporaryImages(temporaryImages, dae);
+        }
+    }
+
+    // Cached credentials which the registry rejected must be looked up again for the next request
+    private void invalidateRejectedCredentials(AuthConfig authConfig, Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (isAuthenticationFailure(cause)) {
+                AuthConfigCache.getShared().invalidate(authConfig);
+                return;
+            }
+        }
+    }
+
+    // Either the daemon's response or an error within the progress stream
+    private boolean isAuthenticationFailure(Throwable e) {
+        if (e instanceof HttpResponseException) {
+            return ((HttpResponseException) e).getStatusCode() == HTTP_UNAUTHORIZED;
+        }
+        return e instanceof DockerAccessException && ((DockerAccessException) e).getStatusCode() == HTTP_UNAUTHORIZED;
+    }
+
+    private void doPushImage(ImageName name, String registry, Map<String, String> authHeader,
+                             HcChunkedResponseHandlerWrapper handler, int retries) throws DockerAccessException {
+        try {
+            doPushImage(urlBuilder.pushImage(name, registry), authHeader, handler, HTTP_OK, retries);
+        } catch (DockerAccessException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new DockerAccessException(e, "Unable to push '%s'%s", name.getFullName(), (registry != null) ? " to registry '" + registry + "'" : "");
+        }
+    }
+
+    // Try to remove all temporary tags, even if some of them can't be removed, and report all which are left
+    private void removeTemporaryImages(List<String> temporaryImages, DockerAccessException dae) throws DockerAccessException {
+        List<String> failed = new ArrayList<>();
+        for (String temporaryImage : temporaryImages) {
+            try {
                 if (!removeImage(temporaryImage, true)) {
-                    if (dae == null) {
-                        throw new DockerAccessException("Image %s could be pushed, but the temporary tag could not be removed", temporaryImage);
-                    } else {
-                        throw new DockerAccessException(dae.getCause(), dae.getMessage() + " and also temporary tag [%s] could not be removed, too.", temporaryImage);
-                    }
+                    failed.add(temporaryImage);
                 }
+            } catch (DockerAccessException e) {
+                log.debug("Cannot remove temporary tag %s: %s", temporaryImage, e.getMessage());
+                failed.add(temporaryImage);
+            }
+        }
+        if (!failed.isEmpty()) {
+            if (dae == null) {
+                throw new DockerAccessException("Image could be pushed, but the temporary tags %s could not be removed", failed);
+            } else {
+                throw new DockerAccessException(dae.getCause(), dae.getMessage() + " and also temporary tags %s could not be removed, too.", failed);
             }
         }
     }
 
     @Override
-    public void saveImage(String image, String filename, ArchiveCompression compression) throws DockerAccessException {
+    public String saveImage(String image, String filename, ArchiveCompression compression) throws DockerAccessException {
         ImageName name = new ImageName(image);
         String url = urlBuilder.getImage(name);
         try {
-            delegate.get(url, getImageResponseHandler(filename, compression), HTTP_OK);
+            // The file is only created once the daemon starts sending the image
+            return delegate.get(url, response -> {
+                try (OutputStream out = new FileOutputStream(filename)) {
+                    return getImageResponseHandler(image, out, compression).handleResponse(response);
+                }
+            }, HTTP_OK);
         } catch (IOException e) {
             throw new DockerAccessException(e, "Unable to save '%s' to '%s'", image, filename);
         }
+    }
 
+    @Override
+    public String saveImage(String image, OutputStream target, ArchiveCompression compression) throws DockerAccessException {
+        ImageName name = new ImageName(image);
+        String url = urlBuilder.getImage(name);
+        try {
+            return delegate.get(url, getImageResponseHandler(image, target, compression), HTTP_OK);
+        } catch (IOException e) {
+            throw new DockerAccessException(e, "Unable to save '%s'", image);
+        }
     }
 
-    private ResponseHandler<Object> getImageResponseHandler(final String filename, final ArchiveCompression compression) throws FileNotFoundException {
-        return new ResponseHandler<Object>() {
-            @Override
-            public Object handleResponse(HttpResponse response) throws IOException {
-                try (InputStream stream = response.getEntity().getContent();
-                     OutputStream out = compression.wrapOutputStream(new FileOutputStream(filename))) {
-                    IOUtils.copy(stream, out, 65536);
-                }
-                return null;
+    // Compress the archive while it is received and calculate the digest of what is written out
+    private ResponseHandler<String> getImageResponseHandler(final String image, final OutputStream target, final ArchiveCompression compression) {
+        return response -> {
+            MessageDigest digest = createImageDigest();
+            try (InputStream stream = response.getEntity().getContent();
+                 OutputStream out = compression.wrapOutputStream(
+                     new DigestOutputStream(new CloseShieldOutputStream(target), digest), COMPRESSION_THREADS)) {
+                IOUtils.copy(stream, out, IMAGE_BUFFER_SIZE);
             }
+            String ret = Hex.encodeHexString(digest.digest());
+            log.debug("Saved image %s (sha256:%s)", image, ret);
+            return ret;
         };
     }
 
+    private MessageDigest createImageDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("No SHA-256 digest available", e);
+        }
+    }
+
     @Override
     public void tag(String sourceImage, String targetImage, boolean force)
             throws DockerAccessException {
@@ -482,6 +659,11 @@ public class DockerAccessWithHcClient implements DockerAccess {
         }
     }
 
+    @Override
+    public void tag(String sourceImage, List<String> targetImages, boolean force) throws DockerAccessException {
+        runConcurrently(targetImages, target -> tag(sourceImage, target, force));
+    }
+
     @Override
     public boolean removeImage(String image, boolean... forceOpt) throws DockerAccessException {
         boolean force = forceOpt != null && forceOpt.length > 0 && forceOpt[0];
@@ -598,6 +780,15 @@ public class DockerAccessWithHcClient implements DockerAccess {
 
     @Override
     public void shutdown() {
+        for (EventRequestor requestor : eventRequestors) {
+            requestor.finish();
+        }
+        eventRequestors.clear();
+        if (log.isDebugEnabled()) {
+            for (ConnectionPoolStats stats : getConnectionPoolStats()) {
+                log.debug("Connection pool %s", stats);
+            }
+        }
         try {
             delegate.close();
         } catch (IOException exp) {
@@ -605,6 +796,16 @@ public class DockerAccessWithHcClient implements DockerAccess {
         }
     }
 
+    /**
+     * Usage of the connection pools to the docker daemon, e.g. for finding out whether
+     * parallel requests have to wait for a free connection
+     *
+     * @return statistics for the pool used for API calls and the one used for streaming requests
+     */
+    public List<ConnectionPoolStats> getConnectionPoolStats() {
+        return delegate.getPoolStats();
+    }
+
     ApacheHttpClientDelegate createHttpClient(ClientBuilder builder) throws IOException {
         return createHttpClient(builder, true);
     }
@@ -623,6 +824,49 @@ public class DockerAccessWithHcClient implements DockerAccess {
         return new HcChunkedResponseHandlerWrapper(new PullOrPushResponseJsonHandler(log));
     }
 
+    // For pushes running in parallel to others, which only report errors. Status messages are logged
+    // at debug level and no progress is shown
+    private HcChunkedResponseHandlerWrapper createQuietPushResponseHandler() {
+        KitLogger quietLog = new KitLogger() {
+            @Override
+            public void debug(String format, Object... params) {
+                log.debug(format, params);
+            }
+
+            @Override
+            public void info(String format, Object... params) {
+                log.debug(format, params);
+            }
+
+            @Override
+            public void warn(String format, Object... params) {
+                log.warn(format, params);
+            }
+
+            @Override
+            public void error(String format, Object... params) {
+                log.error(format, params);
+            }
+
+            @Override
+            public boolean isDebugEnabled() {
+                return log.isDebugEnabled();
+            }
+        };
+        return new HcChunkedResponseHandlerWrapper(new PullOrPushResponseJsonHandler(quietLog));
+    }
+
+    // Run requests concurrently and wait for all of them. The first failure is rethrown
+    private <T> void runConcurrently(List<T> items, ParallelUtil.VoidTask<T, DockerAccessException> request)
+        throws DockerAccessException {
+        try {
+            ParallelUtil.forEach(items, MAX_CONCURRENT_REQUESTS, request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerAccessException(e, "Interrupted while waiting for the Docker daemon");
+        }
+    }
+
     private Map<String, String> createAuthHeader(AuthConfig authConfig) {
         if (authConfig == null) {
             authConfig = AuthConfig.EMPTY_AUTH_CONFIG;
@@ -18,23 +18,29 @@ package io.jshift.kit.build.service.docker.access.hc.http;/*
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.net.ssl.SSLContext;
 
 import io.jshift.kit.build.service.docker.access.KeyStoreUtil;
 import io.jshift.kit.build.service.docker.access.hc.util.ClientBuilder;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolConfig;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolStats;
+import io.jshift.kit.build.service.docker.access.hc.util.MeteredConnectionManager;
 import io.jshift.kit.build.service.docker.access.KeyStoreUtil;
 import io.jshift.kit.build.service.docker.access.hc.util.ClientBuilder;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContexts;
 
 /**
@@ -44,48 +50,63 @@ import org.apache.http.ssl.SSLContexts;
 public class HttpClientBuilder implements ClientBuilder {
 
     private final String certPath;
-    private final int maxConnections;
+    private final ConnectionPoolConfig poolConfig;
+    private final List<MeteredConnectionManager> pools = new CopyOnWriteArrayList<>();
 
     public HttpClientBuilder(String certPath, int maxConnections) {
+        this(certPath, new ConnectionPoolConfig.Builder().maxConnections(maxConnections).build());
+    }
+
+    public HttpClientBuilder(String certPath, ConnectionPoolConfig poolConfig) {
         this.certPath = certPath;
-        this.maxConnections = maxConnections;
+        this.poolConfig = poolConfig;
     }
 
     public CloseableHttpClient buildPooledClient() throws IOException {
-        org.apache.http.impl.client.HttpClientBuilder builder = HttpClients.custom();
-        HttpClientConnectionManager manager = getPooledConnectionFactory(certPath, maxConnections);
-        builder.setConnectionManager(manager);
         // TODO: For push-redirects working for 301, the redirect strategy should be relaxed (see #351)
         // However not sure whether we should do it right now and whether this is correct, since normally
         // a 301 should only occur when the image name is invalid (e.g. containing "//" in which case a redirect
         // happens to the URL with a single "/")
         // builder.setRedirectStrategy(new LaxRedirectStrategy());
+        return buildPooledClient("api", poolConfig.getMaxConnections());
+    }
 
-        // TODO: Tune client if needed (e.g. add pooling factoring .....
-        // But I think, that's not really required.
-
-        return builder.build();
+    public CloseableHttpClient buildStreamingClient() throws IOException {
+        return buildPooledClient("streaming", poolConfig.getMaxStreamingConnections());
     }
 
     public CloseableHttpClient buildBasicClient() throws IOException {
         return HttpClients.custom().setConnectionManager(getBasicConnectionFactory(certPath)).build();
     }
 
-    private static HttpClientConnectionManager getPooledConnectionFactory(String certPath, int maxConnections) throws IOException {
-        PoolingHttpClientConnectionManager ret = certPath != null ?
-                new PoolingHttpClientConnectionManager(getSslFactoryRegistry(certPath)) :
-                new PoolingHttpClientConnectionManager();
-        ret.setDefaultMaxPerRoute(maxConnections);
-        ret.setMaxTotal(maxConnections);
+    public List<ConnectionPoolStats> getPoolStats() {
+        List<ConnectionPoolStats> ret = new ArrayList<>();
+        for (MeteredConnectionManager pool : pools) {
+            ret.add(pool.getStats());
+        }
         return ret;
     }
 
+    private CloseableHttpClient buildPooledClient(String name, int maxConnections) throws IOException {
+        MeteredConnectionManager manager =
+            new MeteredConnectionManager(name, certPath != null ? getSslFactoryRegistry(certPath) : getDefaultRegistry(), null, maxConnections);
+        pools.add(manager);
+        return poolConfig.createClient(manager);
+    }
+
     private static HttpClientConnectionManager getBasicConnectionFactory(String certPath) throws IOException {
         return certPath != null ?
             new BasicHttpClientConnectionManager(getSslFactoryRegistry(certPath)) :
             new BasicHttpClientConnectionManager();
     }
 
+    private static Registry<ConnectionSocketFactory> getDefaultRegistry() {
+        return RegistryBuilder.<ConnectionSocketFactory> create()
+                              .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                              .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                              .build();
+    }
+
     private static Registry<ConnectionSocketFactory> getSslFactoryRegistry(String certPath) throws IOException {
         try
         {
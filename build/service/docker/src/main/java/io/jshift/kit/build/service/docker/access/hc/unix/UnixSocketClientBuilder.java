@@ -1,6 +1,7 @@
 package io.jshift.kit.build.service.docker.access.hc.unix;
 
 import io.jshift.kit.build.service.docker.access.hc.util.AbstractNativeClientBuilder;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolConfig;
 import io.jshift.kit.common.KitLogger;
 import io.jshift.kit.build.service.docker.access.hc.util.AbstractNativeClientBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
@@ -11,6 +12,10 @@ public class UnixSocketClientBuilder extends AbstractNativeClientBuilder {
         super(unixSocketPath, maxConnections, log);
     }
 
+    public UnixSocketClientBuilder(String unixSocketPath, ConnectionPoolConfig poolConfig, KitLogger log) {
+        super(unixSocketPath, poolConfig, log);
+    }
+
     @Override
     protected ConnectionSocketFactory getConnectionSocketFactory() {
         return new UnixConnectionSocketFactory(path);
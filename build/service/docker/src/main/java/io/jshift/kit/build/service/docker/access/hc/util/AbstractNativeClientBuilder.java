@@ -19,6 +19,9 @@ package io.jshift.kit.build.service.docker.access.hc.util;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import io.jshift.kit.common.KitLogger;
 import org.apache.http.config.Registry;
@@ -26,10 +29,8 @@ import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 /**
  * Base class for all clients which access Docker natively
@@ -44,10 +45,15 @@ abstract public class AbstractNativeClientBuilder implements ClientBuilder {
     protected final KitLogger log;
 
     private final DnsResolver dnsResolver;
-    private final int maxConnections;
+    private final ConnectionPoolConfig poolConfig;
+    private final List<MeteredConnectionManager> pools = new CopyOnWriteArrayList<>();
 
     public AbstractNativeClientBuilder(String path, int maxConnections, KitLogger logger) {
-        this.maxConnections = maxConnections;
+        this(path, new ConnectionPoolConfig.Builder().maxConnections(maxConnections).build(), logger);
+    }
+
+    public AbstractNativeClientBuilder(String path, ConnectionPoolConfig poolConfig, KitLogger logger) {
+        this.poolConfig = poolConfig;
         this.log = logger;
         this.path = path;
         dnsResolver = nullDnsResolver();
@@ -59,11 +65,12 @@ abstract public class AbstractNativeClientBuilder implements ClientBuilder {
 
     @Override
     public CloseableHttpClient buildPooledClient() {
-        final HttpClientBuilder httpBuilder = HttpClients.custom();
-        final PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(registry, dnsResolver);
-        manager.setDefaultMaxPerRoute(maxConnections);
-        httpBuilder.setConnectionManager(manager);
-        return httpBuilder.build();
+        return buildPooledClient("api", poolConfig.getMaxConnections());
+    }
+
+    @Override
+    public CloseableHttpClient buildStreamingClient() {
+        return buildPooledClient("streaming", poolConfig.getMaxStreamingConnections());
     }
 
     @Override
@@ -72,8 +79,23 @@ abstract public class AbstractNativeClientBuilder implements ClientBuilder {
         return HttpClients.custom().setConnectionManager(manager).build();
     }
 
+    @Override
+    public List<ConnectionPoolStats> getPoolStats() {
+        List<ConnectionPoolStats> ret = new ArrayList<>();
+        for (MeteredConnectionManager pool : pools) {
+            ret.add(pool.getStats());
+        }
+        return ret;
+    }
+
     // =========================================================================================================
 
+    private CloseableHttpClient buildPooledClient(String name, int maxConnections) {
+        MeteredConnectionManager manager = new MeteredConnectionManager(name, registry, dnsResolver, maxConnections);
+        pools.add(manager);
+        return poolConfig.createClient(manager);
+    }
+
     private Registry<ConnectionSocketFactory> buildRegistry(String path) {
         final RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.create();
         registryBuilder.register(getProtocol(), getConnectionSocketFactory());
@@ -17,6 +17,7 @@ package io.jshift.kit.build.service.docker.access.hc.util;
  */
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.http.impl.client.CloseableHttpClient;
 
@@ -29,13 +30,22 @@ import org.apache.http.impl.client.CloseableHttpClient;
 public interface ClientBuilder {
 
     /**
-     * Create a pooled client
+     * Create a pooled client for API calls
      *
      * @return an HTTP client
      * @throws IOException
      */
     CloseableHttpClient buildPooledClient() throws IOException;
 
+    /**
+     * Create a pooled client for streaming requests like build, pull or push, which
+     * uses a pool of its own.
+     *
+     * @return an HTTP client
+     * @throws IOException
+     */
+    CloseableHttpClient buildStreamingClient() throws IOException;
+
     /**
      * Create a basic client with a single connection. This is the client which should be used
      * in long running threads
@@ -45,4 +55,11 @@ public interface ClientBuilder {
      */
     CloseableHttpClient buildBasicClient() throws IOException;
 
+    /**
+     * Statistics of the connection pools of all pooled clients created so far
+     *
+     * @return one entry per pool
+     */
+    List<ConnectionPoolStats> getPoolStats();
+
 }
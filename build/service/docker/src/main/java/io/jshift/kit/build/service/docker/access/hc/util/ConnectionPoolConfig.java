@@ -0,0 +1,137 @@
+package io.jshift.kit.build.service.docker.access.hc.util;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+/**
+ * Configuration of the connection pools used for talking to the docker daemon.
+ *
+ * Two pools are used: one for short API calls and one for streaming requests like build, pull,
+ * push, load and save, which hold a connection for a long time. This way parallel builds can't
+ * starve the API calls which are needed e.g. for starting containers at the same time.
+ */
+public class ConnectionPoolConfig implements Serializable {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 100;
+    public static final long DEFAULT_KEEP_ALIVE = 30000;
+    public static final long DEFAULT_IDLE_TIMEOUT = 10000;
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY = 2000;
+
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+    // Defaults to maxConnections when not set
+    private Integer maxStreamingConnections;
+
+    private long keepAlive = DEFAULT_KEEP_ALIVE;
+
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    private int validateAfterInactivity = DEFAULT_VALIDATE_AFTER_INACTIVITY;
+
+    private ConnectionPoolConfig() {
+    }
+
+    /**
+     * Maximum number of parallel connections for API calls
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Maximum number of parallel connections for streaming requests
+     */
+    public int getMaxStreamingConnections() {
+        return maxStreamingConnections != null ? maxStreamingConnections : maxConnections;
+    }
+
+    /**
+     * How long in milliseconds an idle connection is kept open when the daemon doesn't
+     * announce a keep-alive timeout itself
+     */
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Time in milliseconds after which idle connections are closed by a background thread
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Time in milliseconds after which a pooled connection is checked for being stale
+     * before it is reused
+     */
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    /**
+     * Create a client for the given pool, tuned according to this configuration. The client
+     * closes the pool when it is closed itself.
+     *
+     * @param manager connection pool
+     * @return client using the pool
+     */
+    public CloseableHttpClient createClient(PoolingHttpClientConnectionManager manager) {
+        manager.setValidateAfterInactivity(validateAfterInactivity);
+        org.apache.http.impl.client.HttpClientBuilder builder = HttpClients.custom()
+            .setConnectionManager(manager)
+            .setKeepAliveStrategy(createKeepAliveStrategy());
+        if (idleTimeout > 0) {
+            builder.evictExpiredConnections()
+                   .evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }
+        return builder.build();
+    }
+
+    // Prefer the timeout from the daemon's Keep-Alive header, if any
+    private ConnectionKeepAliveStrategy createKeepAliveStrategy() {
+        return (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : keepAlive;
+        };
+    }
+
+    public static class Builder {
+
+        private ConnectionPoolConfig config = new ConnectionPoolConfig();
+
+        public Builder maxConnections(int maxConnections) {
+            config.maxConnections = maxConnections;
+            return this;
+        }
+
+        public Builder maxStreamingConnections(int maxStreamingConnections) {
+            config.maxStreamingConnections = maxStreamingConnections;
+            return this;
+        }
+
+        public Builder keepAlive(long keepAlive) {
+            config.keepAlive = keepAlive;
+            return this;
+        }
+
+        public Builder idleTimeout(long idleTimeout) {
+            config.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public Builder validateAfterInactivity(int validateAfterInactivity) {
+            config.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        public ConnectionPoolConfig build() {
+            return config;
+        }
+    }
+}
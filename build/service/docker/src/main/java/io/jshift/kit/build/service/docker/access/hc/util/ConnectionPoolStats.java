@@ -0,0 +1,84 @@
+package io.jshift.kit.build.service.docker.access.hc.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the usage of a connection pool
+ */
+public class ConnectionPoolStats {
+
+    private final String name;
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+    private final long leases;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    public ConnectionPoolStats(String name, int leased, int available, int pending, int max,
+                               long leases, long totalWaitNanos, long maxWaitNanos) {
+        this.name = name;
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+        this.max = max;
+        this.leases = leases;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of connections currently in use
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * Number of idle connections which can be reused
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * Number of callers currently waiting for a connection
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Number of connections handed out since the pool was created
+     */
+    public long getLeases() {
+        return leases;
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos);
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+    }
+
+    public double getAverageWaitMillis() {
+        return leases > 0 ? totalWaitNanos / 1000000.0 / leases : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d leased, %d available, %d pending (max %d), %d leases, wait avg %.2f ms / max %d ms",
+                             name, leased, available, pending, max, leases, getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
@@ -0,0 +1,82 @@
+package io.jshift.kit.build.service.docker.access.hc.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Connection pool which records how often connections are leased and how long callers
+ * had to wait for a free connection.
+ */
+public class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final String name;
+
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Create a pool
+     *
+     * @param name name of the pool used when reporting
+     * @param registry socket factories by protocol
+     * @param dnsResolver resolver to use or <code>null</code> for the system resolver
+     * @param maxConnections maximum number of connections, which is also the limit per route
+     */
+    public MeteredConnectionManager(String name, Registry<ConnectionSocketFactory> registry, DnsResolver dnsResolver, int maxConnections) {
+        super(registry, dnsResolver);
+        this.name = name;
+        setMaxTotal(maxConnections);
+        setDefaultMaxPerRoute(maxConnections);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        final ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit tunit)
+                throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return request.get(timeout, tunit);
+                } finally {
+                    recordWait(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    /**
+     * Get a snapshot of the pool's usage
+     *
+     * @return current statistics
+     */
+    public ConnectionPoolStats getStats() {
+        PoolStats stats = getTotalStats();
+        return new ConnectionPoolStats(name, stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax(),
+                                       leases.get(), totalWaitNanos.get(), maxWaitNanos.get());
+    }
+
+    private void recordWait(long nanos) {
+        leases.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+}
@@ -1,6 +1,7 @@
 package io.jshift.kit.build.service.docker.access.hc.win;
 
 import io.jshift.kit.build.service.docker.access.hc.util.AbstractNativeClientBuilder;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolConfig;
 import io.jshift.kit.common.KitLogger;
 import io.jshift.kit.build.service.docker.access.hc.util.AbstractNativeClientBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
@@ -10,6 +11,10 @@ public class NamedPipeClientBuilder extends AbstractNativeClientBuilder {
         super(namedPipePath, maxConnections, log);
     }
 
+    public NamedPipeClientBuilder(String namedPipePath, ConnectionPoolConfig poolConfig, KitLogger log) {
+        super(namedPipePath, poolConfig, log);
+    }
+
     @Override
     protected ConnectionSocketFactory getConnectionSocketFactory() {
         return new NpipeConnectionSocketFactory(path, log);
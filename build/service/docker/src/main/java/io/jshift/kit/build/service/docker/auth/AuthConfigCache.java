@@ -0,0 +1,173 @@
+package io.jshift.kit.build.service.docker.auth;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import io.jshift.kit.build.api.auth.AuthConfig;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * In-memory cache for credentials which are expensive to look up, like the ones
+ * returned by docker credential helpers (an external process per lookup) or the temporary
+ * tokens exchanged with AWS ECR (an HTTPS call per lookup).
+ *
+ * Entries are kept either for a default time to live or until an explicit expiry time
+ * given by the credential provider (minus a safety margin). Negative lookups (no credentials
+ * found) are cached, too. Credentials which are rejected by a registry are removed with
+ * {@link #invalidate(AuthConfig)}, so that the next lookup asks the provider again.
+ */
+public class AuthConfigCache {
+
+    // How long entries without an explicit expiry time are kept
+    static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(30);
+
+    // Renew credentials with an explicit expiry time this long before they expire
+    static final long EXPIRY_MARGIN = TimeUnit.MINUTES.toMillis(5);
+
+    private static final AuthConfigCache SHARED = new AuthConfigCache();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public AuthConfigCache() {
+        this(System::currentTimeMillis);
+    }
+
+    AuthConfigCache(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Get the cache shared by all lookups within this JVM (e.g. all modules of a reactor build)
+     *
+     * @return the shared cache
+     */
+    public static AuthConfigCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Lookup credentials for the given key. If there is no valid cached entry, the given loader is called
+     * and its result is cached.
+     *
+     * @param key key under which the credentials are cached, typically containing the registry
+     * @param loader called to obtain the credentials if not cached
+     * @return the credentials, or <code>null</code> if the loader couldn't find any
+     * @throws IOException if the loader fails. Failures are not cached.
+     */
+    public AuthConfig get(String key, Loader loader) throws IOException {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(key);
+        if (entry == null || entry.isExpired(now)) {
+            entry = loader.load();
+            if (entry.expiresAt == 0) {
+                entry = new Entry(entry.authConfig, now + DEFAULT_TTL);
+            }
+            entries.put(key, entry);
+        }
+        return entry.authConfig;
+    }
+
+    /**
+     * Remove an entry
+     *
+     * @param key the key to remove
+     */
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Remove the entries under all keys holding the given credentials, e.g. when the registry rejected them
+     *
+     * @param authConfig credentials to remove, can be <code>null</code>
+     */
+    public void invalidate(AuthConfig authConfig) {
+        for (String key : getKeys(authConfig)) {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * Get the keys of all entries holding the given credentials, e.g. to remove them when a registry rejected
+     * the credentials. Credentials are compared by their digest, as the credentials used for a request can be
+     * a copy of the cached ones.
+     *
+     * @param authConfig credentials to look for, can be <code>null</code>
+     * @return keys of the entries, empty if none holds these credentials
+     */
+    public List<String> getKeys(AuthConfig authConfig) {
+        List<String> ret = new ArrayList<>();
+        if (authConfig != null) {
+            String digest = digest(authConfig);
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                AuthConfig cached = entry.getValue().authConfig;
+                if (cached != null && digest.equals(digest(cached))) {
+                    ret.add(entry.getKey());
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Create a digest of credentials for use in a cache key, so that a key changes with the credentials
+     * without the secret being kept in clear text
+     *
+     * @param authConfig credentials
+     * @return hex encoded SHA-256 digest
+     */
+    public static String digest(AuthConfig authConfig) {
+        return DigestUtils.sha256Hex(authConfig.toHeaderValue().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        Entry load() throws IOException;
+    }
+
+    public static final class Entry {
+        private final AuthConfig authConfig;
+        private final long expiresAt;
+
+        private Entry(AuthConfig authConfig, long expiresAt) {
+            this.authConfig = authConfig;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Entry which is kept for the default time to live
+         *
+         * @param authConfig credentials to cache, can be <code>null</code>
+         * @return cache entry
+         */
+        public static Entry of(AuthConfig authConfig) {
+            return new Entry(authConfig, 0);
+        }
+
+        /**
+         * Entry which expires at the given time
+         *
+         * @param authConfig credentials to cache, can be <code>null</code>
+         * @param expiresAt time in epoch millis when the credentials becomes invalid
+         * @return cache entry
+         */
+        public static Entry of(AuthConfig authConfig, long expiresAt) {
+            return new Entry(authConfig, Math.max(1, expiresAt - EXPIRY_MARGIN));
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -418,11 +418,16 @@ public class AuthConfigFactory {
 
     private AuthConfig extractAuthConfigFromCredentialsHelper(String registryToLookup, String credConfig) throws IOException {
         CredentialHelperClient credentialHelper = new CredentialHelperClient(log, credConfig);
-        String version = credentialHelper.getVersion();
-        log.debug("AuthConfig: credentials from credential helper/store %s%s",
-                  credentialHelper.getName(),
-                  version != null ? " version " + version : "");
-        return credentialHelper.getAuthConfig(registryToLookup);
+        return AuthConfigCache.getShared().get(credentialHelper.getName() + "|" + registryToLookup, () -> {
+            // Calling the helper for its version is an extra process fork which is only useful for debugging
+            if (log.isDebugEnabled()) {
+                String version = credentialHelper.getVersion();
+                log.debug("AuthConfig: credentials from credential helper/store %s%s",
+                          credentialHelper.getName(),
+                          version != null ? " version " + version : "");
+            }
+            return AuthConfigCache.Entry.of(credentialHelper.getAuthConfig(registryToLookup));
+        });
     }
 
     private JsonObject getCredentialsNode(JsonObject auths,String registryToLookup) {
@@ -1,18 +1,14 @@
 package io.jshift.kit.build.service.docker.auth;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
 import java.util.Optional;
 import java.util.function.Function;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import io.jshift.kit.build.api.auth.RegistryAuthConfig;
 import io.jshift.kit.build.api.auth.RegistryAuthHandler;
 import io.jshift.kit.build.api.auth.AuthConfig;
+import io.jshift.kit.build.service.docker.helper.DockerFileUtil;
 import io.jshift.kit.common.KitLogger;
 
 /**
@@ -24,12 +20,9 @@ public class DockerRegistryAuthHandler implements RegistryAuthHandler {
     static final String DOCKER_LOGIN_DEFAULT_REGISTRY = "https://index.docker.io/v1/";
 
     private final KitLogger log;
-    private final Gson gson;
 
     public DockerRegistryAuthHandler(KitLogger log) {
         this.log = log;
-        this.gson = new Gson();
-
     }
 
     @Override
@@ -39,7 +32,7 @@ public class DockerRegistryAuthHandler implements RegistryAuthHandler {
 
     @Override
     public AuthConfig create(RegistryAuthConfig.Kind kind, String user, String registry, Function<String, String> decryptor) {
-        return readDockerConfig().map(d -> extractAuthConfigFromDocker(d, registry)).orElse(null);
+        return Optional.ofNullable(DockerFileUtil.readDockerConfig()).map(d -> extractAuthConfigFromDocker(d, registry)).orElse(null);
     }
 
     private AuthConfig extractAuthConfigFromDocker(JsonObject dockerConfig, String registry) {
@@ -68,15 +61,6 @@ public class DockerRegistryAuthHandler implements RegistryAuthHandler {
         return null;
     }
 
-    private Optional<JsonObject> readDockerConfig() {
-        String dockerConfig = System.getenv("DOCKER_CONFIG");
-
-        Optional<Reader> reader = dockerConfig == null
-            ? getFileReaderFromDir(new File(getHomeDir(), ".docker/config.json"))
-            : getFileReaderFromDir(new File(dockerConfig, "config.json"));
-        return reader.map(r -> gson.fromJson(r, JsonObject.class));
-    }
-
     private AuthConfig extractAuthConfigFromAuths(String registryToLookup, JsonObject auths) {
         JsonObject credentials = getCredentialsNode(auths, registryToLookup);
         if (credentials == null || !credentials.has("auth")) {
@@ -89,10 +73,16 @@ public class DockerRegistryAuthHandler implements RegistryAuthHandler {
 
     private AuthConfig extractAuthConfigFromCredentialsHelper(String registryToLookup, String credConfig) throws IOException {
         CredentialHelperClient credentialHelper = new CredentialHelperClient(log, credConfig);
-        log.debug("AuthConfig: credentials from credential helper/store %s version %s",
-                  credentialHelper.getName(),
-                  credentialHelper.getVersion());
-        return credentialHelper.getAuthConfig(registryToLookup);
+        return AuthConfigCache.getShared().get(credentialHelper.getName() + "|" + registryToLookup, () -> {
+            // Calling the helper for its version is an extra process fork which is only useful for debugging
+            if (log.isDebugEnabled()) {
+                String version = credentialHelper.getVersion();
+                log.debug("AuthConfig: credentials from credential helper/store %s%s",
+                          credentialHelper.getName(),
+                          version != null ? " version " + version : "");
+            }
+            return AuthConfigCache.Entry.of(credentialHelper.getAuthConfig(registryToLookup));
+        });
     }
 
     private JsonObject getCredentialsNode(JsonObject auths, String registryToLookup) {
@@ -108,18 +98,4 @@ public class DockerRegistryAuthHandler implements RegistryAuthHandler {
         return null;
     }
 
-    private Optional<Reader> getFileReaderFromDir(File file) {
-        try {
-            return Optional.of(new FileReader(file));
-        } catch (FileNotFoundException e) {
-            return Optional.empty();
-        }
-    }
-
-    private File getHomeDir() {
-        String homeDir = Optional.ofNullable(System.getProperty("user.home")).orElse(System.getenv("HOME"));
-        return new File(homeDir);
-    }
-
-
 }
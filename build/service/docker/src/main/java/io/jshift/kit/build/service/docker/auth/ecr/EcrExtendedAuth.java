@@ -12,9 +12,11 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import io.jshift.kit.build.api.auth.AuthConfig;
+import io.jshift.kit.build.service.docker.auth.AuthConfigCache;
 import io.jshift.kit.common.KitLogger;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
@@ -37,6 +39,7 @@ public class EcrExtendedAuth {
     private final boolean isAwsRegistry;
     private final String accountId;
     private final String region;
+    private final AuthConfigCache authConfigCache;
 
     /**
      * Is given the registry an ecr registry?
@@ -54,7 +57,12 @@ public class EcrExtendedAuth {
      * @param registry The registry, we may or may not be an ecr registry.
      */
     public EcrExtendedAuth(KitLogger logger, String registry) {
+        this(logger, registry, AuthConfigCache.getShared());
+    }
+
+    EcrExtendedAuth(KitLogger logger, String registry, AuthConfigCache authConfigCache) {
         this.logger = logger;
+        this.authConfigCache = authConfigCache;
         Matcher matcher = AWS_REGISTRY.matcher(registry);
         isAwsRegistry = matcher.matches();
         if (isAwsRegistry) {
@@ -85,18 +93,38 @@ public class EcrExtendedAuth {
      * @throws MojoExecutionException
      */
     public AuthConfig extendedAuth(AuthConfig localCredentials) throws IOException {
-        JsonObject jo = getAuthorizationToken(localCredentials);
-
-        JsonArray authorizationDatas = jo.getAsJsonArray("authorizationData");
-        JsonObject authorizationData = authorizationDatas.get(0).getAsJsonObject();
-        String authorizationToken = authorizationData.get("authorizationToken").getAsString();
-
-        return new AuthConfig(authorizationToken, "none");
+        // ECR tokens are valid for several hours, so reuse them until they are about to expire
+        // Keyed by a digest of the IAM credentials, so that switching the secret fetches a new token
+        String key = "ecr|" + accountId + "|" + region + "|" + AuthConfigCache.digest(localCredentials);
+        return authConfigCache.get(key, () -> {
+            JsonObject jo = getAuthorizationToken(localCredentials);
+
+            JsonArray authorizationDatas = jo.getAsJsonArray("authorizationData");
+            JsonObject authorizationData = authorizationDatas.get(0).getAsJsonObject();
+            String authorizationToken = authorizationData.get("authorizationToken").getAsString();
+
+            AuthConfig ecrCredentials = new AuthConfig(authorizationToken, "none");
+            if (authorizationData.has("expiresAt")) {
+                // Given in seconds since the epoch, with fraction
+                long expiresAt = (long) (authorizationData.get("expiresAt").getAsDouble() * 1000);
+                logger.debug("ECR authorization token expires at %s", new Date(expiresAt));
+                return AuthConfigCache.Entry.of(ecrCredentials, expiresAt);
+            }
+            return AuthConfigCache.Entry.of(ecrCredentials);
+        });
     }
 
     private JsonObject getAuthorizationToken(AuthConfig localCredentials) throws IOException {
         HttpPost request = createSignedRequest(localCredentials, new Date());
-        return executeRequest(createClient(), request);
+        try {
+            return executeRequest(createClient(), request);
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() == HttpStatus.SC_UNAUTHORIZED || e.getStatusCode() == HttpStatus.SC_FORBIDDEN) {
+                // The IAM credentials may come from a cached credential helper lookup
+                authConfigCache.invalidate(localCredentials);
+            }
+            throw e;
+        }
     }
 
     CloseableHttpClient createClient() {
@@ -109,7 +137,7 @@ public class EcrExtendedAuth {
             int statusCode = response.getStatusLine().getStatusCode();
             logger.debug("Response status %d", statusCode);
             if (statusCode != HttpStatus.SC_OK) {
-                throw new IOException("AWS authentication failure");
+                throw new HttpResponseException(statusCode, "AWS authentication failure");
             }
 
             HttpEntity entity = response.getEntity();
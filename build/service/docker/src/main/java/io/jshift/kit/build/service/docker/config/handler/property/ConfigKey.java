@@ -21,6 +21,7 @@ public enum ConfigKey {
     ASSEMBLY_USER("assembly.user"),
     ASSEMBLY_MODE("assembly.mode"),
     ASSEMBLY_TARLONGFILEMODE("assembly.tarLongFileMode"),
+    ASSEMBLY_LAYERED("assembly.layered"),
     AUTO_REMOVE,
     BIND,
     BUILD_OPTIONS,
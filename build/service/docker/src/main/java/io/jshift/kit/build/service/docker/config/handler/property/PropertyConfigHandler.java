@@ -50,6 +50,7 @@ import static io.jshift.kit.build.service.docker.config.handler.property.ConfigK
 import static io.jshift.kit.build.service.docker.config.handler.property.ConfigKey.ASSEMBLY_DOCKER_FILE_DIR;
 import static io.jshift.kit.build.service.docker.config.handler.property.ConfigKey.ASSEMBLY_EXPORT_BASEDIR;
 import static io.jshift.kit.build.service.docker.config.handler.property.ConfigKey.ASSEMBLY_IGNORE_PERMISSIONS;
+import static io.jshift.kit.build.service.docker.config.handler.property.ConfigKey.ASSEMBLY_LAYERED;
 import static io.jshift.kit.build.service.docker.config.handler.property.ConfigKey.ASSEMBLY_MODE;
 import static io.jshift.kit.build.service.docker.config.handler.property.ConfigKey.ASSEMBLY_PERMISSIONS;
 import static io.jshift.kit.build.service.docker.config.handler.property.ConfigKey.ASSEMBLY_TARLONGFILEMODE;
@@ -348,6 +349,7 @@ public class PropertyConfigHandler implements ExternalConfigHandler {
                 .user(valueProvider.getString(ASSEMBLY_USER, config == null ? null : config.getUser()))
                 .mode(valueProvider.getString(ASSEMBLY_MODE, config == null ? null : config.getModeRaw()))
                 .tarLongFileMode(valueProvider.getString(ASSEMBLY_TARLONGFILEMODE, config == null ? null : config.getTarLongFileMode()))
+                .layered(valueProvider.getBoolean(ASSEMBLY_LAYERED, config == null ? null : config.getLayered()))
                 .build();
     }
 
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.SortedMap;
 
 import static io.jshift.kit.common.util.EnvUtil.extractFromPropertiesAsList;
 import static io.jshift.kit.common.util.EnvUtil.extractFromPropertiesAsMap;
@@ -40,6 +41,9 @@ public class ValueProvider {
     private Properties properties;
     private PropertyMode propertyMode;
 
+    // Properties below the prefix, sorted for looking up lists and maps
+    private SortedMap<String, String> index;
+
     private StringListValueExtractor stringListValueExtractor;
     private IntListValueExtractor intListValueExtractor;
     private MapValueExtractor mapValueExtractor;
@@ -62,6 +66,7 @@ public class ValueProvider {
         this.prefix = prefix;
         this.properties = properties;
         this.propertyMode = propertyMode;
+        this.index = EnvUtil.indexProperties(prefix, properties);
 
         stringListValueExtractor = new StringListValueExtractor();
         intListValueExtractor = new IntListValueExtractor();
@@ -251,7 +256,7 @@ public class ValueProvider {
     private abstract class ListValueExtractor<T> extends ValueExtractor<List<T>> {
         @Override
         protected List<T> withPrefix(String prefix, ConfigKey key, Properties properties) {
-            List<String> strings = extractFromPropertiesAsList(key.asPropertyKey(prefix), properties);
+            List<String> strings = extractFromPropertiesAsList(key.asPropertyKey(prefix), index);
             if(strings == null) {
                 return null;
             }
@@ -293,7 +298,7 @@ public class ValueProvider {
     private class MapValueExtractor extends ValueExtractor<Map<String, String>> {
         @Override
         protected Map<String, String> withPrefix(String prefix, ConfigKey key, Properties properties) {
-            return extractFromPropertiesAsMap(key.asPropertyKey(prefix), properties);
+            return extractFromPropertiesAsMap(key.asPropertyKey(prefix), index);
         }
 
         @Override
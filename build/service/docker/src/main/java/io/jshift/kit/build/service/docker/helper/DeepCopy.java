@@ -18,12 +18,55 @@ package io.jshift.kit.build.service.docker.helper;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
+/**
+ * Deep copy of configuration objects.
+ *
+ * Configuration model classes (serializable classes of this project with a no-arg constructor
+ * and without custom serialization) are copied field by field, using a field list which is
+ * computed once per class. Plain JDK collections, arrays and immutable values are handled
+ * directly. Everything else is copied by a serialization round-trip.
+ */
 public class DeepCopy {
 
+    // Packages whose serializable classes can be copied field by field
+    private static final String MODEL_PACKAGE_PREFIX = "io.jshift.";
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+        String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+        Float.class, Double.class, BigInteger.class, BigDecimal.class, File.class, Pattern.class, Class.class));
+
+    // Copy plans by class. UNSUPPORTED marks classes which need to be serialized
+    private static final Map<Class<?>, ModelCopier> MODEL_COPIERS = new ConcurrentHashMap<>();
+    private static final ModelCopier UNSUPPORTED = new ModelCopier(null, new Field[0]);
+
     /**
      * Returns a copy of the object, or null if the object cannot
      * be serialized.
@@ -32,6 +75,138 @@ public class DeepCopy {
         if (orig == null) {
             return null;
         }
+        return (T) copy(orig, new IdentityHashMap<>());
+    }
+
+    // Copies already made are tracked so that shared references and cycles are kept like with serialization
+    private static Object copy(Object orig, Map<Object, Object> copies) {
+        if (orig == null || isImmutable(orig.getClass())) {
+            return orig;
+        }
+        Object ret = copies.get(orig);
+        if (ret != null) {
+            return ret;
+        }
+        Class<?> type = orig.getClass();
+        if (type.isArray()) {
+            return copyArray(orig, copies);
+        }
+        if (isPlainCollection(type)) {
+            return copyCollection((Collection<?>) orig, copies);
+        }
+        if (isPlainMap(type)) {
+            return copyMap((Map<?, ?>) orig, copies);
+        }
+        ModelCopier copier = getModelCopier(type);
+        if (copier != UNSUPPORTED) {
+            return copier.copy(orig, copies);
+        }
+        ret = serializationCopy(orig);
+        copies.put(orig, ret);
+        return ret;
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return IMMUTABLE_TYPES.contains(type) || type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum());
+    }
+
+    private static boolean isPlainCollection(Class<?> type) {
+        return type == ArrayList.class || type == LinkedList.class || type == HashSet.class || type == LinkedHashSet.class;
+    }
+
+    private static boolean isPlainMap(Class<?> type) {
+        return type == HashMap.class || type == LinkedHashMap.class;
+    }
+
+    private static Object copyArray(Object orig, Map<Object, Object> copies) {
+        int length = Array.getLength(orig);
+        Object ret = Array.newInstance(orig.getClass().getComponentType(), length);
+        copies.put(orig, ret);
+        if (orig.getClass().getComponentType().isPrimitive()) {
+            System.arraycopy(orig, 0, ret, 0, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                Array.set(ret, i, copy(Array.get(orig, i), copies));
+            }
+        }
+        return ret;
+    }
+
+    private static Object copyCollection(Collection<?> orig, Map<Object, Object> copies) {
+        Collection<Object> ret;
+        if (orig instanceof ArrayList) {
+            ret = new ArrayList<>(orig.size());
+        } else if (orig instanceof LinkedList) {
+            ret = new LinkedList<>();
+        } else if (orig instanceof LinkedHashSet) {
+            ret = new LinkedHashSet<>();
+        } else {
+            ret = new HashSet<>();
+        }
+        copies.put(orig, ret);
+        for (Object element : orig) {
+            ret.add(copy(element, copies));
+        }
+        return ret;
+    }
+
+    private static Object copyMap(Map<?, ?> orig, Map<Object, Object> copies) {
+        Map<Object, Object> ret = orig instanceof LinkedHashMap ? new LinkedHashMap<>() : new HashMap<>();
+        copies.put(orig, ret);
+        for (Map.Entry<?, ?> entry : orig.entrySet()) {
+            ret.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+        }
+        return ret;
+    }
+
+    private static ModelCopier getModelCopier(Class<?> type) {
+        ModelCopier ret = MODEL_COPIERS.get(type);
+        if (ret == null) {
+            ret = createModelCopier(type);
+            MODEL_COPIERS.put(type, ret);
+        }
+        return ret;
+    }
+
+    private static ModelCopier createModelCopier(Class<?> type) {
+        if (!type.getName().startsWith(MODEL_PACKAGE_PREFIX) || !Serializable.class.isAssignableFrom(type) ||
+            (type.getEnclosingClass() != null && !Modifier.isStatic(type.getModifiers()))) {
+            return UNSUPPORTED;
+        }
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> clazz = type; clazz != Object.class; clazz = clazz.getSuperclass()) {
+            if (!clazz.getName().startsWith(MODEL_PACKAGE_PREFIX) || hasCustomSerialization(clazz)) {
+                return UNSUPPORTED;
+            }
+            for (Field field : clazz.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return new ModelCopier(constructor, fields.toArray(new Field[0]));
+        } catch (NoSuchMethodException | SecurityException e) {
+            return UNSUPPORTED;
+        }
+    }
+
+    private static boolean hasCustomSerialization(Class<?> clazz) {
+        for (Method method : clazz.getDeclaredMethods()) {
+            String name = method.getName();
+            if (name.equals("writeObject") || name.equals("readObject") || name.equals("readObjectNoData") ||
+                name.equals("writeReplace") || name.equals("readResolve")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object serializationCopy(Object orig) {
         try {
             // Write the object out to a byte array
             ByteArrayOutputStream fbos = new ByteArrayOutputStream();
@@ -45,10 +220,36 @@ public class DeepCopy {
             // a copy of the object back in.
             try (ByteArrayInputStream fbis = new ByteArrayInputStream(fbos.toByteArray());
                  ObjectInputStream in = new ObjectInputStream(fbis))  {
-                return (T) in.readObject();
+                return in.readObject();
             }
         } catch (IOException | ClassNotFoundException e) {
             throw new IllegalStateException("Cannot copy " + orig, e);
         }
-    };
+    }
+
+    // Copies a configuration object by creating a new instance and copying over all fields
+    private static class ModelCopier {
+
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+
+        ModelCopier(Constructor<?> constructor, Field[] fields) {
+            this.constructor = constructor;
+            this.fields = fields;
+        }
+
+        Object copy(Object orig, Map<Object, Object> copies) {
+            try {
+                Object ret = constructor.newInstance();
+                copies.put(orig, ret);
+                for (Field field : fields) {
+                    Object value = field.get(orig);
+                    field.set(ret, field.getType().isPrimitive() ? value : DeepCopy.copy(value, copies));
+                }
+                return ret;
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Cannot copy " + orig, e);
+            }
+        }
+    }
 }
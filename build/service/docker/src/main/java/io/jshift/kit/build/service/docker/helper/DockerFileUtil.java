@@ -32,6 +32,9 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -147,13 +150,72 @@ public class DockerFileUtil {
         }
     }
 
+    /**
+     * Read the Docker configuration from <code>~/.docker/config.json</code> (or <code>$DOCKER_CONFIG/config.json</code>).
+     * The parsed configuration is cached and the file is only parsed again when its modification time or size
+     * has changed.
+     *
+     * @return a copy of the docker configuration or <code>null</code> if no configuration exists
+     */
     public static JsonObject readDockerConfig() {
         String dockerConfig = System.getenv("DOCKER_CONFIG");
+        File configFile = dockerConfig == null
+                ? new File(getHomeDir(),".docker/config.json")
+                : new File(dockerConfig,"config.json");
+
+        synchronized (DockerFileUtil.class) {
+            BasicFileAttributes attributes = readFileAttributes(configFile);
+            if (attributes == null || attributes.size() == 0) {
+                cachedDockerConfig = null;
+                return null;
+            }
+            if (cachedDockerConfig == null || !cachedDockerConfig.isFor(configFile, attributes)) {
+                try (Reader reader = getFileReaderFromDir(configFile)) {
+                    JsonObject config = reader != null ? new Gson().fromJson(reader, JsonObject.class) : null;
+                    cachedDockerConfig = new CachedDockerConfig(configFile, attributes, config);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot read " + configFile + ": " + e, e);
+                }
+            }
+            JsonObject config = cachedDockerConfig.getConfig();
+            // Hand out a copy as callers are free to modify the returned object
+            return config != null ? config.deepCopy() : null;
+        }
+    }
+
+    private static BasicFileAttributes readFileAttributes(File file) {
+        try {
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Last docker config read, together with the file state it has been read from
+    private static CachedDockerConfig cachedDockerConfig;
+
+    private static final class CachedDockerConfig {
+        private final File file;
+        private final FileTime lastModified;
+        private final long size;
+        private final JsonObject config;
 
-        Reader reader = dockerConfig == null
-                ? getFileReaderFromDir(new File(getHomeDir(),".docker/config.json"))
-                : getFileReaderFromDir(new File(dockerConfig,"config.json"));
-        return reader != null ? new Gson().fromJson(reader, JsonObject.class) : null;
+        private CachedDockerConfig(File file, BasicFileAttributes attributes, JsonObject config) {
+            this.file = file;
+            this.lastModified = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.config = config;
+        }
+
+        private boolean isFor(File otherFile, BasicFileAttributes attributes) {
+            return file.equals(otherFile) &&
+                   lastModified.equals(attributes.lastModifiedTime()) &&
+                   size == attributes.size();
+        }
+
+        private JsonObject getConfig() {
+            return config;
+        }
     }
 
     public static String[] extractDelimiters(String filter) {
@@ -1,7 +1,7 @@
 package io.jshift.kit.build.service.docker.wait;
 
 import io.jshift.kit.build.api.model.ContainerDetails;
-import io.jshift.kit.build.service.docker.access.DockerAccess;
+import io.jshift.kit.build.service.docker.QueryService;
 import io.jshift.kit.build.service.docker.access.DockerAccessException;
 import io.jshift.kit.common.KitLogger;
 
@@ -13,13 +13,13 @@ public class HealthCheckChecker implements WaitChecker {
 
     private boolean first = true;
 
-    private DockerAccess docker;
+    private QueryService queryService;
     private String containerId;
     private KitLogger log;
     private final String imageConfigDesc;
 
-    public HealthCheckChecker(DockerAccess docker, String containerId, String imageConfigDesc, KitLogger log) {
-        this.docker = docker;
+    public HealthCheckChecker(QueryService queryService, String containerId, String imageConfigDesc, KitLogger log) {
+        this.queryService = queryService;
         this.containerId = containerId;
         this.imageConfigDesc = imageConfigDesc;
         this.log = log;
@@ -28,7 +28,7 @@ public class HealthCheckChecker implements WaitChecker {
     @Override
     public boolean check() {
         try {
-            final ContainerDetails container = docker.getContainer(containerId);
+            final ContainerDetails container = queryService.getContainerDetails(containerId);
             if (container == null) {
                 log.debug("HealthWaitChecker: Container %s not found");
                 return false;
@@ -59,7 +59,7 @@ public class HealthCheckChecker implements WaitChecker {
     @Override
     public String getLogLabel() {
         try {
-            final ContainerDetails container = docker.getContainer(containerId);
+            final ContainerDetails container = queryService.getContainerDetails(containerId);
             return String.format("on healthcheck '%s'",container != null ? container.getHealthcheck() : "[container not found]");
         } catch (DockerAccessException e) {
             return String.format("on healthcheck [error fetching container: %s]", e.getMessage());
@@ -0,0 +1,198 @@
+package io.jshift.kit.build.service.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.jshift.kit.build.maven.assembly.AssemblyFiles;
+import io.jshift.kit.build.service.docker.access.FakeDockerDaemon;
+import io.jshift.kit.build.service.docker.access.hc.DockerAccessWithHcClient;
+import io.jshift.kit.common.KitLogger;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class ContainerFileSyncTest {
+
+    private FakeDockerDaemon daemon;
+    private DockerAccessWithHcClient client;
+    private File baseDir;
+    private AssemblyFiles files;
+    private File appJar;
+    private File config;
+    private final AtomicLong now = new AtomicLong(10000);
+    private final List<List<String>> execs = new ArrayList<>();
+    private ContainerFileSync sync;
+
+    @Before
+    public void setup() throws IOException {
+        daemon = new FakeDockerDaemon();
+        client = new DockerAccessWithHcClient(daemon.getUrl(), null, 1, new KitLogger.StdoutLogger());
+
+        baseDir = Files.createTempDirectory("sync").toFile();
+        File assemblyDir = new File(baseDir, "assembly");
+        appJar = write(new File(baseDir, "src/app.jar"), "app");
+        config = write(new File(baseDir, "src/config.yml"), "config");
+        files = new AssemblyFiles(assemblyDir);
+        files.addEntry(appJar, write(new File(assemblyDir, "maven/app.jar"), "app"));
+        files.addEntry(config, write(new File(assemblyDir, "maven/conf/config.yml"), "config"));
+
+        RunService runService = new RunService(null, null, null, null, null) {
+            @Override
+            public String execInContainer(String containerId, List<String> command, ImageConfiguration imageConfiguration) {
+                execs.add(command);
+                return "exec";
+            }
+        };
+        sync = new ContainerFileSync(client, runService, assemblyDir, 200, now::get);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.shutdown();
+        daemon.close();
+        FileUtils.deleteDirectory(baseDir);
+    }
+
+    @Test
+    public void coalescesChangesWithinDebounceWindow() throws Exception {
+        modify(appJar, "app v2");
+        poll();
+        now.addAndGet(150);
+        assertFalse(sync.isReady());
+
+        modify(appJar, "app v3");
+        modify(config, "config v2");
+        poll();
+        now.addAndGet(150);
+        assertFalse(sync.isReady());
+        now.addAndGet(50);
+        assertTrue(sync.isReady());
+
+        ContainerFileSync.Result result = sync.sync("web", "/deployments", null);
+
+        assertEquals(2, result.getCopied());
+        assertEquals(0, result.getRemoved());
+        assertEquals(1, daemon.getCopiedArchives().size());
+        FakeDockerDaemon.CopiedArchive copied = daemon.getCopiedArchives().get(0);
+        assertEquals("web", copied.getContainerId());
+        assertEquals("/deployments", copied.getPath());
+        assertEquals(copied.getArchive().length, result.getBytes());
+
+        Map<String, String> entries = readTar(copied.getArchive());
+        assertEquals(2, entries.size());
+        assertEquals("app v3", entries.get("maven/app.jar"));
+        assertEquals("config v2", entries.get("maven/conf/config.yml"));
+        assertTrue(execs.isEmpty());
+        assertFalse(sync.isReady());
+    }
+
+    @Test
+    public void changeDetectedAfterDebounceWindowIsReady() throws Exception {
+        modify(appJar, "app v2");
+        now.set(appJar.lastModified() + 500);
+        poll();
+
+        assertTrue(sync.isReady());
+    }
+
+    @Test
+    public void removesDeletedFiles() throws Exception {
+        assertTrue(config.delete());
+        poll();
+        now.addAndGet(200);
+
+        ContainerFileSync.Result result = sync.sync("web", "/deployments/", null);
+
+        assertEquals(0, result.getCopied());
+        assertEquals(1, result.getRemoved());
+        assertTrue(daemon.getCopiedArchives().isEmpty());
+        assertEquals(1, execs.size());
+        assertEquals(asList("rm", "-f", "--", "/deployments/maven/conf/config.yml"), execs.get(0));
+    }
+
+    @Test
+    public void latestChangeWins() throws Exception {
+        assertTrue(config.delete());
+        poll();
+        write(config, "config again");
+        poll();
+        now.addAndGet(200);
+
+        ContainerFileSync.Result result = sync.sync("web", "/deployments", null);
+
+        assertEquals(1, result.getCopied());
+        assertEquals(0, result.getRemoved());
+        assertEquals("config again", readTar(daemon.getCopiedArchives().get(0).getArchive()).get("maven/conf/config.yml"));
+        assertTrue(execs.isEmpty());
+    }
+
+    @Test
+    public void keepsFilePermissions() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Files.setPosixFilePermissions(appJar.toPath(), PosixFilePermissions.fromString("rwxr-x---"));
+        Files.setPosixFilePermissions(config.toPath(), PosixFilePermissions.fromString("rw-r-----"));
+        modify(appJar, "app v2");
+        modify(config, "config v2");
+        poll();
+        now.addAndGet(200);
+
+        sync.sync("web", "/deployments", null);
+
+        Map<String, Integer> modes = new LinkedHashMap<>();
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(daemon.getCopiedArchives().get(0).getArchive()))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                assertTrue(entry.isFile());
+                modes.put(entry.getName(), entry.getMode() & 0777);
+            }
+        }
+        assertEquals(Integer.valueOf(0750), modes.get("maven/app.jar"));
+        assertEquals(Integer.valueOf(0640), modes.get("maven/conf/config.yml"));
+    }
+
+    private void poll() throws IOException {
+        sync.addChanges(files.getUpdatedEntriesAndRefresh(), files.getDeletedEntriesAndRefresh());
+    }
+
+    private void modify(File file, String content) throws IOException {
+        long lastModified = file.lastModified();
+        write(file, content);
+        assertTrue(file.setLastModified(lastModified + 1000));
+    }
+
+    private File write(File file, String content) throws IOException {
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private Map<String, String> readTar(byte[] archive) throws IOException {
+        Map<String, String> ret = new LinkedHashMap<>();
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(archive))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                ret.put(entry.getName(), IOUtils.toString(tar, StandardCharsets.UTF_8));
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,130 @@
+package io.jshift.kit.build.service.docker;
+
+import java.io.IOException;
+
+import io.jshift.kit.build.api.model.ContainerDetails;
+import io.jshift.kit.build.service.docker.access.FakeDockerDaemon;
+import io.jshift.kit.build.service.docker.access.hc.DockerAccessWithHcClient;
+import io.jshift.kit.common.KitLogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DockerStateCacheTest {
+
+    private static final String CONTAINER_ID = "4711abcdef0123456789";
+
+    private FakeDockerDaemon daemon;
+    private DockerAccessWithHcClient client;
+    private DockerStateCache cache;
+    private ContainerTracker tracker;
+
+    @Before
+    public void setup() throws IOException {
+        daemon = new FakeDockerDaemon();
+        client = new DockerAccessWithHcClient(daemon.getUrl(), null, 1, new KitLogger.StdoutLogger());
+        tracker = new ContainerTracker();
+        cache = new DockerStateCache(client, tracker, new KitLogger.StdoutLogger());
+        daemon.setContainer("web", container(true));
+    }
+
+    @After
+    public void tearDown() {
+        cache.shutdown();
+        client.shutdown();
+        daemon.close();
+    }
+
+    @Test
+    public void servesRepeatedLookupsFromCache() throws Exception {
+        awaitActive();
+        int before = daemon.getInspectCount();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cache.getContainer("web").isRunning());
+        }
+
+        assertEquals(before + 1, daemon.getInspectCount());
+        assertTrue(daemon.getEventQueries().get(0).contains("{\"type\":[\"container\",\"network\"]}"));
+    }
+
+    @Test
+    public void containerEventInvalidates() throws Exception {
+        awaitActive();
+        assertTrue(cache.getContainer("web").isRunning());
+
+        daemon.setContainer("web", container(false));
+        daemon.emit("{\"Type\":\"container\",\"Action\":\"die\",\"Actor\":{\"ID\":\"" + CONTAINER_ID + "\",\"Attributes\":{\"name\":\"web\"}}}");
+
+        assertEquals(Integer.valueOf(3), awaitExitCode());
+    }
+
+    @Test
+    public void networkEventInvalidates() throws Exception {
+        awaitActive();
+        assertTrue(cache.getContainer("web").isRunning());
+
+        daemon.setContainer("web", container(false));
+        daemon.emit("{\"Type\":\"network\",\"Action\":\"disconnect\",\"Actor\":{\"ID\":\"net0815\",\"Attributes\":{\"container\":\"" + CONTAINER_ID + "\"}}}");
+
+        assertEquals(Integer.valueOf(3), awaitExitCode());
+    }
+
+    @Test
+    public void destroyedContainerIsNotTrackedAnymore() throws Exception {
+        tracker.registerContainer(CONTAINER_ID, new ImageConfiguration.Builder().name("web").build(), null);
+        tracker.registerContainer("0815", new ImageConfiguration.Builder().name("db").build(), null);
+        awaitActive();
+
+        daemon.emit("{\"Type\":\"container\",\"Action\":\"destroy\",\"Actor\":{\"ID\":\"" + CONTAINER_ID + "\",\"Attributes\":{\"name\":\"web\"}}}");
+
+        long timeout = System.currentTimeMillis() + 10000;
+        while (tracker.lookupContainer("web") != null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertNull(tracker.lookupContainer("web"));
+        assertEquals("0815", tracker.lookupContainer("db"));
+    }
+
+    @Test
+    public void delegatesWithoutEvents() throws Exception {
+        daemon.setEventsStatus(500);
+
+        assertTrue(cache.getContainer("web").isRunning());
+        assertTrue(cache.getContainer("web").isRunning());
+        assertNull(cache.getContainer("db"));
+
+        assertFalse(cache.isActive());
+        assertEquals(3, daemon.getInspectCount());
+    }
+
+    private void awaitActive() throws Exception {
+        // The first lookup subscribes to the events
+        cache.getContainer("web");
+        assertTrue(daemon.awaitEventsConnected());
+        long timeout = System.currentTimeMillis() + 10000;
+        while (!cache.isActive() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertTrue(cache.isActive());
+    }
+
+    private Integer awaitExitCode() throws Exception {
+        long timeout = System.currentTimeMillis() + 10000;
+        ContainerDetails details = cache.getContainer("web");
+        while (details.isRunning() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+            details = cache.getContainer("web");
+        }
+        return details.getExitCode();
+    }
+
+    private String container(boolean running) {
+        return "{\"Id\":\"" + CONTAINER_ID + "\",\"Name\":\"/web\",\"State\":{\"Running\":" + running + ",\"ExitCode\":" + (running ? 0 : 3) + "}}";
+    }
+}
@@ -0,0 +1,272 @@
+package io.jshift.kit.build.service.docker.access;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Minimal docker daemon listening on localhost, which serves <code>/version</code>,
+ * <code>/events</code>, container inspection, archive upload, image save/load and tagging, pushing and removing
+ * images. Events are streamed as they are emitted by a test. Image requests which change something are recorded.
+ */
+public class FakeDockerDaemon implements AutoCloseable {
+
+    public static final String API_VERSION = "1.40";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    private final CountDownLatch eventsConnected = new CountDownLatch(1);
+    private final List<String> eventQueries = new CopyOnWriteArrayList<>();
+    private volatile int eventsStatus = 200;
+    private volatile boolean closed;
+
+    private final Map<String, String> containers = new ConcurrentHashMap<>();
+    private final AtomicInteger inspectCount = new AtomicInteger();
+
+    private final List<CopiedArchive> copiedArchives = new CopyOnWriteArrayList<>();
+
+    private final Map<String, byte[]> images = new ConcurrentHashMap<>();
+    private final List<byte[]> loadedImages = new CopyOnWriteArrayList<>();
+
+    private final List<String> imageRequests = new CopyOnWriteArrayList<>();
+    private volatile String pushError;
+
+    public FakeDockerDaemon() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/version", this::version);
+        server.createContext("/v" + API_VERSION + "/events", this::events);
+        server.createContext("/v" + API_VERSION + "/containers/", this::containers);
+        server.createContext("/v" + API_VERSION + "/images/", this::images);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setContainer(String idOrName, String json) {
+        containers.put(idOrName, json);
+    }
+
+    public int getInspectCount() {
+        return inspectCount.get();
+    }
+
+    public List<CopiedArchive> getCopiedArchives() {
+        return copiedArchives;
+    }
+
+    public void setImage(String name, byte[] archive) {
+        images.put(name, archive);
+    }
+
+    public List<byte[]> getLoadedImages() {
+        return loadedImages;
+    }
+
+    /**
+     * Recorded tag, push and remove requests, like <code>tag test:1.0 registry:5000/test:1.0</code>,
+     * <code>push registry:5000/test:1.0</code> or <code>remove registry:5000/test:1.0</code>
+     */
+    public List<String> getImageRequests() {
+        return imageRequests;
+    }
+
+    public void setPushError(String error) {
+        pushError = error;
+    }
+
+    public void setEventsStatus(int status) {
+        eventsStatus = status;
+    }
+
+    public void emit(String event) {
+        events.add(event);
+    }
+
+    public boolean awaitEventsConnected() throws InterruptedException {
+        return eventsConnected.await(10, TimeUnit.SECONDS);
+    }
+
+    public List<String> getEventQueries() {
+        return eventQueries;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void version(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Api-Version", API_VERSION);
+        respond(exchange, 200, "{\"ApiVersion\":\"" + API_VERSION + "\"}");
+    }
+
+    private void events(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        eventQueries.add(query != null ? URLDecoder.decode(query, "UTF-8") : "");
+        if (eventsStatus != 200) {
+            respond(exchange, eventsStatus, "{\"message\":\"events not supported\"}");
+            return;
+        }
+        exchange.sendResponseHeaders(200, 0);
+        eventsConnected.countDown();
+        try (OutputStream out = exchange.getResponseBody()) {
+            while (!closed) {
+                String event = events.poll(100, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    out.write((event + "\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException | IOException e) {
+            // Client went away or daemon is stopped
+        }
+    }
+
+    private void containers(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/archive") && exchange.getRequestMethod().equals("PUT")) {
+            String id = path.substring(path.indexOf("/containers/") + "/containers/".length(), path.lastIndexOf("/archive"));
+            String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), "UTF-8");
+            try (InputStream in = exchange.getRequestBody()) {
+                copiedArchives.add(new CopiedArchive(id, query.substring(query.indexOf("path=") + "path=".length()), IOUtils.toByteArray(in)));
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        if (!path.endsWith("/json")) {
+            respond(exchange, 404, "{\"message\":\"page not found\"}");
+            return;
+        }
+        String idOrName = path.substring(path.indexOf("/containers/") + "/containers/".length(), path.lastIndexOf("/json"));
+        inspectCount.incrementAndGet();
+        String json = containers.get(idOrName);
+        if (json == null) {
+            respond(exchange, 404, "{\"message\":\"No such container: " + idOrName + "\"}");
+        } else {
+            respond(exchange, 200, json);
+        }
+    }
+
+    private void images(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/images/load") && exchange.getRequestMethod().equals("POST")) {
+            try (InputStream in = exchange.getRequestBody()) {
+                loadedImages.add(IOUtils.toByteArray(in));
+            }
+            respond(exchange, 200, "{\"stream\":\"Loaded image\"}");
+            return;
+        }
+        String query = exchange.getRequestURI().getRawQuery();
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                String[] keyValue = param.split("=", 2);
+                params.put(keyValue[0], keyValue.length > 1 ? URLDecoder.decode(keyValue[1], "UTF-8") : "");
+            }
+        }
+        if (path.endsWith("/tag") && exchange.getRequestMethod().equals("POST")) {
+            // The request body is empty, but has to be read to keep the connection usable
+            IOUtils.toByteArray(exchange.getRequestBody());
+            imageRequests.add("tag " + getImageName(path, "/tag") + " " + params.get("repo") + ":" + params.get("tag"));
+            exchange.sendResponseHeaders(201, -1);
+            exchange.close();
+            return;
+        }
+        if (path.endsWith("/push") && exchange.getRequestMethod().equals("POST")) {
+            IOUtils.toByteArray(exchange.getRequestBody());
+            imageRequests.add("push " + getImageName(path, "/push") + ":" + params.get("tag"));
+            respond(exchange, 200, "{\"status\":\"Pushed\"}\r\n" + (pushError != null ? pushError : ""));
+            return;
+        }
+        if (path.endsWith("/json") && exchange.getRequestMethod().equals("GET")) {
+            String name = getImageName(path, "/json");
+            respond(exchange, images.containsKey(name) ? 200 : 404, "{}");
+            return;
+        }
+        if (exchange.getRequestMethod().equals("DELETE")) {
+            imageRequests.add("remove " + getImageName(path, ""));
+            respond(exchange, 200, "[]");
+            return;
+        }
+        if (!path.endsWith("/get")) {
+            respond(exchange, 404, "{\"message\":\"page not found\"}");
+            return;
+        }
+        String name = URLDecoder.decode(path.substring(path.indexOf("/images/") + "/images/".length(), path.lastIndexOf("/get")), "UTF-8");
+        byte[] archive = images.get(name);
+        if (archive == null) {
+            respond(exchange, 404, "{\"message\":\"No such image: " + name + "\"}");
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/x-tar");
+        // Stream the archive chunked like the daemon does
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(archive);
+        }
+    }
+
+    private String getImageName(String path, String suffix) {
+        return path.substring(path.indexOf("/images/") + "/images/".length(), path.length() - suffix.length());
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static class CopiedArchive {
+        private final String containerId;
+        private final String path;
+        private final byte[] archive;
+
+        CopiedArchive(String containerId, String path, byte[] archive) {
+            this.containerId = containerId;
+            this.path = path;
+            this.archive = archive;
+        }
+
+        public String getContainerId() {
+            return containerId;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public byte[] getArchive() {
+            return archive;
+        }
+    }
+}
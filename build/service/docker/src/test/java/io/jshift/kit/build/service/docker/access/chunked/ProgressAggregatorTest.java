@@ -0,0 +1,75 @@
+package io.jshift.kit.build.service.docker.access.chunked;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.jshift.kit.common.KitLogger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProgressAggregatorTest {
+
+    private long now;
+
+    @Test
+    public void rendersChangedLayersOncePerFrame() {
+        RecordingLogger log = new RecordingLogger();
+        ProgressAggregator aggregator = new ProgressAggregator(log, 100, () -> now);
+
+        aggregator.start();
+        for (int i = 0; i < 50; i++) {
+            now += 1;
+            aggregator.update("a", "Downloading", "[" + i + "]");
+            aggregator.update("b", "Downloading", "[" + i + "]");
+        }
+        // 50 ms passed: nothing rendered yet
+        assertEquals(Collections.singletonList("start"), log.calls);
+
+        now += 50;
+        aggregator.update("c", "Waiting", "");
+        assertEquals(Arrays.asList("start", "a Downloading [49]", "b Downloading [49]", "c Waiting "), log.calls);
+
+        // Only the layer which changed is rendered with the next frame
+        now += 100;
+        aggregator.update("b", "Download complete", "");
+        aggregator.finish();
+        assertEquals(Arrays.asList("start", "a Downloading [49]", "b Downloading [49]", "c Waiting ",
+                                   "b Download complete ", "finished"), log.calls);
+    }
+
+    @Test
+    public void skipsUnchangedState() {
+        RecordingLogger log = new RecordingLogger();
+        ProgressAggregator aggregator = new ProgressAggregator(log, 0, () -> now);
+
+        aggregator.start();
+        aggregator.update("a", "Waiting", "");
+        aggregator.update("a", "Waiting", "");
+        aggregator.flush();
+        aggregator.finish();
+
+        assertEquals(Arrays.asList("start", "a Waiting ", "finished"), log.calls);
+    }
+
+    private static class RecordingLogger extends KitLogger.StdoutLogger {
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void progressStart() {
+            calls.add("start");
+        }
+
+        @Override
+        public void progressUpdate(String layerId, String status, String progressMessage) {
+            calls.add(layerId + " " + status + " " + progressMessage);
+        }
+
+        @Override
+        public void progressFinished() {
+            calls.add("finished");
+        }
+    }
+}
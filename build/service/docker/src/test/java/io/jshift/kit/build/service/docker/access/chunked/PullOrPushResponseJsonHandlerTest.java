@@ -0,0 +1,139 @@
+package io.jshift.kit.build.service.docker.access.chunked;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonParser;
+import io.jshift.kit.build.service.docker.access.DockerAccessException;
+import io.jshift.kit.common.KitLogger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PullOrPushResponseJsonHandlerTest {
+
+    private static final String PULL =
+        "{\"status\":\"Pulling from library/alpine\",\"id\":\"3.9\"}\r\n" +
+        "{\"status\":\"Pulling fs layer\",\"progressDetail\":{},\"id\":\"bdf0201b3a05\"}\r\n" +
+        "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":27648,\"total\":2757034},\"progress\":\"[>    ]  27.65kB/2.757MB\",\"id\":\"bdf0201b3a05\"}\r\n" +
+        "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":1048576,\"total\":2757034},\"progress\":\"[==>  ]  1.049MB/2.757MB\",\"id\":\"bdf0201b3a05\"}\r\n" +
+        "{\"status\":\"Pull complete\",\"progressDetail\":{},\"id\":\"bdf0201b3a05\"}\r\n" +
+        "{\"status\":\"Digest: sha256:769fddc7cc2f0a1c35abb2f91432e8beecf83916c421420e6a6da9f8975464b6\"}\r\n" +
+        "{\"aux\":{\"Tag\":\"3.9\"}}\r\n";
+
+    @Test
+    public void streamingTokens() throws IOException {
+        RecordingLogger log = new RecordingLogger();
+        PullOrPushResponseJsonHandler handler = new PullOrPushResponseJsonHandler(log, new ProgressAggregator(log, 0, () -> 0));
+
+        EntityStreamReaderUtil.processJsonStream(handler, new ByteArrayInputStream(PULL.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(expectedCalls(), log.calls);
+    }
+
+    @Test
+    public void sameResultForJsonObjects() throws IOException {
+        RecordingLogger log = new RecordingLogger();
+        PullOrPushResponseJsonHandler handler = new PullOrPushResponseJsonHandler(log, new ProgressAggregator(log, 0, () -> 0));
+
+        handler.start();
+        for (String line : PULL.split("\r\n")) {
+            handler.process(new JsonParser().parse(line).getAsJsonObject());
+        }
+        handler.stop();
+
+        assertEquals(expectedCalls(), log.calls);
+    }
+
+    @Test
+    public void error() throws IOException {
+        String stream = "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":1},\"id\":\"bdf0201b3a05\"}" +
+                        "{\"errorDetail\":{\"message\":\"unauthorized: access denied\"},\"error\":\"push failed\"}";
+        PullOrPushResponseJsonHandler handler = new PullOrPushResponseJsonHandler(new RecordingLogger());
+        try {
+            EntityStreamReaderUtil.processJsonStream(handler, new ByteArrayInputStream(stream.getBytes(StandardCharsets.UTF_8)));
+            throw new AssertionError("Expected an error");
+        } catch (DockerAccessException exp) {
+            assertEquals("push failed (unauthorized: access denied)", exp.getMessage());
+            assertEquals(401, exp.getStatusCode());
+        }
+    }
+
+    @Test
+    public void errorCode() throws IOException {
+        String error = "{\"errorDetail\":{\"code\":404,\"message\":\"repository not found\"},\"error\":\"push failed\"}";
+        try {
+            EntityStreamReaderUtil.processJsonStream(new PullOrPushResponseJsonHandler(new RecordingLogger()),
+                                                     new ByteArrayInputStream(error.getBytes(StandardCharsets.UTF_8)));
+            throw new AssertionError("Expected an error");
+        } catch (DockerAccessException exp) {
+            assertEquals(404, exp.getStatusCode());
+        }
+        try {
+            new PullOrPushResponseJsonHandler(new RecordingLogger()).process(new JsonParser().parse(error).getAsJsonObject());
+            throw new AssertionError("Expected an error");
+        } catch (DockerAccessException exp) {
+            assertEquals(404, exp.getStatusCode());
+        }
+    }
+
+    @Test
+    public void unauthorizedOnlyAsErrorCode() throws IOException {
+        // A message which merely mentions the word is no authentication failure
+        String error = "{\"errorDetail\":{\"message\":\"denied: not unauthorized to push\"},\"error\":\"push failed\"}";
+        try {
+            EntityStreamReaderUtil.processJsonStream(new PullOrPushResponseJsonHandler(new RecordingLogger()),
+                                                     new ByteArrayInputStream(error.getBytes(StandardCharsets.UTF_8)));
+            throw new AssertionError("Expected an error");
+        } catch (DockerAccessException exp) {
+            assertEquals(0, exp.getStatusCode());
+        }
+    }
+
+    private List<String> expectedCalls() {
+        List<String> ret = new ArrayList<>();
+        ret.add("start");
+        ret.add("finished");
+        ret.add("info Pulling from library/alpine");
+        ret.add("start");
+        ret.add("update bdf0201b3a05 Pulling fs layer ");
+        ret.add("update bdf0201b3a05 Downloading [>    ]  27.65kB/2.757MB");
+        ret.add("update bdf0201b3a05 Downloading [==>  ]  1.049MB/2.757MB");
+        ret.add("update bdf0201b3a05 Pull complete ");
+        ret.add("finished");
+        ret.add("info Digest: sha256:769fddc7cc2f0a1c35abb2f91432e8beecf83916c421420e6a6da9f8975464b6");
+        ret.add("start");
+        ret.add("finished");
+        ret.add("info {\"aux\":{\"Tag\":\"3.9\"}}");
+        ret.add("start");
+        ret.add("finished");
+        return ret;
+    }
+
+    private static class RecordingLogger extends KitLogger.StdoutLogger {
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void info(String format, Object... params) {
+            calls.add("info " + String.format(format, params));
+        }
+
+        @Override
+        public void progressStart() {
+            calls.add("start");
+        }
+
+        @Override
+        public void progressUpdate(String layerId, String status, String progressMessage) {
+            calls.add("update " + layerId + " " + status + " " + progressMessage);
+        }
+
+        @Override
+        public void progressFinished() {
+            calls.add("finished");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.jshift.kit.build.service.docker.access.events;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.jshift.kit.build.api.model.Event;
+import io.jshift.kit.build.service.docker.access.FakeDockerDaemon;
+import io.jshift.kit.build.service.docker.access.hc.DockerAccessWithHcClient;
+import io.jshift.kit.common.KitLogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventRequestorTest {
+
+    private FakeDockerDaemon daemon;
+    private DockerAccessWithHcClient client;
+
+    @Before
+    public void setup() throws IOException {
+        daemon = new FakeDockerDaemon();
+        client = new DockerAccessWithHcClient(daemon.getUrl(), null, 1, new KitLogger.StdoutLogger());
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        daemon.close();
+    }
+
+    @Test
+    public void receivesEvents() throws Exception {
+        RecordingCallback callback = new RecordingCallback();
+        EventGetHandle handle = client.getEventsAsync(callback, "type", "container", "type", "network", "label", "app=web");
+        assertTrue(daemon.awaitEventsConnected());
+
+        daemon.emit("{\"Type\":\"container\",\"Action\":\"health_status: healthy\",\"Actor\":{\"ID\":\"4711abcdef\"," +
+                    "\"Attributes\":{\"name\":\"web\",\"app\":\"web\"}},\"time\":1554000000,\"timeNano\":1554000000123456789}");
+        daemon.emit("{\"status\":\"die\",\"id\":\"0815abcdef\",\"from\":\"nginx\",\"time\":1554000001}");
+
+        Event event = callback.events.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertEquals(Event.TYPE_CONTAINER, event.getType());
+        assertEquals("health_status: healthy", event.getAction());
+        assertEquals("4711abcdef", event.getActorId());
+        assertEquals("web", event.getAttributes().get("name"));
+        assertEquals(1554000000123456789L, event.getTimeNano());
+
+        // Format of daemons before API version 1.22
+        event = callback.events.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertEquals(Event.TYPE_CONTAINER, event.getType());
+        assertEquals("die", event.getAction());
+        assertEquals("0815abcdef", event.getActorId());
+        assertTrue(event.getAttributes().isEmpty());
+        assertEquals(1554000001000000000L, event.getTimeNano());
+
+        assertEquals(1, daemon.getEventQueries().size());
+        assertTrue(daemon.getEventQueries().get(0),
+                   daemon.getEventQueries().get(0).contains("filters={\"type\":[\"container\",\"network\"],\"label\":[\"app=web\"]}"));
+
+        handle.finish();
+        assertTrue(callback.closed.await(10, TimeUnit.SECONDS));
+        assertTrue(callback.opened);
+        assertFalse(handle.isError());
+    }
+
+    @Test
+    public void reportsErrorResponses() throws Exception {
+        daemon.setEventsStatus(500);
+        RecordingCallback callback = new RecordingCallback();
+        EventGetHandle handle = client.getEventsAsync(callback);
+
+        assertTrue(callback.closed.await(10, TimeUnit.SECONDS));
+        assertFalse(callback.opened);
+        assertNotNull(callback.error);
+        assertTrue(handle.isError());
+    }
+
+    private static class RecordingCallback implements EventCallback {
+
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile boolean opened;
+        private volatile String error;
+
+        @Override
+        public void open() {
+            opened = true;
+        }
+
+        @Override
+        public void event(Event event) {
+            events.add(event);
+        }
+
+        @Override
+        public void error(String error) {
+            this.error = error;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package io.jshift.kit.build.service.docker.access.hc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.jshift.kit.build.service.docker.access.FakeDockerDaemon;
+import io.jshift.kit.build.service.docker.access.hc.http.HttpClientBuilder;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolConfig;
+import io.jshift.kit.build.service.docker.access.hc.util.ConnectionPoolStats;
+import io.jshift.kit.common.KitMetrics;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApacheHttpClientDelegateTest {
+
+    private FakeDockerDaemon daemon;
+    private ApacheHttpClientDelegate delegate;
+    private String apiUrl;
+
+    @Before
+    public void setup() throws IOException {
+        daemon = new FakeDockerDaemon();
+        daemon.setContainer("web", "{\"Id\":\"4711\"}");
+        ConnectionPoolConfig config = new ConnectionPoolConfig.Builder()
+            .maxConnections(4)
+            .maxStreamingConnections(2)
+            .build();
+        delegate = new ApacheHttpClientDelegate(new HttpClientBuilder(null, config), true);
+        apiUrl = daemon.getUrl() + "/v" + FakeDockerDaemon.API_VERSION;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        KitMetrics.disable();
+        delegate.close();
+        daemon.close();
+    }
+
+    @Test
+    public void operationNamesAreStable() {
+        assertEquals("GET /containers/{id}/json",
+                     ApacheHttpClientDelegate.getOperationName(new HttpGet("http://localhost/v1.40/containers/4711/json")));
+        assertEquals("POST /containers/create",
+                     ApacheHttpClientDelegate.getOperationName(new HttpPost("http://localhost/v1.40/containers/create?name=web")));
+        assertEquals("POST /exec/{id}/start",
+                     ApacheHttpClientDelegate.getOperationName(new HttpPost("http://localhost/v1.40/exec/abc/start")));
+        assertEquals("POST /images/{name}/push",
+                     ApacheHttpClientDelegate.getOperationName(new HttpPost("http://localhost/v1.40/images/docker.io/jshift/app:1.0/push")));
+        assertEquals("DELETE /images/{name}",
+                     ApacheHttpClientDelegate.getOperationName(new HttpDelete("http://localhost/v1.40/images/jshift/app:1.0?force=1")));
+        assertEquals("POST /images/create",
+                     ApacheHttpClientDelegate.getOperationName(new HttpPost("http://localhost/v1.40/images/create?fromImage=busybox")));
+    }
+
+    @Test
+    public void recordsApiCallsWhenMetricsEnabled() throws IOException {
+        KitMetrics.enable(false);
+        delegate.get(apiUrl + "/containers/web/json", HTTP_OK);
+        delegate.get(apiUrl + "/containers/web/json", HTTP_OK);
+
+        assertEquals(1, KitMetrics.getStats().size());
+        assertEquals("docker", KitMetrics.getStats().get(0).getCategory());
+        assertEquals("GET /containers/{id}/json", KitMetrics.getStats().get(0).getName());
+        assertEquals(2, KitMetrics.getStats().get(0).getCount());
+    }
+
+    @Test
+    public void reusesConnections() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            delegate.get(apiUrl + "/containers/web/json", HTTP_OK);
+        }
+
+        ConnectionPoolStats api = getStats("api");
+        assertEquals(10, api.getLeases());
+        assertEquals(0, api.getLeased());
+        assertEquals(1, api.getAvailable());
+        assertEquals(4, api.getMax());
+        assertEquals(0, getStats("streaming").getLeases());
+    }
+
+    @Test
+    public void usesSeparatePoolForStreaming() throws IOException {
+        delegate.get(apiUrl + "/containers/web/logs?stdout=1", new ApacheHttpClientDelegate.StatusCodeResponseHandler(), HTTP_NOT_FOUND);
+        delegate.get(apiUrl + "/containers/web/archive?path=/tmp", new ApacheHttpClientDelegate.StatusCodeResponseHandler(), HTTP_NOT_FOUND);
+        delegate.get(apiUrl + "/containers/web/json", HTTP_OK);
+
+        assertEquals(2, getStats("streaming").getLeases());
+        assertEquals(2, getStats("streaming").getMax());
+        assertEquals(1, getStats("api").getLeases());
+    }
+
+    @Test
+    public void recordsParallelLeases() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() -> delegate.get(apiUrl + "/containers/web/json", HTTP_OK)));
+            }
+            for (Future<String> result : results) {
+                assertEquals("{\"Id\":\"4711\"}", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        ConnectionPoolStats api = getStats("api");
+        assertEquals(32, api.getLeases());
+        assertEquals(0, api.getLeased());
+        assertTrue(api.toString(), api.getAvailable() <= 4);
+        assertTrue(api.toString(), api.getMaxWaitMillis() >= 0);
+    }
+
+    private ConnectionPoolStats getStats(String name) {
+        for (ConnectionPoolStats stats : delegate.getPoolStats()) {
+            if (stats.getName().equals(name)) {
+                return stats;
+            }
+        }
+        throw new AssertionError("No pool " + name + " in " + delegate.getPoolStats());
+    }
+}
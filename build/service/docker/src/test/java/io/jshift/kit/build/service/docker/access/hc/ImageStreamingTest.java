@@ -0,0 +1,108 @@
+package io.jshift.kit.build.service.docker.access.hc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import io.jshift.kit.build.service.docker.access.FakeDockerDaemon;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.config.image.build.ArchiveCompression;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ImageStreamingTest {
+
+    private FakeDockerDaemon source;
+    private FakeDockerDaemon target;
+    private DockerAccessWithHcClient sourceClient;
+    private DockerAccessWithHcClient targetClient;
+    private byte[] archive;
+
+    @Before
+    public void setup() throws IOException {
+        archive = createArchive(5 * 1024 * 1024);
+        source = new FakeDockerDaemon();
+        source.setImage("busybox:latest", archive);
+        target = new FakeDockerDaemon();
+        sourceClient = new DockerAccessWithHcClient(source.getUrl(), null, 1, new KitLogger.StdoutLogger());
+        targetClient = new DockerAccessWithHcClient(target.getUrl(), null, 1, new KitLogger.StdoutLogger());
+    }
+
+    @After
+    public void tearDown() {
+        sourceClient.shutdown();
+        targetClient.shutdown();
+        source.close();
+        target.close();
+    }
+
+    @Test
+    public void saveUncompressed() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String digest = sourceClient.saveImage("busybox:latest", out, ArchiveCompression.none);
+
+        assertArrayEquals(archive, out.toByteArray());
+        assertEquals(DigestUtils.sha256Hex(archive), digest);
+    }
+
+    @Test
+    public void saveGzipped() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String digest = sourceClient.saveImage("busybox:latest", out, ArchiveCompression.gzip);
+
+        byte[] compressed = out.toByteArray();
+        assertEquals(DigestUtils.sha256Hex(compressed), digest);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(archive, IOUtils.toByteArray(in));
+        }
+    }
+
+    @Test
+    public void pipeImageBetweenDaemons() throws Exception {
+        PipedInputStream in = new PipedInputStream(65536);
+        PipedOutputStream out = new PipedOutputStream(in);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> saved = executor.submit(() -> {
+                try {
+                    return sourceClient.saveImage("busybox:latest", out, ArchiveCompression.gzip);
+                } finally {
+                    out.close();
+                }
+            });
+            String loaded = targetClient.loadImage("busybox:latest", in);
+
+            assertEquals(saved.get(), loaded);
+            assertEquals(1, target.getLoadedImages().size());
+            try (InputStream gz = new GZIPInputStream(new ByteArrayInputStream(target.getLoadedImages().get(0)))) {
+                assertArrayEquals(archive, IOUtils.toByteArray(gz));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Somewhat compressible content, like the layers of an image
+    private byte[] createArchive(int size) {
+        Random random = new Random(42);
+        byte[] ret = new byte[size];
+        for (int i = 0; i < size; i++) {
+            ret[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,114 @@
+package io.jshift.kit.build.service.docker.access.hc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.jshift.kit.build.service.docker.access.DockerAccessException;
+import io.jshift.kit.build.service.docker.access.FakeDockerDaemon;
+import io.jshift.kit.common.KitLogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PushAndTagTest {
+
+    private static final String REGISTRY = "registry.example.com:5000";
+
+    private FakeDockerDaemon daemon;
+    private DockerAccessWithHcClient client;
+
+    @Before
+    public void setup() throws IOException {
+        daemon = new FakeDockerDaemon();
+        client = new DockerAccessWithHcClient(daemon.getUrl(), null, 1, new KitLogger.StdoutLogger());
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        daemon.close();
+    }
+
+    @Test
+    public void pushWithTags() throws IOException {
+        // Own tag and duplicates are pushed only once
+        client.pushImage("test:1.0", Arrays.asList("1.0", "latest", null, "abc1234", "latest"), null, REGISTRY, 0);
+
+        List<String> requests = daemon.getImageRequests();
+        assertEquals(Arrays.asList("tag test:1.0 " + REGISTRY + "/test:1.0",
+                                   "tag test:abc1234 " + REGISTRY + "/test:abc1234",
+                                   "tag test:latest " + REGISTRY + "/test:latest"),
+                     sorted(filter(requests, "tag ")));
+        // The first push uploads the layers, the other tags follow
+        List<String> pushes = filter(requests, "push ");
+        assertEquals("push " + REGISTRY + "/test:1.0", pushes.get(0));
+        assertEquals(Arrays.asList("push " + REGISTRY + "/test:1.0",
+                                   "push " + REGISTRY + "/test:abc1234",
+                                   "push " + REGISTRY + "/test:latest"),
+                     sorted(pushes));
+        assertEquals(Arrays.asList("remove " + REGISTRY + "/test:1.0",
+                                   "remove " + REGISTRY + "/test:abc1234",
+                                   "remove " + REGISTRY + "/test:latest"),
+                     sorted(filter(requests, "remove ")));
+    }
+
+    @Test
+    public void pushWithTagsFails() throws IOException {
+        daemon.setPushError("{\"errorDetail\":{\"message\":\"unauthorized: authentication required\"},\"error\":\"unauthorized\"}");
+        try {
+            client.pushImage("test:1.0", Arrays.asList("latest", "abc1234"), null, REGISTRY, 0);
+            fail("Push should have failed");
+        } catch (DockerAccessException exp) {
+            assertEquals(401, getStatusCode(exp));
+        }
+
+        List<String> requests = daemon.getImageRequests();
+        // Only the first push is tried, but all temporary tags are removed
+        assertEquals(Collections.singletonList("push " + REGISTRY + "/test:1.0"), filter(requests, "push "));
+        assertEquals(Arrays.asList("remove " + REGISTRY + "/test:1.0",
+                                   "remove " + REGISTRY + "/test:abc1234",
+                                   "remove " + REGISTRY + "/test:latest"),
+                     sorted(filter(requests, "remove ")));
+    }
+
+    @Test
+    public void tagMultiple() throws IOException {
+        client.tag("test:1.0", Arrays.asList("test:latest", "test:abc1234", "other:1.0"), true);
+
+        assertEquals(Arrays.asList("tag test:1.0 other:1.0",
+                                   "tag test:1.0 test:abc1234",
+                                   "tag test:1.0 test:latest"),
+                     sorted(daemon.getImageRequests()));
+    }
+
+    private static int getStatusCode(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DockerAccessException && ((DockerAccessException) cause).getStatusCode() != 0) {
+                return ((DockerAccessException) cause).getStatusCode();
+            }
+        }
+        return 0;
+    }
+
+    private static List<String> filter(List<String> requests, String prefix) {
+        List<String> ret = new ArrayList<>();
+        for (String request : requests) {
+            if (request.startsWith(prefix)) {
+                ret.add(request);
+            }
+        }
+        return ret;
+    }
+
+    private static List<String> sorted(List<String> requests) {
+        List<String> ret = new ArrayList<>(requests);
+        Collections.sort(ret);
+        return ret;
+    }
+}
@@ -0,0 +1,124 @@
+package io.jshift.kit.build.service.docker.auth;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.jshift.kit.build.api.auth.AuthConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AuthConfigCacheTest {
+
+    private AtomicLong now;
+    private AuthConfigCache cache;
+    private AtomicInteger loads;
+
+    @Before
+    public void setup() {
+        now = new AtomicLong(1_000_000L);
+        cache = new AuthConfigCache(now::get);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void defaultTtl() throws IOException {
+        AuthConfig first = lookup("registry", AuthConfigCache.Entry.of(createAuthConfig()));
+        now.addAndGet(AuthConfigCache.DEFAULT_TTL - 1);
+        assertSame(first, lookup("registry", AuthConfigCache.Entry.of(createAuthConfig())));
+        assertEquals(1, loads.get());
+
+        now.addAndGet(1);
+        lookup("registry", AuthConfigCache.Entry.of(createAuthConfig()));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void explicitExpiry() throws IOException {
+        long expiresAt = now.get() + TimeUnit.HOURS.toMillis(12);
+        lookup("ecr", AuthConfigCache.Entry.of(createAuthConfig(), expiresAt));
+        now.set(expiresAt - AuthConfigCache.EXPIRY_MARGIN - 1);
+        lookup("ecr", AuthConfigCache.Entry.of(createAuthConfig(), expiresAt));
+        assertEquals(1, loads.get());
+
+        now.set(expiresAt - AuthConfigCache.EXPIRY_MARGIN);
+        lookup("ecr", AuthConfigCache.Entry.of(createAuthConfig(), expiresAt));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void negativeLookupsAreCached() throws IOException {
+        assertNull(lookup("registry", AuthConfigCache.Entry.of(null)));
+        assertNull(lookup("registry", AuthConfigCache.Entry.of(createAuthConfig())));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void keysAreSeparated() throws IOException {
+        lookup("registry1", AuthConfigCache.Entry.of(createAuthConfig()));
+        lookup("registry2", AuthConfigCache.Entry.of(createAuthConfig()));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void failuresAreNotCached() throws IOException {
+        try {
+            cache.get("registry", () -> { throw new IOException("helper failed"); });
+            fail();
+        } catch (IOException exp) {
+            assertEquals("helper failed", exp.getMessage());
+        }
+        lookup("registry", AuthConfigCache.Entry.of(createAuthConfig()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void invalidate() throws IOException {
+        lookup("registry", AuthConfigCache.Entry.of(createAuthConfig()));
+        cache.invalidate("registry");
+        lookup("registry", AuthConfigCache.Entry.of(createAuthConfig()));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidateRejectedCredentials() throws IOException {
+        lookup("helper|registry1", AuthConfigCache.Entry.of(createAuthConfig()));
+        lookup("helper|registry2", AuthConfigCache.Entry.of(new AuthConfig.Builder().username("roland").password("other").build()));
+        // The credentials of a request are a copy of the cached ones
+        cache.invalidate(createAuthConfig());
+        lookup("helper|registry1", AuthConfigCache.Entry.of(createAuthConfig()));
+        lookup("helper|registry2", AuthConfigCache.Entry.of(createAuthConfig()));
+        assertEquals(3, loads.get());
+        assertEquals(Collections.singletonList("helper|registry1"), cache.getKeys(createAuthConfig()));
+        assertTrue(cache.getKeys(null).isEmpty());
+    }
+
+    @Test
+    public void digestChangesWithSecret() {
+        String digest = AuthConfigCache.digest(createAuthConfig());
+        assertEquals(digest, AuthConfigCache.digest(createAuthConfig()));
+        assertNotEquals(digest, AuthConfigCache.digest(new AuthConfig.Builder().username("roland").password("other").build()));
+        assertFalse(digest.contains("secret"));
+    }
+
+    private AuthConfig lookup(String key, AuthConfigCache.Entry entry) throws IOException {
+        return cache.get(key, () -> {
+            loads.incrementAndGet();
+            return entry;
+        });
+    }
+
+    private AuthConfig createAuthConfig() {
+        return new AuthConfig.Builder().username("roland").password("secret").build();
+    }
+}
@@ -0,0 +1,76 @@
+package io.jshift.kit.build.service.docker.config.handler.property;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import io.jshift.kit.common.util.EnvUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ValueProviderTest {
+
+    @Test
+    public void lists() {
+        Properties properties = props("docker.ports.2", "9090",
+                                      "docker.ports.1", "8080",
+                                      "docker.ports.10", "7070",
+                                      "docker.portsx.1", "1",
+                                      "docker.tags.1", "latest",
+                                      "docker.ports._combine", "replace",
+                                      "other.ports.1", "6060");
+
+        ValueProvider provider = new ValueProvider("docker", properties, PropertyMode.Only);
+
+        assertEquals(Arrays.asList("8080", "9090", "7070"), provider.getList(ConfigKey.PORTS, null));
+        assertEquals(Collections.singletonList("latest"), provider.getList(ConfigKey.TAGS, null));
+        assertNull(provider.getList(ConfigKey.VOLUMES, null));
+        assertEquals(EnvUtil.extractFromPropertiesAsList("docker.ports", properties), provider.getList(ConfigKey.PORTS, null));
+    }
+
+    @Test
+    public void maps() {
+        Properties properties = props("docker.env.JAVA_OPTS", "-Xmx64m",
+                                      "docker.env.DEBUG", "true",
+                                      "docker.envBuild.MODE", "build",
+                                      "docker.env._combine", "merge");
+
+        ValueProvider provider = new ValueProvider("docker", properties, PropertyMode.Only);
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("JAVA_OPTS", "-Xmx64m");
+        expected.put("DEBUG", "true");
+        assertEquals(expected, provider.getMap(ConfigKey.ENV, null));
+        assertEquals(Collections.singletonMap("MODE", "build"), provider.getMap(ConfigKey.ENV_BUILD, null));
+        assertNull(provider.getMap(ConfigKey.LABELS, null));
+    }
+
+    @Test
+    public void defaultsAndMerge() {
+        Properties defaults = props("docker.labels.version", "1.0");
+        Properties properties = new Properties(defaults);
+        properties.setProperty("docker.labels.vendor", "jshift");
+
+        ValueProvider provider = new ValueProvider("docker", properties, PropertyMode.Override);
+
+        Map<String, String> labels = provider.getMap(ConfigKey.LABELS, new HashMap<>(Collections.singletonMap("vendor", "config")));
+        assertEquals("jshift", labels.get("vendor"));
+        assertEquals("1.0", labels.get("version"));
+
+        List<String> ports = provider.getList(ConfigKey.PORTS, Collections.singletonList("80"));
+        assertEquals(Collections.singletonList("80"), ports);
+    }
+
+    private Properties props(String ... keyValues) {
+        Properties ret = new Properties();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            ret.setProperty(keyValues[i], keyValues[i + 1]);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,183 @@
+package io.jshift.kit.build.service.docker.helper;
+
+import java.io.File;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.jshift.kit.build.service.docker.ImageConfiguration;
+import io.jshift.kit.build.service.docker.config.LogConfiguration;
+import io.jshift.kit.build.service.docker.config.NetworkConfig;
+import io.jshift.kit.build.service.docker.config.RestartPolicy;
+import io.jshift.kit.build.service.docker.config.RunImageConfiguration;
+import io.jshift.kit.build.service.docker.config.RunVolumeConfiguration;
+import io.jshift.kit.build.service.docker.config.UlimitConfig;
+import io.jshift.kit.build.service.docker.config.VolumeConfiguration;
+import io.jshift.kit.build.service.docker.config.WaitConfiguration;
+import io.jshift.kit.build.service.docker.config.WatchImageConfiguration;
+import io.jshift.kit.config.image.build.Arguments;
+import io.jshift.kit.config.image.build.AssemblyConfiguration;
+import io.jshift.kit.config.image.build.BuildConfiguration;
+import io.jshift.kit.config.image.build.HealthCheckConfiguration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DeepCopyTest {
+
+    @Test
+    public void copyEqualsSource() throws Exception {
+        for (Class<?> type : Arrays.asList(ImageConfiguration.class, RunImageConfiguration.class, BuildConfiguration.class,
+                                           WatchImageConfiguration.class, VolumeConfiguration.class, AssemblyConfiguration.class,
+                                           HealthCheckConfiguration.class, Arguments.class, NetworkConfig.class, RestartPolicy.class,
+                                           UlimitConfig.class, RunVolumeConfiguration.class, LogConfiguration.class,
+                                           WaitConfiguration.class)) {
+            Object orig = populate(type, 0);
+            Object copy = DeepCopy.copy(orig);
+            assertDeepCopy(type.getSimpleName(), orig, copy);
+        }
+    }
+
+    @Test
+    public void keepsSharedReferences() {
+        List<String> shared = new ArrayList<>(Arrays.asList("a", "b"));
+        Map<String, Object> orig = new LinkedHashMap<>();
+        orig.put("first", shared);
+        orig.put("second", shared);
+        orig.put("self", orig);
+
+        Map<String, Object> copy = DeepCopy.copy(orig);
+
+        assertNotSame(orig.get("first"), copy.get("first"));
+        assertSame(copy.get("first"), copy.get("second"));
+        assertSame(copy, copy.get("self"));
+    }
+
+    @Test
+    public void serializesUnknownTypes() {
+        Date date = new Date();
+        Date copy = DeepCopy.copy(date);
+        assertEquals(date, copy);
+        assertNotSame(date, copy);
+
+        List<String> fixed = Arrays.asList("a", "b");
+        assertEquals(fixed, DeepCopy.copy(fixed));
+        assertNotSame(fixed, DeepCopy.copy(fixed));
+    }
+
+    @Test
+    public void nullAndImmutables() {
+        assertNull(DeepCopy.copy(null));
+        String value = "immutable";
+        assertSame(value, DeepCopy.copy(value));
+    }
+
+    // Fill all fields of a configuration object with distinct, non default values
+    private Object populate(Class<?> type, int depth) throws Exception {
+        if (type == String.class) {
+            return "value-" + depth;
+        } else if (type == Boolean.class || type == boolean.class) {
+            return Boolean.TRUE;
+        } else if (type == Integer.class || type == int.class) {
+            return 42 + depth;
+        } else if (type == Long.class || type == long.class) {
+            return 4711L + depth;
+        } else if (type == File.class) {
+            return new File("file-" + depth);
+        } else if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return constants[constants.length - 1];
+        } else if (type.getName().startsWith("io.jshift.") && Serializable.class.isAssignableFrom(type) && depth < 4) {
+            java.lang.reflect.Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Object ret = constructor.newInstance();
+            for (Class<?> clazz = type; clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    field.set(ret, populate(field, depth + 1));
+                }
+            }
+            return ret;
+        }
+        return null;
+    }
+
+    private Object populate(Field field, int depth) throws Exception {
+        Class<?> type = field.getType();
+        if (List.class.isAssignableFrom(type)) {
+            List<Object> ret = new ArrayList<>();
+            ret.add(populate(getTypeArgument(field, 0), depth));
+            return ret;
+        } else if (Map.class.isAssignableFrom(type)) {
+            Map<Object, Object> ret = new LinkedHashMap<>();
+            ret.put(populate(getTypeArgument(field, 0), depth), populate(getTypeArgument(field, 1), depth));
+            return ret;
+        }
+        return populate(type, depth);
+    }
+
+    private Class<?> getTypeArgument(Field field, int idx) {
+        Type type = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[idx];
+        return type instanceof Class ? (Class<?>) type : Object.class;
+    }
+
+    private void assertDeepCopy(String path, Object orig, Object copy) throws IllegalAccessException {
+        if (orig == null) {
+            assertNull(path, copy);
+            return;
+        }
+        assertEquals(path, orig.getClass(), copy.getClass());
+        if (orig instanceof String || orig instanceof Number || orig instanceof Boolean || orig instanceof File || orig instanceof Enum) {
+            assertEquals(path, orig, copy);
+            return;
+        }
+        assertNotSame(path, orig, copy);
+        if (orig instanceof Collection) {
+            assertEquals(path, ((Collection<?>) orig).size(), ((Collection<?>) copy).size());
+            Object[] origElements = ((Collection<?>) orig).toArray();
+            Object[] copyElements = ((Collection<?>) copy).toArray();
+            for (int i = 0; i < origElements.length; i++) {
+                assertDeepCopy(path + "[" + i + "]", origElements[i], copyElements[i]);
+            }
+        } else if (orig instanceof Map) {
+            assertDeepCopy(path + ".keys", new ArrayList<>(((Map<?, ?>) orig).keySet()), new ArrayList<>(((Map<?, ?>) copy).keySet()));
+            assertDeepCopy(path + ".values", new ArrayList<>(((Map<?, ?>) orig).values()), new ArrayList<>(((Map<?, ?>) copy).values()));
+        } else if (orig.getClass().isArray()) {
+            assertEquals(path, Array.getLength(orig), Array.getLength(copy));
+            for (int i = 0; i < Array.getLength(orig); i++) {
+                assertDeepCopy(path + "[" + i + "]", Array.get(orig, i), Array.get(copy, i));
+            }
+        } else {
+            boolean hasFields = false;
+            for (Class<?> clazz = orig.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    Object value = field.get(orig);
+                    hasFields |= value != null;
+                    assertDeepCopy(path + "." + field.getName(), value, field.get(copy));
+                }
+            }
+            assertTrue(path + " is populated", hasFields);
+        }
+    }
+}
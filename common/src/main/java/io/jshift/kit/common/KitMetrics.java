@@ -0,0 +1,389 @@
+package io.jshift.kit.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Lightweight instrumentation with named spans and counters, which is reported at the end
+ * of a goal.
+ *
+ * Metrics are disabled by default, in which case {@link #span(String, String)} returns a shared
+ * no-op span and {@link #count(String)} returns immediately. They are enabled either with the
+ * system property <code>jshift.metrics</code> or by calling {@link #enable(boolean)}. When the
+ * system property <code>jshift.metrics.traceFile</code> is set, every span is additionally recorded
+ * as Chrome trace event (to be opened with <code>chrome://tracing</code>) and written to this file
+ * by {@link #finish(KitLogger)}.
+ *
+ * Spans are meant to be used with try-with-resources:
+ *
+ * <pre>
+ *   try (KitMetrics.Span span = KitMetrics.span("enricher", name + ".create")) {
+ *       enricher.create(platformMode, builder);
+ *   }
+ * </pre>
+ */
+public final class KitMetrics {
+
+    public static final String ENABLED_PROPERTY = "jshift.metrics";
+    public static final String TRACE_FILE_PROPERTY = "jshift.metrics.traceFile";
+
+    // Upper bound for the number of trace events kept in memory. Statistics are still
+    // collected when this limit is reached.
+    static final int MAX_TRACE_EVENTS = 250000;
+
+    private static final Span DISABLED_SPAN = new Span(null, null, null, null);
+
+    private static volatile Recording recording;
+
+    static {
+        String traceFile = System.getProperty(TRACE_FILE_PROPERTY);
+        if (Boolean.getBoolean(ENABLED_PROPERTY) || traceFile != null) {
+            enable(traceFile != null);
+        }
+    }
+
+    private KitMetrics() { }
+
+    /**
+     * Start a new recording, dropping everything recorded so far
+     *
+     * @param trace whether to keep every span as trace event in addition to the statistics
+     */
+    public static synchronized void enable(boolean trace) {
+        recording = new Recording(trace);
+    }
+
+    /**
+     * Stop recording and drop everything recorded so far
+     */
+    public static synchronized void disable() {
+        recording = null;
+    }
+
+    public static boolean isEnabled() {
+        return recording != null;
+    }
+
+    /**
+     * Start a span which is finished when closed
+     *
+     * @param category category like "docker" or "enricher", used for grouping
+     * @param name name of the operation, aggregated for the statistics
+     * @return span to close when the operation has finished
+     */
+    public static Span span(String category, String name) {
+        return span(category, name, null);
+    }
+
+    /**
+     * Start a span with an additional detail, which shows up only in the trace (e.g. the name of the
+     * resource an operation works on)
+     *
+     * @param category category like "docker" or "enricher", used for grouping
+     * @param name name of the operation, aggregated for the statistics
+     * @param detail detail for this span only, can be <code>null</code>
+     * @return span to close when the operation has finished
+     */
+    public static Span span(String category, String name, String detail) {
+        Recording current = recording;
+        return current != null ? new Span(current, category, name, detail) : DISABLED_SPAN;
+    }
+
+    public static void count(String name) {
+        count(name, 1);
+    }
+
+    /**
+     * Increment a counter
+     *
+     * @param name name of the counter
+     * @param delta value to add
+     */
+    public static void count(String name, long delta) {
+        Recording current = recording;
+        if (current != null) {
+            current.count(name, delta);
+        }
+    }
+
+    /**
+     * Statistics of all finished spans, the most expensive first
+     *
+     * @return statistics or an empty list if metrics are disabled
+     */
+    public static List<Stat> getStats() {
+        Recording current = recording;
+        return current != null ? current.getStats() : Collections.<Stat>emptyList();
+    }
+
+    /**
+     * Current values of all counters
+     *
+     * @return counters sorted by name or an empty map if metrics are disabled
+     */
+    public static Map<String, Long> getCounters() {
+        Recording current = recording;
+        return current != null ? current.getCounters() : Collections.<String, Long>emptyMap();
+    }
+
+    /**
+     * Finish the recording, log a summary and write the trace to the file given by the system
+     * property <code>jshift.metrics.traceFile</code> if set. Recording starts over afterwards, so
+     * that every goal gets its own report. Does nothing if metrics are disabled.
+     *
+     * @param log logger for the summary
+     */
+    public static void finish(KitLogger log) {
+        String traceFile = System.getProperty(TRACE_FILE_PROPERTY);
+        finish(log, traceFile != null ? new File(traceFile) : null);
+    }
+
+    /**
+     * Finish the recording, log a summary and write the trace if a file is given.
+     * Recording starts over afterwards. Does nothing if metrics are disabled.
+     *
+     * @param log logger for the summary
+     * @param traceFile file to write the Chrome trace to or <code>null</code>
+     */
+    public static void finish(KitLogger log, File traceFile) {
+        Recording finished;
+        synchronized (KitMetrics.class) {
+            finished = recording;
+            if (finished != null) {
+                recording = new Recording(finished.trace);
+            }
+        }
+        if (finished == null) {
+            return;
+        }
+        finished.logSummary(log);
+        if (traceFile != null) {
+            if (!finished.trace) {
+                log.warn("No trace events recorded, so not writing %s", traceFile);
+                return;
+            }
+            try {
+                finished.writeTrace(traceFile);
+                log.info("Trace written to %s", traceFile);
+            } catch (IOException exp) {
+                log.warn("Cannot write trace to %s: %s", traceFile, exp.getMessage());
+            }
+        }
+    }
+
+    // =======================================================================================
+
+    /**
+     * A running operation, which is recorded when closed
+     */
+    public static final class Span implements AutoCloseable {
+
+        private final Recording recording;
+        private final String category;
+        private final String name;
+        private final String detail;
+        private final long start;
+
+        private Span(Recording recording, String category, String name, String detail) {
+            this.recording = recording;
+            this.category = category;
+            this.name = name;
+            this.detail = detail;
+            this.start = recording != null ? System.nanoTime() : 0;
+        }
+
+        @Override
+        public void close() {
+            if (recording != null) {
+                recording.record(this, System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Aggregated timing of all spans with the same category and name
+     */
+    public static final class Stat {
+
+        private final String category;
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Stat(String category, String name) {
+            this.category = category;
+            this.name = name;
+        }
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+
+    private static final class TraceEvent {
+        private final String category;
+        private final String name;
+        private final String detail;
+        private final long startNanos;
+        private final long durationNanos;
+        private final long threadId;
+
+        TraceEvent(Span span, long end) {
+            this.category = span.category;
+            this.name = span.name;
+            this.detail = span.detail;
+            this.startNanos = span.start;
+            this.durationNanos = end - span.start;
+            this.threadId = Thread.currentThread().getId();
+        }
+    }
+
+    private static final class Recording {
+
+        private final boolean trace;
+        private final long startNanos = System.nanoTime();
+        private final Map<String, Stat> stats = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+        private final ConcurrentLinkedQueue<TraceEvent> events = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger eventCount = new AtomicInteger();
+
+        Recording(boolean trace) {
+            this.trace = trace;
+        }
+
+        void record(Span span, long end) {
+            stats.computeIfAbsent(span.category + "\u0000" + span.name, k -> new Stat(span.category, span.name))
+                 .add(end - span.start);
+            if (trace && eventCount.incrementAndGet() <= MAX_TRACE_EVENTS) {
+                events.add(new TraceEvent(span, end));
+            }
+        }
+
+        void count(String name, long delta) {
+            counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+        }
+
+        List<Stat> getStats() {
+            List<Stat> ret = new ArrayList<>(stats.values());
+            ret.sort(Comparator.comparingLong(Stat::getTotalNanos).reversed());
+            return ret;
+        }
+
+        Map<String, Long> getCounters() {
+            Map<String, Long> ret = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+                ret.put(entry.getKey(), entry.getValue().sum());
+            }
+            return ret;
+        }
+
+        void logSummary(KitLogger log) {
+            log.info("Timings (%s in total):", formatNanos(System.nanoTime() - startNanos));
+            for (Stat stat : getStats()) {
+                log.info("  %-10s %-50s %6d x %12s (max %s)",
+                         stat.getCategory(), stat.getName(), stat.getCount(),
+                         formatNanos(stat.getTotalNanos()), formatNanos(stat.getMaxNanos()));
+            }
+            Map<String, Long> counterValues = getCounters();
+            if (!counterValues.isEmpty()) {
+                log.info("Counters:");
+                for (Map.Entry<String, Long> entry : counterValues.entrySet()) {
+                    log.info("  %-61s %8d", entry.getKey(), entry.getValue());
+                }
+            }
+            if (eventCount.get() > MAX_TRACE_EVENTS) {
+                log.warn("Only the first %d of %d trace events have been kept", MAX_TRACE_EVENTS, eventCount.get());
+            }
+        }
+
+        // Chrome's trace event format, with "complete" events for spans and a final value for each counter
+        void writeTrace(File file) throws IOException {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Cannot create directory " + dir);
+            }
+            long end = System.nanoTime();
+            try (Writer out = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8);
+                 JsonWriter writer = new JsonWriter(out)) {
+                writer.beginObject();
+                writer.name("displayTimeUnit").value("ms");
+                writer.name("traceEvents").beginArray();
+                for (TraceEvent event : events) {
+                    writer.beginObject();
+                    writer.name("name").value(event.name);
+                    writer.name("cat").value(event.category);
+                    writer.name("ph").value("X");
+                    writer.name("ts").value(toMicros(event.startNanos - startNanos));
+                    writer.name("dur").value(toMicros(event.durationNanos));
+                    writer.name("pid").value(1);
+                    writer.name("tid").value(event.threadId);
+                    if (event.detail != null) {
+                        writer.name("args").beginObject().name("detail").value(event.detail).endObject();
+                    }
+                    writer.endObject();
+                }
+                for (Map.Entry<String, Long> counter : getCounters().entrySet()) {
+                    writer.beginObject();
+                    writer.name("name").value(counter.getKey());
+                    writer.name("ph").value("C");
+                    writer.name("ts").value(toMicros(end - startNanos));
+                    writer.name("pid").value(1);
+                    writer.name("args").beginObject().name("value").value(counter.getValue()).endObject();
+                    writer.endObject();
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+        }
+
+        private static double toMicros(long nanos) {
+            return nanos / 1000.0;
+        }
+
+        private static String formatNanos(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            return millis >= 10000 ? String.format("%.1f s", millis / 1000.0) : String.format("%.1f ms", nanos / 1e6);
+        }
+    }
+}
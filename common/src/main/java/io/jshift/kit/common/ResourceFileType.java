@@ -4,6 +4,9 @@ import java.io.File;
 import java.util.Arrays;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
 import org.apache.commons.io.FilenameUtils;
@@ -37,13 +40,59 @@ public enum ResourceFileType {
     private final String extension;
     private String artifactType;
 
+    // Mapper shared for reading and writing resources, created on first use
+    private volatile ObjectMapper sharedMapper;
+
     ResourceFileType(String extension, String artifactType) {
         this.extension = extension;
         this.artifactType = artifactType;
     }
 
+    /**
+     * Create a new mapper for this type, which can be configured by the caller
+     *
+     * @return a new mapper
+     */
     public abstract ObjectMapper getObjectMapper();
 
+    /**
+     * Reader for resources of this type. The reader is shared and immutable, so it is safe to
+     * use it concurrently.
+     *
+     * @return shared reader
+     */
+    public ObjectReader getReader() {
+        return getSharedMapper().reader();
+    }
+
+    /**
+     * Writer for resources of this type, which indents its output and omits empty arrays and
+     * null map values. The writer is shared and immutable, so it is safe to use it concurrently.
+     *
+     * @return shared writer
+     */
+    public ObjectWriter getWriter() {
+        return getSharedMapper().writer();
+    }
+
+    /**
+     * Mapper behind {@link #getReader()} and {@link #getWriter()}, e.g. for creating streaming
+     * parsers and generators or for converting values to trees. It must not be reconfigured.
+     *
+     * @return shared mapper
+     */
+    public ObjectMapper getSharedMapper() {
+        ObjectMapper mapper = sharedMapper;
+        if (mapper == null) {
+            mapper = getObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS)
+                .disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
+            sharedMapper = mapper;
+        }
+        return mapper;
+    }
+
     public File addExtensionIfMissing(File file) {
         String path = file.getAbsolutePath();
         if (!path.endsWith("." + extension)) {
@@ -1,6 +1,10 @@
 package io.jshift.kit.common.util;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
 
 import javax.xml.bind.DatatypeConverter;
 
@@ -9,10 +13,46 @@ import javax.xml.bind.DatatypeConverter;
  */
 public class Base64Util {
 
+    // Multiple of three, so that only the last chunk gets padded
+    private static final int CHUNK_SIZE = 3 * 8192;
+
     public static String encodeToString(byte[] bytes) {
         return DatatypeConverter.printBase64Binary(bytes);
     }
 
+    /**
+     * Encode a stream chunk by chunk, so that its content is never held in memory as a whole
+     * in addition to the encoded result
+     *
+     * @param in stream to encode, which is not closed
+     * @param sizeHint number of bytes expected, used for sizing the result. -1 if unknown
+     * @return encoded content
+     * @throws IOException if the stream cannot be read
+     */
+    public static String encodeToString(InputStream in, long sizeHint) throws IOException {
+        long expected = sizeHint > 0 ? encodedLength(sizeHint) : 0;
+        StringBuilder ret = new StringBuilder(expected > 0 && expected < Integer.MAX_VALUE - 8 ? (int) expected : 16);
+        Base64.Encoder encoder = Base64.getEncoder();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        byte[] encoded = new byte[CHUNK_SIZE / 3 * 4];
+        int filled;
+        while ((filled = readChunk(in, chunk)) > 0) {
+            int length = encoder.encode(filled == chunk.length ? chunk : Arrays.copyOf(chunk, filled), encoded);
+            for (int i = 0; i < length; i++) {
+                ret.append((char) encoded[i]);
+            }
+        }
+        return ret.toString();
+    }
+
+    /**
+     * @param size number of bytes to encode
+     * @return length of the encoded data including padding
+     */
+    public static long encodedLength(long size) {
+        return 4 * ((size + 2) / 3);
+    }
+
     public static byte[] encode(byte[] bytes) {
         return encodeToString(bytes).getBytes(StandardCharsets.UTF_8);
     }
@@ -40,5 +80,16 @@ public class Base64Util {
     public static String decodeToString(byte[] bytes) {
         return new String(decode(bytes));
     }
+
+    // Fill the chunk completely unless the end of the stream is reached, because only
+    // the last chunk must have a length which is not a multiple of three
+    private static int readChunk(InputStream in, byte[] chunk) throws IOException {
+        int filled = 0;
+        int read;
+        while (filled < chunk.length && (read = in.read(chunk, filled, chunk.length - filled)) != -1) {
+            filled += read;
+        }
+        return filled;
+    }
 }
 
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
@@ -292,6 +293,82 @@ public class EnvUtil {
         return ret.size() > 0 ? ret : null;
     }
 
+    /**
+     * Create a sorted index of all properties below the given prefix. Lists and maps can be looked up
+     * in such an index with costs depending only on the number of their own entries.
+     *
+     * @param prefix     prefix of the properties to index. A dot is used as separator to the rest of the name.
+     * @param properties properties to index
+     * @return sorted map of property names and values
+     */
+    public static SortedMap<String, String> indexProperties(String prefix, Properties properties) {
+        SortedMap<String, String> ret = new TreeMap<>();
+        Enumeration names = properties.propertyNames();
+        String prefixP = prefix + ".";
+        while (names.hasMoreElements()) {
+            String propName = (String) names.nextElement();
+            if (propMatchesPrefix(prefixP, propName)) {
+                ret.put(propName, properties.getProperty(propName));
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Same as {@link #extractFromPropertiesAsMap(String, Properties)}, but using an index
+     * created by {@link #indexProperties(String, Properties)}
+     *
+     * @param prefix     prefix which specifies the part which should be extracted as map
+     * @param index      index of the properties to extract from
+     * @return the extracted map or null if no such map exists
+     */
+    public static Map<String, String> extractFromPropertiesAsMap(String prefix, SortedMap<String, String> index) {
+        Map<String, String> ret = new HashMap<>();
+        String prefixP = prefix + ".";
+        for (Map.Entry<String, String> entry : getEntriesWithPrefix(prefixP, index).entrySet()) {
+            String mapKey = entry.getKey().substring(prefixP.length());
+            if (PROPERTY_COMBINE_POLICY_SUFFIX.equals(mapKey)) {
+                continue;
+            }
+            ret.put(mapKey, entry.getValue());
+        }
+        return ret.size() > 0 ? ret : null;
+    }
+
+    /**
+     * Same as {@link #extractFromPropertiesAsList(String, Properties)}, but using an index
+     * created by {@link #indexProperties(String, Properties)}
+     *
+     * @param prefix     for selecting the properties from which the list should be extracted
+     * @param index      index of the properties to extract from
+     * @return parsed list or null if no element with prefixes exists
+     */
+    public static List<String> extractFromPropertiesAsList(String prefix, SortedMap<String, String> index) {
+        TreeMap<Integer, String> orderedMap = new TreeMap<>();
+        List<String> rest = new ArrayList<>();
+        String prefixP = prefix + ".";
+        for (Map.Entry<String, String> entry : getEntriesWithPrefix(prefixP, index).entrySet()) {
+            String idx = entry.getKey().substring(prefixP.length());
+            if (PROPERTY_COMBINE_POLICY_SUFFIX.equals(idx)) {
+                continue;
+            }
+            try {
+                orderedMap.put(Integer.parseInt(idx), entry.getValue());
+            } catch (NumberFormatException exp) {
+                rest.add(entry.getValue());
+            }
+        }
+        List<String> ret = new ArrayList<>(orderedMap.values());
+        ret.addAll(rest);
+        return ret.size() > 0 ? ret : null;
+    }
+
+    // All names starting with the prefix are sorted between the prefix and the prefix with its last character incremented
+    private static SortedMap<String, String> getEntriesWithPrefix(String prefix, SortedMap<String, String> index) {
+        char last = prefix.charAt(prefix.length() - 1);
+        return index.subMap(prefix, prefix.substring(0, prefix.length() - 1) + (char) (last + 1));
+    }
+
     /**
      * Extract from a Maven property which is in the form ${name} the name.
      *
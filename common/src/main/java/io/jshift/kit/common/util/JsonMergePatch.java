@@ -0,0 +1,158 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.common.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Creates a JSON merge patch (RFC 7386) which changes a live object into the desired one.
+ *
+ * The desired object is a user configuration, so fields missing in it are usually filled in by
+ * the server (like the cluster IP of a service or defaults of a container). This is in line with
+ * {@link UserConfigurationCompare}:
+ *
+ * <ul>
+ *     <li>Fields which are null, empty or missing in the desired object are not changed.</li>
+ *     <li>Entries are only removed from the string maps listed in {@link #MAP_PATHS}, like labels,
+ *     annotations, selectors or secret data, if they are missing in the desired map. Other objects
+ *     can have fields defaulted by the server (like the <code>apiGroup</code> of a role reference or
+ *     resource limits set by a LimitRange), which must not be removed.</li>
+ *     <li>Arrays are replaced as a whole, but only if they differ in an element or field
+ *     given by the desired object.</li>
+ *     <li>The status and metadata maintained by the server are never part of the patch.</li>
+ * </ul>
+ */
+public class JsonMergePatch {
+
+    private static final Set<String> SERVER_METADATA = new HashSet<>(Arrays.asList(
+        "uid", "resourceVersion", "selfLink", "creationTimestamp", "generation",
+        "deletionTimestamp", "deletionGracePeriodSeconds", "managedFields"));
+
+    // Paths of the maps which are owned by the user as a whole. Paths within arrays are marked with "[]".
+    private static final Set<String> MAP_PATHS = new HashSet<>(Arrays.asList(
+        "data", "stringData", "spec.selector", "spec.selector.matchLabels"));
+
+    // Maps which are owned by the user wherever they occur, e.g. also within pod templates
+    private static final Set<String> MAP_NAMES = new HashSet<>(Arrays.asList(
+        "labels", "annotations", "nodeSelector", "matchLabels"));
+
+    private JsonMergePatch() { }
+
+    /**
+     * Create a merge patch for a resource.
+     *
+     * @param live the object as it exists on the server
+     * @param desired the object as it should be
+     * @return the patch or null if the live object already matches the desired one
+     */
+    public static ObjectNode diff(JsonNode live, JsonNode desired) {
+        ObjectNode liveObject = live != null && live.isObject() ? ((ObjectNode) live).deepCopy() : JsonNodeFactory.instance.objectNode();
+        ObjectNode desiredObject = ((ObjectNode) desired).deepCopy();
+        for (ObjectNode object : Arrays.asList(liveObject, desiredObject)) {
+            object.remove("status");
+            JsonNode metadata = object.get("metadata");
+            if (metadata != null && metadata.isObject()) {
+                ((ObjectNode) metadata).remove(SERVER_METADATA);
+            }
+        }
+        return diffObjects(liveObject, desiredObject, "");
+    }
+
+    private static ObjectNode diffObjects(JsonNode live, JsonNode desired, String path) {
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = desired.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode desiredValue = field.getValue();
+            if (isUnspecified(desiredValue)) {
+                continue;
+            }
+            JsonNode liveValue = live.get(field.getKey());
+            String fieldPath = path.isEmpty() ? field.getKey() : path + "." + field.getKey();
+            if (liveValue == null || liveValue.isNull()) {
+                patch.set(field.getKey(), desiredValue);
+            } else if (desiredValue.isObject() && liveValue.isObject()) {
+                ObjectNode nested = diffObjects(liveValue, desiredValue, fieldPath);
+                if (nested != null) {
+                    patch.set(field.getKey(), nested);
+                }
+            } else if (!covers(liveValue, desiredValue, fieldPath)) {
+                patch.set(field.getKey(), desiredValue);
+            }
+        }
+        if (isMapPath(path) && isStringMap(desired) && isStringMap(live)) {
+            Iterator<String> names = live.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!desired.has(name)) {
+                    patch.putNull(name);
+                }
+            }
+        }
+        return patch.size() > 0 ? patch : null;
+    }
+
+    // Whether the live value contains everything given by the desired value
+    private static boolean covers(JsonNode live, JsonNode desired, String path) {
+        if (isUnspecified(desired)) {
+            return true;
+        }
+        if (live == null) {
+            return false;
+        }
+        if (desired.isObject()) {
+            return live.isObject() && diffObjects(live, desired, path) == null;
+        }
+        if (desired.isArray()) {
+            if (!live.isArray() || live.size() != desired.size()) {
+                return false;
+            }
+            for (int i = 0; i < desired.size(); i++) {
+                if (!covers(live.get(i), desired.get(i), path + "[]")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return desired.equals(live) || (desired.isNumber() && live.isNumber() && desired.decimalValue().compareTo(live.decimalValue()) == 0);
+    }
+
+    private static boolean isUnspecified(JsonNode value) {
+        return value == null || value.isNull() || (value.isContainerNode() && value.size() == 0);
+    }
+
+    private static boolean isMapPath(String path) {
+        return MAP_PATHS.contains(path) || MAP_NAMES.contains(path.substring(path.lastIndexOf('.') + 1));
+    }
+
+    private static boolean isStringMap(JsonNode node) {
+        Iterator<JsonNode> values = node.elements();
+        while (values.hasNext()) {
+            if (!values.next().isTextual()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
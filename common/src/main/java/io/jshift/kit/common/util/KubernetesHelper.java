@@ -648,26 +648,36 @@ public class KubernetesHelper {
         }
     }
 
+    /**
+     * Get the pod with the latest creation timestamp. For the pods of a cluster rather use
+     * {@code PodCache}, which only looks at the pods matching a selector.
+     *
+     * @param pods pods to choose from, can be <code>null</code>
+     * @return newest pod or <code>null</code> if there is none
+     */
     public static Pod getNewestPod(Collection<Pod> pods) {
-        if (pods == null || pods.isEmpty()) {
+        if (pods == null) {
             return null;
         }
-        List<Pod> sortedPods = new ArrayList<>(pods);
-        Collections.sort(sortedPods, (p1, p2) -> {
-            Date t1 = getCreationTimestamp(p1);
-            Date t2 = getCreationTimestamp(p2);
-            if (t1 != null) {
-                if (t2 == null) {
-                    return 1;
-                } else {
-                    return t1.compareTo(t2);
-                }
-            } else if (t2 == null) {
-                return 0;
+        // Single pass with every timestamp parsed once
+        Pod newest = null;
+        Date newestTimestamp = null;
+        for (Pod pod : pods) {
+            Date timestamp = getCreationTimestamp(pod);
+            if (newest == null || isSameOrNewer(timestamp, newestTimestamp)) {
+                newest = pod;
+                newestTimestamp = timestamp;
             }
-            return -1;
-        });
-        return sortedPods.get(sortedPods.size() - 1);
+        }
+        return newest;
+    }
+
+    // Missing timestamps are the oldest. With equal timestamps the later pod wins.
+    private static boolean isSameOrNewer(Date timestamp, Date other) {
+        if (timestamp == null) {
+            return other == null;
+        }
+        return other == null || timestamp.compareTo(other) >= 0;
     }
 }
 
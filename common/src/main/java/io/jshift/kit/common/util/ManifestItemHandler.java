@@ -0,0 +1,40 @@
+package io.jshift.kit.common.util;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Callback for single resources of a manifest, which is streamed by a {@link ManifestReader}
+ * or {@link ManifestWriter}
+ */
+@FunctionalInterface
+public interface ManifestItemHandler {
+
+    /**
+     * Handle a resource
+     *
+     * @param item the resource as tree
+     * @throws IOException if handling fails, which stops the stream
+     */
+    void handle(JsonNode item) throws IOException;
+
+    /**
+     * Handle an item of a list, by default like a single resource
+     *
+     * @param item the item as tree
+     * @throws IOException if handling fails, which stops the stream
+     */
+    default void handleListItem(JsonNode item) throws IOException {
+        handle(item);
+    }
+
+    /**
+     * Handle a list without its items, after all of its items have been handled. Does nothing by default.
+     *
+     * @param list the list without the <code>items</code> field
+     * @throws IOException if handling fails, which stops the stream
+     */
+    default void handleList(JsonNode list) throws IOException {
+    }
+}
@@ -0,0 +1,111 @@
+package io.jshift.kit.common.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jshift.kit.common.ResourceFileType;
+
+/**
+ * Reads a manifest one resource at a time. Supported are single resources, multi-document YAML
+ * streams and lists, i.e. objects with a top level <code>items</code> array like a
+ * <code>KubernetesList</code>. The items of a list are handed over as soon as they are parsed,
+ * without reading the whole list into memory.
+ */
+public class ManifestReader {
+
+    private ManifestReader() { }
+
+    /**
+     * Read a manifest file, whose type is detected from its extension. Files with an unknown extension
+     * are read as YAML, which covers JSON, too.
+     *
+     * @param file manifest to read
+     * @param handler handler called for every resource
+     * @return number of resources read
+     * @throws IOException if the file cannot be read or a handler fails
+     */
+    public static int read(File file, ManifestItemHandler handler) throws IOException {
+        ResourceFileType type;
+        try {
+            type = ResourceFileType.fromFile(file);
+        } catch (IllegalArgumentException exp) {
+            type = ResourceFileType.yaml;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in, type, handler);
+        }
+    }
+
+    /**
+     * Read a manifest from a stream
+     *
+     * @param in stream to read from, which is not closed
+     * @param type type of the manifest
+     * @param handler handler called for every resource
+     * @return number of resources read
+     * @throws IOException if the stream cannot be read or a handler fails
+     */
+    public static int read(InputStream in, ResourceFileType type, ManifestItemHandler handler) throws IOException {
+        ObjectReader reader = type.getReader();
+        int count = 0;
+        try (JsonParser parser = reader.getFactory().createParser(in)) {
+            parser.setCodec(reader);
+            JsonToken token;
+            // Every root value is a document
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_OBJECT) {
+                    count += readObject(parser, handler);
+                } else if (token == JsonToken.START_ARRAY) {
+                    count += readItems(parser, handler);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int readObject(JsonParser parser, ManifestItemHandler handler) throws IOException {
+        ObjectNode object = JsonNodeFactory.instance.objectNode();
+        int count = 0;
+        boolean list = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                list = true;
+                count += readItems(parser, handler);
+            } else {
+                object.set(field, parser.readValueAsTree());
+            }
+        }
+        if (list) {
+            handler.handleList(object);
+        } else {
+            handler.handle(object);
+            count++;
+        }
+        return count;
+    }
+
+    private static int readItems(JsonParser parser, ManifestItemHandler handler) throws IOException {
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                JsonNode item = parser.readValueAsTree();
+                handler.handleListItem(item);
+                count++;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,129 @@
+package io.jshift.kit.common.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jshift.kit.common.ResourceFileType;
+
+/**
+ * Writes a manifest one resource at a time, so that only a single resource has to be held as tree
+ * in memory. YAML manifests are written as multi-document stream with one document per resource,
+ * JSON manifests as a <code>List</code> whose items are streamed.
+ *
+ * Handlers added with {@link #addItemHandler(ManifestItemHandler)} see every resource before it is
+ * written, e.g. for validating it on the fly.
+ */
+public class ManifestWriter implements Closeable {
+
+    private final ResourceFileType type;
+    private final OutputStream out;
+    // Generator of the JSON list, YAML documents get a generator each
+    private final JsonGenerator generator;
+    private final List<ManifestItemHandler> handlers = new ArrayList<>();
+    private int count;
+
+    /**
+     * Create a writer for a file, adding the extension of the type if missing
+     *
+     * @param file file to write to
+     * @param type type of the manifest
+     * @throws IOException if the file cannot be created
+     */
+    public ManifestWriter(File file, ResourceFileType type) throws IOException {
+        this(openFile(type.addExtensionIfMissing(file)), type);
+    }
+
+    /**
+     * Create a writer for a stream, which is closed when this writer is closed
+     *
+     * @param out stream to write to
+     * @param type type of the manifest
+     * @throws IOException if the manifest cannot be started
+     */
+    public ManifestWriter(OutputStream out, ResourceFileType type) throws IOException {
+        this.type = type;
+        this.out = out;
+        if (type == ResourceFileType.json) {
+            generator = createGenerator();
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartObject();
+            generator.writeStringField("apiVersion", "v1");
+            generator.writeStringField("kind", "List");
+            generator.writeArrayFieldStart("items");
+        } else {
+            generator = null;
+        }
+    }
+
+    public ManifestWriter addItemHandler(ManifestItemHandler handler) {
+        handlers.add(handler);
+        return this;
+    }
+
+    /**
+     * Write a single resource
+     *
+     * @param item resource, either as model object or as tree
+     * @throws IOException if the resource cannot be written or a handler fails
+     */
+    public void write(Object item) throws IOException {
+        ObjectMapper mapper = type.getSharedMapper();
+        JsonNode node = item instanceof JsonNode ? (JsonNode) item : mapper.valueToTree(item);
+        for (ManifestItemHandler handler : handlers) {
+            handler.handle(node);
+        }
+        if (generator != null) {
+            mapper.writeTree(generator, node);
+        } else {
+            try (JsonGenerator documentGenerator = createGenerator()) {
+                mapper.writeTree(documentGenerator, node);
+            }
+        }
+        count++;
+    }
+
+    public void writeAll(Iterable<?> items) throws IOException {
+        for (Object item : items) {
+            write(item);
+        }
+    }
+
+    /**
+     * @return number of resources written so far
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (generator != null && !generator.isClosed()) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.close();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private JsonGenerator createGenerator() throws IOException {
+        JsonGenerator ret = type.getSharedMapper().getFactory().createGenerator(out);
+        ret.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return ret;
+    }
+
+    private static OutputStream openFile(File file) throws IOException {
+        ResourceUtil.ensureDir(file);
+        return new FileOutputStream(file);
+    }
+}
@@ -0,0 +1,231 @@
+package io.jshift.kit.common.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * GZIP output stream which compresses blocks of its input on several threads.
+ *
+ * Every block is written as a gzip member of its own. Concatenated members form a valid gzip
+ * stream, which is read by <code>gunzip</code>, <code>docker load</code> and
+ * {@link java.util.zip.GZIPInputStream} like a single member. Block buffers and deflaters are
+ * reused, and the number of blocks in flight is bounded so that memory stays constant for
+ * arbitrary large streams. The deflaters are ended on {@link #close()}, so streams must always be closed.
+ */
+public class ParallelGzipOutputStream extends FilterOutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    // According to https://bugs.openjdk.java.net/browse/JDK-8142920, 3 is a better default
+    public static final int DEFAULT_LEVEL = 3;
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final int blockSize;
+    private final int level;
+    private final int maxPending;
+
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final BlockingQueue<byte[]> freeBuffers;
+
+    // Deflaters hold native memory, so they are reused for all blocks and ended when the stream is closed
+    private final Queue<Deflater> freeDeflaters = new ConcurrentLinkedQueue<>();
+
+    private byte[] block;
+    private int blockLength;
+    private boolean written;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out, int threads) {
+        this(out, threads, DEFAULT_BLOCK_SIZE, DEFAULT_LEVEL);
+    }
+
+    public ParallelGzipOutputStream(OutputStream out, int threads, int blockSize, int level) {
+        super(out);
+        this.blockSize = blockSize;
+        this.level = level;
+        this.maxPending = threads * 2;
+        this.freeBuffers = new ArrayBlockingQueue<>(maxPending + 1);
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == blockSize) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int chunk = Math.min(len, blockSize - blockLength);
+            System.arraycopy(b, off, block, blockLength, chunk);
+            blockLength += chunk;
+            off += chunk;
+            len -= chunk;
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Compress and write out everything written so far. Each flush ends the current block,
+     * so flushing often decreases the compression ratio.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (blockLength > 0) {
+            submitBlock();
+        }
+        writePending(0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (blockLength > 0 || !written) {
+                // An empty input still results in a valid, empty gzip stream
+                submitBlock();
+            }
+            writePending(0);
+            out.flush();
+        } finally {
+            closed = true;
+            try {
+                awaitPending();
+                endDeflaters();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = block;
+        final int length = blockLength;
+        pending.add(ParallelUtil.submit(() -> {
+            try {
+                return compress(data, length);
+            } finally {
+                freeBuffers.offer(data);
+            }
+        }));
+        written = true;
+        block = nextBuffer();
+        blockLength = 0;
+        writePending(maxPending);
+    }
+
+    private byte[] nextBuffer() {
+        byte[] ret = freeBuffers.poll();
+        return ret != null ? ret : new byte[blockSize];
+    }
+
+    // Write out finished blocks in order until at most the given number of blocks is pending
+    private void writePending(int maxRemaining) throws IOException {
+        while (pending.size() > maxRemaining) {
+            try {
+                out.write(pending.poll().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while compressing", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Cannot compress: " + e.getCause(), e.getCause());
+            }
+        }
+    }
+
+    // Wait for blocks still being compressed after a failure, so that their deflaters can be ended
+    private void awaitPending() {
+        Future<byte[]> future;
+        while ((future = pending.poll()) != null) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // Already reported or superseded by the failure which ended the stream
+            }
+        }
+    }
+
+    private void endDeflaters() {
+        Deflater deflater;
+        while ((deflater = freeDeflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    private byte[] compress(byte[] data, int length) {
+        Deflater deflater = freeDeflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        try {
+            return compress(deflater, data, length);
+        } finally {
+            deflater.reset();
+            freeDeflaters.offer(deflater);
+        }
+    }
+
+    private byte[] compress(Deflater deflater, byte[] data, int length) {
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+
+        // Incompressible data grows slightly, so reserve some room for it in addition to header and trailer
+        byte[] ret = new byte[GZIP_HEADER.length + length + length / 1000 + 64 + 8];
+        System.arraycopy(GZIP_HEADER, 0, ret, 0, GZIP_HEADER.length);
+        int pos = GZIP_HEADER.length;
+        while (!deflater.finished()) {
+            if (pos == ret.length - 8) {
+                ret = Arrays.copyOf(ret, ret.length * 2);
+            }
+            pos += deflater.deflate(ret, pos, ret.length - 8 - pos);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        pos = writeInt(ret, pos, (int) crc.getValue());
+        pos = writeInt(ret, pos, length);
+        return Arrays.copyOf(ret, pos);
+    }
+
+    // Little endian as required by the gzip trailer
+    private static int writeInt(byte[] buf, int pos, int value) {
+        buf[pos] = (byte) value;
+        buf[pos + 1] = (byte) (value >> 8);
+        buf[pos + 2] = (byte) (value >> 16);
+        buf[pos + 3] = (byte) (value >> 24);
+        return pos + 4;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
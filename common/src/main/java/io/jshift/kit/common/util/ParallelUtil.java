@@ -0,0 +1,166 @@
+package io.jshift.kit.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs work in parallel on a single pool of daemon threads shared within the JVM.
+ *
+ * Threads are created on demand and end after being idle for a minute, so that nothing is left behind
+ * when a build is finished, even within a long running Maven daemon. The parallelism is bounded per call
+ * and not by the pool, so that nested calls cannot starve each other. Tasks run with the context class
+ * loader of the calling thread, which is the plugin's class loader within Maven.
+ */
+public class ParallelUtil {
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private ParallelUtil() { }
+
+    /**
+     * Apply a task to all items, with at most the given number of items processed at the same time.
+     * Waits until all items have been processed and then rethrows the failure of the first item that failed.
+     *
+     * @param items items to process
+     * @param parallelism maximum number of items processed concurrently. With 1 or a single item
+     *                    everything runs on the calling thread.
+     * @param task task to apply
+     * @return results in the same order as the items
+     * @throws E the exception thrown by the task for the first failed item
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public static <T, R, E extends Exception> List<R> map(List<T> items, int parallelism, Task<T, R, E> task)
+        throws E, InterruptedException {
+        int workers = Math.min(parallelism, items.size());
+        List<R> ret = new ArrayList<>(items.size());
+        if (workers <= 1) {
+            for (T item : items) {
+                ret.add(task.apply(item));
+            }
+            return ret;
+        }
+
+        Object[] results = new Object[items.size()];
+        Throwable[] failures = new Throwable[items.size()];
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < results.length) {
+                try {
+                    results[index] = task.apply(items.get(index));
+                } catch (Throwable t) {
+                    failures[index] = t;
+                }
+            }
+        };
+        List<Future<?>> running = new ArrayList<>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                running.add(submit(Executors.callable(worker)));
+            }
+            for (Future<?> future : running) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> future : running) {
+                future.cancel(true);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            // Failures of tasks are collected per item, so this can only be an error of the worker itself
+            throw new IllegalStateException(e.getCause());
+        }
+
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                throw ParallelUtil.<E>rethrow(failure);
+            }
+        }
+        for (Object result : results) {
+            @SuppressWarnings("unchecked")
+            R value = (R) result;
+            ret.add(value);
+        }
+        return ret;
+    }
+
+    /**
+     * Like {@link #map(List, int, Task)} for tasks without a result
+     *
+     * @param items items to process
+     * @param parallelism maximum number of items processed concurrently
+     * @param task task to run for each item
+     * @throws E the exception thrown by the task for the first failed item
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public static <T, E extends Exception> void forEach(List<T> items, int parallelism, VoidTask<T, E> task)
+        throws E, InterruptedException {
+        map(items, parallelism, item -> {
+            task.run(item);
+            return null;
+        });
+    }
+
+    /**
+     * Run a single task on the shared pool, for callers which bound their parallelism themselves,
+     * e.g. by the number of pending results
+     *
+     * @param task task to run
+     * @return future for the task's result
+     */
+    public static <V> Future<V> submit(Callable<V> task) {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return EXECUTOR.submit(() -> {
+            Thread thread = Thread.currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(contextClassLoader);
+            try {
+                return task.call();
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        });
+    }
+
+    // ==================================================================================================
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> RuntimeException rethrow(Throwable failure) throws E {
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        // Tasks can only throw checked exceptions of type E
+        throw (E) failure;
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "jshift-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @FunctionalInterface
+    public interface Task<T, R, E extends Exception> {
+        R apply(T item) throws E;
+    }
+
+    @FunctionalInterface
+    public interface VoidTask<T, E extends Exception> {
+        void run(T item) throws E;
+    }
+}
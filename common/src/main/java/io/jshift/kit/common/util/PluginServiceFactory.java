@@ -3,14 +3,21 @@ package io.jshift.kit.common.util;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -27,6 +34,10 @@ import java.util.regex.Pattern;
  * If a line starts with <code>!</code> it is removed if it has been added previously.
  * The optional second numeric value is the order in which the services are returned.
  *
+ * The content of the descriptors and the resolved service constructors are cached per
+ * set of class loaders, so that repeated lookups (e.g. for every module in a reactor build)
+ * only pay for the instantiation of the services.
+ *
  * @author roland
  * @since 05.11.10
  */
@@ -60,84 +71,250 @@ public final class PluginServiceFactory<C> {
     public <T> List<T> createServiceObjects(String... descriptorPaths) {
         try {
             ServiceEntry.initDefaultOrder();
+            ClassLoaderSet loaderSet = new ClassLoaderSet(ClassUtil.mergeClassLoaders(additionalClassLoaders));
             TreeMap<ServiceEntry,T> serviceMap = new TreeMap<ServiceEntry,T>();
+            Map<String, List<ServiceEntry>> entriesByClassName = new HashMap<>();
             for (String descriptor : descriptorPaths) {
-                readServiceDefinitions(serviceMap, descriptor);
-            }
-            ArrayList<T> ret = new ArrayList<T>();
-            for (T service : serviceMap.values()) {
-                ret.add(service);
+                for (DescriptorLine line : getDescriptorLines(loaderSet, descriptor)) {
+                    createOrRemoveService(serviceMap, entriesByClassName, loaderSet, line);
+                }
             }
-            return ret;
+            return new ArrayList<T>(serviceMap.values());
         } finally {
             ServiceEntry.removeDefaultOrder();
         }
     }
 
-    private <T> void readServiceDefinitions(Map<ServiceEntry, T> extractorMap, String defPath) {
+    private List<DescriptorLine> getDescriptorLines(ClassLoaderSet loaderSet, String defPath) {
+        DescriptorKey key = new DescriptorKey(loaderSet, defPath);
+        List<DescriptorLine> lines = DESCRIPTOR_CACHE.get(key);
+        if (lines == null) {
+            purgeStaleEntries();
+            lines = readServiceDefinitions(defPath);
+            DESCRIPTOR_CACHE.put(key, lines);
+        }
+        return lines;
+    }
+
+    private List<DescriptorLine> readServiceDefinitions(String defPath) {
         try {
+            List<DescriptorLine> ret = new ArrayList<>();
             for (String url : ClassUtil.getResources(defPath, additionalClassLoaders)) {
-                readServiceDefinitionFromUrl(extractorMap, url);
+                readServiceDefinitionFromUrl(ret, url);
             }
+            return Collections.unmodifiableList(ret);
         } catch (IOException e) {
             throw new IllegalStateException("Cannot load service from " + defPath + ": " + e, e);
         }
     }
 
-    private <T> void readServiceDefinitionFromUrl(Map<ServiceEntry, T> extractorMap, String url) {
-        String line = null;
+    private void readServiceDefinitionFromUrl(List<DescriptorLine> lines, String url) {
         try (LineNumberReader reader = new LineNumberReader(new InputStreamReader(new URL(url).openStream(), "UTF8"))) {
-            line = reader.readLine();
+            String line = reader.readLine();
             while (line != null) {
-                createOrRemoveService(extractorMap, line);
+                if (line.length() > 0 && !COMMENT_LINE_PATTERN.matcher(line).matches()) {
+                    lines.add(new DescriptorLine(url, line));
+                }
                 line = reader.readLine();
             }
-        } catch (ReflectiveOperationException|IOException e) {
-            throw new IllegalStateException("Cannot load service " + line + " defined in " +
-                    url + " : " + e + ". Aborting", e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read service definitions from " + url + " : " + e + ". Aborting", e);
         }
     }
 
     // Matches comment lines and empty lines. these are skipped
-    private static Pattern COMMENT_LINE_PATTERN = Pattern.compile("^(\\s*#.*|\\s*)$");
-
-    private synchronized  <T> void createOrRemoveService(Map<ServiceEntry, T> serviceMap, String line)
-            throws ReflectiveOperationException {
-        if (line.length() > 0 && !COMMENT_LINE_PATTERN.matcher(line).matches()) {
-            ServiceEntry entry = new ServiceEntry(line);
-            if (entry.isRemove()) {
-                // Removing is a bit complex since we need to find out
-                // the proper key since the order is part of equals/hash
-                // so we cant fetch/remove it directly
-                Set<ServiceEntry> toRemove = new HashSet<ServiceEntry>();
-                for (ServiceEntry key : serviceMap.keySet()) {
-                    if (key.getClassName().equals(entry.getClassName())) {
-                        toRemove.add(key);
-                    }
-                }
+    private static final Pattern COMMENT_LINE_PATTERN = Pattern.compile("^(\\s*#.*|\\s*)$");
+
+    private <T> void createOrRemoveService(Map<ServiceEntry, T> serviceMap, Map<String, List<ServiceEntry>> entriesByClassName,
+                                           ClassLoaderSet loaderSet, DescriptorLine line) {
+        ServiceEntry entry = new ServiceEntry(line.getLine());
+        if (entry.isRemove()) {
+            // The order is part of the map key, so we keep track of all entries
+            // added for a class name to remove them without scanning the whole map
+            List<ServiceEntry> toRemove = entriesByClassName.remove(entry.getClassName());
+            if (toRemove != null) {
                 for (ServiceEntry key : toRemove) {
                     serviceMap.remove(key);
                 }
-            } else {
-                Class<T> clazz = ClassUtil.classForName(entry.getClassName(), additionalClassLoaders);
-                if (clazz == null) {
-                    throw new ClassNotFoundException("Class " + entry.getClassName() + " could not be found");
-                }
-                Constructor<T> constructor = clazz.getConstructor(context.getClass());
-                if (constructor == null) {
-                    throw new IllegalArgumentException(
-                            "Internal Error: " + clazz + " does not have constructor (" + context.getClass() + ")");
-                }
-                T service = constructor.newInstance(context);
+            }
+        } else {
+            try {
+                MethodHandle constructor = getConstructorHandle(loaderSet, entry.getClassName());
+                T service = (T) constructor.invoke(context);
                 serviceMap.put(entry, service);
+                entriesByClassName.computeIfAbsent(entry.getClassName(), k -> new ArrayList<>()).add(entry);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot load service " + line.getLine() + " defined in " +
+                        line.getUrl() + " : " + e + ". Aborting", e);
+            }
+        }
+    }
+
+    private MethodHandle getConstructorHandle(ClassLoaderSet loaderSet, String className) throws ReflectiveOperationException {
+        ConstructorKey key = new ConstructorKey(loaderSet, className, context.getClass());
+        SoftReference<MethodHandle> cached = CONSTRUCTOR_CACHE.get(key);
+        MethodHandle handle = cached != null ? cached.get() : null;
+        if (handle == null) {
+            Class<?> clazz = ClassUtil.classForName(className, additionalClassLoaders);
+            if (clazz == null) {
+                throw new ClassNotFoundException("Class " + className + " could not be found");
             }
+            Constructor<?> constructor = clazz.getConstructor(context.getClass());
+            handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                                  .asType(MethodType.methodType(Object.class, Object.class));
+            CONSTRUCTOR_CACHE.put(key, new SoftReference<>(handle));
         }
+        return handle;
     }
 
     public void addAdditionalClassLoader(ClassLoader classLoader) {
         this.additionalClassLoaders.add(classLoader);
     }
 
+    /**
+     * Clear the cached service descriptors and constructors. Only needed when descriptors
+     * change during the lifetime of a class loader, e.g. in tests.
+     */
+    public static void clearCache() {
+        DESCRIPTOR_CACHE.clear();
+        CONSTRUCTOR_CACHE.clear();
+    }
+
+    // Remove all entries whose class loaders have been garbage collected
+    private static void purgeStaleEntries() {
+        DESCRIPTOR_CACHE.keySet().removeIf(key -> key.loaderSet.isStale());
+        CONSTRUCTOR_CACHE.keySet().removeIf(key -> key.loaderSet.isStale());
+    }
+
+    // =============================================================================
+    // Caches shared across factory instances
+
+    private static final Map<DescriptorKey, List<DescriptorLine>> DESCRIPTOR_CACHE = new ConcurrentHashMap<>();
+
+    // Handles are referenced softly as they keep the service classes (and so their class loaders) alive
+    private static final Map<ConstructorKey, SoftReference<MethodHandle>> CONSTRUCTOR_CACHE = new ConcurrentHashMap<>();
+
+    // A single, non-comment line of a service descriptor together with its origin
+    private static final class DescriptorLine {
+        private final String url;
+        private final String line;
+
+        private DescriptorLine(String url, String line) {
+            this.url = url;
+            this.line = line;
+        }
+
+        private String getUrl() {
+            return url;
+        }
+
+        private String getLine() {
+            return line;
+        }
+    }
+
+    // Identity based set of class loaders which doesn't prevent the loaders from being garbage collected
+    private static final class ClassLoaderSet {
+        private final List<WeakReference<ClassLoader>> loaders;
+        private final int hashCode;
+
+        private ClassLoaderSet(ClassLoader[] classLoaders) {
+            loaders = new ArrayList<>(classLoaders.length);
+            int hash = 1;
+            for (ClassLoader loader : classLoaders) {
+                loaders.add(new WeakReference<>(loader));
+                hash = 31 * hash + System.identityHashCode(loader);
+            }
+            hashCode = hash;
+        }
+
+        private boolean isStale() {
+            for (WeakReference<ClassLoader> ref : loaders) {
+                if (ref.get() == null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (o == null || getClass() != o.getClass()) { return false; }
+
+            ClassLoaderSet that = (ClassLoaderSet) o;
+            if (hashCode != that.hashCode || loaders.size() != that.loaders.size()) {
+                return false;
+            }
+            for (int i = 0; i < loaders.size(); i++) {
+                ClassLoader loader = loaders.get(i).get();
+                if (loader == null || loader != that.loaders.get(i).get()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class DescriptorKey {
+        private final ClassLoaderSet loaderSet;
+        private final String path;
+
+        private DescriptorKey(ClassLoaderSet loaderSet, String path) {
+            this.loaderSet = loaderSet;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (o == null || getClass() != o.getClass()) { return false; }
+
+            DescriptorKey that = (DescriptorKey) o;
+            return path.equals(that.path) && loaderSet.equals(that.loaderSet);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(loaderSet, path);
+        }
+    }
+
+    private static final class ConstructorKey {
+        private final ClassLoaderSet loaderSet;
+        private final String className;
+        private final Class<?> contextClass;
+
+        private ConstructorKey(ClassLoaderSet loaderSet, String className, Class<?> contextClass) {
+            this.loaderSet = loaderSet;
+            this.className = className;
+            this.contextClass = contextClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (o == null || getClass() != o.getClass()) { return false; }
+
+            ConstructorKey that = (ConstructorKey) o;
+            return className.equals(that.className) &&
+                   contextClass == that.contextClass &&
+                   loaderSet.equals(that.loaderSet);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(loaderSet, className, contextClass);
+        }
+    }
+
 
     // =============================================================================
 
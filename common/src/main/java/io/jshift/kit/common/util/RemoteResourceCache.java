@@ -0,0 +1,242 @@
+package io.jshift.kit.common.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import io.jshift.kit.common.KitLogger;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Persistent cache for remote resources (like resource fragments) which are referenced by URL.
+ *
+ * Every remote is stored in its own directory below the cache directory, keeping its original file name
+ * (which carries meta information for fragments). Cached entries are revalidated with conditional requests
+ * (<code>If-None-Match</code> / <code>If-Modified-Since</code>) so that unchanged resources are not transferred
+ * again. Multiple remotes are fetched concurrently with a bounded number of parallel downloads.
+ *
+ * In offline mode no requests are made at all and resources are served from the cache only.
+ *
+ * All caches share one HTTP client and the worker threads of {@link ParallelUtil}, so that creating a cache
+ * for a lookup is cheap and doesn't leave connection pools or threads behind.
+ */
+public class RemoteResourceCache {
+
+    // System properties for tuning the cache
+    public static final String CACHE_DIR_PROPERTY = "jshift.remoteResources.cacheDir";
+    public static final String OFFLINE_PROPERTY = "jshift.remoteResources.offline";
+    public static final String PARALLEL_DOWNLOADS_PROPERTY = "jshift.remoteResources.parallelDownloads";
+
+    static final int DEFAULT_PARALLEL_DOWNLOADS = 4;
+
+    // Fragments are small, so a slow server is rather an error than a large download
+    private static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+        .connectTimeout(10, TimeUnit.SECONDS)
+        .readTimeout(60, TimeUnit.SECONDS)
+        .build();
+
+    // Name of the file holding meta data for validating a cached resource
+    private static final String META_FILE = ".cache.properties";
+    private static final String META_URL = "url";
+    private static final String META_FILE_NAME = "fileName";
+    private static final String META_ETAG = "etag";
+    private static final String META_LAST_MODIFIED = "lastModified";
+
+    private final File cacheDir;
+    private final KitLogger log;
+    private final boolean offline;
+    private final int parallelDownloads;
+
+    /**
+     * Cache configured by system properties, using <code>~/.jshift/cache/remote-resources</code> as default location
+     *
+     * @param log logger to use
+     */
+    public RemoteResourceCache(KitLogger log) {
+        this(getDefaultCacheDir(), log,
+             Boolean.getBoolean(OFFLINE_PROPERTY),
+             Integer.getInteger(PARALLEL_DOWNLOADS_PROPERTY, DEFAULT_PARALLEL_DOWNLOADS));
+    }
+
+    public RemoteResourceCache(File cacheDir, KitLogger log, boolean offline, int parallelDownloads) {
+        this.cacheDir = cacheDir;
+        this.log = log;
+        this.offline = offline;
+        this.parallelDownloads = Math.max(1, parallelDownloads);
+    }
+
+    /**
+     * Fetch the given remotes into the cache, revalidating already cached entries.
+     *
+     * @param remotes URLs of the resources to fetch
+     * @return local files for the remotes, in the same order as the given remotes
+     * @throws IOException if a remote can neither be downloaded nor be found in the cache
+     */
+    public List<File> fetch(List<String> remotes) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        for (String remote : remotes) {
+            try {
+                urls.add(new URL(remote));
+            } catch (MalformedURLException e) {
+                throw new IOException("Invalid URL of remote resource " + remote, e);
+            }
+        }
+        if (urls.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return ParallelUtil.map(urls, parallelDownloads, this::fetch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading remote resources");
+        }
+    }
+
+    /**
+     * Fetch a single remote into the cache
+     *
+     * @param url URL to fetch
+     * @return the local file holding the resource
+     * @throws IOException if the resource can neither be downloaded nor be found in the cache
+     */
+    public File fetch(URL url) throws IOException {
+        File entryDir = new File(cacheDir, getEntryDirName(url));
+        String fileName = getFileName(url);
+        File target = new File(entryDir, fileName);
+        Properties meta = readMeta(entryDir);
+        boolean cached = target.exists() && url.toString().equals(meta.getProperty(META_URL));
+
+        if (offline) {
+            if (!cached) {
+                throw new IOException("Remote resource " + url + " is not cached and cannot be downloaded in offline mode");
+            }
+            log.verbose("Using cached %s (offline)", url);
+            return target;
+        }
+
+        Request.Builder request = new Request.Builder().url(url);
+        if (cached) {
+            if (meta.getProperty(META_ETAG) != null) {
+                request.header("If-None-Match", meta.getProperty(META_ETAG));
+            }
+            if (meta.getProperty(META_LAST_MODIFIED) != null) {
+                request.header("If-Modified-Since", meta.getProperty(META_LAST_MODIFIED));
+            }
+        }
+
+        try (Response response = CLIENT.newCall(request.build()).execute()) {
+            if (response.code() == 304 && cached) {
+                log.verbose("Remote resource %s not modified, using cached version", url);
+                return target;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("HTTP " + response.code() + " " + response.message());
+            }
+            store(url, entryDir, target, response);
+            log.verbose("Downloaded %s", url);
+            return target;
+        } catch (IOException e) {
+            if (cached) {
+                log.warn("Cannot download %s (%s), using cached version", url, e.getMessage());
+                return target;
+            }
+            throw new IOException("Failed to download URL " + url + " to " + target + ": " + e, e);
+        }
+    }
+
+    // ====================================================================================================
+
+    private void store(URL url, File entryDir, File target, Response response) throws IOException {
+        Files.createDirectories(entryDir.toPath());
+        File tmpFile = File.createTempFile(".download-", ".tmp", entryDir);
+        try {
+            try (OutputStream out = new FileOutputStream(tmpFile);
+                 InputStream in = response.body().byteStream()) {
+                byte[] buffer = new byte[8192];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
+                }
+            }
+            Files.move(tmpFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+
+        Properties meta = new Properties();
+        meta.setProperty(META_URL, url.toString());
+        meta.setProperty(META_FILE_NAME, target.getName());
+        if (response.header("ETag") != null) {
+            meta.setProperty(META_ETAG, response.header("ETag"));
+        }
+        if (response.header("Last-Modified") != null) {
+            meta.setProperty(META_LAST_MODIFIED, response.header("Last-Modified"));
+        }
+        try (OutputStream out = new FileOutputStream(new File(entryDir, META_FILE))) {
+            meta.store(out, null);
+        }
+    }
+
+    private Properties readMeta(File entryDir) {
+        Properties meta = new Properties();
+        File metaFile = new File(entryDir, META_FILE);
+        if (metaFile.exists()) {
+            try (InputStream in = new FileInputStream(metaFile)) {
+                meta.load(in);
+            } catch (IOException e) {
+                log.warn("Cannot read cache meta data %s: %s", metaFile, e.getMessage());
+            }
+        }
+        return meta;
+    }
+
+    private static String getFileName(URL url) throws IOException {
+        final String path = url.getPath();
+        final int slashIndex = path.lastIndexOf('/');
+        if (slashIndex >= 0 && slashIndex < path.length() - 1) {
+            return path.substring(slashIndex + 1);
+        } else {
+            throw new IOException(String.format("URL %s should contain a name file to be downloaded.", url.toString()));
+        }
+    }
+
+    private static String getEntryDirName(URL url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder ret = new StringBuilder();
+            for (byte b : hash) {
+                ret.append(String.format("%02x", b));
+            }
+            return ret.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private static File getDefaultCacheDir() {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        if (dir != null) {
+            return new File(dir);
+        }
+        return new File(System.getProperty("user.home"), ".jshift/cache/remote-resources");
+    }
+}
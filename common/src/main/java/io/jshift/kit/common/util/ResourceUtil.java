@@ -7,8 +7,6 @@ import java.nio.charset.Charset;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.gson.JsonObject;
 import io.jshift.kit.common.ResourceFileType;
 import org.apache.commons.lang3.StringUtils;
@@ -22,11 +20,9 @@ import org.apache.commons.lang3.StringUtils;
 public class ResourceUtil {
 
     public static boolean jsonEquals(JsonObject first, JsonObject second) {
-        final ObjectMapper mapper = new ObjectMapper();
-
         try {
-            final JsonNode tree1 = mapper.readTree(first.toString());
-            final JsonNode tree2 = mapper.readTree(second.toString());
+            final JsonNode tree1 = ResourceFileType.json.getReader().readTree(first.toString());
+            final JsonNode tree2 = ResourceFileType.json.getReader().readTree(second.toString());
             return tree1.equals(tree2);
         } catch (IOException e) {
             return false;
@@ -39,11 +35,11 @@ public class ResourceUtil {
     }
 
     public static <T> T load(File file, Class<T> clazz, ResourceFileType resourceFileType) throws IOException {
-        return getObjectMapper(resourceFileType).readValue(file, clazz);
+        return resourceFileType.getReader().forType(clazz).readValue(file);
     }
 
     public static <T> T load(InputStream in, Class<T> clazz, ResourceFileType resourceFileType) throws IOException {
-        return getObjectMapper(resourceFileType).readValue(in, clazz);
+        return resourceFileType.getReader().forType(clazz).readValue(in);
     }
 
     public static File save(File file, Object data) throws IOException {
@@ -53,7 +49,7 @@ public class ResourceUtil {
     public static File save(File file, Object data, ResourceFileType type) throws IOException {
         File output = type.addExtensionIfMissing(file);
         ensureDir(file);
-        getObjectMapper(type).writeValue(output, data);
+        type.getWriter().writeValue(output, data);
         return output;
     }
 
@@ -67,17 +63,10 @@ public class ResourceUtil {
     }
 
     private static String serializeAsString(Object resource, ResourceFileType resourceFileType) throws JsonProcessingException {
-        return getObjectMapper(resourceFileType).writeValueAsString(resource);
-    }
-
-    private static ObjectMapper getObjectMapper(ResourceFileType resourceFileType) {
-        return resourceFileType.getObjectMapper()
-                .enable(SerializationFeature.INDENT_OUTPUT)
-                .disable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS)
-                .disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
+        return resourceFileType.getWriter().writeValueAsString(resource);
     }
 
-    private static void ensureDir(File file) throws IOException {
+    static void ensureDir(File file) throws IOException {
         File parentDir = file.getParentFile();
         if (!parentDir.exists()) {
             if (!parentDir.mkdirs()) {
@@ -17,7 +17,7 @@ package io.jshift.kit.common.util.validator;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -25,6 +25,9 @@ import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.ValidationMessage;
 import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.common.KitMetrics;
+import io.jshift.kit.common.util.ManifestItemHandler;
+import io.jshift.kit.common.util.ManifestReader;
 import io.jshift.kit.common.util.ResourceClassifier;
 
 import javax.validation.ConstraintViolation;
@@ -32,15 +35,15 @@ import javax.validation.ConstraintViolationException;
 import javax.validation.Path;
 import javax.validation.metadata.ConstraintDescriptor;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Validates Kubernetes/OpenShift resource descriptors using JSON schema validation method.
@@ -50,6 +53,10 @@ import java.util.Set;
 public class ResourceValidator {
 
     public static final String SCHEMA_JSON = "/schema/kube-validation-schema.json";
+
+    private static final Map<String, JsonSchema> SCHEMAS_BY_KIND = new ConcurrentHashMap<>();
+    private static JsonObject baseSchema;
+
     private KitLogger log;
     private File resources[];
     private ResourceClassifier target = ResourceClassifier.KUBERNETES;
@@ -78,6 +85,19 @@ public class ResourceValidator {
         setupIgnoreRules(this.target);
     }
 
+    /**
+     * Validator for single resources only, see {@link #validate(JsonNode, String)}
+     *
+     * @param target  Target platform e.g OpenShift, Kubernetes
+     * @param log KitLogger for logging messages on standard output devices
+     */
+    public ResourceValidator(ResourceClassifier target, KitLogger log) {
+        this.resources = new File[0];
+        this.target = target;
+        this.log = log;
+        setupIgnoreRules(this.target);
+    }
+
     /*
      * Add exception rules to ignore validation constraint from JSON schema for OpenShift/Kubernetes resources. Some fields in JSON schema which are marked as required
      * but in reality it's not required to provide values for those fields while creating the resources.
@@ -100,23 +120,54 @@ public class ResourceValidator {
     public int validate() throws ConstraintViolationException, IOException {
         for(File resource: resources) {
             if (resource.isFile() && resource.exists()) {
-                try {
+                try (KitMetrics.Span span = KitMetrics.span("validation", "validate", resource.getName())) {
                     log.info("validating %s resource", resource.toString());
-                    JsonNode inputSpecNode = geFileContent(resource);
-                    String kind = inputSpecNode.get("kind").toString();
-                    JsonSchema schema = getJsonSchema(prepareSchemaUrl(SCHEMA_JSON), kind);
-                    Set<ValidationMessage> errors = schema.validate(inputSpecNode);
-                    processErrors(errors, resource);
-                } catch (URISyntaxException e) {
-                    throw new IOException(e);
+                    ManifestReader.read(resource, new ManifestItemHandler() {
+                        @Override
+                        public void handle(JsonNode item) throws IOException {
+                            validate(item, resource.toString());
+                        }
+
+                        // Only the list itself is validated, as the items of the list schema are untyped
+                        @Override
+                        public void handleListItem(JsonNode item) {
+                        }
+
+                        @Override
+                        public void handleList(JsonNode list) throws IOException {
+                            validate(list, resource.toString());
+                        }
+                    });
                 }
+                KitMetrics.count("validation.resources");
             }
         }
 
         return resources.length;
     }
 
-    private void processErrors(Set<ValidationMessage> errors, File resource) {
+    /**
+     * Validates a single resource, e.g. while a manifest is streamed with a {@link io.jshift.kit.common.util.ManifestWriter}
+     * or {@link ManifestReader}. If the resource is invalid it throws @{@link ConstraintViolationException} with all
+     * violated constraints. Resources of a kind unknown to the schema, like custom resources, are skipped with a warning.
+     *
+     * @param resource resource to validate
+     * @param source where the resource comes from, used in the error message
+     * @throws ConstraintViolationException
+     * @throws IOException
+     */
+    public void validate(JsonNode resource, String source) throws ConstraintViolationException, IOException {
+        JsonNode kind = resource.get("kind");
+        JsonSchema schema = getJsonSchema(kind != null ? kind.asText() : null);
+        if (schema == null) {
+            log.warn("Not validating %s of %s, as its kind is unknown to the schema", kind.asText(), source);
+            return;
+        }
+        Set<ValidationMessage> errors = schema.validate(resource);
+        processErrors(errors, source);
+    }
+
+    private void processErrors(Set<ValidationMessage> errors, String resource) {
         Set<ConstraintViolationImpl> constraintViolations = new HashSet<>();
         for (ValidationMessage errorMsg: errors) {
             if(!ignoreError(errorMsg))
@@ -138,10 +189,10 @@ public class ResourceValidator {
         return false;
     }
 
-    private String getErrorMessage(File resource, Set<ConstraintViolationImpl> violations) {
+    private String getErrorMessage(String resource, Set<ConstraintViolationImpl> violations) {
         StringBuilder validationError = new StringBuilder();
         validationError.append("Invalid Resource : ");
-        validationError.append(resource.toString());
+        validationError.append(resource);
 
         for (ConstraintViolationImpl violation: violations) {
             validationError.append("\n");
@@ -151,19 +202,46 @@ public class ResourceValidator {
         return  validationError.toString();
     }
 
-    private JsonSchema getJsonSchema(URI schemaUrl, String kind) throws IOException {
+    // The schema is the same for every kind except for its properties, so the parsed schema and the schema
+    // per kind are created only once. Returns null for kinds not in the schema.
+    private JsonSchema getJsonSchema(String kind) throws IOException {
         checkIfKindPropertyExists(kind);
-        JsonSchemaFactory factory = new JsonSchemaFactory();
-        JsonObject jsonSchema = getSchemaJson(schemaUrl);
-        getResourceProperties(kind, jsonSchema);
+        String key = kind.replaceAll("\"", "").toLowerCase();
+        JsonSchema schema = SCHEMAS_BY_KIND.get(key);
+        if (schema == null) {
+            JsonObject jsonSchema = new JsonObject();
+            for (Map.Entry<String, JsonElement> entry : getBaseSchema().entrySet()) {
+                jsonSchema.add(entry.getKey(), entry.getValue());
+            }
+            if (!getResourceProperties(key, jsonSchema)) {
+                return null;
+            }
+            schema = new JsonSchemaFactory().getSchema(jsonSchema.toString());
+            SCHEMAS_BY_KIND.put(key, schema);
+        }
+        return schema;
+    }
 
-        return factory.getSchema(jsonSchema.toString());
+    private JsonObject getBaseSchema() throws IOException {
+        synchronized (SCHEMAS_BY_KIND) {
+            if (baseSchema == null) {
+                try {
+                    baseSchema = getSchemaJson(prepareSchemaUrl(SCHEMA_JSON));
+                } catch (URISyntaxException e) {
+                    throw new IOException(e);
+                }
+            }
+            return baseSchema;
+        }
     }
 
-    private void getResourceProperties(String kind, JsonObject jsonSchema) {
-        jsonSchema.add("properties" , jsonSchema.get("resources").getAsJsonObject()
-                .getAsJsonObject(kind.replaceAll("\"", "").toLowerCase())
-                .getAsJsonObject("properties"));
+    private boolean getResourceProperties(String kind, JsonObject jsonSchema) {
+        JsonObject resource = jsonSchema.get("resources").getAsJsonObject().getAsJsonObject(kind);
+        if (resource == null) {
+            return false;
+        }
+        jsonSchema.add("properties" , resource.getAsJsonObject("properties"));
+        return true;
     }
 
     private void checkIfKindPropertyExists(String kind) {
@@ -176,13 +254,6 @@ public class ResourceValidator {
         return getClass().getResource(schemaFile).toURI();
     }
 
-    private JsonNode geFileContent(File file) throws IOException {
-        try (InputStream resourceStream = new FileInputStream(file)) {
-            ObjectMapper jsonMapper = new ObjectMapper(new YAMLFactory());
-            return jsonMapper.readTree(resourceStream);
-        }
-    }
-
     public JsonObject getSchemaJson(URI schemaUrl) throws IOException {
         ObjectMapper objectMapper = new ObjectMapper();
         String rootNode = objectMapper.readValue(schemaUrl.toURL(), JsonNode.class).toString();
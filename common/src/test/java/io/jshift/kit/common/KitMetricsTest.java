@@ -0,0 +1,132 @@
+package io.jshift.kit.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KitMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        KitMetrics.disable();
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        KitMetrics.disable();
+        KitMetrics.Span first = KitMetrics.span("docker", "GET /version");
+        KitMetrics.Span second = KitMetrics.span("docker", "GET /info");
+        first.close();
+        second.close();
+        KitMetrics.count("images");
+
+        assertFalse(KitMetrics.isEnabled());
+        assertSame(first, second);
+        assertTrue(KitMetrics.getStats().isEmpty());
+        assertTrue(KitMetrics.getCounters().isEmpty());
+    }
+
+    @Test
+    public void aggregatesSpansAndCounters() {
+        KitMetrics.enable(false);
+        for (int i = 0; i < 3; i++) {
+            try (KitMetrics.Span span = KitMetrics.span("enricher", "jshift-name.create")) {
+                KitMetrics.count("resources", 2);
+            }
+        }
+        try (KitMetrics.Span span = KitMetrics.span("docker", "POST /build")) {
+            sleep(20);
+        }
+
+        List<KitMetrics.Stat> stats = KitMetrics.getStats();
+        assertEquals(2, stats.size());
+        assertEquals("POST /build", stats.get(0).getName());
+        assertEquals(1, stats.get(0).getCount());
+        assertTrue(stats.get(0).getMaxNanos() >= 20000000L);
+        assertEquals("enricher", stats.get(1).getCategory());
+        assertEquals(3, stats.get(1).getCount());
+        assertEquals(Long.valueOf(6), KitMetrics.getCounters().get("resources"));
+    }
+
+    @Test
+    public void finishLogsSummaryAndWritesTrace() throws IOException {
+        KitMetrics.enable(true);
+        try (KitMetrics.Span span = KitMetrics.span("apply", "Service", "my-service")) {
+            KitMetrics.count("validation.resources");
+        }
+        File traceFile = new File(folder.getRoot(), "trace/jshift-trace.json");
+        RecordingLogger log = new RecordingLogger();
+
+        KitMetrics.finish(log, traceFile);
+
+        assertTrue(log.lines.get(0).startsWith("Timings"));
+        assertTrue(log.lines.get(1).contains("Service"));
+        assertTrue(KitMetrics.isEnabled());
+        assertTrue(KitMetrics.getStats().isEmpty());
+
+        JsonObject trace = JsonFactory.newJsonObject(new String(Files.readAllBytes(traceFile.toPath()), StandardCharsets.UTF_8));
+        JsonArray events = trace.getAsJsonArray("traceEvents");
+        assertEquals(2, events.size());
+        JsonObject span = events.get(0).getAsJsonObject();
+        assertEquals("Service", span.get("name").getAsString());
+        assertEquals("apply", span.get("cat").getAsString());
+        assertEquals("X", span.get("ph").getAsString());
+        assertEquals("my-service", span.getAsJsonObject("args").get("detail").getAsString());
+        JsonObject counter = events.get(1).getAsJsonObject();
+        assertEquals("C", counter.get("ph").getAsString());
+        assertEquals(1, counter.getAsJsonObject("args").get("value").getAsInt());
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingLogger implements KitLogger {
+        private final List<String> lines = new ArrayList<>();
+
+        @Override
+        public void debug(String format, Object... params) { }
+
+        @Override
+        public void info(String format, Object... params) {
+            lines.add(String.format(format, params));
+        }
+
+        @Override
+        public void warn(String format, Object... params) {
+            lines.add(String.format(format, params));
+        }
+
+        @Override
+        public void error(String format, Object... params) {
+            lines.add(String.format(format, params));
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+    }
+}
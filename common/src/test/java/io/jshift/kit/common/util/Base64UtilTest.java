@@ -1,5 +1,9 @@
 package io.jshift.kit.common.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -13,4 +17,18 @@ public class Base64UtilTest {
         assertEquals(encode, Base64Util.encodeToString(raw));
         assertEquals(raw, Base64Util.decodeToString(encode));
     }
+
+    @Test
+    public void testStreamingEncodeMatchesEncode() throws IOException {
+        Random random = new Random(42);
+        // Sizes around the chunk boundary and with every kind of padding
+        for (int size : new int[] { 0, 1, 2, 3, 24575, 24576, 24577, 100000 }) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            String encoded = Base64Util.encodeToString(new ByteArrayInputStream(data), size);
+            assertEquals(Base64Util.encodeToString(data), encoded);
+            assertEquals(Base64Util.encodedLength(size), encoded.length());
+            assertEquals(encoded, Base64Util.encodeToString(new ByteArrayInputStream(data), -1));
+        }
+    }
 }
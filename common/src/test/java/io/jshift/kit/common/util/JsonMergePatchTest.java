@@ -0,0 +1,101 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.common.util;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class JsonMergePatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void equalObjects() throws IOException {
+        assertNull(diff("{'kind':'Service','spec':{'ports':[{'port':80}]}}",
+                        "{'kind':'Service','spec':{'ports':[{'port':80}]}}"));
+    }
+
+    @Test
+    public void keepsFieldsFilledInByServer() throws IOException {
+        assertNull(diff("{'metadata':{'name':'web','uid':'4711','resourceVersion':'12','namespace':'test'}," +
+                        " 'spec':{'clusterIP':'10.0.0.1','ports':[{'port':80,'protocol':'TCP'}]},'status':{'loadBalancer':{}}}",
+                        "{'metadata':{'name':'web','finalizers':[]},'spec':{'ports':[{'port':80}]}}"));
+    }
+
+    @Test
+    public void removesEntriesOfStringMaps() throws IOException {
+        assertEquals(json("{'metadata':{'labels':{'version':null,'app':'web2'}}}"),
+                     diff("{'metadata':{'name':'web','labels':{'app':'web','version':'1.0'}}}",
+                          "{'metadata':{'name':'web','labels':{'app':'web2'}}}"));
+    }
+
+    @Test
+    public void keepsDefaultedFieldsOfOtherObjects() throws IOException {
+        // roleRef is immutable, so a patch removing the defaulted apiGroup would be rejected
+        assertNull(diff("{'kind':'RoleBinding','metadata':{'name':'view'}," +
+                        " 'roleRef':{'apiGroup':'rbac.authorization.k8s.io','kind':'ClusterRole','name':'view'}," +
+                        " 'subjects':[{'kind':'ServiceAccount','name':'web'}]}",
+                        "{'kind':'RoleBinding','metadata':{'name':'view'}," +
+                        " 'roleRef':{'kind':'ClusterRole','name':'view'}," +
+                        " 'subjects':[{'kind':'ServiceAccount','name':'web'}]}"));
+        // Limits and requests defaulted by a LimitRange
+        assertNull(diff("{'spec':{'containers':[{'name':'web','resources':{'limits':{'cpu':'1','memory':'512Mi'},'requests':{'cpu':'100m'}}}]}}",
+                        "{'spec':{'containers':[{'name':'web','resources':{'limits':{'memory':'512Mi'}}}]}}"));
+    }
+
+    @Test
+    public void removesEntriesOfSelectorsAndTemplateLabels() throws IOException {
+        assertEquals(json("{'spec':{'selector':{'version':null},'template':{'metadata':{'labels':{'version':null}}}}}"),
+                     diff("{'spec':{'selector':{'app':'web','version':'1'},'template':{'metadata':{'labels':{'app':'web','version':'1'}}}}}",
+                          "{'spec':{'selector':{'app':'web'},'template':{'metadata':{'labels':{'app':'web'}}}}}"));
+        assertEquals(json("{'data':{'old':null}}"),
+                     diff("{'data':{'new':'1','old':'2'}}", "{'data':{'new':'1'}}"));
+    }
+
+    @Test
+    public void replacesChangedArrays() throws IOException {
+        assertEquals(json("{'spec':{'ports':[{'port':80},{'port':443}]}}"),
+                     diff("{'spec':{'type':'ClusterIP','ports':[{'port':80,'protocol':'TCP'}]}}",
+                          "{'spec':{'ports':[{'port':80},{'port':443}]}}"));
+    }
+
+    @Test
+    public void addsNewFields() throws IOException {
+        assertEquals(json("{'spec':{'replicas':3,'template':{'metadata':{'annotations':{'a':'b'}}}}}"),
+                     diff("{'spec':{'replicas':1,'template':{'spec':{}}}}",
+                          "{'spec':{'replicas':3,'template':{'metadata':{'annotations':{'a':'b'}}}}}"));
+    }
+
+    @Test
+    public void ignoresStatusAndServerMetadata() throws IOException {
+        assertNull(diff("{'metadata':{'name':'web','resourceVersion':'1'},'status':{'phase':'Running'}}",
+                        "{'metadata':{'name':'web','resourceVersion':'2'},'status':{'phase':'Pending'}}"));
+    }
+
+    private JsonNode diff(String live, String desired) throws IOException {
+        return JsonMergePatch.diff(json(live), json(desired));
+    }
+
+    private JsonNode json(String json) throws IOException {
+        return mapper.readTree(json.replace('\'', '"'));
+    }
+}
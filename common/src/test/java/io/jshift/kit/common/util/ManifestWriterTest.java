@@ -0,0 +1,149 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.common.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.jshift.kit.common.ResourceFileType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ManifestWriterTest {
+
+    @Test
+    public void yamlIsWrittenAsMultipleDocuments() throws IOException {
+        byte[] manifest = write(ResourceFileType.yaml, configMap("first"), configMap("second"));
+
+        String yaml = new String(manifest, StandardCharsets.UTF_8);
+        assertEquals(2, yaml.split("---", -1).length - 1);
+
+        List<JsonNode> items = read(manifest, ResourceFileType.yaml);
+        assertEquals(2, items.size());
+        assertEquals("first", items.get(0).get("metadata").get("name").asText());
+        assertEquals("second", items.get(1).get("metadata").get("name").asText());
+    }
+
+    @Test
+    public void jsonIsWrittenAsList() throws IOException {
+        byte[] manifest = write(ResourceFileType.json, configMap("first"), configMap("second"));
+
+        JsonNode list = ResourceFileType.json.getReader().readTree(new ByteArrayInputStream(manifest));
+        assertEquals("List", list.get("kind").asText());
+        assertEquals(2, list.get("items").size());
+
+        List<JsonNode> items = read(manifest, ResourceFileType.json);
+        assertEquals(2, items.size());
+        assertEquals("second", items.get(1).get("metadata").get("name").asText());
+    }
+
+    @Test
+    public void emptyJsonList() throws IOException {
+        byte[] manifest = write(ResourceFileType.json);
+
+        JsonNode list = ResourceFileType.json.getReader().readTree(new ByteArrayInputStream(manifest));
+        assertEquals(0, list.get("items").size());
+        assertEquals(0, read(manifest, ResourceFileType.json).size());
+    }
+
+    @Test
+    public void singleResourceAndYamlList() throws IOException {
+        String yaml = "kind: ConfigMap\n" +
+                      "metadata:\n" +
+                      "  name: single\n" +
+                      "---\n" +
+                      "apiVersion: v1\n" +
+                      "kind: List\n" +
+                      "items:\n" +
+                      "- kind: Service\n" +
+                      "  metadata:\n" +
+                      "    name: svc\n" +
+                      "- kind: ConfigMap\n" +
+                      "  metadata:\n" +
+                      "    name: cm\n";
+
+        List<JsonNode> items = read(yaml.getBytes(StandardCharsets.UTF_8), ResourceFileType.yaml);
+
+        assertEquals(3, items.size());
+        assertEquals("single", items.get(0).get("metadata").get("name").asText());
+        assertEquals("Service", items.get(1).get("kind").asText());
+        assertEquals("cm", items.get(2).get("metadata").get("name").asText());
+    }
+
+    @Test
+    public void handlersSeeEveryItemBeforeItIsWritten() throws IOException {
+        List<String> seen = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ManifestWriter writer = new ManifestWriter(out, ResourceFileType.yaml)) {
+            writer.addItemHandler(item -> seen.add(item.get("metadata").get("name").asText()));
+            writer.addItemHandler(item -> {
+                if ("invalid".equals(item.get("metadata").get("name").asText())) {
+                    throw new IOException("invalid");
+                }
+            });
+            writer.writeAll(Arrays.asList(configMap("first"), configMap("second")));
+            try {
+                writer.write(configMap("invalid"));
+                fail("Handler should have rejected the item");
+            } catch (IOException exp) {
+                assertEquals("invalid", exp.getMessage());
+            }
+            assertEquals(2, writer.getCount());
+        }
+
+        assertEquals(Arrays.asList("first", "second", "invalid"), seen);
+        assertTrue(!new String(out.toByteArray(), StandardCharsets.UTF_8).contains("invalid"));
+    }
+
+    private byte[] write(ResourceFileType type, Object... items) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ManifestWriter writer = new ManifestWriter(out, type)) {
+            writer.writeAll(Arrays.asList(items));
+        }
+        return out.toByteArray();
+    }
+
+    private List<JsonNode> read(byte[] manifest, ResourceFileType type) throws IOException {
+        List<JsonNode> ret = new ArrayList<>();
+        int count = ManifestReader.read(new ByteArrayInputStream(manifest), type, ret::add);
+        assertEquals(ret.size(), count);
+        return ret;
+    }
+
+    private Map<String, Object> configMap(String name) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("name", name);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("key", "value");
+        Map<String, Object> ret = new LinkedHashMap<>();
+        ret.put("apiVersion", "v1");
+        ret.put("kind", "ConfigMap");
+        ret.put("metadata", metadata);
+        ret.put("data", data);
+        return ret;
+    }
+}
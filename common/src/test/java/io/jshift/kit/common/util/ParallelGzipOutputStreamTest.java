@@ -0,0 +1,116 @@
+package io.jshift.kit.common.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelGzipOutputStreamTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        byte[] data = createData(10 * 1024 * 1024 + 17);
+        byte[] compressed = compress(data, 4, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE);
+
+        assertTrue(compressed.length < data.length);
+        assertArrayEquals(data, decompress(compressed));
+    }
+
+    @Test
+    public void smallBlocksAndSingleBytes() throws IOException {
+        byte[] data = createData(10000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gz = new ParallelGzipOutputStream(out, 3, 1000, 6)) {
+            for (int i = 0; i < 500; i++) {
+                gz.write(data[i]);
+            }
+            gz.flush();
+            gz.write(data, 500, data.length - 500);
+        }
+        assertArrayEquals(data, decompress(out.toByteArray()));
+    }
+
+    @Test
+    public void incompressibleData() throws IOException {
+        byte[] data = new byte[3 * 1024 * 1024];
+        new Random(4711).nextBytes(data);
+        assertArrayEquals(data, decompress(compress(data, 2, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE)));
+    }
+
+    @Test
+    public void emptyInput() throws IOException {
+        byte[] compressed = compress(new byte[0], 2, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE);
+        assertEquals(0, decompress(compressed).length);
+    }
+
+    @Test(expected = IOException.class)
+    public void writeAfterClose() throws IOException {
+        OutputStream gz = new ParallelGzipOutputStream(new ByteArrayOutputStream(), 2);
+        gz.close();
+        gz.write(1);
+    }
+
+    @Test
+    public void failingOutputIsReported() throws IOException {
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        OutputStream gz = new ParallelGzipOutputStream(failing, 2, 1000, 6);
+        try {
+            gz.write(createData(10000));
+            gz.close();
+            fail("Failure of the underlying stream should have been reported");
+        } catch (IOException exp) {
+            assertEquals("disk full", exp.getMessage());
+        }
+        try {
+            gz.close();
+        } catch (IOException exp) {
+            // The remaining blocks cannot be written either
+            assertEquals("disk full", exp.getMessage());
+        }
+        try {
+            gz.write(1);
+            fail("Stream should be closed");
+        } catch (IOException exp) {
+            assertEquals("Stream closed", exp.getMessage());
+        }
+    }
+
+    private byte[] compress(byte[] data, int threads, int blockSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gz = new ParallelGzipOutputStream(out, threads, blockSize, ParallelGzipOutputStream.DEFAULT_LEVEL)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] decompress(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private byte[] createData(int size) {
+        Random random = new Random(42);
+        byte[] ret = new byte[size];
+        for (int i = 0; i < size; i++) {
+            ret[i] = (byte) ('a' + random.nextInt(16));
+        }
+        return ret;
+    }
+}
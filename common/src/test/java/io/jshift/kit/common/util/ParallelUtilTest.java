@@ -0,0 +1,73 @@
+package io.jshift.kit.common.util;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelUtilTest {
+
+    @Test
+    public void resultsInOrderOfItems() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+        assertEquals(Arrays.asList(0, 2, 4), ParallelUtil.map(items, 4, i -> i * 2).subList(0, 3));
+        assertEquals(Integer.valueOf(198), ParallelUtil.map(items, 4, i -> i * 2).get(99));
+    }
+
+    @Test
+    public void parallelismIsBounded() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ParallelUtil.forEach(Collections.nCopies(20, "item"), 3, item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+        });
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void firstFailureAfterAllItems() throws InterruptedException {
+        AtomicInteger processed = new AtomicInteger();
+        try {
+            ParallelUtil.forEach(Arrays.asList(1, 2, 3, 4, 5, 6), 2, i -> {
+                processed.incrementAndGet();
+                if (i % 2 == 0) {
+                    throw new IOException("failed " + i);
+                }
+            });
+            fail("Failure should have been rethrown");
+        } catch (IOException exp) {
+            assertEquals("failed 2", exp.getMessage());
+        }
+        assertEquals(6, processed.get());
+    }
+
+    @Test
+    public void contextClassLoaderOfCaller() throws Exception {
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        ClassLoader pluginClassLoader = new URLClassLoader(new URL[0], previous);
+        Thread.currentThread().setContextClassLoader(pluginClassLoader);
+        try {
+            for (ClassLoader used : ParallelUtil.map(Arrays.asList(1, 2, 3, 4), 4, i -> Thread.currentThread().getContextClassLoader())) {
+                assertSame(pluginClassLoader, used);
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+}
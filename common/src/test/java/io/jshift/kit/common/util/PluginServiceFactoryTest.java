@@ -7,6 +7,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -36,6 +37,19 @@ public class PluginServiceFactoryTest {
         }
     }
 
+    @Test
+    public void cachedDescriptorsCreateNewInstances() {
+        List<TestService> first =
+                pluginServiceFactory.createServiceObjects("service/test-services-default", "service/test-services");
+        List<TestService> second =
+                pluginServiceFactory.createServiceObjects("service/test-services-default", "service/test-services");
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getName(), second.get(i).getName());
+            assertNotSame(first.get(i), second.get(i));
+        }
+    }
+
     @Test
     public void errorHandling() {
         try {
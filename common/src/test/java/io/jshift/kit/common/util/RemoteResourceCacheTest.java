@@ -0,0 +1,124 @@
+package io.jshift.kit.common.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import io.jshift.kit.common.KitLogger;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RemoteResourceCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+
+    private KitLogger log = new KitLogger.StdoutLogger();
+
+    @Before
+    public void setup() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String etag = "\"" + request.getPath() + "\"";
+                if (etag.equals(request.getHeader("If-None-Match"))) {
+                    return new MockResponse().setResponseCode(304);
+                }
+                if (request.getPath().contains("missing")) {
+                    return new MockResponse().setResponseCode(404);
+                }
+                return new MockResponse().setHeader("ETag", etag).setBody("kind: ConfigMap # " + request.getPath());
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void downloadKeepsOrderAndFileNames() throws IOException {
+        RemoteResourceCache cache = new RemoteResourceCache(folder.newFolder(), log, false, 2);
+        List<File> files = cache.fetch(Arrays.asList(url("/a/app-cm.yml"), url("/b/other-cm.yml"), url("/c/app-cm.yml")));
+
+        assertEquals(3, files.size());
+        assertEquals("app-cm.yml", files.get(0).getName());
+        assertEquals("other-cm.yml", files.get(1).getName());
+        assertEquals("app-cm.yml", files.get(2).getName());
+        assertEquals("kind: ConfigMap # /a/app-cm.yml", read(files.get(0)));
+        assertEquals("kind: ConfigMap # /c/app-cm.yml", read(files.get(2)));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void revalidatesWithEtag() throws Exception {
+        File cacheDir = folder.newFolder();
+        new RemoteResourceCache(cacheDir, log, false, 4).fetch(Arrays.asList(url("/app-cm.yml")));
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+
+        List<File> files = new RemoteResourceCache(cacheDir, log, false, 4).fetch(Arrays.asList(url("/app-cm.yml")));
+        assertEquals("\"/app-cm.yml\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals("kind: ConfigMap # /app-cm.yml", read(files.get(0)));
+    }
+
+    @Test
+    public void offlineServesFromCache() throws IOException {
+        File cacheDir = folder.newFolder();
+        new RemoteResourceCache(cacheDir, log, false, 4).fetch(Arrays.asList(url("/app-cm.yml")));
+        int requests = server.getRequestCount();
+
+        List<File> files = new RemoteResourceCache(cacheDir, log, true, 4).fetch(Arrays.asList(url("/app-cm.yml")));
+        assertEquals("kind: ConfigMap # /app-cm.yml", read(files.get(0)));
+        assertEquals(requests, server.getRequestCount());
+    }
+
+    @Test
+    public void offlineFailsForUncachedResource() throws IOException {
+        try {
+            new RemoteResourceCache(folder.newFolder(), log, true, 4).fetch(Arrays.asList(url("/app-cm.yml")));
+            fail();
+        } catch (IOException exp) {
+            assertTrue(exp.getMessage().contains("offline"));
+            assertEquals(0, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void failedDownload() throws IOException {
+        try {
+            new RemoteResourceCache(folder.newFolder(), log, false, 4).fetch(Arrays.asList(url("/app-cm.yml"), url("/missing-cm.yml")));
+            fail();
+        } catch (IOException exp) {
+            assertTrue(exp.getMessage().contains("/missing-cm.yml"));
+            assertTrue(exp.getMessage().contains("404"));
+        }
+    }
+
+    private String url(String path) {
+        return server.url(path).toString();
+    }
+
+    private String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
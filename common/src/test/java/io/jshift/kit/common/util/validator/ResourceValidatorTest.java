@@ -0,0 +1,146 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.common.util.validator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.ConstraintViolationException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.common.util.ResourceClassifier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResourceValidatorTest {
+
+    private static final String SERVICE_MONITOR =
+        "  - apiVersion: monitoring.coreos.com/v1\n" +
+        "    kind: ServiceMonitor\n" +
+        "    metadata:\n" +
+        "      name: web\n" +
+        "    spec:\n" +
+        "      endpoints:\n" +
+        "      - port: http\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final RecordingLogger log = new RecordingLogger();
+
+    @Test
+    public void listWithCustomResource() throws IOException {
+        File manifest = write("kubernetes.yml",
+                              "apiVersion: v1\n" +
+                              "kind: List\n" +
+                              "items:\n" +
+                              "  - apiVersion: v1\n" +
+                              "    kind: Service\n" +
+                              "    metadata:\n" +
+                              "      name: web\n" +
+                              "    spec:\n" +
+                              "      ports:\n" +
+                              "      - port: 80\n" +
+                              SERVICE_MONITOR);
+
+        assertEquals(1, new ResourceValidator(manifest, ResourceClassifier.KUBERNETES, log).validate());
+    }
+
+    @Test
+    public void itemsOfListAreUntyped() throws IOException {
+        // Like with the list schema, whose items can be any resource
+        File manifest = write("kubernetes.yml",
+                              "apiVersion: v1\n" +
+                              "kind: List\n" +
+                              "items:\n" +
+                              "  - apiVersion: apps/v1\n" +
+                              "    kind: Deployment\n" +
+                              "    metadata:\n" +
+                              "      name: web\n" +
+                              "    spec:\n" +
+                              "      replicas: three\n");
+
+        assertEquals(1, new ResourceValidator(manifest, ResourceClassifier.KUBERNETES, log).validate());
+    }
+
+    @Test
+    public void singleResourceIsValidatedByKind() throws IOException {
+        File manifest = write("web-deployment.yml",
+                              "apiVersion: apps/v1\n" +
+                              "kind: Deployment\n" +
+                              "metadata:\n" +
+                              "  name: web\n" +
+                              "spec:\n" +
+                              "  replicas: three\n");
+
+        try {
+            new ResourceValidator(manifest, ResourceClassifier.KUBERNETES, log).validate();
+            fail("Invalid replicas should have been reported");
+        } catch (ConstraintViolationException exp) {
+            assertTrue(exp.getMessage().contains("web-deployment.yml"));
+        }
+    }
+
+    @Test
+    public void unknownKindIsSkipped() throws IOException {
+        ResourceValidator validator = new ResourceValidator(ResourceClassifier.KUBERNETES, log);
+
+        validator.validate(new ObjectMapper().readTree("{\"apiVersion\":\"monitoring.coreos.com/v1\",\"kind\":\"ServiceMonitor\"," +
+                                                       "\"metadata\":{\"name\":\"web\"}}"), "web-servicemonitor.yml");
+
+        assertEquals(1, log.warnings.size());
+        assertTrue(log.warnings.get(0).contains("ServiceMonitor"));
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static class RecordingLogger implements KitLogger {
+        private final List<String> warnings = new ArrayList<>();
+
+        @Override
+        public void debug(String format, Object... params) { }
+
+        @Override
+        public void info(String format, Object... params) { }
+
+        @Override
+        public void warn(String format, Object... params) {
+            warnings.add(String.format(format, params));
+        }
+
+        @Override
+        public void error(String format, Object... params) { }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+    }
+}
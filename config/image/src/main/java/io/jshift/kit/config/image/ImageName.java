@@ -1,7 +1,10 @@
 package io.jshift.kit.config.image;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -64,6 +67,32 @@ public class ImageName {
             throw new NullPointerException("Image name must not be null");
         }
 
+        // Fast path: take over the components of an already parsed and validated name
+        ImageName parsed = lookup(fullName);
+        if (parsed != null && (givenTag == null || TAG_REGEXP.matcher(givenTag).matches())) {
+            registry = parsed.registry;
+            user = parsed.user;
+            repository = parsed.repository;
+            digest = parsed.digest;
+            tag = givenTag != null ? givenTag : parsed.tag;
+            return;
+        }
+
+        // Full parsing, which also reports all validation errors
+        parse(fullName, givenTag);
+        doValidate();
+    }
+
+    // Constructor used for entries of the parse cache
+    private ImageName(String registry, String user, String repository, String tag, String digest) {
+        this.registry = registry;
+        this.user = user;
+        this.repository = repository;
+        this.tag = tag;
+        this.digest = digest;
+    }
+
+    private void parse(String fullName, String givenTag) {
         // set digest to null as default
         digest = null;
         // check if digest is part of fullName, if so -> extract it
@@ -74,8 +103,7 @@ public class ImageName {
         }
 
         // check for tag
-        Pattern tagPattern = Pattern.compile("^(.+?)(?::([^:/]+))?$");
-        Matcher matcher = tagPattern.matcher(fullName);
+        Matcher matcher = TAG_SPLIT_REGEXP.matcher(fullName);
         if (!matcher.matches()) {
             throw new IllegalArgumentException(fullName + " is not a proper image name ([registry/][repo][:port]");
         }
@@ -94,8 +122,6 @@ public class ImageName {
         if (tag == null && digest == null) {
             tag = "latest";
         }
-
-        doValidate();
     }
 
     public String getRepository() {
@@ -225,38 +251,45 @@ public class ImageName {
 
     // Validate parts and throw an IllegalArgumentException if a part is not valid
     private void doValidate() {
+        List<String> errors = getValidationErrors();
+        if (errors.size() > 0) {
+            StringBuilder buf = new StringBuilder();
+            buf.append(String.format("Given Docker name '%s' is invalid:\n", getFullName()));
+            for (String error : errors) {
+                buf.append(String.format("   * %s\n",error));
+            }
+            buf.append("See http://bit.ly/docker_image_fmt for more details");
+            throw new IllegalArgumentException(buf.toString());
+        }
+    }
+
+    private List<String> getValidationErrors() {
         List<String> errors = new ArrayList<>();
         // Strip off user from repository name
         String image = user != null ? repository.substring(user.length() + 1) : repository;
+        // Name parts are matched with an equivalent pattern which avoids backtracking, but the
+        // docker pattern is reported
         Object[] checks = new Object[] {
-                "registry", DOMAIN_REGEXP, registry,
-                "image", IMAGE_NAME_REGEXP, image,
-                "user", NAME_COMP_REGEXP, user,
-                "tag", TAG_REGEXP, tag,
-                "digest", DIGEST_REGEXP, digest
+                "registry", DOMAIN_REGEXP, DOMAIN_REGEXP, registry,
+                "image", IMAGE_NAME_REGEXP, IMAGE_NAME_MATCH_REGEXP, image,
+                "user", NAME_COMP_REGEXP, NAME_COMP_MATCH_REGEXP, user,
+                "tag", TAG_REGEXP, TAG_REGEXP, tag,
+                "digest", DIGEST_REGEXP, DIGEST_REGEXP, digest
         };
-        for (int i = 0; i < checks.length; i +=3) {
-            String value = (String) checks[i + 2];
-            Pattern checkPattern = (Pattern) checks[i + 1];
+        for (int i = 0; i < checks.length; i +=4) {
+            String value = (String) checks[i + 3];
+            Pattern checkPattern = (Pattern) checks[i + 2];
             if (value != null &&
                     !checkPattern.matcher(value).matches()) {
                 errors.add(String.format("%s part '%s' doesn't match allowed pattern '%s'",
-                        checks[i], value, checkPattern.pattern()));
-            }
-        }
-        if (errors.size() > 0) {
-            StringBuilder buf = new StringBuilder();
-            buf.append(String.format("Given Docker name '%s' is invalid:\n", getFullName()));
-            for (String error : errors) {
-                buf.append(String.format("   * %s\n",error));
+                        checks[i], value, ((Pattern) checks[i + 1]).pattern()));
             }
-            buf.append("See http://bit.ly/docker_image_fmt for more details");
-            throw new IllegalArgumentException(buf.toString());
         }
+        return errors;
     }
 
     private void parseComponentsBeforeTag(String rest) {
-        String[] parts = rest.split("\\s*/\\s*");
+        String[] parts = SLASH_SPLIT_REGEXP.split(rest);
         if (parts.length == 1) {
             registry = null;
             user = null;
@@ -279,6 +312,96 @@ public class ImageName {
         }
     }
 
+    // ================================================================================================
+    // Parse cache and tokenizer for the common case
+
+    // Get a parsed and validated name from the cache or parse it with the tokenizer.
+    // Return null if the name is not in the common format or invalid
+    private static ImageName lookup(String fullName) {
+        ImageName ret = PARSE_CACHE.get(fullName);
+        if (ret == null) {
+            ret = tokenize(fullName);
+            if (ret == null || !ret.getValidationErrors().isEmpty()) {
+                return null;
+            }
+            PARSE_CACHE.put(fullName, ret);
+        }
+        return ret;
+    }
+
+    // Single pass over the name, which handles only names without whitespace, control characters
+    // and empty path segments. Everything else is left to the regular expression based parsing
+    private static ImageName tokenize(String fullName) {
+        int len = fullName.length();
+        int at = -1;
+        int lastColon = -1;
+        int firstSlash = -1;
+        int secondSlash = -1;
+        int lastSlash = -1;
+        for (int i = 0; i < len; i++) {
+            char c = fullName.charAt(i);
+            if (c <= ' ' || c >= 0x7f) {
+                return null;
+            }
+            if (c == '@') {
+                if (at >= 0) {
+                    return null;
+                }
+                at = i;
+            } else if (at < 0) {
+                if (c == ':') {
+                    lastColon = i;
+                } else if (c == '/') {
+                    if (i == 0 || i == lastSlash + 1) {
+                        // leading slash or empty segment
+                        return null;
+                    }
+                    if (firstSlash < 0) {
+                        firstSlash = i;
+                    } else if (secondSlash < 0) {
+                        secondSlash = i;
+                    }
+                    lastSlash = i;
+                }
+            }
+        }
+
+        String digest = null;
+        int end = len;
+        if (at >= 0) {
+            if (at == 0 || !fullName.startsWith("sha256", at + 1)) {
+                return null;
+            }
+            digest = fullName.substring(at + 1);
+            end = at;
+        }
+
+        // A tag follows the last colon if it's not part of the registry's port
+        String tag = null;
+        if (lastColon > 0 && lastColon < end - 1 && lastColon > lastSlash) {
+            tag = fullName.substring(lastColon + 1, end);
+            end = lastColon;
+        }
+        if (lastSlash == end - 1) {
+            // trailing slash
+            return null;
+        }
+        if (tag == null && digest == null) {
+            tag = "latest";
+        }
+
+        String rest = fullName.substring(0, end);
+        if (firstSlash < 0) {
+            return new ImageName(null, null, rest, tag, digest);
+        }
+        String first = rest.substring(0, firstSlash);
+        if (first.indexOf('.') >= 0 || first.indexOf(':') >= 0) {
+            String user = secondSlash >= 0 ? rest.substring(firstSlash + 1, secondSlash) : null;
+            return new ImageName(first, user, rest.substring(firstSlash + 1), tag, digest);
+        }
+        return new ImageName(null, first, rest, tag, digest);
+    }
+
     // ================================================================================================
 
     // Validations patterns, taken directly from the docker source -->
@@ -287,24 +410,52 @@ public class ImageName {
 
     // ---------------------------------------------------------------------
     // https://github.com/docker/docker/blob/04da4041757370fb6f85510c8977c5a18ddae380/vendor/github.com/docker/distribution/reference/regexp.go#L18
-    private final String nameComponentRegexp = "[a-z0-9]+(?:(?:(?:[._]|__|[-]*)[a-z0-9]+)+)?";
+    private static final String NAME_COMPONENT_REGEXP = "[a-z0-9]+(?:(?:(?:[._]|__|[-]*)[a-z0-9]+)+)?";
 
     // https://github.com/docker/docker/blob/04da4041757370fb6f85510c8977c5a18ddae380/vendor/github.com/docker/distribution/reference/regexp.go#L25
-    private final String domainComponentRegexp = "(?:[a-zA-Z0-9]|[a-zA-Z0-9][a-zA-Z0-9-]*[a-zA-Z0-9])";
+    private static final String DOMAIN_COMPONENT_REGEXP = "(?:[a-zA-Z0-9]|[a-zA-Z0-9][a-zA-Z0-9-]*[a-zA-Z0-9])";
 
     // ==========================================================
 
     // https://github.com/docker/docker/blob/04da4041757370fb6f85510c8977c5a18ddae380/vendor/github.com/docker/distribution/reference/regexp.go#L18
-    private final Pattern NAME_COMP_REGEXP = Pattern.compile(nameComponentRegexp);
+    private static final Pattern NAME_COMP_REGEXP = Pattern.compile(NAME_COMPONENT_REGEXP);
 
     // https://github.com/docker/docker/blob/04da4041757370fb6f85510c8977c5a18ddae380/vendor/github.com/docker/distribution/reference/regexp.go#L53
-    private final Pattern IMAGE_NAME_REGEXP = Pattern.compile(nameComponentRegexp + "(?:(?:/" + nameComponentRegexp + ")+)?");
+    private static final Pattern IMAGE_NAME_REGEXP = Pattern.compile(NAME_COMPONENT_REGEXP + "(?:(?:/" + NAME_COMPONENT_REGEXP + ")+)?");
 
     // https://github.com/docker/docker/blob/04da4041757370fb6f85510c8977c5a18ddae380/vendor/github.com/docker/distribution/reference/regexp.go#L31
-    private final Pattern DOMAIN_REGEXP = Pattern.compile("^" + domainComponentRegexp + "(?:\\." + domainComponentRegexp + ")*(?::[0-9]+)?$");
+    private static final Pattern DOMAIN_REGEXP = Pattern.compile("^" + DOMAIN_COMPONENT_REGEXP + "(?:\\." + DOMAIN_COMPONENT_REGEXP + ")*(?::[0-9]+)?$");
 
     // https://github.com/docker/docker/blob/04da4041757370fb6f85510c8977c5a18ddae380/vendor/github.com/docker/distribution/reference/regexp.go#L37
-    private final Pattern TAG_REGEXP = Pattern.compile("^[\\w][\\w.-]{0,127}$");
+    private static final Pattern TAG_REGEXP = Pattern.compile("^[\\w][\\w.-]{0,127}$");
+
+    private static final Pattern DIGEST_REGEXP = Pattern.compile("^sha256:[a-z0-9]{32,}$");
+
+    // ==========================================================
 
-    private final Pattern DIGEST_REGEXP = Pattern.compile("^sha256:[a-z0-9]{32,}$");
+    // Same language as the name component above, but separators must not be empty. Otherwise a long run of
+    // alphanumeric characters can be split up in exponentially many ways when a name doesn't match
+    private static final String NAME_COMPONENT_MATCH_REGEXP = "[a-z0-9]+(?:(?:[._]|__|-+)[a-z0-9]+)*";
+
+    private static final Pattern NAME_COMP_MATCH_REGEXP = Pattern.compile(NAME_COMPONENT_MATCH_REGEXP);
+
+    private static final Pattern IMAGE_NAME_MATCH_REGEXP =
+            Pattern.compile(NAME_COMPONENT_MATCH_REGEXP + "(?:/" + NAME_COMPONENT_MATCH_REGEXP + ")*");
+
+    // Splits off a tag, which must not contain a colon or a slash
+    private static final Pattern TAG_SPLIT_REGEXP = Pattern.compile("^(.+?)(?::([^:/]+))?$");
+
+    private static final Pattern SLASH_SPLIT_REGEXP = Pattern.compile("\\s*/\\s*");
+
+    // Maximum number of parsed names kept in the cache
+    private static final int PARSE_CACHE_SIZE = 1024;
+
+    // LRU of parsed and validated names, keyed by the raw name. The cached instances are never handed out
+    private static final Map<String, ImageName> PARSE_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, ImageName>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ImageName> eldest) {
+                    return size() > PARSE_CACHE_SIZE;
+                }
+            });
 }
@@ -16,6 +16,7 @@ package io.jshift.kit.config.image.build;
  * limitations under the License.
  */
 
+import io.jshift.kit.common.util.ParallelGzipOutputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.codehaus.plexus.archiver.tar.TarArchiver;
 
@@ -38,6 +39,11 @@ public enum ArchiveCompression {
         public OutputStream wrapOutputStream(OutputStream out) throws IOException {
             return new ArchiveCompression.GZIPOutputStream(out);
         }
+
+        @Override
+        public OutputStream wrapOutputStream(OutputStream out, int threads) throws IOException {
+            return threads > 1 ? new ParallelGzipOutputStream(out, threads) : wrapOutputStream(out);
+        }
     },
 
     bzip2(TarArchiver.TarCompressionMethod.bzip2,"tar.bz") {
@@ -69,6 +75,19 @@ public enum ArchiveCompression {
         return outputStream;
     }
 
+    /**
+     * Wrap a stream for compression which may use the given number of threads. Only gzip
+     * compresses in parallel, all other modes fall back to {@link #wrapOutputStream(OutputStream)}.
+     *
+     * @param outputStream stream to wrap
+     * @param threads number of threads to use for compression
+     * @return stream which compresses to the given stream
+     * @throws IOException if the compression stream cannot be created
+     */
+    public OutputStream wrapOutputStream(OutputStream outputStream, int threads) throws IOException {
+        return wrapOutputStream(outputStream);
+    }
+
     public static ArchiveCompression fromFileName(String filename) {
         if (filename.endsWith(".tar.gz") || filename.endsWith(".tgz")) {
             return ArchiveCompression.gzip;
@@ -49,6 +49,12 @@ public class AssemblyConfiguration implements Serializable {
 
     private String tarLongFileMode;
 
+    /**
+     * Whether the assembly should be split up into layers for dependencies, resources
+     * and application classes
+     */
+    private Boolean layered;
+
     public Boolean getExportTargetDir() {
         return exportTargetDir;
     }
@@ -95,6 +101,14 @@ public class AssemblyConfiguration implements Serializable {
         return tarLongFileMode;
     }
 
+    public boolean isLayered() {
+        return layered != null && layered;
+    }
+
+    public Boolean getLayered() {
+        return layered;
+    }
+
     public String getModeRaw() {
         return mode != null ? mode.name() : null;
     }
@@ -186,6 +200,11 @@ public class AssemblyConfiguration implements Serializable {
             return this;
         }
 
+        public Builder layered(Boolean layered) {
+            config.layered = set(layered);
+            return this;
+        }
+
         public Builder dockerFileDir(String dockerFileDir) {
             config.dockerFileDir = set(dockerFileDir);
             return this;
@@ -51,6 +51,9 @@ public class DockerFileBuilder {
     // User to run as
     private String user;
 
+    // Whether the copy entries are layers of the assembly, which must be added in separate image layers
+    private boolean layered = false;
+
     private HealthCheckConfiguration healthCheck;
 
     // List of files to add. Source and destination follow except that destination
@@ -189,11 +192,20 @@ public class DockerFileBuilder {
 
     private void addCopy(StringBuilder b) {
         if (assemblyUser != null) {
-            String tmpDir = createTempDir();
-            addCopyEntries(b, tmpDir);
-
             String[] userParts = StringUtils.split(assemblyUser, ":");
             String userArg = userParts.length > 1 ? userParts[0] + ":" + userParts[1] : userParts[0];
+            if (layered) {
+                // Copying via a tmp dir would put all layers into a single one, so let COPY set the owner
+                addCopyEntries(b, "", "--chown=" + userArg);
+                if (userParts.length > 2) {
+                    DockerFileKeyword.USER.addTo(b, userParts[2]);
+                }
+                return;
+            }
+
+            String tmpDir = createTempDir();
+            addCopyEntries(b, tmpDir, null);
+
             String chmod = "chown -R " + userArg + " " + tmpDir + " && cp -rp " + tmpDir + "/* / && rm -rf " + tmpDir;
             if (userParts.length > 2) {
                 DockerFileKeyword.USER.addTo(b, "root");
@@ -203,7 +215,7 @@ public class DockerFileBuilder {
                 DockerFileKeyword.RUN.addTo(b, chmod);
             }
         } else {
-            addCopyEntries(b, "");
+            addCopyEntries(b, "", null);
         }
     }
 
@@ -211,10 +223,14 @@ public class DockerFileBuilder {
          return "/tmp/" + UUID.randomUUID().toString();
     }
 
-    private void addCopyEntries(StringBuilder b, String topLevelDir) {
+    private void addCopyEntries(StringBuilder b, String topLevelDir, String chownOption) {
         for (CopyEntry entry : copyEntries) {
             String dest = topLevelDir + (basedir.equals("/") ? "" : basedir) + "/" + entry.destination;
-            DockerFileKeyword.COPY.addTo(b, entry.source, dest);
+            if (chownOption != null) {
+                DockerFileKeyword.COPY.addTo(b, chownOption, entry.source, dest);
+            } else {
+                DockerFileKeyword.COPY.addTo(b, entry.source, dest);
+            }
         }
     }
 
@@ -384,6 +400,11 @@ public class DockerFileBuilder {
         return this;
     }
 
+    public DockerFileBuilder layered(boolean layered) {
+        this.layered = layered;
+        return this;
+    }
+
     public DockerFileBuilder user(String user) {
         this.user = user;
         return this;
@@ -0,0 +1,201 @@
+package io.jshift.kit.config.image;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link ImageName} parses random names exactly like the
+ * original, purely regular expression based parser did.
+ */
+public class ImageNameFuzzTest {
+
+    private static final long SEED = 4711L;
+    private static final int ROUNDS = 20000;
+
+    // Building blocks for random names, including all characters with a special meaning
+    private static final String[] TOKENS = {
+        "a", "b", "z", "0", "9", "jolokia", "tomcat-8.0", "demo_app", "x__y", "A", "-", "_", ".", "..",
+        ":", "/", "//", "@", "@sha256", "@sha256:", "sha256:", "0123456789abcdef0123456789abcdef", "8000", "latest",
+        "docker.io", "localhost:5000", "registry.example.com", " ", " / ", "\t", "\n", "\u00e4", "#", "%"
+    };
+
+    private static final String[] TAGS = { null, null, null, "1.0", "latest", "bad tag", ":", "", "x/y", "_v1" };
+
+    @Test
+    public void sameResultAsOriginalParser() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < ROUNDS; i++) {
+            String name = randomName(random);
+            String tag = TAGS[random.nextInt(TAGS.length)];
+            check(name, tag);
+            // Second round is served from the cache
+            check(name, tag);
+        }
+    }
+
+    @Test
+    public void commonNames() {
+        for (String name : Arrays.asList(
+            "jolokia/jolokia_demo", "jolokia/jolokia_demo:0.9.6", "test.org:8000/jolokia/jolokia_demo:8.0",
+            "docker.io/library/alpine@sha256:0123456789abcdef0123456789abcdef", "alpine:3.9@sha256:0123456789abcdef0123456789abcdef",
+            "localhost/user/sub/image:1", "a/b/", "/a/b", "a//b", "a/:tag", ":tag", "a:", "host:5000/repo", " a / b ", "a@b@sha256:1",
+            "")) {
+            check(name, null);
+            check(name, "1.0");
+            check(name, "bad tag");
+        }
+    }
+
+    private void check(String name, String tag) {
+        String expected;
+        try {
+            expected = Arrays.toString(OriginalParser.parse(name, tag));
+        } catch (RuntimeException exp) {
+            expected = exp.getClass().getName() + ": " + exp.getMessage();
+        }
+        String actual;
+        try {
+            ImageName imageName = new ImageName(name, tag);
+            actual = Arrays.toString(new String[] {
+                imageName.getRegistry(), imageName.getUser(), imageName.getRepository(), imageName.getTag(), imageName.getDigest()
+            });
+        } catch (RuntimeException exp) {
+            actual = exp.getClass().getName() + ": " + exp.getMessage();
+        }
+        assertEquals("Name '" + name + "', tag '" + tag + "'", expected, actual);
+    }
+
+    private String randomName(Random random) {
+        StringBuilder ret = new StringBuilder();
+        int len = random.nextInt(8);
+        for (int i = 0; i < len; i++) {
+            ret.append(TOKENS[random.nextInt(TOKENS.length)]);
+        }
+        return ret.toString();
+    }
+
+    @Test
+    public void nameComponentPatternEquivalence() {
+        // All strings up to length 7 over an alphabet covering all character classes of the pattern
+        Pattern original = Pattern.compile(OriginalParser.NAME_COMP);
+        Pattern linear = Pattern.compile(LINEAR_NAME_COMP);
+        char[] alphabet = { 'a', '0', '.', '_', '-', 'A' };
+        List<String> current = Arrays.asList("");
+        for (int len = 1; len <= 7; len++) {
+            List<String> next = new ArrayList<>();
+            for (String prefix : current) {
+                for (char c : alphabet) {
+                    String value = prefix + c;
+                    assertEquals(value, original.matcher(value).matches(), linear.matcher(value).matches());
+                    next.add(value);
+                }
+            }
+            current = next;
+        }
+    }
+
+    // Name components of random names can be long, so that the original pattern would backtrack for ages
+    // on a mismatch. Its equivalence with this pattern is checked separately
+    private static final String LINEAR_NAME_COMP = "[a-z0-9]+(?:(?:[._]|__|-+)[a-z0-9]+)*";
+
+    private static boolean matches(Pattern pattern, String value) {
+        String regexp = pattern.pattern().replace(OriginalParser.NAME_COMP, LINEAR_NAME_COMP)
+                               .replace("(?:(?:/" + LINEAR_NAME_COMP + ")+)?", "(?:/" + LINEAR_NAME_COMP + ")*");
+        return Pattern.compile(regexp).matcher(value).matches();
+    }
+
+    // Copy of the original parser, returning registry, user, repository, tag and digest
+    private static class OriginalParser {
+
+        private static final String NAME_COMP = "[a-z0-9]+(?:(?:(?:[._]|__|[-]*)[a-z0-9]+)+)?";
+        private static final String DOMAIN_COMP = "(?:[a-zA-Z0-9]|[a-zA-Z0-9][a-zA-Z0-9-]*[a-zA-Z0-9])";
+
+        static String[] parse(String fullName, String givenTag) {
+            if (fullName == null) {
+                throw new NullPointerException("Image name must not be null");
+            }
+            String registry = null, user = null, repository = null, tag, digest = null;
+            if (fullName.contains("@sha256")) {
+                String[] digestParts = fullName.split("@");
+                digest = digestParts[1];
+                fullName = digestParts[0];
+            }
+            Matcher matcher = Pattern.compile("^(.+?)(?::([^:/]+))?$").matcher(fullName);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException(fullName + " is not a proper image name ([registry/][repo][:port]");
+            }
+            tag = givenTag != null ? givenTag : matcher.group(2);
+            String rest = matcher.group(1);
+            String[] parts = rest.split("\\s*/\\s*");
+            if (parts.length == 1) {
+                repository = parts[0];
+            } else if (parts.length >= 2) {
+                if (parts[0].contains(".") || parts[0].contains(":")) {
+                    registry = parts[0];
+                    if (parts.length > 2) {
+                        user = parts[1];
+                        repository = String.join("/", Arrays.copyOfRange(parts, 1, parts.length));
+                    } else {
+                        repository = parts[1];
+                    }
+                } else {
+                    user = parts[0];
+                    repository = rest;
+                }
+            }
+            if (tag == null && digest == null) {
+                tag = "latest";
+            }
+            validate(registry, user, repository, tag, digest);
+            return new String[] { registry, user, repository, tag, digest };
+        }
+
+        private static void validate(String registry, String user, String repository, String tag, String digest) {
+            List<String> errors = new ArrayList<>();
+            String image = user != null ? repository.substring(user.length() + 1) : repository;
+            Object[] checks = new Object[] {
+                "registry", Pattern.compile("^" + DOMAIN_COMP + "(?:\\." + DOMAIN_COMP + ")*(?::[0-9]+)?$"), registry,
+                "image", Pattern.compile(NAME_COMP + "(?:(?:/" + NAME_COMP + ")+)?"), image,
+                "user", Pattern.compile(NAME_COMP), user,
+                "tag", Pattern.compile("^[\\w][\\w.-]{0,127}$"), tag,
+                "digest", Pattern.compile("^sha256:[a-z0-9]{32,}$"), digest
+            };
+            for (int i = 0; i < checks.length; i += 3) {
+                String value = (String) checks[i + 2];
+                Pattern checkPattern = (Pattern) checks[i + 1];
+                if (value != null && !matches(checkPattern, value)) {
+                    errors.add(String.format("%s part '%s' doesn't match allowed pattern '%s'",
+                                             checks[i], value, checkPattern.pattern()));
+                }
+            }
+            if (errors.size() > 0) {
+                StringBuilder fullName = new StringBuilder();
+                if (registry != null) {
+                    fullName.append(registry).append("/");
+                }
+                fullName.append(repository);
+                if (tag != null) {
+                    fullName.append(":").append(tag);
+                }
+                if (digest != null) {
+                    fullName.append("@").append(digest);
+                }
+                StringBuilder buf = new StringBuilder();
+                buf.append(String.format("Given Docker name '%s' is invalid:\n", fullName));
+                for (String error : errors) {
+                    buf.append(String.format("   * %s\n", error));
+                }
+                buf.append("See http://bit.ly/docker_image_fmt for more details");
+                throw new IllegalArgumentException(buf.toString());
+            }
+        }
+    }
+}
@@ -220,6 +220,17 @@ public class DockerFileBuilderTest {
         assertTrue(pattern.matcher(dockerFile).find());
     }
 
+    @Test
+    public void testLayeredAssemblyUserWithChownPerLayer() {
+        String dockerFile = new DockerFileBuilder().assemblyUser("jboss:jboss:jboss").layered(true)
+                                                   .add("maven-layers/0-dependencies", "").add("maven-layers/3-application", "").content();
+        assertTrue(dockerFile.contains("COPY --chown=jboss:jboss maven-layers/0-dependencies /maven/\n" +
+                                       "COPY --chown=jboss:jboss maven-layers/3-application /maven/\n" +
+                                       "USER jboss\n"));
+        assertFalse(dockerFile.contains("/tmp/"));
+        assertFalse(dockerFile.contains("chown -R"));
+    }
+
     @Test
     public void testUser() {
         String dockerFile = new DockerFileBuilder().assemblyUser("jboss:jboss:jboss").user("bob")
@@ -55,6 +55,7 @@ import io.fabric8.openshift.api.model.TagReference;
 import io.fabric8.openshift.api.model.Template;
 import io.fabric8.openshift.client.OpenShiftClient;
 import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.common.KitMetrics;
 import io.jshift.kit.common.util.FileUtil;
 import io.jshift.kit.common.util.KubernetesHelper;
 import io.jshift.kit.common.util.OpenshiftHelper;
@@ -133,6 +134,13 @@ public class ApplyService {
      * Applies the given DTOs onto the Kubernetes master
      */
     private void applyEntity(Object dto, String sourceName) throws Exception {
+        try (KitMetrics.Span span = KitMetrics.span("apply", dto.getClass().getSimpleName(),
+                                                    dto instanceof HasMetadata ? getName((HasMetadata) dto) : null)) {
+            doApplyEntity(dto, sourceName);
+        }
+    }
+
+    private void doApplyEntity(Object dto, String sourceName) throws Exception {
         if (dto instanceof Pod) {
             applyPod((Pod) dto, sourceName);
         } else if (dto instanceof ReplicationController) {
@@ -224,7 +232,7 @@ public class ApplyService {
                             doCreateOAuthClient(entity, sourceName);
                         } else {
                             try {
-                                Object answer = openShiftClient.oAuthClients().withName(id).replace(entity);
+                                Object answer = patchService.patchEntity(openShiftClient.oAuthClients().withName(id), entity, old);
                                 log.info("Updated OAuthClient result: " + answer);
                             } catch (Exception e) {
                                 onApplyError("Failed to update OAuthClient from " + sourceName + ". " + e + ". " + entity, e);
@@ -345,7 +353,7 @@ public class ApplyService {
                 } else {
                     log.info("Updating a ServiceAccount from " + sourceName);
                     try {
-                        Object answer = kubernetesClient.serviceAccounts().inNamespace(namespace).withName(id).replace(serviceAccount);
+                        Object answer = patchService.patchEntity(kubernetesClient.serviceAccounts().inNamespace(namespace).withName(id), serviceAccount, old);
                         logGeneratedEntity("Updated ServiceAccount: ", namespace, serviceAccount, answer);
                     } catch (Exception e) {
                         onApplyError("Failed to update ServiceAccount from " + sourceName + ". " + e + ". " + serviceAccount, e);
@@ -746,7 +754,7 @@ public class ApplyService {
                             ObjectMeta metadata = getOrCreateMetadata(entity);
                             metadata.setNamespace(namespace);
                             metadata.setResourceVersion(resourceVersion);
-                            Object answer = openShiftClient.rbac().roleBindings().inNamespace(namespace).withName(id).replace(entity);
+                            Object answer = patchService.patchEntity(openShiftClient.rbac().roleBindings().inNamespace(namespace).withName(id), entity, old);
                             logGeneratedEntity("Updated RoleBinding: ", namespace, entity, answer);
                         } catch (Exception e) {
                             onApplyError("Failed to update RoleBinding from " + sourceName + ". " + e + ". " + entity, e);
@@ -909,7 +917,7 @@ public class ApplyService {
                 } else {
                     log.info("Updating " + kind + " from " + sourceName);
                     try {
-                        Object answer = resources.inNamespace(namespace).withName(id).replace(resource);
+                        Object answer = patchService.patchEntity(resources.inNamespace(namespace).withName(id), resource, old);
                         logGeneratedEntity("Updated " + kind + ": ", namespace, resource, answer);
                     } catch (Exception e) {
                         onApplyError("Failed to update " + kind + " from " + sourceName + ". " + e + ". " + resource, e);
@@ -15,33 +15,55 @@
  */
 package io.jshift.kit.config.service;
 
-import io.fabric8.kubernetes.api.model.DoneablePersistentVolumeClaim;
-import io.fabric8.kubernetes.api.model.DoneablePod;
-import io.fabric8.kubernetes.api.model.DoneableReplicationController;
-import io.fabric8.kubernetes.api.model.DoneableSecret;
-import io.fabric8.kubernetes.api.model.DoneableService;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.ReplicationController;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.Service;
-import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
-import io.fabric8.kubernetes.api.model.apiextensions.DoneableCustomResourceDefinition;
+import io.fabric8.kubernetes.client.HttpClientAware;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.base.OperationSupport;
+import io.fabric8.kubernetes.client.utils.Serialization;
 import io.fabric8.openshift.api.model.BuildConfig;
-import io.fabric8.openshift.api.model.DoneableBuildConfig;
-import io.fabric8.openshift.api.model.DoneableImageStream;
 import io.fabric8.openshift.api.model.ImageStream;
 import io.fabric8.openshift.client.OpenShiftClient;
 import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.common.util.JsonMergePatch;
 import io.jshift.kit.common.util.OpenshiftHelper;
 import io.jshift.kit.common.util.UserConfigurationCompare;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 
-import java.util.HashMap;
-import java.util.Map;
-
+/**
+ * Patches entities with a JSON merge patch (RFC 7386) which contains only the fields changed
+ * between the live and the desired entity (see {@link JsonMergePatch}). The patch carries the
+ * resource version of the live entity, so that it is rejected when the entity has been changed
+ * in between. In this case the patch is calculated again against the current entity.
+ */
 public class PatchService {
+
+    private static final MediaType MERGE_PATCH = MediaType.parse("application/merge-patch+json");
+
+    // How often a patch is calculated again when the entity has been modified concurrently
+    private static final int MAX_CONFLICT_RETRIES = 3;
+
     private final KubernetesClient kubernetesClient;
     private final KitLogger log;
 
@@ -91,142 +113,46 @@ public class PatchService {
         return dispatcher.patch(kubernetesClient, namespace, newDto, oldDto);
     }
 
-    private static EntityPatcher<Pod> podPatcher() {
-        return (KubernetesClient client, String namespace, Pod newObj, Pod oldObj) -> {
-            if (UserConfigurationCompare.configEqual(newObj, oldObj)) {
-                return oldObj;
-            }
-
-            DoneablePod entity =
-                client.pods()
-                      .inNamespace(namespace)
-                      .withName(oldObj.getMetadata().getName())
-                      .edit();
-
-            if (!UserConfigurationCompare.configEqual(newObj.getMetadata(), oldObj.getMetadata())) {
-                entity.withMetadata(newObj.getMetadata());
-            }
+    /**
+     * Patch an entity of any kind
+     *
+     * @param resource the resource operation for the entity, as obtained with <code>withName()</code>
+     * @param newDto the new, possibly changed entity
+     * @param oldDto the original entity
+     * @return the patched entity, or the old entity if nothing has changed.
+     */
+    public <T extends HasMetadata> T patchEntity(Resource<T, ?> resource, T newDto, T oldDto) {
+        return mergePatch(kubernetesClient, resource, newDto, oldDto);
+    }
 
-            if(!UserConfigurationCompare.configEqual(newObj.getSpec(), oldObj.getSpec())) {
-                    entity.withSpec(newObj.getSpec());
-            }
-            return entity.done();
-        };
+    private static EntityPatcher<Pod> podPatcher() {
+        return (KubernetesClient client, String namespace, Pod newObj, Pod oldObj) ->
+            mergePatch(client, client.pods().inNamespace(namespace).withName(oldObj.getMetadata().getName()), newObj, oldObj);
     }
 
     private static EntityPatcher<ReplicationController> rcPatcher() {
-        return (KubernetesClient client, String namespace, ReplicationController newObj, ReplicationController oldObj) -> {
-            if (UserConfigurationCompare.configEqual(newObj, oldObj)) {
-                return oldObj;
-            }
-
-            DoneableReplicationController entity =
-                client.replicationControllers()
-                      .inNamespace(namespace)
-                      .withName(oldObj.getMetadata().getName())
-                      .edit();
-
-            if (!UserConfigurationCompare.configEqual(newObj.getMetadata(), oldObj.getMetadata())) {
-                entity.withMetadata(newObj.getMetadata());
-            }
-
-            if(!UserConfigurationCompare.configEqual(newObj.getSpec(), oldObj.getSpec())) {
-                    entity.withSpec(newObj.getSpec());
-            }
-            return entity.done();
-        };
+        return (KubernetesClient client, String namespace, ReplicationController newObj, ReplicationController oldObj) ->
+            mergePatch(client, client.replicationControllers().inNamespace(namespace).withName(oldObj.getMetadata().getName()), newObj, oldObj);
     }
 
     private static EntityPatcher<Service> servicePatcher() {
-        return (KubernetesClient client, String namespace, Service newObj, Service oldObj) -> {
-            if (UserConfigurationCompare.configEqual(newObj, oldObj)) {
-                return oldObj;
-            }
-
-            DoneableService entity =
-                client.services()
-                      .inNamespace(namespace)
-                      .withName(newObj.getMetadata().getName())
-                      .edit();
-
-            if (!UserConfigurationCompare.configEqual(newObj.getMetadata(), oldObj.getMetadata())) {
-                entity.withMetadata(newObj.getMetadata());
-            }
-
-            if(!UserConfigurationCompare.configEqual(newObj.getSpec(), oldObj.getSpec())) {
-                entity.withSpec(newObj.getSpec());
-            }
-            return entity.done();
-        };
+        return (KubernetesClient client, String namespace, Service newObj, Service oldObj) ->
+            mergePatch(client, client.services().inNamespace(namespace).withName(newObj.getMetadata().getName()), newObj, oldObj);
     }
 
     private static EntityPatcher<Secret> secretPatcher() {
-        return (KubernetesClient client, String namespace, Secret newObj, Secret oldObj) -> {
-            if (UserConfigurationCompare.configEqual(newObj, oldObj)) {
-                return oldObj;
-            }
-            DoneableSecret entity =
-                client.secrets()
-                      .inNamespace(namespace)
-                      .withName(oldObj.getMetadata().getName())
-                      .edit();
-
-            if (!UserConfigurationCompare.configEqual(newObj.getMetadata(), oldObj.getMetadata())) {
-                entity.withMetadata(newObj.getMetadata());
-            }
-
-            if(!UserConfigurationCompare.configEqual(newObj.getData(), oldObj.getData())) {
-                    entity.withData(newObj.getData());
-            }
-            if(!UserConfigurationCompare.configEqual(newObj.getStringData(), oldObj.getStringData())) {
-                entity.withStringData(newObj.getStringData());
-            }
-            return entity.done();
-        };
+        return (KubernetesClient client, String namespace, Secret newObj, Secret oldObj) ->
+            mergePatch(client, client.secrets().inNamespace(namespace).withName(oldObj.getMetadata().getName()), newObj, oldObj);
     }
 
     private static EntityPatcher<PersistentVolumeClaim> pvcPatcher() {
-        return (KubernetesClient client, String namespace, PersistentVolumeClaim newObj, PersistentVolumeClaim oldObj) -> {
-            if (UserConfigurationCompare.configEqual(newObj, oldObj)) {
-                return oldObj;
-            }
-            DoneablePersistentVolumeClaim entity =
-                client.persistentVolumeClaims()
-                      .inNamespace(namespace)
-                      .withName(oldObj.getMetadata().getName())
-                      .edit();
-
-            if (!UserConfigurationCompare.configEqual(newObj.getMetadata(), oldObj.getMetadata())) {
-                entity.withMetadata(newObj.getMetadata());
-            }
-
-            if(!UserConfigurationCompare.configEqual(newObj.getSpec(), oldObj.getSpec())) {
-                    entity.withSpec(newObj.getSpec());
-            }
-            return entity.done();
-        };
+        return (KubernetesClient client, String namespace, PersistentVolumeClaim newObj, PersistentVolumeClaim oldObj) ->
+            mergePatch(client, client.persistentVolumeClaims().inNamespace(namespace).withName(oldObj.getMetadata().getName()), newObj, oldObj);
     }
 
     private static EntityPatcher<CustomResourceDefinition> crdPatcher() {
-        return (KubernetesClient client, String namespace, CustomResourceDefinition newObj, CustomResourceDefinition oldObj) -> {
-            if (UserConfigurationCompare.configEqual(newObj, oldObj)) {
-                return oldObj;
-            }
-
-            DoneableCustomResourceDefinition entity =
-                    client.customResourceDefinitions()
-                            .withName(oldObj.getMetadata().getName())
-                            .edit();
-
-            if (!UserConfigurationCompare.configEqual(newObj.getMetadata(), oldObj.getMetadata())) {
-                entity.withMetadata(newObj.getMetadata());
-            }
-
-            if (!UserConfigurationCompare.configEqual(newObj.getSpec(), oldObj.getSpec())) {
-                entity.withSpec(newObj.getSpec());
-            }
-            return entity.done();
-        };
+        return (KubernetesClient client, String namespace, CustomResourceDefinition newObj, CustomResourceDefinition oldObj) ->
+            mergePatch(client, client.customResourceDefinitions().withName(oldObj.getMetadata().getName()), newObj, oldObj);
     }
 
     // ================================================================================
@@ -235,54 +161,81 @@ public class PatchService {
 
     private static EntityPatcher<BuildConfig> bcPatcher() {
         return (KubernetesClient client, String namespace, BuildConfig newObj, BuildConfig oldObj) -> {
-            if (UserConfigurationCompare.configEqual(newObj, oldObj)) {
-                return oldObj;
-            }
             OpenShiftClient openShiftClient = OpenshiftHelper.asOpenShiftClient(client);
             if (openShiftClient == null) {
                 throw new IllegalArgumentException("BuildConfig can only be patched when connected to an OpenShift cluster");
             }
-            DoneableBuildConfig entity =
-                openShiftClient.buildConfigs()
-                      .inNamespace(namespace)
-                      .withName(oldObj.getMetadata().getName())
-                      .edit();
-
-            if (!UserConfigurationCompare.configEqual(newObj.getMetadata(), oldObj.getMetadata())) {
-                entity.withMetadata(newObj.getMetadata());
-            }
-
-            if(!UserConfigurationCompare.configEqual(newObj.getSpec(), oldObj.getSpec())) {
-                    entity.withSpec(newObj.getSpec());
-            }
-            return entity.done();
+            return mergePatch(client, openShiftClient.buildConfigs().inNamespace(namespace).withName(oldObj.getMetadata().getName()), newObj, oldObj);
         };
     }
 
     private static EntityPatcher<ImageStream> isPatcher() {
         return (KubernetesClient client, String namespace, ImageStream newObj, ImageStream oldObj) -> {
-            if (UserConfigurationCompare.configEqual(newObj, oldObj)) {
-                return oldObj;
-            }
             OpenShiftClient openShiftClient = OpenshiftHelper.asOpenShiftClient(client);
             if (openShiftClient == null) {
                 throw new IllegalArgumentException("ImageStream can only be patched when connected to an OpenShift cluster");
             }
-            DoneableImageStream entity =
-                openShiftClient.imageStreams()
-                      .inNamespace(namespace)
-                      .withName(oldObj.getMetadata().getName())
-                      .edit();
+            return mergePatch(client, openShiftClient.imageStreams().inNamespace(namespace).withName(oldObj.getMetadata().getName()), newObj, oldObj);
+        };
+    }
 
-            if (!UserConfigurationCompare.configEqual(newObj.getMetadata(), oldObj.getMetadata())) {
-                entity.withMetadata(newObj.getMetadata());
-            }
+    // ================================================================================
 
-            if(!UserConfigurationCompare.configEqual(newObj.getSpec(), oldObj.getSpec())) {
-                    entity.withSpec(newObj.getSpec());
+    private static <T extends HasMetadata> T mergePatch(KubernetesClient client, Resource<T, ?> resource, T newObj, T oldObj) {
+        if (UserConfigurationCompare.configEqual(newObj, oldObj)) {
+            return oldObj;
+        }
+        ObjectMapper mapper = Serialization.jsonMapper();
+        JsonNode desired = mapper.valueToTree(newObj);
+        @SuppressWarnings("unchecked")
+        Class<T> type = (Class<T>) newObj.getClass();
+        T live = oldObj;
+        for (int attempt = 0; ; attempt++) {
+            ObjectNode patch = JsonMergePatch.diff(mapper.valueToTree(live), desired);
+            if (patch == null) {
+                return live;
+            }
+            // Precondition: Only apply the patch to the version it has been calculated for
+            String resourceVersion = live.getMetadata() != null ? live.getMetadata().getResourceVersion() : null;
+            if (resourceVersion != null) {
+                patch.with("metadata").put("resourceVersion", resourceVersion);
+            }
+            try {
+                return sendPatch(client, resource, patch, type);
+            } catch (KubernetesClientException e) {
+                if (e.getCode() != HttpURLConnection.HTTP_CONFLICT || attempt >= MAX_CONFLICT_RETRIES) {
+                    throw e;
+                }
+                live = resource.get();
+                if (live == null) {
+                    throw e;
+                }
             }
-            return entity.done();
-        };
+        }
+    }
+
+    private static <T> T sendPatch(KubernetesClient client, Resource<T, ?> resource, ObjectNode patch, Class<T> type) {
+        if (!(resource instanceof OperationSupport) || !(client instanceof HttpClientAware)) {
+            throw new IllegalArgumentException("Internal: Cannot send a merge patch for " + type.getSimpleName() + " with " + client.getClass());
+        }
+        OkHttpClient httpClient = ((HttpClientAware) client).getHttpClient();
+        try {
+            Request request = new Request.Builder()
+                .url(((OperationSupport) resource).getResourceUrl())
+                .patch(RequestBody.create(MERGE_PATCH, patch.toString().getBytes(StandardCharsets.UTF_8)))
+                .build();
+            try (Response response = httpClient.newCall(request).execute()) {
+                ResponseBody body = response.body();
+                String content = body != null ? body.string() : "";
+                if (!response.isSuccessful()) {
+                    throw new KubernetesClientException("Failure executing: PATCH at: " + request.url() + ". Received status: " +
+                                                        response.code() + ", " + content, response.code(), null);
+                }
+                return Serialization.jsonMapper().readValue(content, type);
+            }
+        } catch (IOException e) {
+            throw KubernetesClientException.launderThrowable(e);
+        }
     }
 
 }
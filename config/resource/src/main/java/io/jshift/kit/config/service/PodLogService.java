@@ -20,19 +20,19 @@ import io.fabric8.kubernetes.api.model.DoneablePod;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.LabelSelector;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
-import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
-import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.LogWatch;
 import io.fabric8.kubernetes.client.dsl.PodResource;
 import io.fabric8.kubernetes.client.utils.KubernetesResourceUtil;
 import io.jshift.kit.common.KitLogger;
 import io.jshift.kit.common.util.KubernetesHelper;
+import io.jshift.kit.config.service.kubernetes.PodCache;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -41,7 +41,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 
-import static io.jshift.kit.common.util.KubernetesHelper.withSelector;
 import static io.jshift.kit.config.service.kubernetes.KubernetesClientUtil.deleteEntities;
 import static io.jshift.kit.config.service.kubernetes.KubernetesClientUtil.getPodStatusDescription;
 import static io.jshift.kit.config.service.kubernetes.KubernetesClientUtil.getPodStatusMessagePostfix;
@@ -59,7 +58,8 @@ public class PodLogService {
     private PodLogServiceContext context;
     private KitLogger log;
 
-    private Watch podWatcher;
+    private PodCache podCache;
+    private Closeable podWatcher;
     private LogWatch logWatcher;
     private Map<String, Pod> addedPods = new ConcurrentHashMap<>();
     private CountDownLatch terminateLatch = new CountDownLatch(1);
@@ -100,9 +100,7 @@ public class PodLogService {
                             log.info("Stopping the app:");
                             resizeApp(kubernetes, namespace, entities, 0, log);
                         }
-                        if (podWatcher != null) {
-                            podWatcher.close();
-                        }
+                        closePodWatcher();
                         closeLogWatcher();
                     }
                 });
@@ -115,34 +113,23 @@ public class PodLogService {
 
     private void waitAndLogPods(final KubernetesClient kubernetes, final String namespace, LabelSelector selector, final boolean watchAddedPodsOnly, final String ctrlCMessage, final boolean
             followLog, Date ignorePodsOlderThan, boolean waitInCurrentThread) {
-        FilterWatchListDeletable<Pod, PodList, Boolean, Watch, Watcher<Pod>> pods = withSelector(kubernetes.pods().inNamespace(namespace), selector, log);
-        if (context.getPodName() != null) {
-            log.info("Watching pod with selector %s, and name %s waiting for a running pod...", selector, context.getPodName());
-            pods = pods.withField("metadata.name", context.getPodName());
+        final String podName = context.getPodName();
+        if (podName != null) {
+            log.info("Watching pod with selector %s, and name %s waiting for a running pod...", selector, podName);
         } else {
             log.info("Watching pods with selector %s waiting for a running pod...", selector);
         }
-        Pod latestPod = null;
-        boolean runningPod = false;
-        PodList list = pods.list();
-        if (list != null) {
-            List<Pod> items = list.getItems();
-            if (items != null) {
-                for (Pod pod : items) {
-                    if (KubernetesHelper.isPodRunning(pod) || KubernetesHelper.isPodWaiting(pod)) {
-                        if (latestPod == null || KubernetesHelper.isNewerResource(pod, latestPod)) {
-                            if (ignorePodsOlderThan != null) {
-                                Date podCreateTime = KubernetesHelper.getCreationTimestamp(pod);
-                                if (podCreateTime != null && podCreateTime.compareTo(ignorePodsOlderThan) > 0) {
-                                    latestPod = pod;
-                                }
-                            } else {
-                                latestPod = pod;
-                            }
-                        }
-                        runningPod = true;
-                    }
-                }
+        // Shared with other services watching the same pods, e.g. for port-forwarding
+        podCache = PodCache.acquire(kubernetes, namespace, selector, log);
+        Pod latestPod = podCache.getNewestPod(selector, pod ->
+            (podName == null || podName.equals(KubernetesHelper.getName(pod))) &&
+            (KubernetesHelper.isPodRunning(pod) || KubernetesHelper.isPodWaiting(pod)));
+        boolean runningPod = latestPod != null;
+        if (latestPod != null && ignorePodsOlderThan != null) {
+            // All other pods are older than the newest one
+            Date podCreateTime = KubernetesHelper.getCreationTimestamp(latestPod);
+            if (podCreateTime == null || podCreateTime.compareTo(ignorePodsOlderThan) <= 0) {
+                latestPod = null;
             }
         }
         // we may have missed the ADDED event so lets simulate one
@@ -156,10 +143,12 @@ public class PodLogService {
                 log.warn("Or did you stop it via `jshift:stop`? If so try running the `jshift:start` goal");
             }
         }
-        podWatcher = pods.watch(new Watcher<Pod>() {
+        podWatcher = podCache.addListener(new Watcher<Pod>() {
             @Override
             public void eventReceived(Action action, Pod pod) {
-                onPod(action, pod, kubernetes, namespace, ctrlCMessage, followLog);
+                if (podName == null || podName.equals(KubernetesHelper.getName(pod))) {
+                    onPod(action, pod, kubernetes, namespace, ctrlCMessage, followLog);
+                }
             }
 
             @Override
@@ -259,6 +248,21 @@ public class PodLogService {
         return containers.get(0).getName();
     }
 
+    private void closePodWatcher() {
+        try {
+            if (podWatcher != null) {
+                podWatcher.close();
+                podWatcher = null;
+            }
+        } catch (IOException e) {
+            // ignore
+        }
+        if (podCache != null) {
+            podCache.close();
+            podCache = null;
+        }
+    }
+
     private void closeLogWatcher() {
         if (logWatcher != null) {
             logWatcher.close();
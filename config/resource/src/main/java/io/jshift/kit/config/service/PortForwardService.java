@@ -2,17 +2,15 @@ package io.jshift.kit.config.service;
 
 import io.fabric8.kubernetes.api.model.LabelSelector;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
-import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
-import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.utils.KubernetesResourceUtil;
 import io.jshift.kit.common.KitLogger;
 import io.jshift.kit.common.util.KubernetesHelper;
 import io.jshift.kit.common.util.OpenshiftHelper;
 import io.jshift.kit.common.util.ProcessUtil;
+import io.jshift.kit.config.service.kubernetes.PodCache;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.Closeable;
@@ -114,10 +112,11 @@ public class PortForwardService {
         };
 
         // Switching forward to the current pod if present
-        Pod newPod = getNewestPod(podSelector);
-        nextForwardedPod[0] = newPod;
+        final PodCache podCache = PodCache.acquire(kubernetes, null, podSelector, log);
+        Pod newPod = podCache.getNewestPod(podSelector, pod -> isCandidate(pod) && KubernetesHelper.isPodReady(pod));
+        nextForwardedPod[0] = newPod != null ? newPod : podCache.getNewestPod(podSelector, this::isCandidate);
 
-        final Watch watch = KubernetesHelper.withSelector(kubernetes.pods(), podSelector, log).watch(new Watcher<Pod>() {
+        final Closeable listener = podCache.addListener(new Watcher<Pod>() {
 
             @Override
             public void eventReceived(Action action, Pod pod) {
@@ -151,7 +150,8 @@ public class PortForwardService {
 
         final Closeable handle = () -> {
             try {
-                watch.close();
+                listener.close();
+                podCache.close();
             } catch (Exception e) {}
             try {
                 forwarderThread.interrupt();
@@ -182,23 +182,11 @@ public class PortForwardService {
         return KubernetesHelper.getName(pod1).equals(KubernetesHelper.getName(pod2));
     }
 
-    private Pod getNewestPod(LabelSelector selector) {
-        FilterWatchListDeletable<Pod, PodList, Boolean, Watch, Watcher<Pod>> pods =
-                KubernetesHelper.withSelector(kubernetes.pods(), selector, log);
-
-        PodList list = pods.list();
-        if (list != null) {
-            List<Pod> items = list.getItems();
-            return getNewestPod(items);
-        }
-        return null;
-    }
-
     private Pod getNewestPod(List<Pod> items) {
         Pod targetPod = null;
         if (items != null) {
             for (Pod pod : items) {
-                if (KubernetesHelper.isPodWaiting(pod) || KubernetesHelper.isPodRunning(pod)) {
+                if (isCandidate(pod)) {
                     if (targetPod == null || (KubernetesHelper.isPodReady(pod) && KubernetesHelper.isNewerResource(pod, targetPod))) {
                         targetPod = pod;
                     }
@@ -208,6 +196,10 @@ public class PortForwardService {
         return targetPod;
     }
 
+    private boolean isCandidate(Pod pod) {
+        return KubernetesHelper.isPodWaiting(pod) || KubernetesHelper.isPodRunning(pod);
+    }
+
     public void forwardPort(KitLogger externalProcessKitLogger, String pod, int remotePort, int localPort) throws JshiftServiceException {
         forwardPortAsync(externalProcessKitLogger, pod, remotePort, localPort).await();
     }
@@ -0,0 +1,401 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.config.service.kubernetes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ReplicationController;
+import io.fabric8.kubernetes.api.model.ReplicationControllerStatus;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatus;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSetStatus;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.Scaleable;
+import io.fabric8.openshift.api.model.DeploymentConfig;
+import io.fabric8.openshift.api.model.DeploymentConfigStatus;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.common.util.KubernetesHelper;
+import io.jshift.kit.common.util.OpenshiftHelper;
+
+/**
+ * Scales deployments, replica sets, replication controllers and deployment configs concurrently.
+ *
+ * All scale requests are sent up front without waiting for each controller. The controllers
+ * are then tracked with a single watch per kind until all of them report the requested number
+ * of ready replicas or a global timeout expires. Progress is shown as one line per controller
+ * and summarized in a table at the end.
+ */
+public class AppScaler {
+
+    // Default time to wait for all controllers, in milliseconds
+    public static final long DEFAULT_TIMEOUT = 10 * 60 * 1000L;
+
+    // Interval for checking the timeout and polling controllers whose watch has been closed
+    private static final long CHECK_INTERVAL = 1000L;
+
+    private final KubernetesClient kubernetes;
+    private final String namespace;
+    private final KitLogger log;
+    private final long timeout;
+    private final LongSupplier clock;
+
+    // Targets by kind and name
+    private final Map<String, ScaleStatus> targets = new LinkedHashMap<>();
+    private final Set<String> closedWatches = new HashSet<>();
+    private boolean showProgress;
+
+    public AppScaler(KubernetesClient kubernetes, String namespace, long timeout, KitLogger log) {
+        this(kubernetes, namespace, timeout, log, System::currentTimeMillis);
+    }
+
+    AppScaler(KubernetesClient kubernetes, String namespace, long timeout, KitLogger log, LongSupplier clock) {
+        this.kubernetes = kubernetes;
+        this.namespace = namespace;
+        this.timeout = timeout;
+        this.log = log;
+        this.clock = clock;
+    }
+
+    /**
+     * Scale all controllers among the given entities and wait until they are ready.
+     *
+     * @param entities entities, of which all but the supported controllers are ignored
+     * @param replicas number of replicas to scale to
+     * @return status of every controller scaled
+     */
+    public List<ScaleStatus> scale(Collection<HasMetadata> entities, int replicas) throws InterruptedException {
+        long start = clock.getAsLong();
+        synchronized (this) {
+            targets.clear();
+            closedWatches.clear();
+            for (HasMetadata entity : entities) {
+                String kind = KubernetesHelper.getKind(entity);
+                if (entity instanceof DeploymentConfig && OpenshiftHelper.asOpenShiftClient(kubernetes) == null) {
+                    log.warn("Ignoring DeploymentConfig %s as not connected to an OpenShift cluster", KubernetesHelper.getName(entity));
+                } else if (entity instanceof Deployment || entity instanceof ReplicaSet ||
+                           entity instanceof ReplicationController || entity instanceof DeploymentConfig) {
+                    targets.put(key(kind, KubernetesHelper.getName(entity)), new ScaleStatus(kind, KubernetesHelper.getName(entity), replicas, start));
+                }
+            }
+        }
+        if (targets.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Watch before scaling, so that no update is missed
+        List<Watch> watches = new ArrayList<>();
+        try {
+            for (String kind : getKinds()) {
+                try {
+                    watches.add(watch(kind));
+                } catch (KubernetesClientException e) {
+                    watchClosed(kind, e);
+                }
+            }
+            for (ScaleStatus target : new ArrayList<>(targets.values())) {
+                log.info("Scaling " + target.kind + " " + namespace + "/" + target.name + " to replicas: " + replicas);
+                update(target.kind, scalable(target.kind, target.name).scale(replicas));
+            }
+            log.progressStart();
+            try {
+                awaitReady(start + timeout);
+            } finally {
+                log.progressFinished();
+            }
+        } finally {
+            for (Watch watch : watches) {
+                watch.close();
+            }
+        }
+        return printSummary();
+    }
+
+    private synchronized void awaitReady(long deadline) throws InterruptedException {
+        showProgress = true;
+        try {
+            for (ScaleStatus target : targets.values()) {
+                render(target);
+            }
+            while (!isAllReady()) {
+                long remaining = deadline - clock.getAsLong();
+                if (remaining <= 0) {
+                    log.warn("Timeout after %d seconds while waiting for the application to be scaled", timeout / 1000);
+                    return;
+                }
+                wait(Math.min(remaining, CHECK_INTERVAL));
+                pollClosedWatches();
+            }
+        } finally {
+            showProgress = false;
+        }
+    }
+
+    private boolean isAllReady() {
+        for (ScaleStatus target : targets.values()) {
+            if (!target.isReady()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Update the state of a controller from the given object, if it is one of the targets
+    synchronized void update(String kind, HasMetadata controller) {
+        if (controller == null) {
+            return;
+        }
+        ScaleStatus target = targets.get(key(kind, KubernetesHelper.getName(controller)));
+        if (target == null) {
+            return;
+        }
+        boolean wasReady = target.isReady();
+        String before = target.getReplicasDescription();
+        target.read(controller);
+        if (target.isReady() && !wasReady) {
+            target.duration = clock.getAsLong() - target.start;
+        }
+        if (showProgress && (!before.equals(target.getReplicasDescription()) || target.isReady() != wasReady)) {
+            render(target);
+        }
+        notifyAll();
+    }
+
+    private void render(ScaleStatus target) {
+        log.progressUpdate(target.kind + " " + target.name, target.isReady() ? "Scaled" : "Scaling", target.getReplicasDescription());
+    }
+
+    private void pollClosedWatches() {
+        for (ScaleStatus target : targets.values()) {
+            if (!target.isReady() && closedWatches.contains(target.kind)) {
+                update(target.kind, getController(target.kind, target.name));
+            }
+        }
+    }
+
+    private synchronized void watchClosed(String kind, KubernetesClientException cause) {
+        if (cause != null) {
+            log.warn("Watching %s resources failed, polling them instead: %s", kind, cause);
+            closedWatches.add(kind);
+            notifyAll();
+        }
+    }
+
+    private List<ScaleStatus> printSummary() {
+        List<ScaleStatus> ret;
+        synchronized (this) {
+            ret = new ArrayList<>(targets.values());
+        }
+        int kindWidth = "KIND".length();
+        int nameWidth = "NAME".length();
+        for (ScaleStatus status : ret) {
+            kindWidth = Math.max(kindWidth, status.kind.length());
+            nameWidth = Math.max(nameWidth, status.name.length());
+        }
+        String format = "%-" + kindWidth + "s  %-" + nameWidth + "s  %-7s  %s";
+        log.info(format, "KIND", "NAME", "READY", "TIME");
+        for (ScaleStatus status : ret) {
+            log.info(format, status.kind, status.name, status.getReadyReplicas() + "/" + status.desired,
+                     status.isReady() ? String.format("%.1fs", status.duration / 1000.0) : "timeout");
+        }
+        return ret;
+    }
+
+    private Set<String> getKinds() {
+        Set<String> ret = new HashSet<>();
+        for (ScaleStatus target : targets.values()) {
+            ret.add(target.kind);
+        }
+        return ret;
+    }
+
+    private Watch watch(String kind) {
+        switch (kind) {
+            case "Deployment":
+                return kubernetes.extensions().deployments().inNamespace(namespace).watch(new ControllerWatcher<>(kind));
+            case "ReplicaSet":
+                return kubernetes.extensions().replicaSets().inNamespace(namespace).watch(new ControllerWatcher<>(kind));
+            case "ReplicationController":
+                return kubernetes.replicationControllers().inNamespace(namespace).watch(new ControllerWatcher<>(kind));
+            default:
+                return openShiftClient().deploymentConfigs().inNamespace(namespace).watch(new ControllerWatcher<>(kind));
+        }
+    }
+
+    private Scaleable<? extends HasMetadata> scalable(String kind, String name) {
+        switch (kind) {
+            case "Deployment":
+                return kubernetes.extensions().deployments().inNamespace(namespace).withName(name);
+            case "ReplicaSet":
+                return kubernetes.extensions().replicaSets().inNamespace(namespace).withName(name);
+            case "ReplicationController":
+                return kubernetes.replicationControllers().inNamespace(namespace).withName(name);
+            default:
+                return openShiftClient().deploymentConfigs().inNamespace(namespace).withName(name);
+        }
+    }
+
+    private HasMetadata getController(String kind, String name) {
+        switch (kind) {
+            case "Deployment":
+                return kubernetes.extensions().deployments().inNamespace(namespace).withName(name).get();
+            case "ReplicaSet":
+                return kubernetes.extensions().replicaSets().inNamespace(namespace).withName(name).get();
+            case "ReplicationController":
+                return kubernetes.replicationControllers().inNamespace(namespace).withName(name).get();
+            default:
+                return openShiftClient().deploymentConfigs().inNamespace(namespace).withName(name).get();
+        }
+    }
+
+    private OpenShiftClient openShiftClient() {
+        return OpenshiftHelper.asOpenShiftClient(kubernetes);
+    }
+
+    private static String key(String kind, String name) {
+        return kind + "/" + name;
+    }
+
+    // ===========================================================================================
+
+    private class ControllerWatcher<T extends HasMetadata> implements Watcher<T> {
+
+        private final String kind;
+
+        ControllerWatcher(String kind) {
+            this.kind = kind;
+        }
+
+        @Override
+        public void eventReceived(Action action, T resource) {
+            if (action == Action.ADDED || action == Action.MODIFIED) {
+                update(kind, resource);
+            }
+        }
+
+        @Override
+        public void onClose(KubernetesClientException cause) {
+            watchClosed(kind, cause);
+        }
+    }
+
+    /**
+     * Scaling state of a single controller
+     */
+    public static class ScaleStatus {
+        private final String kind;
+        private final String name;
+        private final int desired;
+        private final long start;
+
+        private int replicas = -1;
+        private int readyReplicas;
+        private boolean observed;
+        private long duration;
+
+        ScaleStatus(String kind, String name, int desired, long start) {
+            this.kind = kind;
+            this.name = name;
+            this.desired = desired;
+            this.start = start;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDesired() {
+            return desired;
+        }
+
+        public int getReadyReplicas() {
+            return readyReplicas;
+        }
+
+        /**
+         * @return whether the controller has seen the new replica count and all its replicas are ready
+         */
+        public boolean isReady() {
+            return observed && replicas == desired && readyReplicas == desired;
+        }
+
+        /**
+         * @return time in milliseconds until the controller was ready
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        String getReplicasDescription() {
+            return String.format("%d/%d ready", readyReplicas, desired);
+        }
+
+        void read(HasMetadata controller) {
+            Integer currentReplicas = null;
+            Integer ready = null;
+            Long observedGeneration = null;
+            if (controller instanceof Deployment) {
+                DeploymentStatus status = ((Deployment) controller).getStatus();
+                if (status != null) {
+                    currentReplicas = status.getReplicas();
+                    ready = status.getReadyReplicas();
+                    observedGeneration = status.getObservedGeneration();
+                }
+            } else if (controller instanceof ReplicaSet) {
+                ReplicaSetStatus status = ((ReplicaSet) controller).getStatus();
+                if (status != null) {
+                    currentReplicas = status.getReplicas();
+                    ready = status.getReadyReplicas();
+                    observedGeneration = status.getObservedGeneration();
+                }
+            } else if (controller instanceof ReplicationController) {
+                ReplicationControllerStatus status = ((ReplicationController) controller).getStatus();
+                if (status != null) {
+                    currentReplicas = status.getReplicas();
+                    ready = status.getReadyReplicas();
+                    observedGeneration = status.getObservedGeneration();
+                }
+            } else if (controller instanceof DeploymentConfig) {
+                DeploymentConfigStatus status = ((DeploymentConfig) controller).getStatus();
+                if (status != null) {
+                    currentReplicas = status.getReplicas();
+                    ready = status.getReadyReplicas();
+                    observedGeneration = status.getObservedGeneration();
+                }
+            }
+            Long generation = controller.getMetadata().getGeneration();
+            replicas = currentReplicas != null ? currentReplicas : 0;
+            readyReplicas = ready != null ? ready : 0;
+            observed = generation == null || (observedGeneration != null && observedGeneration >= generation);
+        }
+    }
+}
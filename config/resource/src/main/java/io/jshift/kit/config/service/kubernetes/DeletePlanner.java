@@ -0,0 +1,435 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.config.service.kubernetes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.HttpClientAware;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.VisitFromServerGetWatchDeleteRecreateWaitApplicable;
+import io.fabric8.kubernetes.client.dsl.base.OperationSupport;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.common.util.KubernetesHelper;
+import io.jshift.kit.common.util.OpenshiftHelper;
+import io.jshift.kit.common.util.ParallelUtil;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Deletes a set of resources in waves.
+ *
+ * Resources are grouped by kind so that resources referring to others are deleted first:
+ * custom resources and routes, then workloads, then the services, configuration and
+ * accounts used by the workloads, and finally cluster level resources. All resources of a
+ * wave are deleted concurrently, and the next wave starts when the previous one is done.
+ *
+ * Optionally resources of a kind which carry a given set of labels are deleted with a single
+ * collection delete, and the planner waits with a watch until the resources of a wave are
+ * actually gone (e.g. after their finalizers have run) before it continues with the next wave.
+ */
+public class DeletePlanner {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    // Kinds in the order they are deleted. Unknown kinds, usually custom resources which
+    // might be finalized by an operator deployed with them, go into the first wave.
+    private static final List<List<String>> WAVES = Arrays.asList(
+        Arrays.asList("Route", "Ingress", "HorizontalPodAutoscaler", "PodDisruptionBudget", "CronJob"),
+        Arrays.asList("Deployment", "DeploymentConfig", "StatefulSet", "DaemonSet", "ReplicaSet",
+                      "ReplicationController", "Job", "Pod", "BuildConfig", "Build"),
+        Arrays.asList("Service", "ImageStream", "ImageStreamTag", "ConfigMap", "Secret", "PersistentVolumeClaim",
+                      "ServiceAccount", "Role", "RoleBinding", "ClusterRole", "ClusterRoleBinding", "OAuthClient",
+                      "NetworkPolicy", "Template"),
+        Arrays.asList("PersistentVolume", "LimitRange", "ResourceQuota", "RoleBindingRestriction",
+                      "SecurityContextConstraints", "StorageClass", "CustomResourceDefinition",
+                      "Namespace", "ProjectRequest", "Project"));
+
+    private static final Map<String, Integer> WAVE_BY_KIND = new HashMap<>();
+
+    static {
+        for (int i = 0; i < WAVES.size(); i++) {
+            for (String kind : WAVES.get(i)) {
+                WAVE_BY_KIND.put(kind, i);
+            }
+        }
+    }
+
+    // Operations whose URL is used for collection deletes. Services are missing on purpose,
+    // since they support collection deletes only since Kubernetes 1.23.
+    private static final Map<String, BiFunction<KubernetesClient, String, Object>> COLLECTIONS = new HashMap<>();
+
+    static {
+        COLLECTIONS.put("ConfigMap", (client, ns) -> client.configMaps().inNamespace(ns));
+        COLLECTIONS.put("Secret", (client, ns) -> client.secrets().inNamespace(ns));
+        COLLECTIONS.put("ServiceAccount", (client, ns) -> client.serviceAccounts().inNamespace(ns));
+        COLLECTIONS.put("PersistentVolumeClaim", (client, ns) -> client.persistentVolumeClaims().inNamespace(ns));
+        COLLECTIONS.put("Pod", (client, ns) -> client.pods().inNamespace(ns));
+        COLLECTIONS.put("ReplicationController", (client, ns) -> client.replicationControllers().inNamespace(ns));
+        COLLECTIONS.put("Deployment", (client, ns) -> client.apps().deployments().inNamespace(ns));
+        COLLECTIONS.put("ReplicaSet", (client, ns) -> client.apps().replicaSets().inNamespace(ns));
+        COLLECTIONS.put("StatefulSet", (client, ns) -> client.apps().statefulSets().inNamespace(ns));
+        COLLECTIONS.put("DaemonSet", (client, ns) -> client.apps().daemonSets().inNamespace(ns));
+        COLLECTIONS.put("Job", (client, ns) -> client.batch().jobs().inNamespace(ns));
+        COLLECTIONS.put("Ingress", (client, ns) -> client.extensions().ingresses().inNamespace(ns));
+        COLLECTIONS.put("Route", (client, ns) -> openShift(client).routes().inNamespace(ns));
+        COLLECTIONS.put("DeploymentConfig", (client, ns) -> openShift(client).deploymentConfigs().inNamespace(ns));
+        COLLECTIONS.put("ImageStream", (client, ns) -> openShift(client).imageStreams().inNamespace(ns));
+        COLLECTIONS.put("BuildConfig", (client, ns) -> openShift(client).buildConfigs().inNamespace(ns));
+    }
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    // Dependents are removed by the garbage collector, like with a cascading delete
+    private static final String BACKGROUND_DELETE_OPTIONS =
+        "{\"kind\":\"DeleteOptions\",\"apiVersion\":\"v1\",\"propagationPolicy\":\"Background\"}";
+
+    private KubernetesClient kubernetes;
+    private String namespace;
+    private KitLogger log;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private Map<String, String> collectionSelector;
+    private long finalizationTimeout;
+
+    private DeletePlanner() { }
+
+    /**
+     * Group resources into waves. Within a wave resources keep their given order.
+     *
+     * @param entities resources to delete
+     * @return non-empty waves in the order they should be deleted
+     */
+    static List<List<HasMetadata>> planWaves(Collection<HasMetadata> entities) {
+        List<List<HasMetadata>> waves = new ArrayList<>();
+        for (int i = 0; i < WAVES.size(); i++) {
+            waves.add(new ArrayList<>());
+        }
+        for (HasMetadata entity : entities) {
+            Integer wave = WAVE_BY_KIND.get(KubernetesHelper.getKind(entity));
+            waves.get(wave != null ? wave : 0).add(entity);
+        }
+        waves.removeIf(List::isEmpty);
+        return waves;
+    }
+
+    /**
+     * Delete the given resources and, on OpenShift, the S2I build configs of the given image streams.
+     *
+     * @param entities resources to delete
+     * @param s2iBuildNames names of additional build configs to delete together with the workloads
+     * @return the waves deleted, with their timing
+     */
+    public List<WaveResult> delete(Collection<HasMetadata> entities, Collection<String> s2iBuildNames) {
+        List<WaveResult> ret = new ArrayList<>();
+        List<List<HasMetadata>> waves = planWaves(entities);
+        boolean buildsDeleted = s2iBuildNames.isEmpty();
+        for (List<HasMetadata> wave : waves) {
+            List<String> builds = new ArrayList<>();
+            if (!buildsDeleted && WAVE_BY_KIND.getOrDefault(KubernetesHelper.getKind(wave.get(0)), 0) >= 1) {
+                builds.addAll(s2iBuildNames);
+                buildsDeleted = true;
+            }
+            ret.add(deleteWave(ret.size() + 1, wave, builds));
+        }
+        if (!buildsDeleted) {
+            ret.add(deleteWave(ret.size() + 1, new ArrayList<>(), new ArrayList<>(s2iBuildNames)));
+        }
+        return ret;
+    }
+
+    private WaveResult deleteWave(int index, List<HasMetadata> wave, List<String> buildNames) {
+        long start = System.currentTimeMillis();
+        List<Callable<?>> tasks = new ArrayList<>();
+
+        for (Map.Entry<String, List<HasMetadata>> entry : groupByKind(wave).entrySet()) {
+            List<HasMetadata> selected = selectForCollectionDelete(entry.getKey(), entry.getValue());
+            if (selected.size() > 1) {
+                tasks.add(() -> deleteCollection(entry.getKey(), selected.size()));
+            } else {
+                selected.clear();
+            }
+            for (HasMetadata entity : entry.getValue()) {
+                if (!selected.contains(entity)) {
+                    tasks.add(() -> deleteEntity(entity));
+                }
+            }
+        }
+        OpenShiftClient openShiftClient = OpenshiftHelper.asOpenShiftClient(kubernetes);
+        if (openShiftClient != null) {
+            for (String buildName : buildNames) {
+                tasks.add(() -> {
+                    log.info("Deleting resource BuildConfig " + namespace + "/" + buildName);
+                    return openShiftClient.buildConfigs().inNamespace(namespace).withName(buildName).delete();
+                });
+            }
+        }
+        runAll(tasks);
+
+        if (finalizationTimeout > 0) {
+            waitUntilDeleted(wave, start + finalizationTimeout);
+        }
+
+        Set<String> kinds = new LinkedHashSet<>();
+        for (HasMetadata entity : wave) {
+            kinds.add(KubernetesHelper.getKind(entity));
+        }
+        if (!buildNames.isEmpty()) {
+            kinds.add("BuildConfig");
+        }
+        WaveResult result = new WaveResult(index, kinds, tasks.size(), wave.size() + buildNames.size(), System.currentTimeMillis() - start);
+        log.info("%s", result);
+        return result;
+    }
+
+    private Map<String, List<HasMetadata>> groupByKind(List<HasMetadata> wave) {
+        Map<String, List<HasMetadata>> ret = new LinkedHashMap<>();
+        for (HasMetadata entity : wave) {
+            ret.computeIfAbsent(KubernetesHelper.getKind(entity), k -> new ArrayList<>()).add(entity);
+        }
+        return ret;
+    }
+
+    // Resources of a kind which carry the collection selector and can be deleted with a single request
+    private List<HasMetadata> selectForCollectionDelete(String kind, List<HasMetadata> entities) {
+        List<HasMetadata> ret = new ArrayList<>();
+        if (collectionSelector == null || collectionSelector.isEmpty() || !COLLECTIONS.containsKey(kind) ||
+            !(kubernetes instanceof HttpClientAware) ||
+            (isOpenShiftKind(kind) && OpenshiftHelper.asOpenShiftClient(kubernetes) == null)) {
+            return ret;
+        }
+        for (HasMetadata entity : entities) {
+            Map<String, String> labels = KubernetesHelper.getLabels(entity);
+            if (labels != null && labels.entrySet().containsAll(collectionSelector.entrySet())) {
+                ret.add(entity);
+            }
+        }
+        return ret;
+    }
+
+    private boolean isOpenShiftKind(String kind) {
+        return Arrays.asList("Route", "DeploymentConfig", "ImageStream", "BuildConfig").contains(kind);
+    }
+
+    private Boolean deleteEntity(HasMetadata entity) {
+        log.info("Deleting resource " + KubernetesHelper.getKind(entity) + " " + namespace + "/" + KubernetesHelper.getName(entity));
+        return kubernetes.resource(entity).inNamespace(namespace).cascading(true).delete();
+    }
+
+    private Boolean deleteCollection(String kind, int count) throws IOException {
+        OperationSupport operation = (OperationSupport) COLLECTIONS.get(kind).apply(kubernetes, namespace);
+        HttpUrl url = HttpUrl.get(operation.getNamespacedUrl()).newBuilder()
+            .addQueryParameter("labelSelector", toSelector(collectionSelector))
+            .build();
+        log.info("Deleting %d resources %s %s/* with labels %s", count, kind, namespace, toSelector(collectionSelector));
+
+        OkHttpClient httpClient = ((HttpClientAware) kubernetes).getHttpClient();
+        Request request = new Request.Builder()
+            .url(url)
+            .delete(RequestBody.create(JSON, BACKGROUND_DELETE_OPTIONS))
+            .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                ResponseBody body = response.body();
+                throw new KubernetesClientException("Failure executing: DELETE at: " + url + ". Received status: " +
+                                                    response.code() + ", " + (body != null ? body.string() : ""), response.code(), null);
+            }
+        }
+        return true;
+    }
+
+    private void runAll(List<Callable<?>> tasks) {
+        try {
+            ParallelUtil.forEach(tasks, parallelism, task -> {
+                try {
+                    task.call();
+                } catch (Exception e) {
+                    log.error("Cannot delete resource: %s", e.getMessage());
+                    throw e;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KubernetesClientException("Interrupted while deleting resources", e);
+        } catch (Exception e) {
+            // Don't continue with the next wave, as its resources might still be used
+            throw KubernetesClientException.launderThrowable(e);
+        }
+    }
+
+    private void waitUntilDeleted(List<HasMetadata> wave, long deadline) {
+        for (HasMetadata entity : wave) {
+            try {
+                if (!waitUntilDeleted(entity, deadline - System.currentTimeMillis())) {
+                    log.warn("%s %s/%s is still present after %d ms", KubernetesHelper.getKind(entity), namespace,
+                             KubernetesHelper.getName(entity), finalizationTimeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new KubernetesClientException("Interrupted while waiting for resources to be deleted", e);
+            }
+        }
+    }
+
+    private boolean waitUntilDeleted(HasMetadata entity, long timeout) throws InterruptedException {
+        VisitFromServerGetWatchDeleteRecreateWaitApplicable<HasMetadata, Boolean> resource =
+            kubernetes.resource(entity).inNamespace(namespace);
+        CountDownLatch deleted = new CountDownLatch(1);
+        try (Watch watch = resource.watch(new Watcher<HasMetadata>() {
+            @Override
+            public void eventReceived(Action action, HasMetadata resource) {
+                if (action == Action.DELETED) {
+                    deleted.countDown();
+                }
+            }
+
+            @Override
+            public void onClose(KubernetesClientException cause) {
+            }
+        })) {
+            // Check after the watch has been established, so that a deletion in between is not missed
+            if (resource.fromServer().get() == null) {
+                return true;
+            }
+            return timeout > 0 && deleted.await(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String toSelector(Map<String, String> labels) {
+        StringBuilder ret = new StringBuilder();
+        for (Map.Entry<String, String> entry : labels.entrySet()) {
+            if (ret.length() > 0) {
+                ret.append(",");
+            }
+            ret.append(entry.getKey()).append("=").append(entry.getValue());
+        }
+        return ret.toString();
+    }
+
+    private static OpenShiftClient openShift(KubernetesClient client) {
+        return OpenshiftHelper.asOpenShiftClient(client);
+    }
+
+    // ===========================================================================================
+
+    /**
+     * Timing of a single wave
+     */
+    public static class WaveResult {
+        private final int index;
+        private final Set<String> kinds;
+        private final int requests;
+        private final int resources;
+        private final long durationMillis;
+
+        WaveResult(int index, Set<String> kinds, int requests, int resources, long durationMillis) {
+            this.index = index;
+            this.kinds = kinds;
+            this.requests = requests;
+            this.resources = resources;
+            this.durationMillis = durationMillis;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Set<String> getKinds() {
+            return kinds;
+        }
+
+        public int getRequests() {
+            return requests;
+        }
+
+        public int getResources() {
+            return resources;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Deleted wave %d (%s): %d resource%s with %d request%s in %d ms",
+                                 index, String.join(", ", kinds), resources, resources == 1 ? "" : "s",
+                                 requests, requests == 1 ? "" : "s", durationMillis);
+        }
+    }
+
+    public static class Builder {
+
+        private DeletePlanner planner;
+
+        public Builder(KubernetesClient kubernetes, String namespace, KitLogger log) {
+            this.planner = new DeletePlanner();
+            planner.kubernetes = kubernetes;
+            planner.namespace = namespace;
+            planner.log = log;
+        }
+
+        /**
+         * Number of resources deleted at the same time
+         */
+        public Builder parallelism(int parallelism) {
+            planner.parallelism = Math.max(1, parallelism);
+            return this;
+        }
+
+        /**
+         * Delete all resources of a kind carrying these labels with a single request. Be aware that
+         * this also deletes resources in the namespace which are not part of the given set.
+         */
+        public Builder collectionSelector(Map<String, String> collectionSelector) {
+            planner.collectionSelector = collectionSelector;
+            return this;
+        }
+
+        /**
+         * Wait up to this many milliseconds per wave until its resources are gone. 0 doesn't wait.
+         */
+        public Builder finalizationTimeout(long finalizationTimeout) {
+            planner.finalizationTimeout = finalizationTimeout;
+            return this;
+        }
+
+        public DeletePlanner build() {
+            return planner;
+        }
+    }
+}
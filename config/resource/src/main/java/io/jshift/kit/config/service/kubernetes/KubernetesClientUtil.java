@@ -20,15 +20,11 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import io.fabric8.kubernetes.api.model.DoneablePod;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.LabelSelector;
-import io.fabric8.kubernetes.api.model.LabelSelectorRequirement;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodCondition;
 import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.api.model.PodStatus;
-import io.fabric8.kubernetes.api.model.ReplicationController;
 import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
-import io.fabric8.kubernetes.api.model.apps.Deployment;
-import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
@@ -36,10 +32,7 @@ import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.LogWatch;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.PodResource;
-import io.fabric8.kubernetes.client.dsl.Scaleable;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
-import io.fabric8.openshift.api.model.DeploymentConfig;
-import io.fabric8.openshift.client.OpenShiftClient;
 import io.jshift.kit.common.KitLogger;
 import io.jshift.kit.common.util.KubernetesHelper;
 import io.jshift.kit.common.util.OpenshiftHelper;
@@ -69,43 +62,33 @@ import java.util.concurrent.CountDownLatch;
 public class KubernetesClientUtil {
 
     public static void resizeApp(KubernetesClient kubernetes, String namespace, Set<HasMetadata> entities, int replicas, KitLogger log) {
-        for (HasMetadata entity : entities) {
-            String name = KubernetesHelper.getName(entity);
-            Scaleable<?> scalable = null;
-            if (entity instanceof Deployment) {
-                scalable = kubernetes.extensions().deployments().inNamespace(namespace).withName(name);
-            } else if (entity instanceof ReplicaSet) {
-                scalable = kubernetes.extensions().replicaSets().inNamespace(namespace).withName(name);
-            } else if (entity instanceof ReplicationController) {
-                scalable = kubernetes.replicationControllers().inNamespace(namespace).withName(name);
-            } else if (entity instanceof DeploymentConfig) {
-                OpenShiftClient openshiftClient = OpenshiftHelper.asOpenShiftClient(kubernetes);
-                if (openshiftClient == null) {
-                    log.warn("Ignoring DeploymentConfig %s as not connected to an OpenShift cluster", name);
-                    continue;
-                }
-                scalable = openshiftClient.deploymentConfigs().inNamespace(namespace).withName(name);
-            }
-            if (scalable != null) {
-                log.info("Scaling " + KubernetesHelper.getKind(entity) + " " + namespace + "/" + name + " to replicas: " + replicas);
-                scalable.scale(replicas, true);
-            }
+        try {
+            new AppScaler(kubernetes, namespace, AppScaler.DEFAULT_TIMEOUT, log).scale(entities, replicas);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the application to be scaled to %d replicas", replicas);
         }
     }
 
-
-
     public static void deleteEntities(KubernetesClient kubernetes, String namespace, Set<HasMetadata> entities, String s2iBuildNameSuffix, KitLogger log) {
+        deleteEntities(new DeletePlanner.Builder(kubernetes, namespace, log).build(), kubernetes, entities, s2iBuildNameSuffix);
+    }
+
+    /**
+     * Delete entities in waves of kinds which don't depend on each other, using the given planner
+     *
+     * @return the waves deleted, with their timing
+     */
+    public static List<DeletePlanner.WaveResult> deleteEntities(DeletePlanner planner, KubernetesClient kubernetes, Set<HasMetadata> entities, String s2iBuildNameSuffix) {
         List<HasMetadata> list = new ArrayList<>(entities);
 
         // For OpenShift cluster, also delete s2i buildconfig
-        OpenShiftClient openshiftClient = OpenshiftHelper.asOpenShiftClient(kubernetes);        if (openshiftClient != null) {
+        List<String> s2iBuildNames = new ArrayList<>();
+        if (OpenshiftHelper.asOpenShiftClient(kubernetes) != null) {
             for (HasMetadata entity : list) {
                 if ("ImageStream".equals(KubernetesHelper.getKind(entity))) {
                     ImageName imageName = new ImageName(entity.getMetadata().getName());
-                    String buildName = getS2IBuildName(imageName, s2iBuildNameSuffix);
-                    log.info("Deleting resource BuildConfig " + namespace + "/" + buildName);
-                    openshiftClient.buildConfigs().inNamespace(namespace).withName(buildName).delete();
+                    s2iBuildNames.add(getS2IBuildName(imageName, s2iBuildNameSuffix));
                 }
             }
         }
@@ -113,10 +96,7 @@ public class KubernetesClientUtil {
         // lets delete in reverse order
         Collections.reverse(list);
 
-        for (HasMetadata entity : list) {
-            log.info("Deleting resource " + KubernetesHelper.getKind(entity) + " " + namespace + "/" + KubernetesHelper.getName(entity));
-            kubernetes.resource(entity).inNamespace(namespace).cascading(true).delete();
-        }
+        return planner.delete(list, s2iBuildNames);
     }
 
     private static String getS2IBuildName(ImageName imageName, String s2iBuildNameSuffix) {
@@ -125,39 +105,7 @@ public class KubernetesClientUtil {
 
 
     public static FilterWatchListDeletable<Pod, PodList, Boolean, Watch, Watcher<Pod>> withSelector(NonNamespaceOperation<Pod, PodList, DoneablePod, PodResource<Pod, DoneablePod>> pods, LabelSelector selector, KitLogger log) {
-        FilterWatchListDeletable<Pod, PodList, Boolean, Watch, Watcher<Pod>> answer = pods;
-        Map<String, String> matchLabels = selector.getMatchLabels();
-        if (matchLabels != null && !matchLabels.isEmpty()) {
-            answer = answer.withLabels(matchLabels);
-        }
-        List<LabelSelectorRequirement> matchExpressions = selector.getMatchExpressions();
-        if (matchExpressions != null) {
-            for (LabelSelectorRequirement expression : matchExpressions) {
-                String key = expression.getKey();
-                List<String> values = expression.getValues();
-                if (StringUtils.isBlank(key)) {
-                    log.warn("Ignoring empty key in selector expression %s", expression);
-                    continue;
-                }
-                if (values == null || values.isEmpty()) {
-                    log.warn("Ignoring empty values in selector expression %s", expression);
-                    continue;
-                }
-                String[] valuesArray = values.toArray(new String[values.size()]);
-                String operator = expression.getOperator();
-                switch (operator) {
-                case "In":
-                    answer = answer.withLabelIn(key, valuesArray);
-                    break;
-                case "NotIn":
-                    answer = answer.withLabelNotIn(key, valuesArray);
-                    break;
-                default:
-                    log.warn("Ignoring unknown operator %s in selector expression %s", operator, expression);
-                }
-            }
-        }
-        return answer;
+        return KubernetesHelper.withSelector(pods, selector, log);
     }
 
     public static void printLogsAsync(LogWatch logWatcher, final String failureMessage, final CountDownLatch terminateLatch, final KitLogger log) {
@@ -0,0 +1,420 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.config.service.kubernetes;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.LabelSelectorRequirement;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.common.KitMetrics;
+import io.jshift.kit.common.util.KubernetesHelper;
+import io.jshift.kit.common.util.ParallelUtil;
+
+/**
+ * Local copy of the pods of an application, kept up to date by a single watch.
+ *
+ * The pods are indexed by their labels and the owners referenced, so that selector and newest pod
+ * queries are answered without contacting the API server and by looking only at the matching pods.
+ * Caches are shared: {@link #acquire(KubernetesClient, String, LabelSelector, KitLogger)} returns the
+ * same cache for the same cluster, namespace and selector, e.g. for the log and the port-forward
+ * services watching the same application. The watch is closed when the last user has closed the cache.
+ *
+ * Listeners added with {@link #addListener(Watcher)} get the events of the watch after the cache
+ * has been updated. When the watch fails, the pods are listed again and a new watch is started, with
+ * increasing delays between attempts. If that doesn't succeed, the cache is emptied and the listeners'
+ * {@link Watcher#onClose(KubernetesClientException)} is called with the failure.
+ */
+public class PodCache implements Closeable {
+
+    private static final Map<String, PodCache> SHARED = new HashMap<>();
+
+    private static final int MAX_RESTART_ATTEMPTS = 5;
+
+    // Doubled after every failed attempt
+    private static final long RESTART_DELAY_MILLIS = 1000;
+
+    private final KubernetesClient kubernetes;
+    private final String namespace;
+    private final LabelSelector scope;
+    private final KitLogger log;
+    private final String key;
+
+    // All guarded by "this"
+    private final Map<String, Entry> pods = new HashMap<>();
+    private final Map<String, Set<String>> byLabel = new HashMap<>();
+    private final Map<String, Set<String>> byOwner = new HashMap<>();
+    private Watch watch;
+    private int references;
+    private boolean closed;
+
+    private final List<Watcher<Pod>> listeners = new CopyOnWriteArrayList<>();
+
+    PodCache(KubernetesClient kubernetes, String namespace, LabelSelector scope, KitLogger log, String key) {
+        this.kubernetes = kubernetes;
+        this.namespace = namespace;
+        this.scope = scope;
+        this.log = log;
+        this.key = key;
+    }
+
+    /**
+     * Get the shared cache for the pods matching a selector, which is filled and starts watching if it
+     * doesn't exist yet. Every call must be paired with a call to {@link #close()}.
+     *
+     * @param kubernetes client to use
+     * @param namespace namespace of the pods or <code>null</code> for the client's namespace
+     * @param scope selector of the pods to keep
+     * @param log logger
+     * @return the cache, filled with the current pods
+     */
+    public static PodCache acquire(KubernetesClient kubernetes, String namespace, LabelSelector scope, KitLogger log) {
+        // Same cache whether the client's namespace is given explicitly or not
+        if (namespace == null) {
+            namespace = kubernetes.getNamespace();
+        }
+        String key = kubernetes.getMasterUrl() + "|" + namespace + "|" + scope;
+        PodCache cache;
+        synchronized (SHARED) {
+            cache = SHARED.get(key);
+            if (cache == null) {
+                cache = new PodCache(kubernetes, namespace, scope, log, key);
+                SHARED.put(key, cache);
+            }
+            cache.references++;
+        }
+        cache.start();
+        return cache;
+    }
+
+    /**
+     * Get all cached pods matching a selector
+     *
+     * @param selector selector to match, <code>null</code> for all pods
+     * @return matching pods
+     */
+    public synchronized List<Pod> getPods(LabelSelector selector) {
+        List<Pod> ret = new ArrayList<>();
+        for (Entry entry : candidates(selector)) {
+            if (matches(selector, entry.pod)) {
+                ret.add(entry.pod);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get all cached pods with an owner reference to the given uid
+     *
+     * @param ownerUid uid of the owner, e.g. a ReplicaSet
+     * @return owned pods
+     */
+    public synchronized List<Pod> getPodsOwnedBy(String ownerUid) {
+        List<Pod> ret = new ArrayList<>();
+        for (String name : byOwner.getOrDefault(ownerUid, Collections.<String>emptySet())) {
+            ret.add(pods.get(name).pod);
+        }
+        return ret;
+    }
+
+    /**
+     * Get the newest pod matching a selector and a filter
+     *
+     * @param selector selector to match, <code>null</code> for all pods
+     * @param filter additional condition for the pod, e.g. that it is running
+     * @return the pod with the latest creation timestamp or <code>null</code> if none matches
+     */
+    public synchronized Pod getNewestPod(LabelSelector selector, Predicate<Pod> filter) {
+        Entry newest = null;
+        for (Entry entry : candidates(selector)) {
+            if (matches(selector, entry.pod) && filter.test(entry.pod) &&
+                (newest == null || isNewer(entry, newest))) {
+                newest = entry;
+            }
+        }
+        return newest != null ? newest.pod : null;
+    }
+
+    /**
+     * Add a listener for the events of the watch
+     *
+     * @param listener listener which is called after the cache has been updated
+     * @return handle for removing the listener again
+     */
+    public Closeable addListener(Watcher<Pod> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    @Override
+    public void close() {
+        synchronized (SHARED) {
+            if (--references > 0) {
+                return;
+            }
+            SHARED.remove(key);
+        }
+        Watch toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = watch;
+            watch = null;
+        }
+        if (toClose != null) {
+            toClose.close();
+        }
+        for (Watcher<Pod> listener : listeners) {
+            listener.onClose(null);
+        }
+        listeners.clear();
+    }
+
+    // =====================================================================================
+
+    synchronized void start() {
+        if (watch == null && !closed) {
+            relist();
+            watch = selectPods().watch(new Watcher<Pod>() {
+                @Override
+                public void eventReceived(Action action, Pod pod) {
+                    onEvent(action, pod);
+                }
+
+                @Override
+                public void onClose(KubernetesClientException cause) {
+                    if (cause != null) {
+                        // Not on the client's thread, which would be blocked while waiting between attempts
+                        ParallelUtil.submit(() -> {
+                            restart(cause, RESTART_DELAY_MILLIS);
+                            return null;
+                        });
+                    }
+                }
+            });
+        }
+    }
+
+    void restart(KubernetesClientException cause, long delayMillis) throws InterruptedException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            log.warn("Watch of pods %s closed (%s), listing them again", scope, cause.getMessage());
+            watch = null;
+        }
+        long delay = delayMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                start();
+                return;
+            } catch (RuntimeException exp) {
+                if (attempt >= MAX_RESTART_ATTEMPTS) {
+                    giveUp(exp);
+                    return;
+                }
+                log.warn("Cannot watch pods %s (%s), trying again in %d ms", scope, exp.getMessage(), delay);
+            }
+            Thread.sleep(delay);
+            delay *= 2;
+        }
+    }
+
+    private void giveUp(RuntimeException failure) {
+        log.error("Cannot watch pods %s after %d attempts: %s", scope, MAX_RESTART_ATTEMPTS, failure.getMessage());
+        reset(Collections.<Pod>emptyList());
+        KubernetesClientException cause = failure instanceof KubernetesClientException ?
+            (KubernetesClientException) failure : new KubernetesClientException(failure.getMessage(), failure);
+        for (Watcher<Pod> listener : listeners) {
+            listener.onClose(cause);
+        }
+    }
+
+    private synchronized void relist() {
+        try (KitMetrics.Span span = KitMetrics.span("kubernetes", "listPods")) {
+            PodList list = selectPods().list();
+            reset(list != null && list.getItems() != null ? list.getItems() : Collections.<Pod>emptyList());
+        }
+    }
+
+    private FilterWatchListDeletable<Pod, PodList, Boolean, Watch, Watcher<Pod>> selectPods() {
+        return namespace != null ?
+            KubernetesHelper.withSelector(kubernetes.pods().inNamespace(namespace), scope, log) :
+            KubernetesHelper.withSelector(kubernetes.pods(), scope, log);
+    }
+
+    synchronized void reset(Collection<Pod> current) {
+        pods.clear();
+        byLabel.clear();
+        byOwner.clear();
+        for (Pod pod : current) {
+            add(pod);
+        }
+    }
+
+    void onEvent(Watcher.Action action, Pod pod) {
+        KitMetrics.count("podcache.events");
+        synchronized (this) {
+            remove(KubernetesHelper.getName(pod));
+            if (action != Watcher.Action.DELETED) {
+                add(pod);
+            }
+        }
+        for (Watcher<Pod> listener : listeners) {
+            listener.eventReceived(action, pod);
+        }
+    }
+
+    private void add(Pod pod) {
+        String name = KubernetesHelper.getName(pod);
+        pods.put(name, new Entry(pod));
+        for (Map.Entry<String, String> label : KubernetesHelper.getLabels(pod).entrySet()) {
+            byLabel.computeIfAbsent(labelKey(label.getKey(), label.getValue()), k -> new HashSet<>()).add(name);
+        }
+        for (OwnerReference owner : getOwnerReferences(pod)) {
+            byOwner.computeIfAbsent(owner.getUid(), k -> new HashSet<>()).add(name);
+        }
+    }
+
+    private void remove(String name) {
+        Entry entry = pods.remove(name);
+        if (entry != null) {
+            for (Map.Entry<String, String> label : KubernetesHelper.getLabels(entry.pod).entrySet()) {
+                removeFromIndex(byLabel, labelKey(label.getKey(), label.getValue()), name);
+            }
+            for (OwnerReference owner : getOwnerReferences(entry.pod)) {
+                removeFromIndex(byOwner, owner.getUid(), name);
+            }
+        }
+    }
+
+    // Pods of the smallest index set among the selector's labels, so that only those need to be matched
+    private Collection<Entry> candidates(LabelSelector selector) {
+        Set<String> smallest = null;
+        if (selector != null && selector.getMatchLabels() != null) {
+            for (Map.Entry<String, String> label : selector.getMatchLabels().entrySet()) {
+                Set<String> names = byLabel.getOrDefault(labelKey(label.getKey(), label.getValue()), Collections.<String>emptySet());
+                if (smallest == null || names.size() < smallest.size()) {
+                    smallest = names;
+                }
+            }
+        }
+        if (smallest == null) {
+            return pods.values();
+        }
+        List<Entry> ret = new ArrayList<>(smallest.size());
+        for (String name : smallest) {
+            ret.add(pods.get(name));
+        }
+        return ret;
+    }
+
+    static boolean matches(LabelSelector selector, Pod pod) {
+        if (selector == null) {
+            return true;
+        }
+        Map<String, String> labels = KubernetesHelper.getLabels(pod);
+        if (selector.getMatchLabels() != null) {
+            for (Map.Entry<String, String> label : selector.getMatchLabels().entrySet()) {
+                if (!Objects.equals(label.getValue(), labels.get(label.getKey()))) {
+                    return false;
+                }
+            }
+        }
+        if (selector.getMatchExpressions() != null) {
+            for (LabelSelectorRequirement expression : selector.getMatchExpressions()) {
+                if (!matches(expression, labels)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(LabelSelectorRequirement expression, Map<String, String> labels) {
+        String value = labels.get(expression.getKey());
+        List<String> values = expression.getValues() != null ? expression.getValues() : Collections.<String>emptyList();
+        switch (String.valueOf(expression.getOperator())) {
+            case "In":
+                return value != null && values.contains(value);
+            case "NotIn":
+                return value == null || !values.contains(value);
+            case "Exists":
+                return labels.containsKey(expression.getKey());
+            case "DoesNotExist":
+                return !labels.containsKey(expression.getKey());
+            default:
+                // Ignored like when selecting on the server
+                return true;
+        }
+    }
+
+    // Pods without creation timestamp are the oldest
+    private static boolean isNewer(Entry entry, Entry other) {
+        return entry.created != null && (other.created == null || entry.created.compareTo(other.created) >= 0);
+    }
+
+    private static List<OwnerReference> getOwnerReferences(Pod pod) {
+        if (pod.getMetadata() != null && pod.getMetadata().getOwnerReferences() != null) {
+            return pod.getMetadata().getOwnerReferences();
+        }
+        return Collections.emptyList();
+    }
+
+    private static String labelKey(String key, String value) {
+        return key + "=" + value;
+    }
+
+    private static void removeFromIndex(Map<String, Set<String>> index, String key, String name) {
+        Set<String> names = index.get(key);
+        if (names != null) {
+            names.remove(name);
+            if (names.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Pod pod;
+        // Parsed once, not for every comparison
+        private final Date created;
+
+        private Entry(Pod pod) {
+            this.pod = pod;
+            this.created = KubernetesHelper.getCreationTimestamp(pod);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.config.service.kubernetes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.fabric8.kubernetes.api.model.ReplicationController;
+import io.fabric8.kubernetes.api.model.ReplicationControllerBuilder;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.openshift.client.server.mock.OpenShiftMockServer;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.config.service.openshift.WebServerEventCollector;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AppScalerTest {
+
+    @Mocked
+    KitLogger log;
+
+    OpenShiftMockServer mockServer = new OpenShiftMockServer(false);
+
+    @Test
+    public void testScaleUp() throws InterruptedException {
+        WebServerEventCollector<OpenShiftMockServer> collector = new WebServerEventCollector<>(mockServer);
+        mockServer.expect().get().withPath("/apis/apps/v1/namespaces/test/deployments/app")
+                  .andReturn(200, deployment(1L, 1L, 1, 1)).always();
+        mockServer.expect().patch().withPath("/apis/apps/v1/namespaces/test/deployments/app")
+                  .andReply(collector.record("scale").andReturn(200, deployment(2L, 1L, 1, 1))).once();
+        mockServer.expect().withPath("/apis/apps/v1/namespaces/test/deployments?watch=true")
+                  .andUpgradeToWebSocket().open()
+                  .waitFor(500).andEmit(new WatchEvent(deployment(2L, 2L, 3, 1), "MODIFIED"))
+                  .waitFor(500).andEmit(new WatchEvent(deployment(2L, 2L, 3, 3), "MODIFIED"))
+                  .done().always();
+
+        List<AppScaler.ScaleStatus> result = new AppScaler(mockServer.createOpenShiftClient(), "test", 10000, log)
+            .scale(Arrays.asList(deployment(1L, 1L, 1, 1),
+                                 new ServiceBuilder().withNewMetadata().withName("app").endMetadata().build()), 3);
+
+        collector.assertEventsRecorded("scale");
+        assertEquals(1, result.size());
+        assertEquals("Deployment", result.get(0).getKind());
+        assertTrue(result.get(0).isReady());
+        assertEquals(3, result.get(0).getReadyReplicas());
+        assertTrue(result.get(0).getDuration() >= 1000);
+        new Verifications() {{
+            log.warn(anyString, (Object []) any); times = 0;
+        }};
+    }
+
+    @Test
+    public void testScaleToZero() throws InterruptedException {
+        WebServerEventCollector<OpenShiftMockServer> collector = new WebServerEventCollector<>(mockServer);
+        mockServer.expect().get().withPath("/api/v1/namespaces/test/replicationcontrollers/app")
+                  .andReturn(200, replicationController(4L, 4L, 2)).always();
+        mockServer.expect().patch().withPath("/api/v1/namespaces/test/replicationcontrollers/app")
+                  .andReply(collector.record("scale").andReturn(200, replicationController(5L, 4L, 2))).once();
+        mockServer.expect().withPath("/api/v1/namespaces/test/replicationcontrollers?watch=true")
+                  .andUpgradeToWebSocket().open()
+                  .waitFor(500).andEmit(new WatchEvent(replicationController(5L, 5L, 0), "MODIFIED"))
+                  .done().always();
+
+        List<AppScaler.ScaleStatus> result = new AppScaler(mockServer.createOpenShiftClient(), "test", 10000, log)
+            .scale(Collections.singletonList(replicationController(4L, 4L, 2)), 0);
+
+        collector.assertEventsRecorded("scale");
+        assertEquals(1, result.size());
+        assertTrue(result.get(0).isReady());
+        assertEquals(0, result.get(0).getReadyReplicas());
+    }
+
+    @Test
+    public void testScaleTimesOut() throws InterruptedException {
+        mockServer.expect().get().withPath("/apis/apps/v1/namespaces/test/deployments/app")
+                  .andReturn(200, deployment(1L, 1L, 1, 1)).always();
+        mockServer.expect().patch().withPath("/apis/apps/v1/namespaces/test/deployments/app")
+                  .andReturn(200, deployment(2L, 1L, 1, 1)).once();
+        // One of the new replicas never gets ready
+        mockServer.expect().withPath("/apis/apps/v1/namespaces/test/deployments?watch=true")
+                  .andUpgradeToWebSocket().open()
+                  .waitFor(200).andEmit(new WatchEvent(deployment(2L, 2L, 3, 2), "MODIFIED"))
+                  .done().always();
+
+        List<AppScaler.ScaleStatus> result = new AppScaler(mockServer.createOpenShiftClient(), "test", 2000, log)
+            .scale(Collections.singletonList(deployment(1L, 1L, 1, 1)), 3);
+
+        assertEquals(1, result.size());
+        assertFalse(result.get(0).isReady());
+        assertEquals(2, result.get(0).getReadyReplicas());
+        new Verifications() {{
+            log.warn(withSubstring("Timeout after"), (Object []) any); times = 1;
+        }};
+    }
+
+    @Test
+    public void testReadyWhenAllReplicasAreReady() {
+        AppScaler.ScaleStatus status = new AppScaler.ScaleStatus("Deployment", "app", 3, 0);
+
+        status.read(deployment(2L, 2L, 3, 2));
+        assertFalse(status.isReady());
+        assertEquals(2, status.getReadyReplicas());
+
+        status.read(deployment(2L, 2L, 3, 3));
+        assertTrue(status.isReady());
+    }
+
+    @Test
+    public void testNotReadyBeforeNewGenerationIsObserved() {
+        AppScaler.ScaleStatus status = new AppScaler.ScaleStatus("Deployment", "app", 3, 0);
+
+        // Status still refers to the previous spec, which happened to have the same number of replicas
+        status.read(deployment(3L, 2L, 3, 3));
+        assertFalse(status.isReady());
+    }
+
+    @Test
+    public void testScaleDownToZero() {
+        AppScaler.ScaleStatus status = new AppScaler.ScaleStatus("ReplicationController", "app", 0, 0);
+
+        status.read(new ReplicationControllerBuilder()
+                        .withNewMetadata().withName("app").withGeneration(4L).endMetadata()
+                        .withNewStatus().withObservedGeneration(4L).withReplicas(1).endStatus()
+                        .build());
+        assertFalse(status.isReady());
+
+        status.read(new ReplicationControllerBuilder()
+                        .withNewMetadata().withName("app").withGeneration(4L).endMetadata()
+                        .withNewStatus().withObservedGeneration(4L).endStatus()
+                        .build());
+        assertTrue(status.isReady());
+    }
+
+    private Deployment deployment(long generation, long observedGeneration, int replicas, int readyReplicas) {
+        return new DeploymentBuilder()
+            .withNewMetadata().withName("app").withGeneration(generation).endMetadata()
+            .withNewStatus()
+              .withObservedGeneration(observedGeneration)
+              .withReplicas(replicas)
+              .withReadyReplicas(readyReplicas)
+            .endStatus()
+            .build();
+    }
+
+    private ReplicationController replicationController(long generation, long observedGeneration, int replicas) {
+        return new ReplicationControllerBuilder()
+            .withNewMetadata().withName("app").withGeneration(generation).endMetadata()
+            .withNewSpec().withReplicas(replicas).endSpec()
+            .withNewStatus()
+              .withObservedGeneration(observedGeneration)
+              .withReplicas(replicas)
+              .withReadyReplicas(replicas)
+            .endStatus()
+            .build();
+    }
+}
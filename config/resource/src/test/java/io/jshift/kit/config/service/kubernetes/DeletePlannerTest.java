@@ -0,0 +1,235 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.config.service.kubernetes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.extensions.IngressBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.openshift.api.model.BuildListBuilder;
+import io.fabric8.openshift.api.model.RouteBuilder;
+import io.fabric8.openshift.client.server.mock.OpenShiftMockServer;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.config.service.openshift.WebServerEventCollector;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeletePlannerTest {
+
+    @Mocked
+    KitLogger log;
+
+    OpenShiftMockServer mockServer = new OpenShiftMockServer(false);
+
+    @Test
+    public void testWavesFollowDependencies() {
+        List<HasMetadata> entities = Arrays.asList(
+            new NamespaceBuilder().withNewMetadata().withName("ns").endMetadata().build(),
+            new ServiceBuilder().withNewMetadata().withName("svc").endMetadata().build(),
+            new DeploymentBuilder().withNewMetadata().withName("deploy").endMetadata().build(),
+            new ConfigMapBuilder().withNewMetadata().withName("cm").endMetadata().build(),
+            new RouteBuilder().withNewMetadata().withName("route").endMetadata().build(),
+            new IngressBuilder().withNewMetadata().withName("ingress").endMetadata().build());
+
+        List<List<HasMetadata>> waves = DeletePlanner.planWaves(entities);
+
+        assertEquals(4, waves.size());
+        assertEquals(Arrays.asList("route", "ingress"), names(waves.get(0)));
+        assertEquals(Arrays.asList("deploy"), names(waves.get(1)));
+        assertEquals(Arrays.asList("svc", "cm"), names(waves.get(2)));
+        assertEquals(Arrays.asList("ns"), names(waves.get(3)));
+    }
+
+    @Test
+    public void testEmptyWavesAreSkipped() {
+        List<List<HasMetadata>> waves = DeletePlanner.planWaves(Arrays.asList(
+            new ServiceBuilder().withNewMetadata().withName("svc").endMetadata().build(),
+            new DeploymentBuilder().withNewMetadata().withName("deploy").endMetadata().build()));
+
+        assertEquals(2, waves.size());
+        assertEquals(Arrays.asList("deploy"), names(waves.get(0)));
+        assertEquals(Arrays.asList("svc"), names(waves.get(1)));
+    }
+
+    @Test
+    public void testCollectionDeleteWithLabelSelector() {
+        WebServerEventCollector<OpenShiftMockServer> collector = new WebServerEventCollector<>(mockServer);
+        mockServer.expect().delete().withPath("/api/v1/namespaces/test/configmaps?labelSelector=app%3Ddemo")
+                  .andReply(collector.record("delete-collection").andReturn(200, success())).once();
+        mockServer.expect().delete().withPath("/api/v1/namespaces/test/configmaps/other")
+                  .andReply(collector.record("delete-other").andReturn(200, success())).once();
+
+        List<DeletePlanner.WaveResult> results = new DeletePlanner.Builder(mockServer.createOpenShiftClient(), "test", log)
+            .collectionSelector(Collections.singletonMap("app", "demo"))
+            .build()
+            .delete(Arrays.asList(configMap("cm1", "demo"), configMap("cm2", "demo"), configMap("cm3", "demo"),
+                                  configMap("other", null)),
+                    Collections.emptyList());
+
+        collector.assertEventsRecorded("delete-collection", "delete-other");
+        assertTrue(collector.getBodies().contains(
+            "{\"kind\":\"DeleteOptions\",\"apiVersion\":\"v1\",\"propagationPolicy\":\"Background\"}"));
+        assertEquals(1, results.size());
+        assertEquals(2, results.get(0).getRequests());
+        assertEquals(4, results.get(0).getResources());
+    }
+
+    @Test
+    public void testWaitUntilDeleted() {
+        ConfigMap configMap = configMap("cm", null);
+        mockServer.expect().delete().withPath("/api/v1/namespaces/test/configmaps/cm").andReturn(200, success()).once();
+        // Still present, as a finalizer is running
+        mockServer.expect().get().withPath("/api/v1/namespaces/test/configmaps/cm").andReturn(200, configMap).always();
+        mockServer.expect().withPath("/api/v1/namespaces/test/configmaps?fieldSelector=metadata.name%3Dcm&watch=true")
+                  .andUpgradeToWebSocket().open()
+                  .waitFor(500).andEmit(new WatchEvent(configMap, "DELETED"))
+                  .done().always();
+
+        List<DeletePlanner.WaveResult> results = new DeletePlanner.Builder(mockServer.createOpenShiftClient(), "test", log)
+            .finalizationTimeout(10000)
+            .build()
+            .delete(Collections.singletonList(configMap), Collections.emptyList());
+
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).getDurationMillis() >= 500);
+        assertTrue(results.get(0).getDurationMillis() < 10000);
+        new Verifications() {{
+            log.warn(anyString, (Object []) any); times = 0;
+        }};
+    }
+
+    @Test
+    public void testWaitUntilDeletedTimesOut() {
+        ConfigMap configMap = configMap("cm", null);
+        mockServer.expect().delete().withPath("/api/v1/namespaces/test/configmaps/cm").andReturn(200, success()).once();
+        mockServer.expect().get().withPath("/api/v1/namespaces/test/configmaps/cm").andReturn(200, configMap).always();
+        mockServer.expect().withPath("/api/v1/namespaces/test/configmaps?fieldSelector=metadata.name%3Dcm&watch=true")
+                  .andUpgradeToWebSocket().open().done().always();
+
+        new DeletePlanner.Builder(mockServer.createOpenShiftClient(), "test", log)
+            .finalizationTimeout(500)
+            .build()
+            .delete(Collections.singletonList(configMap), Collections.emptyList());
+
+        new Verifications() {{
+            log.warn(withSubstring("still present"), (Object []) any); times = 1;
+        }};
+    }
+
+    @Test
+    public void testFailedWaveStopsLaterWaves() {
+        WebServerEventCollector<OpenShiftMockServer> collector = new WebServerEventCollector<>(mockServer);
+        mockServer.expect().delete().withPath("/apis/extensions/v1beta1/namespaces/test/ingresses/ingress")
+                  .andReply(collector.record("delete-ingress").andReturn(500, "Internal error")).always();
+        mockServer.expect().delete().withPath("/api/v1/namespaces/test/configmaps/cm")
+                  .andReply(collector.record("delete-configmap").andReturn(200, success())).always();
+
+        try {
+            new DeletePlanner.Builder(mockServer.createOpenShiftClient(), "test", log)
+                .build()
+                .delete(Arrays.asList(
+                    new IngressBuilder().withNewMetadata().withName("ingress").endMetadata().build(),
+                    configMap("cm", null)),
+                        Collections.emptyList());
+            fail("Failed delete should stop the deletion");
+        } catch (KubernetesClientException exp) {
+            collector.assertEventsRecorded("delete-ingress");
+            collector.assertEventsNotRecorded("delete-configmap");
+        }
+    }
+
+    @Test
+    public void testS2iBuildConfigsAreDeletedWithControllers() {
+        WebServerEventCollector<OpenShiftMockServer> collector = new WebServerEventCollector<>(mockServer);
+        mockServer.expect().delete().withPath("/apis/extensions/v1beta1/namespaces/test/ingresses/ingress")
+                  .andReply(collector.record("delete-ingress").andReturn(200, success())).once();
+        mockServer.expect().delete().withPath("/api/v1/namespaces/test/services/svc")
+                  .andReply(collector.record("delete-service").andReturn(200, success())).once();
+        mockServer.expect().delete().withPath("/oapi/v1/namespaces/test/buildconfigs/app-s2i")
+                  .andReply(collector.record("delete-buildconfig").andReturn(200, success())).once();
+        mockServer.expect().get().withPath("/oapi/v1/namespaces/test/builds?labelSelector=openshift.io/build-config.name%3Dapp-s2i")
+                  .andReturn(200, new BuildListBuilder().build()).always();
+
+        List<DeletePlanner.WaveResult> results = new DeletePlanner.Builder(mockServer.createOpenShiftClient(), "test", log)
+            .build()
+            .delete(Arrays.asList(
+                new IngressBuilder().withNewMetadata().withName("ingress").endMetadata().build(),
+                new ServiceBuilder().withNewMetadata().withName("svc").endMetadata().build()),
+                    Collections.singletonList("app-s2i"));
+
+        collector.assertEventsRecordedInOrder("delete-ingress", "delete-buildconfig");
+        collector.assertEventsRecorded("delete-service");
+        assertEquals(2, results.size());
+        assertEquals(Arrays.asList("Service", "BuildConfig"), new ArrayList<>(results.get(1).getKinds()));
+        assertEquals(2, results.get(1).getResources());
+    }
+
+    @Test
+    public void testS2iBuildConfigsAreDeletedLast() {
+        WebServerEventCollector<OpenShiftMockServer> collector = new WebServerEventCollector<>(mockServer);
+        mockServer.expect().delete().withPath("/apis/extensions/v1beta1/namespaces/test/ingresses/ingress")
+                  .andReply(collector.record("delete-ingress").andReturn(200, success())).once();
+        mockServer.expect().delete().withPath("/oapi/v1/namespaces/test/buildconfigs/app-s2i")
+                  .andReply(collector.record("delete-buildconfig").andReturn(200, success())).once();
+        mockServer.expect().get().withPath("/oapi/v1/namespaces/test/builds?labelSelector=openshift.io/build-config.name%3Dapp-s2i")
+                  .andReturn(200, new BuildListBuilder().build()).always();
+
+        List<DeletePlanner.WaveResult> results = new DeletePlanner.Builder(mockServer.createOpenShiftClient(), "test", log)
+            .build()
+            .delete(Collections.singletonList(new IngressBuilder().withNewMetadata().withName("ingress").endMetadata().build()),
+                    Collections.singletonList("app-s2i"));
+
+        collector.assertEventsRecordedInOrder("delete-ingress", "delete-buildconfig");
+        assertEquals(2, results.size());
+        assertEquals(Collections.singleton("BuildConfig"), results.get(1).getKinds());
+    }
+
+    private ConfigMap configMap(String name, String app) {
+        ConfigMapBuilder builder = new ConfigMapBuilder().withNewMetadata().withName(name).endMetadata();
+        if (app != null) {
+            builder.editMetadata().addToLabels("app", app).endMetadata();
+        }
+        return builder.build();
+    }
+
+    private Object success() {
+        return new StatusBuilder().withStatus("Success").build();
+    }
+
+    private List<String> names(List<HasMetadata> wave) {
+        List<String> ret = new ArrayList<>();
+        for (HasMetadata entity : wave) {
+            ret.add(entity.getMetadata().getName());
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.kit.config.service.kubernetes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.LabelSelectorBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watcher;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.common.util.KubernetesHelper;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PodCacheTest {
+
+    @Test
+    public void selectByLabelsAndExpressions() {
+        PodCache cache = createCache(
+            pod("web-1", "2019-06-10T10:00:00Z", "web", "prod"),
+            pod("web-2", "2019-06-10T11:00:00Z", "web", "dev"),
+            pod("db-1", "2019-06-10T12:00:00Z", "db", "prod"));
+
+        assertEquals(Arrays.asList("web-1", "web-2"), names(cache.getPods(selector("app", "web"))));
+        assertEquals(3, cache.getPods(null).size());
+
+        LabelSelector prodOnly = new LabelSelectorBuilder()
+            .addToMatchLabels("app", "web")
+            .addNewMatchExpression().withKey("env").withOperator("In").withValues("prod").endMatchExpression()
+            .build();
+        assertEquals(Collections.singletonList("web-1"), names(cache.getPods(prodOnly)));
+
+        LabelSelector noDev = new LabelSelectorBuilder()
+            .addNewMatchExpression().withKey("env").withOperator("NotIn").withValues("dev").endMatchExpression()
+            .build();
+        assertEquals(Arrays.asList("db-1", "web-1"), names(cache.getPods(noDev)));
+
+        assertEquals(0, cache.getPods(selector("app", "unknown")).size());
+    }
+
+    @Test
+    public void indexFollowsEvents() {
+        PodCache cache = createCache(pod("web-1", "2019-06-10T10:00:00Z", "web", "prod"));
+
+        cache.onEvent(Watcher.Action.MODIFIED, pod("web-1", "2019-06-10T10:00:00Z", "api", "prod"));
+        assertEquals(0, cache.getPods(selector("app", "web")).size());
+        assertEquals(Collections.singletonList("web-1"), names(cache.getPods(selector("app", "api"))));
+
+        cache.onEvent(Watcher.Action.ADDED, pod("api-2", "2019-06-10T11:00:00Z", "api", "prod"));
+        assertEquals(2, cache.getPods(selector("app", "api")).size());
+
+        cache.onEvent(Watcher.Action.DELETED, pod("web-1", "2019-06-10T10:00:00Z", "api", "prod"));
+        assertEquals(Collections.singletonList("api-2"), names(cache.getPods(selector("env", "prod"))));
+    }
+
+    @Test
+    public void ownedPods() {
+        Pod owned = new PodBuilder(pod("web-1", "2019-06-10T10:00:00Z", "web", "prod"))
+            .editMetadata().addNewOwnerReference().withUid("rs-1").withKind("ReplicaSet").withName("web").endOwnerReference().endMetadata()
+            .build();
+        PodCache cache = createCache(owned, pod("web-2", "2019-06-10T11:00:00Z", "web", "prod"));
+
+        assertEquals(Collections.singletonList("web-1"), names(cache.getPodsOwnedBy("rs-1")));
+        assertEquals(0, cache.getPodsOwnedBy("rs-2").size());
+
+        cache.onEvent(Watcher.Action.DELETED, owned);
+        assertEquals(0, cache.getPodsOwnedBy("rs-1").size());
+    }
+
+    @Test
+    public void newestPod() {
+        PodCache cache = createCache(
+            pod("web-1", "2019-06-10T10:00:00Z", "web", "prod"),
+            pod("web-2", "2019-06-10T12:00:00Z", "web", "dev"),
+            pod("web-3", null, "web", "prod"),
+            pod("db-1", "2019-06-10T13:00:00Z", "db", "prod"));
+
+        assertEquals("web-2", KubernetesHelper.getName(cache.getNewestPod(selector("app", "web"), pod -> true)));
+        assertEquals("web-1", KubernetesHelper.getName(cache.getNewestPod(selector("app", "web"),
+            pod -> "prod".equals(KubernetesHelper.getLabels(pod).get("env")))));
+        assertNull(cache.getNewestPod(selector("app", "unknown"), pod -> true));
+    }
+
+    @Test
+    public void listenersSeeUpdatedCache() throws IOException {
+        PodCache cache = createCache();
+        List<Integer> sizes = new ArrayList<>();
+        Closeable listener = cache.addListener(new Watcher<Pod>() {
+            @Override
+            public void eventReceived(Action action, Pod pod) {
+                sizes.add(cache.getPods(null).size());
+            }
+
+            @Override
+            public void onClose(KubernetesClientException cause) {
+            }
+        });
+
+        cache.onEvent(Watcher.Action.ADDED, pod("web-1", "2019-06-10T10:00:00Z", "web", "prod"));
+        listener.close();
+        cache.onEvent(Watcher.Action.ADDED, pod("web-2", "2019-06-10T10:00:00Z", "web", "prod"));
+
+        assertEquals(Collections.singletonList(1), sizes);
+    }
+
+    @Test
+    public void restartIsRetried() throws InterruptedException {
+        List<KubernetesClientException> closed = new ArrayList<>();
+        PodCache cache = createFailingCache(2, closed);
+
+        cache.restart(new KubernetesClientException("gone"), 1);
+
+        assertEquals(0, closed.size());
+        assertEquals(1, cache.getPods(null).size());
+    }
+
+    @Test
+    public void listenersClosedWhenRestartFails() throws InterruptedException {
+        List<KubernetesClientException> closed = new ArrayList<>();
+        PodCache cache = createFailingCache(Integer.MAX_VALUE, closed);
+
+        cache.restart(new KubernetesClientException("gone"), 1);
+
+        assertEquals(1, closed.size());
+        assertEquals("unavailable", closed.get(0).getMessage());
+        assertEquals(0, cache.getPods(null).size());
+    }
+
+    // Cache whose restarts fail the given number of times
+    private PodCache createFailingCache(int failures, List<KubernetesClientException> closed) {
+        AtomicInteger attempts = new AtomicInteger();
+        PodCache cache = new PodCache(null, "test", null, new KitLogger.StdoutLogger(), "test") {
+            @Override
+            synchronized void start() {
+                if (attempts.incrementAndGet() <= failures) {
+                    throw new KubernetesClientException("unavailable");
+                }
+            }
+        };
+        cache.reset(Collections.singletonList(pod("web-1", "2019-06-10T10:00:00Z", "web", "prod")));
+        cache.addListener(new Watcher<Pod>() {
+            @Override
+            public void eventReceived(Action action, Pod pod) {
+            }
+
+            @Override
+            public void onClose(KubernetesClientException cause) {
+                closed.add(cause);
+            }
+        });
+        return cache;
+    }
+
+    private PodCache createCache(Pod... pods) {
+        PodCache cache = new PodCache(null, "test", null, null, "test");
+        cache.reset(Arrays.asList(pods));
+        return cache;
+    }
+
+    private Pod pod(String name, String created, String app, String env) {
+        return new PodBuilder()
+            .withNewMetadata()
+              .withName(name)
+              .withCreationTimestamp(created)
+              .addToLabels("app", app)
+              .addToLabels("env", env)
+            .endMetadata()
+            .build();
+    }
+
+    private LabelSelector selector(String key, String value) {
+        return new LabelSelectorBuilder().addToMatchLabels(key, value).build();
+    }
+
+    private List<String> names(List<Pod> pods) {
+        List<String> ret = new ArrayList<>();
+        for (Pod pod : pods) {
+            ret.add(KubernetesHelper.getName(pod));
+        }
+        Collections.sort(ret);
+        return ret;
+    }
+}
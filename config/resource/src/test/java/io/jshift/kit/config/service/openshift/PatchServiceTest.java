@@ -94,9 +94,72 @@ public class PatchServiceTest {
         PatchService patchService = new PatchService(client, log);
 
         patchService.compareAndPatchEntity("test", newSecret, oldSecret);
-        collector.assertEventsRecordedInOrder("get-secret", "get-secret", "patch-secret");
-        assertEquals("[{\"op\":\"remove\",\"path\":\"/data\"},{\"op\":\"add\",\"path\":\"/stringData\",\"value\":{\"test\":\"test\"}}]", collector.getBodies().get(2));
+        collector.assertEventsRecorded("patch-secret");
+        collector.assertEventsNotRecorded("get-secret");
+        assertEquals("{\"stringData\":{\"test\":\"test\"}}", collector.getBodies().get(0));
+    }
+
+    @Test
+    public void testPatchContainsOnlyChangedFields() {
+        Service oldService = new ServiceBuilder()
+                .withNewMetadata().withName("service1").withResourceVersion("12")
+                .addToLabels("app", "MyApp").addToLabels("version", "1.0").endMetadata()
+                .withNewSpec()
+                .withClusterIP("192.168.1.3")
+                .withSelector(Collections.singletonMap("app", "MyApp"))
+                .addNewPort().withProtocol("TCP").withTargetPort(new IntOrString(9376)).withPort(80).endPort()
+                .endSpec()
+                .build();
+        Service newService = new ServiceBuilder()
+                .withNewMetadata().withName("service1").addToLabels("app", "MyApp").endMetadata()
+                .withNewSpec()
+                .withSelector(Collections.singletonMap("app", "MyApp"))
+                .addNewPort().withTargetPort(new IntOrString(9377)).withPort(80).endPort()
+                .endSpec()
+                .build();
+        WebServerEventCollector<OpenShiftMockServer> collector = new WebServerEventCollector<>(mockServer);
+        mockServer.expect().patch().withPath("/api/v1/namespaces/test/services/service1")
+                .andReply(collector.record("patch-service").andReturn(200, newService)).once();
+
+        OpenShiftClient client = mockServer.createOpenShiftClient();
+        new PatchService(client, log).compareAndPatchEntity("test", newService, oldService);
+
+        collector.assertEventsRecorded("patch-service");
+        assertEquals("{\"metadata\":{\"labels\":{\"version\":null},\"resourceVersion\":\"12\"}," +
+                     "\"spec\":{\"ports\":[{\"port\":80,\"targetPort\":9377}]}}", collector.getBodies().get(0));
+    }
+
+    @Test
+    public void testPatchIsRecalculatedOnConflict() {
+        ConfigMap oldConfigMap = new ConfigMapBuilder()
+                .withNewMetadata().withName("configmap1").withResourceVersion("1").endMetadata()
+                .addToData("foo", "bar")
+                .build();
+        ConfigMap currentConfigMap = new ConfigMapBuilder()
+                .withNewMetadata().withName("configmap1").withResourceVersion("2").endMetadata()
+                .addToData("foo", "bar")
+                .addToData("other", "value")
+                .build();
+        ConfigMap newConfigMap = new ConfigMapBuilder()
+                .withNewMetadata().withName("configmap1").endMetadata()
+                .addToData("foo", "baz")
+                .build();
+        WebServerEventCollector<OpenShiftMockServer> collector = new WebServerEventCollector<>(mockServer);
+        mockServer.expect().patch().withPath("/api/v1/namespaces/test/configmaps/configmap1")
+                .andReply(collector.record("conflict").andReturn(409, "{\"kind\":\"Status\",\"code\":409}")).once();
+        mockServer.expect().get().withPath("/api/v1/namespaces/test/configmaps/configmap1")
+                .andReply(collector.record("get-configmap").andReturn(200, currentConfigMap)).once();
+        mockServer.expect().patch().withPath("/api/v1/namespaces/test/configmaps/configmap1")
+                .andReply(collector.record("patch-configmap").andReturn(200, newConfigMap)).once();
+
+        OpenShiftClient client = mockServer.createOpenShiftClient();
+        PatchService patchService = new PatchService(client, log);
+        ConfigMap patched = patchService.patchEntity(client.configMaps().inNamespace("test").withName("configmap1"), newConfigMap, oldConfigMap);
 
+        assertEquals("baz", patched.getData().get("foo"));
+        collector.assertEventsRecordedInOrder("conflict", "get-configmap", "patch-configmap");
+        assertEquals("{\"data\":{\"foo\":\"baz\"},\"metadata\":{\"resourceVersion\":\"1\"}}", collector.getBodies().get(0));
+        assertEquals("{\"data\":{\"foo\":\"baz\",\"other\":null},\"metadata\":{\"resourceVersion\":\"2\"}}", collector.getBodies().get(2));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.maven.enricher.api;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.jshift.maven.enricher.api.util.EnrichmentFingerprint;
+
+/**
+ * Enricher which reads inputs beyond its {@link EnricherContext}, like referenced files, the git repository
+ * or the Maven settings. These inputs must be added to the {@link EnrichmentFingerprint}, otherwise a cached
+ * enrichment result would be reused although they have changed.
+ */
+public interface FingerprintContributor {
+
+    /**
+     * Add the inputs of this enricher which are not part of the enricher context
+     *
+     * @param fingerprint fingerprint to add to. Components should be named after the enricher.
+     * @param fragments resource fragments which are going to be enriched, for inputs referenced by them
+     * @throws IOException if the inputs cannot be read. The result is not taken from the cache then.
+     */
+    void addToFingerprint(EnrichmentFingerprint fingerprint, File[] fragments) throws IOException;
+}
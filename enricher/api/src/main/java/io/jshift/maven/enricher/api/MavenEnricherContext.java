@@ -151,6 +151,24 @@ public class MavenEnricherContext implements EnricherContext {
         return project;
     }
 
+    public Properties getProperties() {
+        return properties;
+    }
+
+    // User and global settings files of the session, as far as they exist
+    public List<File> getSettingsFiles() {
+        List<File> ret = new ArrayList<>();
+        if (session != null && session.getRequest() != null) {
+            for (File file : new File[] { session.getRequest().getUserSettingsFile(),
+                                          session.getRequest().getGlobalSettingsFile() }) {
+                if (file != null && file.isFile()) {
+                    ret.add(file);
+                }
+            }
+        }
+        return ret;
+    }
+
     //Method used in MOJO
     public String getDockerJsonConfigString(final Settings settings, final String serverId) {
         Server server = getServer(settings, serverId);
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.maven.enricher.api.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.common.KitMetrics;
+import io.jshift.maven.enricher.api.model.Configuration;
+
+/**
+ * Cache for the result of the resource enrichment of a single module, so that an unchanged module
+ * doesn't need to read its fragments and run all enrichers again.
+ *
+ * The result is stored as JSON together with the {@link EnrichmentFingerprint} of its inputs, by default
+ * below the module's build directory. A lookup only succeeds if the fingerprint of the current inputs
+ * is the same. Otherwise the components which have changed are reported.
+ */
+public class EnrichmentCache {
+
+    // Property for switching on the incremental mode
+    public static final String INCREMENTAL_PROPERTY = "jshift.resources.incremental";
+
+    // Bump when the stored format changes
+    static final String FORMAT_VERSION = "1";
+
+    private static final String FINGERPRINT_FILE = "fingerprint.properties";
+    private static final String RESOURCES_FILE = "resources.json";
+    private static final String META_FORMAT = "format";
+    private static final String META_HASH = "hash";
+    private static final String META_COMPONENT_PREFIX = "component.";
+
+    private final File cacheDir;
+    private final String module;
+    private final KitLogger log;
+
+    /**
+     * @param cacheDir directory for this module's cache (e.g. <code>target/jshift/enrichment-cache</code>)
+     * @param module name of the module used when reporting
+     * @param log logger to use
+     */
+    public EnrichmentCache(File cacheDir, String module, KitLogger log) {
+        this.cacheDir = cacheDir;
+        this.module = module;
+        this.log = log;
+    }
+
+    /**
+     * Check whether the incremental mode is switched on, either as project or system property
+     *
+     * @param configuration configuration to look up the property
+     * @return true if previous results should be reused
+     */
+    public static boolean isIncremental(Configuration configuration) {
+        return Boolean.parseBoolean(configuration.getPropertyWithSystemOverride(INCREMENTAL_PROPERTY));
+    }
+
+    /**
+     * Look up the resources generated from the same inputs
+     *
+     * @param fingerprint fingerprint of the current inputs
+     * @return the previous result or empty if there is none or the inputs have changed
+     */
+    public Optional<KubernetesList> lookup(EnrichmentFingerprint fingerprint) {
+        Properties meta = readMeta();
+        File resourcesFile = new File(cacheDir, RESOURCES_FILE);
+        if (meta == null || !resourcesFile.exists() || !FORMAT_VERSION.equals(meta.getProperty(META_FORMAT))) {
+            reportMiss("no previous result");
+            return Optional.empty();
+        }
+        if (!fingerprint.getHash().equals(meta.getProperty(META_HASH))) {
+            reportMiss("changed " + String.join(", ", getChangedComponents(meta, fingerprint)));
+            return Optional.empty();
+        }
+        try (InputStream in = new FileInputStream(resourcesFile)) {
+            KubernetesList ret = Serialization.jsonMapper().readValue(in, KubernetesList.class);
+            log.info("%s: Reusing resources of previous run (enrichment cache hit)", module);
+            KitMetrics.count("enrichment.cache.hit");
+            return Optional.of(ret);
+        } catch (IOException | RuntimeException exp) {
+            reportMiss("cannot read " + resourcesFile + ": " + exp.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store a result for later lookups. Failures are only logged, as the cache is an optimization only.
+     *
+     * @param fingerprint fingerprint of the inputs the result was created from
+     * @param resources enriched resources
+     */
+    public void store(EnrichmentFingerprint fingerprint, KubernetesList resources) {
+        try {
+            Files.createDirectories(cacheDir.toPath());
+            // Remove the old fingerprint first, so that an interrupted update never matches
+            Files.deleteIfExists(new File(cacheDir, FINGERPRINT_FILE).toPath());
+            writeAtomically(new File(cacheDir, RESOURCES_FILE), out -> Serialization.jsonMapper().writeValue(out, resources));
+
+            Properties meta = new Properties();
+            meta.setProperty(META_FORMAT, FORMAT_VERSION);
+            meta.setProperty(META_HASH, fingerprint.getHash());
+            for (Map.Entry<String, String> component : fingerprint.getComponents().entrySet()) {
+                meta.setProperty(META_COMPONENT_PREFIX + component.getKey(), component.getValue());
+            }
+            writeAtomically(new File(cacheDir, FINGERPRINT_FILE), out -> meta.store(out, "Enrichment inputs of " + module));
+        } catch (IOException exp) {
+            log.warn("%s: Cannot store enrichment result in %s: %s", module, cacheDir, exp.getMessage());
+        }
+    }
+
+    // =========================================================================================
+
+    private void reportMiss(String reason) {
+        log.info("%s: Generating resources (enrichment cache miss: %s)", module, reason);
+        KitMetrics.count("enrichment.cache.miss");
+    }
+
+    private List<String> getChangedComponents(Properties meta, EnrichmentFingerprint fingerprint) {
+        List<String> ret = new ArrayList<>();
+        for (Map.Entry<String, String> component : fingerprint.getComponents().entrySet()) {
+            if (!component.getValue().equals(meta.getProperty(META_COMPONENT_PREFIX + component.getKey()))) {
+                ret.add(component.getKey());
+            }
+        }
+        for (String key : meta.stringPropertyNames()) {
+            if (key.startsWith(META_COMPONENT_PREFIX) &&
+                !fingerprint.getComponents().containsKey(key.substring(META_COMPONENT_PREFIX.length()))) {
+                ret.add(key.substring(META_COMPONENT_PREFIX.length()));
+            }
+        }
+        return ret;
+    }
+
+    private Properties readMeta() {
+        File metaFile = new File(cacheDir, FINGERPRINT_FILE);
+        if (!metaFile.exists()) {
+            return null;
+        }
+        Properties meta = new Properties();
+        try (InputStream in = new FileInputStream(metaFile)) {
+            meta.load(in);
+            return meta;
+        } catch (IOException e) {
+            log.warn("%s: Cannot read enrichment cache %s: %s", module, metaFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private void writeAtomically(File target, Writer writer) throws IOException {
+        File tmpFile = File.createTempFile(".cache-", ".tmp", cacheDir);
+        try {
+            try (OutputStream out = new FileOutputStream(tmpFile)) {
+                writer.write(out);
+            }
+            Files.move(tmpFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.maven.enricher.api.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.jshift.kit.config.resource.GroupArtifactVersion;
+import io.jshift.maven.enricher.api.Enricher;
+import io.jshift.maven.enricher.api.EnricherContext;
+import io.jshift.maven.enricher.api.FingerprintContributor;
+import io.jshift.maven.enricher.api.MavenEnricherContext;
+import io.jshift.maven.enricher.api.model.Configuration;
+import io.jshift.maven.enricher.api.model.Dependency;
+
+/**
+ * Fingerprint of everything which goes into the enrichment of resources. It is made up of named
+ * components, each with its own SHA-256 hash, so that a changed fingerprint can tell which input
+ * has changed.
+ *
+ * Inputs which cannot be hashed make the fingerprint unique, so that it never matches a previous one.
+ * Enrichers which read inputs beyond the enricher context add them as {@link FingerprintContributor}.
+ */
+public class EnrichmentFingerprint {
+
+    // Prefix of system properties which override project properties
+    private static final String SYSTEM_PROPERTY_PREFIX = "jshift.";
+
+    // Field based, sorted serialization so that the same configuration always results in the same hash
+    private static final ObjectMapper CONFIG_MAPPER = new ObjectMapper()
+        .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+        .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+        .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+        .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+
+    private final Map<String, String> components = new LinkedHashMap<>();
+
+    /**
+     * Fingerprint with all inputs known to the enricher context: the project coordinates, project and
+     * context properties and <code>jshift.*</code> system properties, image, resource and processor
+     * configuration, processing instructions, dependencies, the enrichers used and the resource fragments.
+     * Enrichers implementing {@link FingerprintContributor} add their own inputs after that.
+     *
+     * Inputs only known to the caller (like the profile or plugin configuration) can be added afterwards.
+     *
+     * @param context enricher context
+     * @param enrichers enrichers which are going to be applied, in their order
+     * @param fragments resource fragments which are read
+     * @return the fingerprint
+     */
+    public static EnrichmentFingerprint of(EnricherContext context, List<Enricher> enrichers, File[] fragments) {
+        EnrichmentFingerprint ret = new EnrichmentFingerprint();
+        GroupArtifactVersion gav = context.getGav();
+        if (gav != null) {
+            ret.add("gav", gav.getGroupId() + ":" + gav.getArtifactId() + ":" + gav.getVersion());
+        }
+        Configuration config = context.getConfiguration();
+        ret.addProperties("properties", config.getProperties());
+        if (context instanceof MavenEnricherContext) {
+            ret.addProperties("contextProperties", ((MavenEnricherContext) context).getProperties());
+        }
+        ret.addProperties("systemProperties", getJshiftSystemProperties());
+        ret.addConfiguration("images", config.getImages().orElse(Collections.emptyList()));
+        ret.addConfiguration("resource", config.getResource().orElse(null));
+        ret.addConfiguration("processor", config.getProcessorConfig().orElse(null));
+        ret.addConfiguration("processingInstructions", context.getProcessingInstructions());
+        ret.addDependencies("dependencies", context);
+        ret.addEnrichers("enrichers", enrichers);
+        ret.addFiles("fragments", fragments);
+        for (Enricher enricher : enrichers) {
+            Enricher implementation = getImplementation(enricher);
+            if (implementation instanceof FingerprintContributor) {
+                try {
+                    ((FingerprintContributor) implementation).addToFingerprint(ret, fragments);
+                } catch (IOException | RuntimeException exp) {
+                    ret.addUnhashable(enricher.getName());
+                }
+            }
+        }
+        return ret;
+    }
+
+    public EnrichmentFingerprint add(String component, String value) {
+        components.put(component, sha256(String.valueOf(value).getBytes(StandardCharsets.UTF_8)));
+        return this;
+    }
+
+    /**
+     * Add files by name and content, in the order of their paths
+     *
+     * @param component name of the component
+     * @param files files to add, can be <code>null</code>
+     * @return this fingerprint
+     */
+    public EnrichmentFingerprint addFiles(String component, File... files) {
+        MessageDigest digest = newDigest();
+        if (files != null) {
+            File[] sorted = files.clone();
+            Arrays.sort(sorted, Comparator.comparing(File::getPath));
+            for (File file : sorted) {
+                digest.update(file.getName().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                try {
+                    digest.update(file.isFile() ? Files.readAllBytes(file.toPath()) : new byte[0]);
+                } catch (IOException exp) {
+                    return addUnhashable(component);
+                }
+                digest.update((byte) 0);
+            }
+        }
+        components.put(component, toHex(digest.digest()));
+        return this;
+    }
+
+    public EnrichmentFingerprint addProperties(String component, Properties properties) {
+        Map<String, String> sorted = new TreeMap<>();
+        if (properties != null) {
+            for (String key : properties.stringPropertyNames()) {
+                sorted.put(key, properties.getProperty(key));
+            }
+        }
+        return addConfiguration(component, sorted);
+    }
+
+    /**
+     * Add a configuration object by the values of its fields
+     *
+     * @param component name of the component
+     * @param config configuration, can be <code>null</code>
+     * @return this fingerprint
+     */
+    public EnrichmentFingerprint addConfiguration(String component, Object config) {
+        try {
+            components.put(component, sha256(CONFIG_MAPPER.writeValueAsBytes(config)));
+            return this;
+        } catch (IOException | RuntimeException exp) {
+            return addUnhashable(component);
+        }
+    }
+
+    /**
+     * Add an input which cannot be hashed. The fingerprint then never matches a previous one.
+     *
+     * @param component name of the component
+     * @return this fingerprint
+     */
+    public EnrichmentFingerprint addUnhashable(String component) {
+        components.put(component, "unhashable-" + UUID.randomUUID());
+        return this;
+    }
+
+    private EnrichmentFingerprint addDependencies(String component, EnricherContext context) {
+        StringBuilder description = new StringBuilder();
+        try {
+            for (Dependency dependency : context.getDependencies(true)) {
+                GroupArtifactVersion gav = dependency.getGav();
+                description.append(gav.getGroupId()).append(':').append(gav.getArtifactId()).append(':')
+                           .append(gav.getVersion()).append(':').append(dependency.getType()).append(':')
+                           .append(dependency.getScope()).append('\n');
+            }
+        } catch (RuntimeException exp) {
+            return addUnhashable(component);
+        }
+        return add(component, description.toString());
+    }
+
+    /**
+     * Add enrichers by name and implementation. For the implementation the class name and the
+     * size and modification time of the jar it was loaded from are used, so that changed enricher
+     * code (e.g. a new snapshot) changes the fingerprint.
+     *
+     * @param component name of the component
+     * @param enrichers enrichers in the order they are applied
+     * @return this fingerprint
+     */
+    public EnrichmentFingerprint addEnrichers(String component, List<Enricher> enrichers) {
+        StringBuilder description = new StringBuilder();
+        for (Enricher enricher : enrichers) {
+            Enricher implementation = getImplementation(enricher);
+            description.append(enricher.getName()).append('=')
+                       .append(implementation.getClass().getName()).append('@')
+                       .append(getCodeSourceVersion(implementation.getClass())).append('\n');
+        }
+        return add(component, description.toString());
+    }
+
+    /**
+     * Hashes of all components, in the order they have been added
+     *
+     * @return unmodifiable map from component name to hash
+     */
+    public Map<String, String> getComponents() {
+        return Collections.unmodifiableMap(components);
+    }
+
+    /**
+     * Overall hash over all components
+     *
+     * @return hash as hex string
+     */
+    public String getHash() {
+        MessageDigest digest = newDigest();
+        for (Map.Entry<String, String> entry : components.entrySet()) {
+            digest.update((entry.getKey() + "=" + entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return toHex(digest.digest());
+    }
+
+    // =========================================================================================
+
+    private static Enricher getImplementation(Enricher enricher) {
+        return enricher instanceof TimedEnricher ? ((TimedEnricher) enricher).getDelegate() : enricher;
+    }
+
+    private static Properties getJshiftSystemProperties() {
+        Properties ret = new Properties();
+        Properties system = System.getProperties();
+        for (String key : system.stringPropertyNames()) {
+            if (key.startsWith(SYSTEM_PROPERTY_PREFIX)) {
+                ret.setProperty(key, system.getProperty(key));
+            }
+        }
+        return ret;
+    }
+
+    private static String getCodeSourceVersion(Class<?> clazz) {
+        CodeSource source = clazz.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null) {
+            return "unknown";
+        }
+        try {
+            File location = new File(source.getLocation().toURI());
+            return location.getName() + ":" + location.length() + ":" + location.lastModified();
+        } catch (URISyntaxException | IllegalArgumentException exp) {
+            return source.getLocation().toString();
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        return toHex(newDigest().digest(data));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder ret = new StringBuilder();
+        for (byte b : hash) {
+            ret.append(String.format("%02x", b));
+        }
+        return ret.toString();
+    }
+}
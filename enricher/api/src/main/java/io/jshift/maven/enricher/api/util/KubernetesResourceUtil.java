@@ -2,6 +2,7 @@ package io.jshift.maven.enricher.api.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URL;
@@ -25,7 +26,6 @@ import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
@@ -43,31 +43,28 @@ import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
 import io.fabric8.kubernetes.api.model.KubernetesResource;
 import io.fabric8.kubernetes.api.model.LabelSelector;
-import io.fabric8.kubernetes.api.model.LabelSelectorBuilder;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodSpec;
 import io.fabric8.kubernetes.api.model.PodSpecBuilder;
 import io.fabric8.kubernetes.api.model.PodStatus;
 import io.fabric8.kubernetes.api.model.PodTemplateSpec;
-import io.fabric8.kubernetes.api.model.ReplicationController;
-import io.fabric8.kubernetes.api.model.ReplicationControllerSpec;
 import io.fabric8.kubernetes.api.model.apps.*;
 import io.fabric8.kubernetes.api.model.batch.Job;
-import io.fabric8.kubernetes.api.model.batch.JobSpec;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.internal.HasMetadataComparator;
 import io.fabric8.openshift.api.model.Build;
 import io.fabric8.openshift.api.model.DeploymentConfig;
-import io.fabric8.openshift.api.model.DeploymentConfigSpec;
 import io.fabric8.openshift.api.model.Template;
 import io.jshift.kit.build.service.docker.ImageConfiguration;
 import io.jshift.kit.common.KitLogger;
-import io.jshift.kit.common.util.FileUtil;
+import io.jshift.kit.common.KitMetrics;
 import io.jshift.kit.common.util.KindFilenameMapperUtil;
 import io.jshift.kit.common.util.KubernetesHelper;
 import io.jshift.kit.common.util.MapUtil;
 import io.jshift.kit.common.util.OpenshiftHelper;
+import io.jshift.kit.common.util.ParallelUtil;
+import io.jshift.kit.common.util.RemoteResourceCache;
 import io.jshift.kit.common.util.ResourceUtil;
 import io.jshift.kit.config.image.ImageName;
 import io.jshift.kit.config.resource.GroupArtifactVersion;
@@ -112,7 +109,8 @@ public class KubernetesResourceUtil {
 
     /**
      * Read all Kubernetes resource fragments from a directory and create a {@link KubernetesListBuilder} which
-     * can be adapted later.
+     * can be adapted later. Fragments are parsed in parallel if there are many of them, but are added
+     * to the builder in the order given.
      *
      * @param apiVersions the api versions to use
      * @param defaultName the default name to use when none is given
@@ -123,18 +121,42 @@ public class KubernetesResourceUtil {
     public static KubernetesListBuilder readResourceFragmentsFrom(PlatformMode platformMode, ResourceVersioning apiVersions,
                                                                   String defaultName,
                                                                   File[] resourceFiles) throws IOException {
+        return readResourceFragmentsFrom(platformMode, apiVersions, defaultName, resourceFiles,
+                                         Runtime.getRuntime().availableProcessors());
+    }
+
+    static KubernetesListBuilder readResourceFragmentsFrom(PlatformMode platformMode, ResourceVersioning apiVersions,
+                                                           String defaultName, File[] resourceFiles,
+                                                           int parallelism) throws IOException {
         KubernetesListBuilder builder = new KubernetesListBuilder();
         if (resourceFiles != null) {
+            List<File> fragments = new ArrayList<>();
             for (File file : resourceFiles) {
                 if(file.getName().endsWith("cr.yml")) // Don't process custom resources
                     continue;
-                HasMetadata resource = getResource(platformMode, apiVersions, file, defaultName);
-                builder.addToItems(resource);
+                fragments.add(file);
             }
+            try (KitMetrics.Span span = KitMetrics.span("resources", "readResourceFragments")) {
+                builder.addAllToItems(getResources(platformMode, apiVersions, fragments, defaultName, parallelism));
+            }
+            KitMetrics.count("resources.fragments", fragments.size());
         }
         return builder;
     }
 
+    // Minimal number of fragments for which parsing is done in parallel
+    private static final int PARALLEL_FRAGMENT_THRESHOLD = 8;
+
+    private static List<HasMetadata> getResources(PlatformMode platformMode, ResourceVersioning apiVersions,
+                                                  List<File> files, String appName, int parallelism) throws IOException {
+        try {
+            return ParallelUtil.map(files, files.size() < PARALLEL_FRAGMENT_THRESHOLD ? 1 : parallelism, file -> getResource(platformMode, apiVersions, file, appName));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading resource fragments");
+        }
+    }
+
     /**
      * Read a Kubernetes resource fragment and add meta information extracted from the filename
      * to the resource descriptor. I.e. the following elements are added if not provided in the fragment:
@@ -152,12 +174,13 @@ public class KubernetesResourceUtil {
      */
     public static HasMetadata getResource(PlatformMode platformMode, ResourceVersioning apiVersions,
                                           File file, String appName) throws IOException {
-        Map<String,Object> fragment = readAndEnrichFragment(platformMode, apiVersions, file, appName);
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            return mapper.convertValue(fragment, HasMetadata.class);
-        } catch (ClassCastException exp) {
-            throw new IllegalArgumentException(String.format("Resource fragment %s has an invalid syntax (%s)", file.getPath(), exp.getMessage()));
+        try (KitMetrics.Span span = KitMetrics.span("resources", "readFragment", file.getName())) {
+            Map<String,Object> fragment = readAndEnrichFragment(platformMode, apiVersions, file, appName);
+            try {
+                return JSON_MAPPER.convertValue(fragment, HasMetadata.class);
+            } catch (ClassCastException exp) {
+                throw new IllegalArgumentException(String.format("Resource fragment %s has an invalid syntax (%s)", file.getPath(), exp.getMessage()));
+            }
         }
     }
 
@@ -174,19 +197,30 @@ public class KubernetesResourceUtil {
     }
 
     public static File[] listResourceFragments(File resourceDir) {
-        final Pattern filenamePattern = Pattern.compile(FILENAME_PATTERN);
-        final Pattern exludePattern = Pattern.compile(PROFILES_PATTERN);
-        return resourceDir.listFiles((File dir, String name) -> filenamePattern.matcher(name).matches() && !exludePattern.matcher(name).matches());
+        return resourceDir.listFiles((File dir, String name) -> FILENAME_REGEXP.matcher(name).matches() && !PROFILES_REGEXP.matcher(name).matches());
     }
 
     public static File[] listRemoteResourceFragments(List<String> remotes, KitLogger log) {
-        if (remotes != null && !remotes.isEmpty()) {
-            final File remoteResources = FileUtil.createTempDirectory();
-            FileUtil.downloadRemotes(remoteResources, remotes, log);
+        try {
+            return listRemoteResourceFragments(remotes, new RemoteResourceCache(log));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
 
-            if (remoteResources.isDirectory()) {
-                return remoteResources.listFiles();
-            }
+    /**
+     * Fetch remote resource fragments through the given cache, so that fragments which haven't changed
+     * are not downloaded again.
+     *
+     * @param remotes URLs of the fragments
+     * @param cache cache to use for fetching the fragments
+     * @return the local fragment files
+     * @throws IOException if a fragment can neither be downloaded nor be found in the cache
+     */
+    public static File[] listRemoteResourceFragments(List<String> remotes, RemoteResourceCache cache) throws IOException {
+        if (remotes != null && !remotes.isEmpty()) {
+            List<File> remoteResources = cache.fetch(remotes);
+            return remoteResources.toArray(new File[0]);
         }
         return new File[0];
     }
@@ -233,11 +267,19 @@ public class KubernetesResourceUtil {
     private static final String FILENAME_PATTERN = "^(?<name>.*?)(-(?<type>[^-]+))?\\.(?<ext>yaml|yml|json)$";
     private static final String PROFILES_PATTERN = "^profiles?\\.ya?ml$";
 
+    private static final Pattern FILENAME_REGEXP = Pattern.compile(FILENAME_PATTERN);
+    private static final Pattern FILENAME_REGEXP_IGNORE_CASE = Pattern.compile(FILENAME_PATTERN, Pattern.CASE_INSENSITIVE);
+    private static final Pattern PROFILES_REGEXP = Pattern.compile(PROFILES_PATTERN);
+
+    // Mappers are thread safe and expensive to create, so they are shared
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
+    private static final TypeReference<HashMap<String,Object>> FRAGMENT_TYPE_REF = new TypeReference<HashMap<String,Object>>() {};
+
     // Read fragment and add default values
     private static Map<String, Object> readAndEnrichFragment(PlatformMode platformMode, ResourceVersioning apiVersions,
                                                              File file, String appName) throws IOException {
-        Pattern pattern = Pattern.compile(FILENAME_PATTERN, Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(file.getName());
+        Matcher matcher = FILENAME_REGEXP_IGNORE_CASE.matcher(file.getName());
         if (!matcher.matches()) {
             throw new IllegalArgumentException(
                     String.format("Resource file name '%s' does not match pattern <name>-<type>.(yaml|yml|json)", file.getName()));
@@ -334,10 +376,9 @@ public class KubernetesResourceUtil {
     }
 
     private static Map<String,Object> readFragment(File file, String ext) throws IOException {
-        ObjectMapper mapper = new ObjectMapper("json".equals(ext) ? new JsonFactory() : new YAMLFactory());
-        TypeReference<HashMap<String,Object>> typeRef = new TypeReference<HashMap<String,Object>>() {};
+        ObjectMapper mapper = "json".equals(ext) ? JSON_MAPPER : YAML_MAPPER;
         try {
-            Map<String, Object> ret = mapper.readValue(file, typeRef);
+            Map<String, Object> ret = mapper.readValue(file, FRAGMENT_TYPE_REF);
             return ret != null ? ret : new HashMap<String, Object>();
         } catch (JsonProcessingException e) {
             throw new JsonMappingException(String.format("[%s] %s", file, e.getMessage()), e.getLocation(), e);
@@ -521,25 +562,7 @@ public class KubernetesResourceUtil {
     }
 
     public static Pod getNewestPod(Collection<Pod> pods) {
-        if (pods == null || pods.isEmpty()) {
-            return null;
-        }
-        List<Pod> sortedPods = new ArrayList<>(pods);
-        Collections.sort(sortedPods, (p1, p2) -> {
-            Date t1 = getCreationTimestamp(p1);
-            Date t2 = getCreationTimestamp(p2);
-            if (t1 != null) {
-                if (t2 == null) {
-                    return 1;
-                } else {
-                    return t1.compareTo(t2);
-                }
-            } else if (t2 == null) {
-                return 0;
-            }
-            return -1;
-        });
-        return sortedPods.get(sortedPods.size() - 1);
+        return KubernetesHelper.getNewestPod(pods);
     }
 
     public static Date getCreationTimestamp(HasMetadata hasMetadata) {
@@ -816,72 +839,11 @@ public class KubernetesResourceUtil {
     }
 
     public static LabelSelector getPodLabelSelector(Set<HasMetadata> entities) {
-        LabelSelector chosenSelector = null;
-        for (HasMetadata entity : entities) {
-            LabelSelector selector = getPodLabelSelector(entity);
-            if (selector != null) {
-                if (chosenSelector != null && !chosenSelector.equals(selector)) {
-                    throw new IllegalArgumentException("Multiple selectors found for the given entities: " + chosenSelector + " - " + selector);
-                }
-                chosenSelector = selector;
-            }
-        }
-        return chosenSelector;
+        return KubernetesHelper.getPodLabelSelector(entities);
     }
 
     public static LabelSelector getPodLabelSelector(HasMetadata entity) {
-        LabelSelector selector = null;
-        if (entity instanceof Deployment) {
-            Deployment resource = (Deployment) entity;
-            DeploymentSpec spec = resource.getSpec();
-            if (spec != null) {
-                selector = spec.getSelector();
-            }
-        } else if (entity instanceof ReplicaSet) {
-            ReplicaSet resource = (ReplicaSet) entity;
-            ReplicaSetSpec spec = resource.getSpec();
-            if (spec != null) {
-                selector = spec.getSelector();
-            }
-        } else if (entity instanceof DeploymentConfig) {
-            DeploymentConfig resource = (DeploymentConfig) entity;
-            DeploymentConfigSpec spec = resource.getSpec();
-            if (spec != null) {
-                selector = toLabelSelector(spec.getSelector());
-            }
-        } else if (entity instanceof ReplicationController) {
-            ReplicationController resource = (ReplicationController) entity;
-            ReplicationControllerSpec spec = resource.getSpec();
-            if (spec != null) {
-                selector = toLabelSelector(spec.getSelector());
-            }
-        } else if (entity instanceof DaemonSet) {
-            DaemonSet resource = (DaemonSet) entity;
-            DaemonSetSpec spec = resource.getSpec();
-            if (spec != null) {
-                selector = spec.getSelector();
-            }
-        } else if (entity instanceof StatefulSet) {
-            StatefulSet resource = (StatefulSet) entity;
-            StatefulSetSpec spec = resource.getSpec();
-            if (spec != null) {
-                selector = spec.getSelector();
-            }
-        } else if (entity instanceof Job) {
-            Job resource = (Job) entity;
-            JobSpec spec = resource.getSpec();
-            if (spec != null) {
-                selector = spec.getSelector();
-            }
-        }
-        return selector;
-    }
-
-    private static LabelSelector toLabelSelector(Map<String, String> matchLabels) {
-        if (matchLabels != null && !matchLabels.isEmpty()) {
-            return new LabelSelectorBuilder().withMatchLabels(matchLabels).build();
-        }
-        return null;
+        return KubernetesHelper.getPodLabelSelector(entity);
     }
 
     /**
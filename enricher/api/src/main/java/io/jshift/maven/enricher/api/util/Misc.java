@@ -22,6 +22,6 @@ import java.util.List;
 
 public class Misc {
     public static List<Enricher> filterEnrichers(ProcessorConfig config, List<Enricher> enrichers) {
-        return config.prepareProcessors(enrichers, "enricher");
+        return TimedEnricher.wrap(config.prepareProcessors(enrichers, "enricher"));
     }
 }
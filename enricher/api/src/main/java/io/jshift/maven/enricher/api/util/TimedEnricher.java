@@ -0,0 +1,77 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.maven.enricher.api.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.jshift.kit.common.KitMetrics;
+import io.jshift.kit.config.resource.PlatformMode;
+import io.jshift.maven.enricher.api.Enricher;
+
+/**
+ * Enricher which records the time spent in {@link #create(PlatformMode, KubernetesListBuilder)} and
+ * {@link #enrich(PlatformMode, KubernetesListBuilder)} of the enricher it wraps.
+ */
+public class TimedEnricher implements Enricher {
+
+    private final Enricher delegate;
+
+    private TimedEnricher(Enricher delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wrap enrichers for recording their timings, but only if metrics are enabled
+     *
+     * @param enrichers enrichers to wrap
+     * @return the wrapped enrichers or the given list when metrics are disabled
+     */
+    public static List<Enricher> wrap(List<Enricher> enrichers) {
+        if (!KitMetrics.isEnabled()) {
+            return enrichers;
+        }
+        List<Enricher> ret = new ArrayList<>(enrichers.size());
+        for (Enricher enricher : enrichers) {
+            ret.add(enricher instanceof TimedEnricher ? enricher : new TimedEnricher(enricher));
+        }
+        return ret;
+    }
+
+    public Enricher getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void create(PlatformMode platformMode, KubernetesListBuilder builder) {
+        try (KitMetrics.Span span = KitMetrics.span("enricher", getName() + ".create")) {
+            delegate.create(platformMode, builder);
+        }
+    }
+
+    @Override
+    public void enrich(PlatformMode platformMode, KubernetesListBuilder builder) {
+        try (KitMetrics.Span span = KitMetrics.span("enricher", getName() + ".enrich")) {
+            delegate.enrich(platformMode, builder);
+        }
+    }
+}
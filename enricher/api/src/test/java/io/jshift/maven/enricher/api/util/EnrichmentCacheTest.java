@@ -0,0 +1,215 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.maven.enricher.api.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.jshift.kit.build.service.docker.ImageConfiguration;
+import io.jshift.kit.common.KitLogger;
+import io.jshift.kit.config.resource.ProcessorConfig;
+import io.jshift.maven.enricher.api.BaseEnricher;
+import io.jshift.maven.enricher.api.Enricher;
+import io.jshift.maven.enricher.api.FingerprintContributor;
+import io.jshift.maven.enricher.api.MavenEnricherContext;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EnrichmentCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File fragment;
+    private Properties properties;
+    private MavenEnricherContext context;
+    private List<Enricher> enrichers;
+    private EnrichmentCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        fragment = folder.newFile("app-service.yml");
+        FileUtils.write(fragment, "metadata:\n  name: app\n", StandardCharsets.UTF_8);
+        properties = new Properties();
+        properties.setProperty("app.port", "8080");
+
+        Model model = new Model();
+        model.setGroupId("io.jshift");
+        model.setArtifactId("app");
+        model.setVersion("1.0.0");
+        model.setBuild(new Build());
+        MavenProject project = new MavenProject(model);
+        project.setFile(new File(folder.getRoot(), "pom.xml"));
+        context = new MavenEnricherContext.Builder()
+            .project(project)
+            .properties(properties)
+            .config(new ProcessorConfig())
+            .images(Collections.singletonList(new ImageConfiguration.Builder().name("jshift/app:1.0.0").build()))
+            .log(new RecordingLogger())
+            .processingInstructions(Collections.emptyMap())
+            .build();
+        enrichers = Arrays.asList(new BaseEnricher(context, "jshift-name"), new BaseEnricher(context, "jshift-image"));
+        cache = new EnrichmentCache(new File(folder.getRoot(), "target/jshift/enrichment-cache"), "app", new RecordingLogger());
+    }
+
+    @Test
+    public void fingerprintIsStable() {
+        assertEquals(fingerprint().getHash(), fingerprint().getHash());
+        assertEquals(Arrays.asList("gav", "properties", "contextProperties", "systemProperties", "images", "resource",
+                                   "processor", "processingInstructions", "dependencies", "enrichers", "fragments"),
+                     Arrays.asList(fingerprint().getComponents().keySet().toArray()));
+    }
+
+    @Test
+    public void fingerprintChangesWithInputs() throws IOException {
+        EnrichmentFingerprint original = fingerprint();
+
+        FileUtils.write(fragment, "metadata:\n  name: other\n", StandardCharsets.UTF_8);
+        EnrichmentFingerprint changedFragment = fingerprint();
+        assertNotEquals(original.getComponents().get("fragments"), changedFragment.getComponents().get("fragments"));
+        assertEquals(original.getComponents().get("contextProperties"), changedFragment.getComponents().get("contextProperties"));
+
+        properties.setProperty("app.port", "9090");
+        assertNotEquals(changedFragment.getComponents().get("contextProperties"), fingerprint().getComponents().get("contextProperties"));
+
+        EnrichmentFingerprint fewerEnrichers = EnrichmentFingerprint.of(context, enrichers.subList(0, 1), new File[] { fragment });
+        assertNotEquals(fingerprint().getComponents().get("enrichers"), fewerEnrichers.getComponents().get("enrichers"));
+    }
+
+    @Test
+    public void contributorsAddTheirInputs() throws IOException {
+        File data = folder.newFile("data.txt");
+        FileUtils.write(data, "one", StandardCharsets.UTF_8);
+        List<Enricher> withContributor = Arrays.asList(enrichers.get(0), new FileEnricher(context, data));
+        EnrichmentFingerprint original = EnrichmentFingerprint.of(context, withContributor, new File[] { fragment });
+        assertTrue(original.getComponents().containsKey("jshift-file"));
+
+        FileUtils.write(data, "two", StandardCharsets.UTF_8);
+        EnrichmentFingerprint changed = EnrichmentFingerprint.of(context, withContributor, new File[] { fragment });
+        assertNotEquals(original.getComponents().get("jshift-file"), changed.getComponents().get("jshift-file"));
+        assertEquals(original.getComponents().get("fragments"), changed.getComponents().get("fragments"));
+
+        // A contributor which fails makes the fingerprint unique
+        assertTrue(data.delete());
+        assertTrue(data.mkdir());
+        EnrichmentFingerprint failed = EnrichmentFingerprint.of(context, withContributor, new File[] { fragment });
+        assertNotEquals(failed.getHash(), EnrichmentFingerprint.of(context, withContributor, new File[] { fragment }).getHash());
+    }
+
+    @Test
+    public void reusesResultForSameInputs() {
+        assertFalse(cache.lookup(fingerprint()).isPresent());
+
+        cache.store(fingerprint(), resources());
+        Optional<KubernetesList> cached = cache.lookup(fingerprint());
+
+        assertTrue(cached.isPresent());
+        assertEquals("Service", cached.get().getItems().get(0).getKind());
+        assertEquals("app", cached.get().getItems().get(0).getMetadata().getName());
+    }
+
+    @Test
+    public void reportsChangedInputsOnMiss() {
+        cache.store(fingerprint(), resources());
+        properties.setProperty("app.port", "9090");
+        RecordingLogger log = new RecordingLogger();
+
+        Optional<KubernetesList> cached =
+            new EnrichmentCache(new File(folder.getRoot(), "target/jshift/enrichment-cache"), "app", log).lookup(fingerprint());
+
+        assertFalse(cached.isPresent());
+        assertEquals("app: Generating resources (enrichment cache miss: changed contextProperties)", log.lastInfo);
+    }
+
+    @Test
+    public void additionalComponentsAreTakenIntoAccount() {
+        cache.store(fingerprint().add("profile", "default"), resources());
+
+        assertTrue(cache.lookup(fingerprint().add("profile", "default")).isPresent());
+        assertFalse(cache.lookup(fingerprint().add("profile", "minimal")).isPresent());
+        assertFalse(cache.lookup(fingerprint()).isPresent());
+    }
+
+    private EnrichmentFingerprint fingerprint() {
+        return EnrichmentFingerprint.of(context, enrichers, new File[] { fragment });
+    }
+
+    private KubernetesList resources() {
+        return new KubernetesListBuilder()
+            .addToItems(new ServiceBuilder().withNewMetadata().withName("app").endMetadata().build())
+            .build();
+    }
+
+    private static class FileEnricher extends BaseEnricher implements FingerprintContributor {
+        private final File file;
+
+        private FileEnricher(MavenEnricherContext context, File file) {
+            super(context, "jshift-file");
+            this.file = file;
+        }
+
+        @Override
+        public void addToFingerprint(EnrichmentFingerprint fingerprint, File[] fragments) throws IOException {
+            if (!file.isFile()) {
+                throw new IOException("No file " + file);
+            }
+            fingerprint.addFiles(getName(), file);
+        }
+    }
+
+    private static class RecordingLogger implements KitLogger {
+        private String lastInfo;
+
+        @Override
+        public void debug(String format, Object... params) { }
+
+        @Override
+        public void info(String format, Object... params) {
+            lastInfo = String.format(format, params);
+        }
+
+        @Override
+        public void warn(String format, Object... params) { }
+
+        @Override
+        public void error(String format, Object... params) { }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+    }
+}
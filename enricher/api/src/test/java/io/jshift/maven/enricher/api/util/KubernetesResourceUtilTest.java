@@ -25,13 +25,18 @@ import io.jshift.kit.config.resource.ResourceVersioning;
 import mockit.Mocked;
 import org.apache.maven.project.MavenProject;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 
 import static io.jshift.maven.enricher.api.util.KubernetesResourceUtil.API_VERSION;
 import static io.jshift.maven.enricher.api.util.KubernetesResourceUtil.DEFAULT_RESOURCE_VERSIONING;
@@ -48,6 +53,9 @@ public class KubernetesResourceUtilTest {
 
     private static File jshiftDir;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Mocked
     final MavenProject project = new MavenProject();
 
@@ -177,5 +185,34 @@ public class KubernetesResourceUtilTest {
             assertEquals("v2",item.getApiVersion());
         }
     }
-}
 
+    @Test
+    public void parallelReadingGivesSameResultAsSequential() throws IOException {
+        File[] fragments = new File[50];
+        String[] types = { "cm", "svc", "deployment" };
+        for (int i = 0; i < fragments.length; i++) {
+            String type = types[i % types.length];
+            fragments[i] = folder.newFile(String.format("fragment%02d-%s.yml", i, type));
+            StringBuilder fragment = new StringBuilder("metadata:\n  labels:\n    index: \"" + i + "\"\n");
+            if ("cm".equals(type)) {
+                fragment.append("data:\n  key: value-").append(i).append("\n");
+            } else if ("svc".equals(type)) {
+                fragment.append("spec:\n  ports:\n  - port: 8080\n");
+            } else {
+                fragment.append("spec:\n  template:\n    spec:\n      containers:\n      - image: example/app:").append(i).append("\n");
+            }
+            Files.write(fragments[i].toPath(), fragment.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<HasMetadata> sequential =
+            KubernetesResourceUtil.readResourceFragmentsFrom(PlatformMode.kubernetes, DEFAULT_RESOURCE_VERSIONING, "app", fragments, 1).buildItems();
+        List<HasMetadata> parallel =
+            KubernetesResourceUtil.readResourceFragmentsFrom(PlatformMode.kubernetes, DEFAULT_RESOURCE_VERSIONING, "app", fragments, 8).buildItems();
+
+        assertEquals(fragments.length, parallel.size());
+        assertEquals(sequential, parallel);
+        for (int i = 0; i < fragments.length; i++) {
+            assertEquals(String.format("fragment%02d", i), parallel.get(i).getMetadata().getName());
+        }
+    }
+}
@@ -18,22 +18,26 @@ package io.jshift.enricher.generic;
 import io.fabric8.kubernetes.api.builder.TypedVisitor;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.jshift.kit.config.resource.PlatformMode;
 import io.jshift.kit.config.resource.ResourceConfig;
 import io.jshift.maven.enricher.api.BaseEnricher;
+import io.jshift.maven.enricher.api.FingerprintContributor;
 import io.jshift.maven.enricher.api.MavenEnricherContext;
+import io.jshift.maven.enricher.api.util.EnrichmentFingerprint;
 import io.jshift.kit.config.resource.ConfigMap;
 import io.jshift.kit.config.resource.ConfigMapEntry;
 
+import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-public class ConfigMapEnricher extends BaseEnricher {
+public class ConfigMapEnricher extends BaseEnricher implements FingerprintContributor {
 
     protected static final String PREFIX_ANNOTATION = "maven.jshift.io/cm/";
 
@@ -47,14 +51,30 @@ public class ConfigMapEnricher extends BaseEnricher {
         addConfigMapFromXmlConfigurations(builder);
     }
 
+    // The content of the files referenced by annotations or by the configuration is loaded into the ConfigMaps
+    @Override
+    public void addToFingerprint(EnrichmentFingerprint fingerprint, File[] fragments) throws IOException {
+        List<File> files = FileDataLoader.getReferencedFiles(fragments, PREFIX_ANNOTATION);
+        ConfigMap configMap = getConfigMapFromXmlConfiguration();
+        if (configMap != null) {
+            for (ConfigMapEntry configMapEntry : configMap.getEntries()) {
+                boolean inline = configMapEntry.getName() != null && configMapEntry.getValue() != null;
+                if (!inline && configMapEntry.getFile() != null) {
+                    files.add(new File(configMapEntry.getFile()));
+                }
+            }
+        }
+        fingerprint.addFiles(getName(), files.toArray(new File[0]));
+    }
+
     private void addAnnotations(KubernetesListBuilder builder) {
         builder.accept(new TypedVisitor<ConfigMapBuilder>() {
 
             @Override
             public void visit(ConfigMapBuilder element) {
-                final Map<String, String> annotations = element.buildMetadata().getAnnotations();
+                final ObjectMeta metadata = element.buildMetadata();
                 try {
-                    final Map<String, String> configMapAnnotations = createConfigMapFromAnnotations(annotations);
+                    final Map<String, String> configMapAnnotations = createConfigMapFromAnnotations(metadata.getName(), metadata.getAnnotations());
                     element.addToData(configMapAnnotations);
                 } catch (IOException e) {
                     throw new IllegalArgumentException(e);
@@ -63,7 +83,7 @@ public class ConfigMapEnricher extends BaseEnricher {
         });
     }
 
-    private Map<String, String> createConfigMapFromAnnotations(final Map<String, String> annotations) throws IOException {
+    private Map<String, String> createConfigMapFromAnnotations(final String name, final Map<String, String> annotations) throws IOException {
         final Set<Map.Entry<String, String>> entries = annotations.entrySet();
         final Map<String, String> configMapFileLocations = new HashMap<>();
 
@@ -72,16 +92,12 @@ public class ConfigMapEnricher extends BaseEnricher {
             final String key = entry.getKey();
 
             if(key.startsWith(PREFIX_ANNOTATION)) {
-                configMapFileLocations.put(getOutput(key), readContent(entry.getValue()));
+                configMapFileLocations.put(getOutput(key), entry.getValue());
                 it.remove();
             }
         }
 
-        return configMapFileLocations;
-    }
-
-    private String readContent(String location) throws IOException {
-        return new String(Files.readAllBytes(Paths.get(location)));
+        return FileDataLoader.loadText("ConfigMap " + name, configMapFileLocations);
     }
 
     private String getOutput(String key) {
@@ -92,8 +108,8 @@ public class ConfigMapEnricher extends BaseEnricher {
         io.jshift.kit.config.resource.ConfigMap configMap = getConfigMapFromXmlConfiguration();
         final Map<String, String> configMapFromConfiguration;
         try {
-            configMapFromConfiguration = createConfigMapFromConfiguration(configMap);
             String configMapName = (configMap == null || configMap.getName() == null || configMap.getName().trim().isEmpty()) ? "xmlconfig" : configMap.getName().trim();
+            configMapFromConfiguration = createConfigMapFromConfiguration(configMapName, configMap);
             log.debug("configMapName :: ".concat(configMapName));
 
             if(!configMapFromConfiguration.isEmpty() && !checkIfItemExists(builder, configMapName)) {
@@ -120,8 +136,9 @@ public class ConfigMapEnricher extends BaseEnricher {
         return null;
     }
 
-    private Map<String, String> createConfigMapFromConfiguration(io.jshift.kit.config.resource.ConfigMap configMap) throws IOException {
+    private Map<String, String> createConfigMapFromConfiguration(String configMapName, io.jshift.kit.config.resource.ConfigMap configMap) throws IOException {
         final Map<String, String> configMapData = new HashMap<>();
+        final Map<String, String> configMapFileLocations = new HashMap<>();
 
         if (configMap != null) {
             for (ConfigMapEntry configMapEntry : configMap.getEntries()) {
@@ -135,11 +152,12 @@ public class ConfigMapEnricher extends BaseEnricher {
                         if (name == null) {
                             name = Paths.get(file).getFileName().toString();
                         }
-                        configMapData.put(name, readContent(file));
+                        configMapFileLocations.put(name, file);
                     }
                 }
             }
         }
+        configMapData.putAll(FileDataLoader.loadText("ConfigMap " + configMapName, configMapFileLocations));
         return configMapData;
     }
 
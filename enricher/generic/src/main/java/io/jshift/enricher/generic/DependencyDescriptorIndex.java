@@ -0,0 +1,107 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.enricher.generic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of the resource descriptors contained in dependency jars below <code>META-INF/jshift/</code>.
+ *
+ * Only the central directory of a jar is read for building up the index, and the result
+ * is cached by the jar's path, modification time and size, so that artifacts shared by the modules of a
+ * reactor build are looked at only once.
+ */
+class DependencyDescriptorIndex {
+
+    static final String DESCRIPTOR_DIR = "META-INF/jshift/";
+
+    private static final Map<String, Entry> INDEX = new ConcurrentHashMap<>();
+
+    private DependencyDescriptorIndex() { }
+
+    /**
+     * Check whether the given jar contains a descriptor
+     *
+     * @param jar artifact to check
+     * @param descriptorPath path of the descriptor within the jar, must be below {@link #DESCRIPTOR_DIR}
+     * @return true if the jar contains the descriptor
+     * @throws IOException if the jar cannot be read
+     */
+    static boolean contains(File jar, String descriptorPath) throws IOException {
+        return getDescriptors(jar).contains(descriptorPath);
+    }
+
+    /**
+     * Get all entries in the jar which are located below {@link #DESCRIPTOR_DIR}
+     *
+     * @param jar artifact to check
+     * @return the descriptor paths found, empty if the file is not a jar
+     * @throws IOException if the jar cannot be read
+     */
+    static Set<String> getDescriptors(File jar) throws IOException {
+        if (jar == null || !jar.isFile()) {
+            return Collections.emptySet();
+        }
+        String key = jar.getAbsolutePath();
+        long lastModified = jar.lastModified();
+        long size = jar.length();
+        Entry entry = INDEX.get(key);
+        if (entry == null || entry.lastModified != lastModified || entry.size != size) {
+            entry = new Entry(lastModified, size, scan(jar));
+            INDEX.put(key, entry);
+        }
+        return entry.descriptors;
+    }
+
+    static void clear() {
+        INDEX.clear();
+    }
+
+    private static Set<String> scan(File jar) throws IOException {
+        Set<String> ret = new HashSet<>();
+        try (ZipFile zip = new ZipFile(jar)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && entry.getName().startsWith(DESCRIPTOR_DIR)) {
+                    ret.add(entry.getName());
+                }
+            }
+        }
+        return ret.isEmpty() ? Collections.<String>emptySet() : Collections.unmodifiableSet(ret);
+    }
+
+    private static final class Entry {
+        private final long lastModified;
+        private final long size;
+        private final Set<String> descriptors;
+
+        private Entry(long lastModified, long size, Set<String> descriptors) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.descriptors = descriptors;
+        }
+    }
+}
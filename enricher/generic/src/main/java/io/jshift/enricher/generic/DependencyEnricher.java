@@ -15,6 +15,7 @@
  */
 package io.jshift.enricher.generic;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import io.fabric8.kubernetes.api.model.HasMetadata;
@@ -24,10 +25,13 @@ import io.fabric8.openshift.api.model.Template;
 import io.jshift.kit.common.Configs;
 import io.jshift.kit.config.resource.PlatformMode;
 import io.jshift.maven.enricher.api.BaseEnricher;
+import io.jshift.maven.enricher.api.FingerprintContributor;
 import io.jshift.maven.enricher.api.MavenEnricherContext;
 import io.jshift.maven.enricher.api.model.Dependency;
 import io.jshift.maven.enricher.api.model.KindAndName;
 import io.jshift.kit.common.util.KubernetesHelper;
+import io.jshift.kit.common.util.ParallelUtil;
+import io.jshift.maven.enricher.api.util.EnrichmentFingerprint;
 import io.jshift.maven.enricher.api.util.KubernetesResourceUtil;
 
 import java.io.File;
@@ -39,7 +43,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -52,14 +56,17 @@ import java.util.function.Function;
  * @author jimmidyson
  * @since 14/07/16
  */
-public class DependencyEnricher extends BaseEnricher {
+public class DependencyEnricher extends BaseEnricher implements FingerprintContributor {
     private static String DEPENDENCY_KUBERNETES_YAML = "META-INF/jshift/kubernetes.yml";
     private static String DEPENDENCY_KUBERNETES_TEMPLATE_YAML = "META-INF/jshift/k8s-template.yml";
     private static String DEPENDENCY_OPENSHIFT_YAML = "META-INF/jshift/openshift.yml";
 
-    private Set<URL> kubernetesDependencyArtifacts = new HashSet<>();
-    private Set<URL> kubernetesTemplateDependencyArtifacts = new HashSet<>();
-    private Set<URL> openshiftDependencyArtifacts = new HashSet<>();
+    // Mapper is thread safe and can be shared for all descriptors
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
+
+    private Set<URL> kubernetesDependencyArtifacts = new LinkedHashSet<>();
+    private Set<URL> kubernetesTemplateDependencyArtifacts = new LinkedHashSet<>();
+    private Set<URL> openshiftDependencyArtifacts = new LinkedHashSet<>();
 
     // Available configuration keys
     private enum Config implements Configs.Key {
@@ -81,23 +88,27 @@ public class DependencyEnricher extends BaseEnricher {
     public DependencyEnricher(MavenEnricherContext buildContext) {
         super(buildContext, "jshift-dependency");
 
-        addArtifactsWithYaml(kubernetesDependencyArtifacts, DEPENDENCY_KUBERNETES_YAML);
-        addArtifactsWithYaml(kubernetesTemplateDependencyArtifacts, DEPENDENCY_KUBERNETES_TEMPLATE_YAML);
-        addArtifactsWithYaml(openshiftDependencyArtifacts, DEPENDENCY_OPENSHIFT_YAML);
+        final List<Dependency> artifacts = getContext().getDependencies(isIncludeTransitive());
+        addArtifactsWithYaml(artifacts, kubernetesDependencyArtifacts, DEPENDENCY_KUBERNETES_YAML);
+        addArtifactsWithYaml(artifacts, kubernetesTemplateDependencyArtifacts, DEPENDENCY_KUBERNETES_TEMPLATE_YAML);
+        addArtifactsWithYaml(artifacts, openshiftDependencyArtifacts, DEPENDENCY_OPENSHIFT_YAML);
 
     }
 
-    private void addArtifactsWithYaml(Set<URL> artifactSet, String dependencyYaml) {
-        final List<Dependency> artifacts = getContext().getDependencies(isIncludeTransitive());
-
+    private void addArtifactsWithYaml(List<Dependency> artifacts, Set<URL> artifactSet, String dependencyYaml) {
         for (Dependency artifact : artifacts) {
             if ("compile".equals(artifact.getScope()) && "jar".equals(artifact.getType())) {
                 File file = artifact.getLocation();
                 try {
-                    URL url = new URL("jar:" + file.toURI().toURL() + "!/" + dependencyYaml);
-                    artifactSet.add(url);
+                    // Only jars which really contain the descriptor are opened later on
+                    if (DependencyDescriptorIndex.contains(file, dependencyYaml)) {
+                        URL url = new URL("jar:" + file.toURI().toURL() + "!/" + dependencyYaml);
+                        artifactSet.add(url);
+                    }
                 } catch (MalformedURLException e) {
                     getLog().debug("Failed to create URL for %s: %s", file, e);
+                } catch (IOException e) {
+                    getLog().debug("Skipping %s: %s", file, e);
                 }
             }
         }
@@ -206,30 +217,50 @@ public class DependencyEnricher extends BaseEnricher {
     }
 
     private void processArtifactSetResources(Set<URL> artifactSet, Function<List<HasMetadata>, Void> function) {
-        for (URL url : artifactSet) {
-            try {
-                InputStream is = url.openStream();
-                if (is != null) {
-                    log.debug("Processing Kubernetes YAML in at: %s", url);
-
-                    KubernetesList resources = new ObjectMapper(new YAMLFactory()).readValue(is, KubernetesList.class);
-                    List<HasMetadata> items = resources.getItems();
-                    if (items.size() == 0 && Objects.equals("Template", resources.getKind())) {
-                        is = url.openStream();
-                        Template template = new ObjectMapper(new YAMLFactory()).readValue(is, Template.class);
-                        if (template != null) {
-                            items.add(template);
-                        }
-                    }
-                    for (HasMetadata item : items) {
-                        KubernetesResourceUtil.setSourceUrlAnnotationIfNotSet(item, url.toString());
-                        log.debug("  found %s  %s", KubernetesHelper.getKind(item), KubernetesHelper.getName(item));
-                    }
-                    function.apply(items);
+        // Parse in parallel, but hand over the resources in the order of the artifacts
+        for (List<HasMetadata> items : readArtifactSetResources(artifactSet)) {
+            if (items != null) {
+                function.apply(items);
+            }
+        }
+    }
+
+    private List<List<HasMetadata>> readArtifactSetResources(Set<URL> artifactSet) {
+        try {
+            return ParallelUtil.map(new ArrayList<>(artifactSet), Runtime.getRuntime().availableProcessors(),
+                                    this::readArtifactResources);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading dependency descriptors", e);
+        }
+    }
+
+    // Read the resources from a single descriptor, return null if it cannot be read
+    private List<HasMetadata> readArtifactResources(URL url) {
+        try (InputStream is = url.openStream()) {
+            log.debug("Processing Kubernetes YAML in at: %s", url);
+
+            // Read it once as tree as it might need to be converted twice
+            JsonNode tree = YAML_MAPPER.readTree(is);
+            if (tree == null) {
+                return null;
+            }
+            KubernetesList resources = YAML_MAPPER.treeToValue(tree, KubernetesList.class);
+            List<HasMetadata> items = resources.getItems();
+            if (items.size() == 0 && Objects.equals("Template", resources.getKind())) {
+                Template template = YAML_MAPPER.treeToValue(tree, Template.class);
+                if (template != null) {
+                    items.add(template);
                 }
-            } catch (IOException e) {
-                getLog().debug("Skipping %s: %s", url, e);
             }
+            for (HasMetadata item : items) {
+                KubernetesResourceUtil.setSourceUrlAnnotationIfNotSet(item, url.toString());
+                log.debug("  found %s  %s", KubernetesHelper.getKind(item), KubernetesHelper.getName(item));
+            }
+            return items;
+        } catch (IOException e) {
+            getLog().debug("Skipping %s: %s", url, e);
+            return null;
         }
     }
 
@@ -241,5 +272,27 @@ public class DependencyEnricher extends BaseEnricher {
         return Configs.asBoolean(getConfig(Config.includeTransitive));
     }
 
+    // The versions of all dependencies are part of the fingerprint already, but a SNAPSHOT can change
+    // without a new version, so the content of these is added
+    @Override
+    public void addToFingerprint(EnrichmentFingerprint fingerprint, File[] fragments) {
+        List<File> files = new ArrayList<>();
+        for (Dependency artifact : getContext().getDependencies(isIncludeTransitive())) {
+            File file = artifact.getLocation();
+            if ("compile".equals(artifact.getScope()) && "jar".equals(artifact.getType()) &&
+                artifact.getGav().isSnapshot() && file != null) {
+                if (file.isDirectory()) {
+                    // Output directory of a module within the same reactor build
+                    for (String descriptor : new String[] { DEPENDENCY_KUBERNETES_YAML, DEPENDENCY_KUBERNETES_TEMPLATE_YAML, DEPENDENCY_OPENSHIFT_YAML }) {
+                        files.add(new File(file, descriptor));
+                    }
+                } else {
+                    files.add(file);
+                }
+            }
+        }
+        fingerprint.addFiles(getName(), files.toArray(new File[0]));
+    }
+
 
 }
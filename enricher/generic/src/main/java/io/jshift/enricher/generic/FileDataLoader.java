@@ -0,0 +1,284 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.enricher.generic;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.jshift.kit.common.KitMetrics;
+import io.jshift.kit.common.util.Base64Util;
+
+/**
+ * Loads the content of files referenced by Secrets and ConfigMaps.
+ *
+ * The size of the data is checked before any file is read, so that a resource which would exceed the
+ * Kubernetes limit of 1 MiB per object fails the build right away instead of when being applied. Files are
+ * streamed into the result and read in parallel when a resource references many of them. The text of
+ * ConfigMap files is cached by the file's path, modification time and size, so that files which are unchanged
+ * since they have been read last (e.g. by another module of a reactor build) are not read again. Files
+ * modified shortly before being read are not cached, as a later change could keep both size and
+ * modification time. The cache is bounded, least recently used files are evicted first. Secret data is
+ * never cached.
+ */
+class FileDataLoader {
+
+    // Maximum size of a Secret or ConfigMap as enforced by the API server (etcd's request limit)
+    static final long MAX_DATA_SIZE = 1024 * 1024;
+
+    private static final int PARALLEL_THRESHOLD = 4;
+
+    // Reads YAML as well as JSON fragments
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
+
+    // Upper bound for the characters of all cached files
+    private static final long MAX_CACHED_SIZE = 16 * MAX_DATA_SIZE;
+
+    // Coarsest resolution of modification times among common file systems (FAT)
+    private static final long MODIFICATION_TIME_RESOLUTION = 2000;
+
+    // In access order, guarded by itself
+    private static final LinkedHashMap<String, Entry> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static long cachedSize;
+
+    private FileDataLoader() { }
+
+    /**
+     * Load files as Base64 encoded data, as used for Secrets
+     *
+     * @param resource name of the resource the data is for, used in error messages
+     * @param locations data keys with the path of the file to load
+     * @return data keys with the encoded content
+     * @throws IOException if a file cannot be read or the data would exceed {@link #MAX_DATA_SIZE}
+     */
+    static Map<String, String> loadBase64(String resource, Map<String, String> locations) throws IOException {
+        return load(resource, locations, true);
+    }
+
+    /**
+     * Load files as text in the platform's default encoding, as used for ConfigMaps
+     *
+     * @param resource name of the resource the data is for, used in error messages
+     * @param locations data keys with the path of the file to load
+     * @return data keys with the file content
+     * @throws IOException if a file cannot be read or the data would exceed {@link #MAX_DATA_SIZE}
+     */
+    static Map<String, String> loadText(String resource, Map<String, String> locations) throws IOException {
+        return load(resource, locations, false);
+    }
+
+    /**
+     * Files referenced by annotations with the given prefix within resource fragments
+     *
+     * @param fragments resource fragments, can be <code>null</code>
+     * @param annotationPrefix prefix of the annotations whose value is the path of a file to load
+     * @return referenced files
+     * @throws IOException if a fragment cannot be read or parsed
+     */
+    static List<File> getReferencedFiles(File[] fragments, String annotationPrefix) throws IOException {
+        List<File> ret = new ArrayList<>();
+        for (String path : getAnnotationValues(fragments, annotationPrefix)) {
+            ret.add(new File(path));
+        }
+        return ret;
+    }
+
+    /**
+     * Values of the annotations with the given prefix within resource fragments
+     *
+     * @param fragments resource fragments, can be <code>null</code>
+     * @param annotationPrefix prefix of the annotations to look for
+     * @return annotation values, in the order of the fragments
+     * @throws IOException if a fragment cannot be read or parsed
+     */
+    static List<String> getAnnotationValues(File[] fragments, String annotationPrefix) throws IOException {
+        List<String> ret = new ArrayList<>();
+        if (fragments == null) {
+            return ret;
+        }
+        for (File fragment : fragments) {
+            // Most fragments don't contain any such annotation, so these are not parsed at all
+            String content = new String(Files.readAllBytes(fragment.toPath()), Charset.defaultCharset());
+            if (!content.contains(annotationPrefix)) {
+                continue;
+            }
+            try (MappingIterator<JsonNode> documents = YAML_MAPPER.readerFor(JsonNode.class).readValues(content)) {
+                while (documents.hasNext()) {
+                    addAnnotationValues(ret, documents.next(), annotationPrefix);
+                }
+            }
+        }
+        return ret;
+    }
+
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            cachedSize = 0;
+        }
+    }
+
+    private static Map<String, String> load(String resource, Map<String, String> locations, boolean base64) throws IOException {
+        if (locations.isEmpty()) {
+            return new HashMap<>();
+        }
+        checkSize(resource, locations, base64);
+
+        List<Map.Entry<String, String>> entries = new ArrayList<>(locations.entrySet());
+        Stream<Map.Entry<String, String>> stream =
+            entries.size() >= PARALLEL_THRESHOLD ? entries.parallelStream() : entries.stream();
+        Map<String, String> ret = new ConcurrentHashMap<>();
+        try {
+            stream.forEach(entry -> {
+                try {
+                    ret.put(entry.getKey(), loadFile(new File(entry.getValue()), base64));
+                } catch (IOException exp) {
+                    throw new UncheckedIOException(exp);
+                }
+            });
+        } catch (UncheckedIOException exp) {
+            throw exp.getCause();
+        }
+        return new HashMap<>(ret);
+    }
+
+    // Fail before reading anything, with all files listed so that the culprit is easy to spot
+    private static void checkSize(String resource, Map<String, String> locations, boolean base64) throws IOException {
+        long total = 0;
+        StringBuilder files = new StringBuilder();
+        for (Map.Entry<String, String> entry : locations.entrySet()) {
+            File file = new File(entry.getValue());
+            if (!file.isFile()) {
+                throw new NoSuchFileException(entry.getValue());
+            }
+            long size = base64 ? Base64Util.encodedLength(file.length()) : file.length();
+            total += size;
+            files.append(String.format("%n  %s: %s (%d bytes)", entry.getKey(), file, size));
+        }
+        if (total > MAX_DATA_SIZE) {
+            throw new IOException(String.format(
+                "Data of %s would be %d bytes, which exceeds the limit of %d bytes for a single Kubernetes object:%s",
+                resource != null ? resource : "resource", total, MAX_DATA_SIZE, files));
+        }
+    }
+
+    private static String loadFile(File file, boolean base64) throws IOException {
+        if (base64) {
+            return readFile(file, file.length(), true);
+        }
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long size = file.length();
+        String cached = getCached(key, lastModified, size);
+        if (cached != null) {
+            KitMetrics.count("filedata.cached");
+            return cached;
+        }
+        long readAt = System.currentTimeMillis();
+        String content = readFile(file, size, false);
+        if (lastModified < readAt - MODIFICATION_TIME_RESOLUTION) {
+            putCached(key, new Entry(lastModified, size, content));
+        }
+        return content;
+    }
+
+    private static String readFile(File file, long size, boolean base64) throws IOException {
+        try (KitMetrics.Span span = KitMetrics.span("enricher", "loadFileData", file.getName());
+             InputStream in = Files.newInputStream(file.toPath())) {
+            String content = base64 ? Base64Util.encodeToString(in, size) : readText(in, size);
+            KitMetrics.count("filedata.read");
+            return content;
+        }
+    }
+
+    private static String getCached(String key, long lastModified, long size) {
+        synchronized (CACHE) {
+            Entry entry = CACHE.get(key);
+            return entry != null && entry.lastModified == lastModified && entry.size == size ? entry.content : null;
+        }
+    }
+
+    private static void putCached(String key, Entry entry) {
+        synchronized (CACHE) {
+            Entry previous = CACHE.put(key, entry);
+            cachedSize += entry.content.length() - (previous != null ? previous.content.length() : 0);
+            Iterator<Entry> eldest = CACHE.values().iterator();
+            while (cachedSize > MAX_CACHED_SIZE && eldest.hasNext()) {
+                cachedSize -= eldest.next().content.length();
+                eldest.remove();
+            }
+        }
+    }
+
+    // Annotations can be at any level, e.g. within the items of a list or a pod template
+    private static void addAnnotationValues(List<String> values, JsonNode node, String annotationPrefix) {
+        if (node == null) {
+            return;
+        }
+        JsonNode annotations = node.path("metadata").path("annotations");
+        for (Iterator<Map.Entry<String, JsonNode>> it = annotations.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> annotation = it.next();
+            if (annotation.getKey().startsWith(annotationPrefix) && annotation.getValue().isTextual()) {
+                values.add(annotation.getValue().asText());
+            }
+        }
+        for (JsonNode child : node) {
+            addAnnotationValues(values, child, annotationPrefix);
+        }
+    }
+
+    private static String readText(InputStream in, long size) throws IOException {
+        StringBuilder ret = new StringBuilder((int) Math.max(16, Math.min(size, MAX_DATA_SIZE)));
+        Reader reader = new InputStreamReader(in, Charset.defaultCharset());
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            ret.append(buffer, 0, read);
+        }
+        return ret.toString();
+    }
+
+    private static final class Entry {
+        private final long lastModified;
+        private final long size;
+        private final String content;
+
+        private Entry(long lastModified, long size, String content) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.content = content;
+        }
+    }
+}
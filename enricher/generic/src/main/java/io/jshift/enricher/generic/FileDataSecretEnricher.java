@@ -17,21 +17,22 @@ package io.jshift.enricher.generic;
 
 import io.fabric8.kubernetes.api.builder.TypedVisitor;
 import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
-import io.jshift.kit.common.util.Base64Util;
 import io.jshift.kit.config.resource.PlatformMode;
 import io.jshift.maven.enricher.api.BaseEnricher;
+import io.jshift.maven.enricher.api.FingerprintContributor;
 import io.jshift.maven.enricher.api.MavenEnricherContext;
+import io.jshift.maven.enricher.api.util.EnrichmentFingerprint;
 
+import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
-public class FileDataSecretEnricher extends BaseEnricher {
+public class FileDataSecretEnricher extends BaseEnricher implements FingerprintContributor {
 
     protected static final String PREFIX_ANNOTATION = "maven.jshift.io/secret/";
 
@@ -44,14 +45,20 @@ public class FileDataSecretEnricher extends BaseEnricher {
         addAnnotations(builder);
     }
 
+    // The content of the files referenced by annotations is loaded into the Secrets
+    @Override
+    public void addToFingerprint(EnrichmentFingerprint fingerprint, File[] fragments) throws IOException {
+        fingerprint.addFiles(getName(), FileDataLoader.getReferencedFiles(fragments, PREFIX_ANNOTATION).toArray(new File[0]));
+    }
+
     private void addAnnotations(KubernetesListBuilder builder) {
         builder.accept(new TypedVisitor<SecretBuilder>() {
 
             @Override
             public void visit(SecretBuilder element) {
-                final Map<String, String> annotations = element.buildMetadata().getAnnotations();
+                final ObjectMeta metadata = element.buildMetadata();
                 try {
-                    final Map<String, String> secretAnnotations = createSecretFromAnnotations(annotations);
+                    final Map<String, String> secretAnnotations = createSecretFromAnnotations(metadata.getName(), metadata.getAnnotations());
                     element.addToData(secretAnnotations);
                 } catch (IOException e) {
                     throw new IllegalArgumentException(e);
@@ -60,7 +67,7 @@ public class FileDataSecretEnricher extends BaseEnricher {
         });
     }
 
-    private Map<String, String> createSecretFromAnnotations(final Map<String, String> annotations) throws IOException {
+    private Map<String, String> createSecretFromAnnotations(final String name, final Map<String, String> annotations) throws IOException {
         final Set<Map.Entry<String, String>> entries = annotations.entrySet();
         final Map<String, String> secretFileLocations = new HashMap<>();
 
@@ -69,17 +76,12 @@ public class FileDataSecretEnricher extends BaseEnricher {
             final String key = entry.getKey();
 
             if(key.startsWith(PREFIX_ANNOTATION)) {
-                byte[] bytes = readContent(entry.getValue());
-                secretFileLocations.put(getOutput(key), Base64Util.encodeToString(bytes));
+                secretFileLocations.put(getOutput(key), entry.getValue());
                 it.remove();
             }
         }
 
-        return secretFileLocations;
-    }
-
-    private byte[] readContent(String location) throws IOException {
-        return Files.readAllBytes(Paths.get(location));
+        return FileDataLoader.loadBase64("Secret " + name, secretFileLocations);
     }
 
     private String getOutput(String key) {
@@ -29,10 +29,13 @@ import io.jshift.kit.common.util.GitUtil;
 import io.jshift.kit.config.resource.JshiftAnnotations;
 import io.jshift.kit.config.resource.PlatformMode;
 import io.jshift.maven.enricher.api.BaseEnricher;
+import io.jshift.maven.enricher.api.FingerprintContributor;
 import io.jshift.maven.enricher.api.MavenEnricherContext;
+import io.jshift.maven.enricher.api.util.EnrichmentFingerprint;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Repository;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -47,7 +50,7 @@ import java.util.Map;
  *
  * @since 01/05/16
  */
-public class GitEnricher extends BaseEnricher {
+public class GitEnricher extends BaseEnricher implements FingerprintContributor {
 
     private String GIT_REMOTE = "jshift.remoteName";
 
@@ -99,6 +102,12 @@ public class GitEnricher extends BaseEnricher {
         return annotations;
     }
 
+    // Branch, commit and remote are read from the repository, so a new commit changes the fingerprint
+    @Override
+    public void addToFingerprint(EnrichmentFingerprint fingerprint, File[] fragments) {
+        fingerprint.addConfiguration(getName(), getAnnotations());
+    }
+
     @Override
     public void create(PlatformMode platformMode, KubernetesListBuilder builder) {
         builder.accept(new TypedVisitor<ServiceBuilder>() {
@@ -26,15 +26,23 @@ import io.jshift.kit.config.resource.PlatformMode;
 import io.jshift.kit.config.resource.ResourceConfig;
 import io.jshift.kit.config.resource.SecretConfig;
 import io.jshift.maven.enricher.api.BaseEnricher;
+import io.jshift.maven.enricher.api.FingerprintContributor;
 import io.jshift.maven.enricher.api.MavenEnricherContext;
+import io.jshift.maven.enricher.api.util.EnrichmentFingerprint;
 import io.jshift.maven.enricher.api.util.SecretConstants;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
-public abstract class SecretEnricher extends BaseEnricher {
+public abstract class SecretEnricher extends BaseEnricher implements FingerprintContributor {
 
     public SecretEnricher(MavenEnricherContext buildContext, String name) {
         super(buildContext, name);
@@ -72,6 +80,37 @@ public abstract class SecretEnricher extends BaseEnricher {
         addSecretsFromXmlConfiguration(builder);
     }
 
+    // The secret data is taken from the servers of the Maven settings which are referenced by the fragments
+    // or the secret configuration. Only the server ids and the modification time and size of the settings
+    // files are added, so that no credentials end up in the stored fingerprint.
+    @Override
+    public void addToFingerprint(EnrichmentFingerprint fingerprint, File[] fragments) throws IOException {
+        Set<String> serverIds = new TreeSet<>(FileDataLoader.getAnnotationValues(fragments, getAnnotationKey()));
+        List<SecretConfig> secrets = getSecretsFromXmlConfig();
+        if (secrets != null) {
+            for (SecretConfig secret : secrets) {
+                if (StringUtils.isNotBlank(secret.getDockerServerId())) {
+                    serverIds.add(secret.getDockerServerId());
+                }
+            }
+        }
+        Map<String, Object> inputs = new TreeMap<>();
+        inputs.put("servers", serverIds);
+        if (!serverIds.isEmpty()) {
+            List<File> settingsFiles = getContext() instanceof MavenEnricherContext ?
+                ((MavenEnricherContext) getContext()).getSettingsFiles() : Collections.emptyList();
+            if (settingsFiles.isEmpty()) {
+                // Settings without a file can't be tracked
+                fingerprint.addUnhashable(getName());
+                return;
+            }
+            for (File file : settingsFiles) {
+                inputs.put(file.getAbsolutePath(), file.lastModified() + ":" + file.length());
+            }
+        }
+        fingerprint.addConfiguration(getName(), inputs);
+    }
+
     private void addSecretsFromXmlConfiguration(KubernetesListBuilder builder) {
         log.verbose("Adding secrets resources from plugin configuration");
         List<SecretConfig> secrets = getSecretsFromXmlConfig();
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.enricher.generic;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DependencyDescriptorIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        DependencyDescriptorIndex.clear();
+    }
+
+    @Test
+    public void containsDescriptor() throws IOException {
+        File jar = createJar("META-INF/jshift/kubernetes.yml", "META-INF/MANIFEST.MF");
+
+        assertTrue(DependencyDescriptorIndex.contains(jar, "META-INF/jshift/kubernetes.yml"));
+        assertFalse(DependencyDescriptorIndex.contains(jar, "META-INF/jshift/openshift.yml"));
+        assertEquals(1, DependencyDescriptorIndex.getDescriptors(jar).size());
+    }
+
+    @Test
+    public void cachedUntilModified() throws IOException {
+        File jar = createJar("META-INF/jshift/kubernetes.yml");
+        assertSame(DependencyDescriptorIndex.getDescriptors(jar), DependencyDescriptorIndex.getDescriptors(jar));
+
+        writeJar(jar, "META-INF/jshift/kubernetes.yml", "META-INF/jshift/openshift.yml");
+        assertTrue(DependencyDescriptorIndex.contains(jar, "META-INF/jshift/openshift.yml"));
+    }
+
+    @Test
+    public void noJar() throws IOException {
+        assertTrue(DependencyDescriptorIndex.getDescriptors(folder.getRoot()).isEmpty());
+        assertTrue(DependencyDescriptorIndex.getDescriptors(new File(folder.getRoot(), "missing.jar")).isEmpty());
+    }
+
+    private File createJar(String ... entries) throws IOException {
+        File jar = folder.newFile();
+        writeJar(jar, entries);
+        return jar;
+    }
+
+    private void writeJar(File jar, String ... entries) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(("# " + entry).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.enricher.generic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import io.jshift.kit.common.KitMetrics;
+import io.jshift.kit.common.util.Base64Util;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FileDataLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        FileDataLoader.clear();
+        KitMetrics.disable();
+    }
+
+    @Test
+    public void loadBase64() throws IOException {
+        Map<String, String> locations = new HashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+        Random random = new Random(42);
+        // Enough files to be read in parallel
+        for (int i = 0; i < 8; i++) {
+            byte[] content = new byte[1000 + i];
+            random.nextBytes(content);
+            contents.put("key-" + i, content);
+            locations.put("key-" + i, createFile("file-" + i, content).getPath());
+        }
+
+        Map<String, String> data = FileDataLoader.loadBase64("Secret test", locations);
+
+        assertEquals(8, data.size());
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            assertEquals(Base64Util.encodeToString(entry.getValue()), data.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void loadText() throws IOException {
+        File file = createFile("application.properties", "server.port=8080\n".getBytes());
+
+        Map<String, String> data = FileDataLoader.loadText("ConfigMap test",
+                                                           Collections.singletonMap("application.properties", file.getPath()));
+
+        assertEquals("server.port=8080\n", data.get("application.properties"));
+    }
+
+    @Test
+    public void cachedUntilModified() throws IOException {
+        File file = createFile("config", "first".getBytes());
+        assertTrue(file.setLastModified(System.currentTimeMillis() - 60000));
+        Map<String, String> locations = Collections.singletonMap("config", file.getPath());
+        KitMetrics.enable(false);
+        assertEquals("first", FileDataLoader.loadText("ConfigMap test", locations).get("config"));
+        assertEquals("first", FileDataLoader.loadText("ConfigMap test", locations).get("config"));
+        assertEquals(Long.valueOf(1), KitMetrics.getCounters().get("filedata.read"));
+        assertEquals(Long.valueOf(1), KitMetrics.getCounters().get("filedata.cached"));
+
+        Files.write(file.toPath(), "changed".getBytes());
+        assertEquals("changed", FileDataLoader.loadText("ConfigMap test", locations).get("config"));
+    }
+
+    @Test
+    public void recentlyModifiedNotCached() throws IOException {
+        File file = createFile("config", "first".getBytes());
+        long lastModified = file.lastModified();
+        Map<String, String> locations = Collections.singletonMap("config", file.getPath());
+        assertEquals("first", FileDataLoader.loadText("ConfigMap test", locations).get("config"));
+
+        // Same size and possibly the same modification time when rewritten right away
+        Files.write(file.toPath(), "other".getBytes());
+        assertTrue(file.setLastModified(lastModified));
+        assertEquals("other", FileDataLoader.loadText("ConfigMap test", locations).get("config"));
+    }
+
+    @Test
+    public void secretDataNotCached() throws IOException {
+        File file = createFile("password", "secret".getBytes());
+        assertTrue(file.setLastModified(System.currentTimeMillis() - 60000));
+        Map<String, String> locations = Collections.singletonMap("password", file.getPath());
+        KitMetrics.enable(false);
+        FileDataLoader.loadBase64("Secret test", locations);
+        FileDataLoader.loadBase64("Secret test", locations);
+
+        assertEquals(Long.valueOf(2), KitMetrics.getCounters().get("filedata.read"));
+        assertNull(KitMetrics.getCounters().get("filedata.cached"));
+    }
+
+    @Test
+    public void failsBeforeReadingWhenTooLarge() throws IOException {
+        // Fits as text, but not when encoded
+        File file = createFile("keystore", new byte[(int) (FileDataLoader.MAX_DATA_SIZE * 3 / 4) + 1]);
+        Map<String, String> locations = Collections.singletonMap("keystore", file.getPath());
+
+        assertEquals(1, FileDataLoader.loadText("ConfigMap test", locations).size());
+        try {
+            FileDataLoader.loadBase64("Secret test", locations);
+            fail("Size limit should have been exceeded");
+        } catch (IOException exp) {
+            assertTrue(exp.getMessage().contains("Secret test"));
+            assertTrue(exp.getMessage().contains("keystore"));
+        }
+    }
+
+    @Test
+    public void referencedFiles() throws IOException {
+        File list = createFile("list.yml", ("items:\n" +
+                                            "- metadata:\n" +
+                                            "    annotations:\n" +
+                                            "      maven.jshift.io/cm/application.properties: /config/application.properties\n" +
+                                            "      maven.jshift.io/secret/key: /secret/key\n").getBytes());
+        File other = createFile("service.yml", "metadata:\n  name: app\n".getBytes());
+
+        assertEquals(Collections.singletonList(new File("/config/application.properties")),
+                     FileDataLoader.getReferencedFiles(new File[] { list, other }, "maven.jshift.io/cm/"));
+        assertTrue(FileDataLoader.getReferencedFiles(new File[] { other }, "maven.jshift.io/cm/").isEmpty());
+    }
+
+    @Test
+    public void annotationValues() throws IOException {
+        File secret = createFile("pull-secret.yml", ("metadata:\n" +
+                                                     "  name: pull\n" +
+                                                     "  annotations:\n" +
+                                                     "    maven.jshift.io/dockerServerId: registry\n").getBytes());
+
+        assertEquals(Collections.singletonList("registry"),
+                     FileDataLoader.getAnnotationValues(new File[] { secret }, "maven.jshift.io/dockerServerId"));
+        assertTrue(FileDataLoader.getAnnotationValues(null, "maven.jshift.io/dockerServerId").isEmpty());
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void missingFile() throws IOException {
+        FileDataLoader.loadText("ConfigMap test",
+                                Collections.singletonMap("missing", new File(folder.getRoot(), "missing").getPath()));
+    }
+
+    private File createFile(String name, byte[] content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+}
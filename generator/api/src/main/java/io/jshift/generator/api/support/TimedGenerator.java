@@ -0,0 +1,76 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.generator.api.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.jshift.generator.api.Generator;
+import io.jshift.kit.build.service.docker.ImageConfiguration;
+import io.jshift.kit.common.KitMetrics;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Generator which records the time spent in the generator it wraps
+ */
+public class TimedGenerator implements Generator {
+
+    private final Generator delegate;
+
+    private TimedGenerator(Generator delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wrap generators for recording their timings, but only if metrics are enabled
+     *
+     * @param generators generators to wrap
+     * @return the wrapped generators or the given list when metrics are disabled
+     */
+    public static List<Generator> wrap(List<Generator> generators) {
+        if (!KitMetrics.isEnabled()) {
+            return generators;
+        }
+        List<Generator> ret = new ArrayList<>(generators.size());
+        for (Generator generator : generators) {
+            ret.add(generator instanceof TimedGenerator ? generator : new TimedGenerator(generator));
+        }
+        return ret;
+    }
+
+    public Generator getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public boolean isApplicable(List<ImageConfiguration> configs) throws MojoExecutionException {
+        try (KitMetrics.Span span = KitMetrics.span("generator", getName() + ".isApplicable")) {
+            return delegate.isApplicable(configs);
+        }
+    }
+
+    @Override
+    public List<ImageConfiguration> customize(List<ImageConfiguration> existingConfigs, boolean prePackagePhase) throws MojoExecutionException {
+        try (KitMetrics.Span span = KitMetrics.span("generator", getName() + ".customize")) {
+            return delegate.customize(existingConfigs, prePackagePhase);
+        }
+    }
+}
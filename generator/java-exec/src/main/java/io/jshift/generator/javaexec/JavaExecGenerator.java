@@ -49,7 +49,7 @@ import static io.jshift.kit.config.image.build.util.BuildLabelUtil.addSchemaLabe
 public class JavaExecGenerator extends BaseGenerator {
 
     // Environment variable used for specifying a main class
-    static final String JAVA_MAIN_CLASS_ENV_VAR = "JAVA_MAIN_CLASS";
+    protected static final String JAVA_MAIN_CLASS_ENV_VAR = "JAVA_MAIN_CLASS";
     private static final String JAVA_OPTIONS = "JAVA_OPTIONS";
 
     // Plugins indicating a plain java build
@@ -91,7 +91,10 @@ public class JavaExecGenerator extends BaseGenerator {
         mainClass,
 
         // Reference to a predefined assembly descriptor to use. By defult it is tried to be detected
-        assemblyRef;
+        assemblyRef,
+
+        // Whether to split the assembly into separate layers for dependencies, resources and classes
+        layered {{ d = "false"; }};
 
         public String def() { return d; } protected String d;
     }
@@ -175,7 +178,9 @@ public class JavaExecGenerator extends BaseGenerator {
     }
 
     protected AssemblyConfiguration createAssembly() throws MojoExecutionException {
-        AssemblyConfiguration.Builder builder = new AssemblyConfiguration.Builder().targetDir(getConfig(Config.targetDir));
+        AssemblyConfiguration.Builder builder = new AssemblyConfiguration.Builder()
+            .targetDir(getConfig(Config.targetDir))
+            .layered(isLayered());
         addAssembly(builder);
         return builder.build();
     }
@@ -195,7 +200,7 @@ public class JavaExecGenerator extends BaseGenerator {
                     dependencySet.addInclude(project.getGroupId() + ":" + project.getArtifactId());
                     assembly.addDependencySet(dependencySet);
                 } else {
-                    FileSet fileSet = getOutputDirectoryFileSet(fatJar, project);
+                    FileSet fileSet = getFatJarFileSet(fatJar, project);
                     assembly.addFileSet(fileSet);
                 }
             } else {
@@ -210,6 +215,18 @@ public class JavaExecGenerator extends BaseGenerator {
         assembly.addFileSet(createFileSet("src/main/jshift-includes",".","0644","0755"));
     }
 
+    /**
+     * Hook for changing how a detected fat jar is added to the assembly
+     *
+     * @param fatJar the detected fat jar
+     * @param project the project
+     * @return file set to add to the assembly
+     * @throws MojoExecutionException if the fat jar cannot be prepared
+     */
+    protected FileSet getFatJarFileSet(FatJarDetector.Result fatJar, MavenProject project) throws MojoExecutionException {
+        return getOutputDirectoryFileSet(fatJar, project);
+    }
+
     private FileSet getOutputDirectoryFileSet(FatJarDetector.Result fatJar, MavenProject project) {
         org.apache.maven.plugins.assembly.model.FileSet fileSet = new org.apache.maven.plugins.assembly.model.FileSet();
         File buildDir = new File(project.getBuild().getDirectory());
@@ -229,6 +246,10 @@ public class JavaExecGenerator extends BaseGenerator {
         return fileSet;
     }
 
+    protected boolean isLayered() {
+        return Boolean.parseBoolean(getConfig(Config.layered));
+    }
+
     protected boolean isFatJar() throws MojoExecutionException {
         return !hasMainClass() && detectFatJar() != null;
     }
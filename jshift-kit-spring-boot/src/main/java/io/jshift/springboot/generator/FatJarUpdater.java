@@ -0,0 +1,146 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.springboot.generator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Adds libraries and classes to a Spring Boot fat jar or unpacks it for a layered image.
+ *
+ * Existing entries are copied over with their compressed data as it is, so that the
+ * fat jar doesn't need to be inflated and deflated again. New entries are stored
+ * uncompressed as required for nested jars, reading each file only once.
+ */
+class FatJarUpdater {
+
+    private static final String LIB_PREFIX = "BOOT-INF/lib/";
+    private static final String CLASSES_PREFIX = "BOOT-INF/classes/";
+
+    private FatJarUpdater() { }
+
+    /**
+     * Add the given files to the fat jar, replacing entries with the same path
+     *
+     * @param libs libraries to add below <code>BOOT-INF/lib/</code>
+     * @param classes files to add below <code>BOOT-INF/classes/</code>
+     * @param target fat jar to update
+     * @throws IOException if the jar cannot be updated. The original jar is kept in this case.
+     */
+    static void copyFilesToFatJar(List<File> libs, List<File> classes, File target) throws IOException {
+        // Entries to add, by their path within the fat jar
+        Map<String, File> additions = new LinkedHashMap<>();
+        for (File lib : libs) {
+            additions.put(getFatJarFullPath(lib, true), lib);
+        }
+        for (File cls : classes) {
+            additions.put(getFatJarFullPath(cls, false), cls);
+        }
+
+        // Write next to the target so that the final move is a rename on the same file system
+        File tmpZip = File.createTempFile(target.getName(), ".tmp", target.getAbsoluteFile().getParentFile());
+        try {
+            try (ZipFile zip = new ZipFile(target);
+                 ZipArchiveOutputStream out = new ZipArchiveOutputStream(tmpZip)) {
+                Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+                while (entries.hasMoreElements()) {
+                    ZipArchiveEntry entry = entries.nextElement();
+                    if (additions.containsKey(entry.getName())) {
+                        continue;
+                    }
+                    try (InputStream in = zip.getRawInputStream(entry)) {
+                        out.addRawArchiveEntry(entry, in);
+                    }
+                }
+                for (Map.Entry<String, File> addition : additions.entrySet()) {
+                    addStoredEntry(out, addition.getValue(), addition.getKey());
+                }
+            }
+            Files.move(tmpZip.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpZip.toPath());
+        }
+    }
+
+    /**
+     * Unpack the fat jar into the given directory, which is recreated. The unpacked jar
+     * can be started with Spring Boot's <code>JarLauncher</code> as main class.
+     *
+     * @param fatJar fat jar to unpack
+     * @param targetDir directory to unpack into
+     * @throws IOException if the jar cannot be unpacked
+     */
+    static void explode(File fatJar, File targetDir) throws IOException {
+        if (targetDir.exists()) {
+            FileUtils.deleteDirectory(targetDir);
+        }
+        Path root = targetDir.toPath().toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        try (ZipFile zip = new ZipFile(fatJar)) {
+            Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                Path target = root.resolve(entry.getName()).normalize();
+                if (!target.startsWith(root)) {
+                    throw new IOException("Entry " + entry.getName() + " of " + fatJar + " is outside of the target directory");
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                try (InputStream in = zip.getInputStream(entry)) {
+                    Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (entry.getTime() > 0) {
+                    target.toFile().setLastModified(entry.getTime());
+                }
+            }
+        }
+    }
+
+    static String getFatJarFullPath(File file, boolean lib) {
+        return (lib ? LIB_PREFIX : CLASSES_PREFIX) + file.getName();
+    }
+
+    // The output is a file, so size and CRC are filled in after the data has been written
+    private static void addStoredEntry(ZipArchiveOutputStream out, File file, String fullPath) throws IOException {
+        ZipArchiveEntry entry = new ZipArchiveEntry(file, fullPath);
+        entry.setMethod(ZipArchiveEntry.STORED);
+        out.putArchiveEntry(entry);
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read > -1; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+        }
+        out.closeArchiveEntry();
+    }
+}
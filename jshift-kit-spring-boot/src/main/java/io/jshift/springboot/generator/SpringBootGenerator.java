@@ -16,21 +16,14 @@
 package io.jshift.springboot.generator;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
-import java.util.zip.CRC32;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 import com.google.common.base.Strings;
 import io.jshift.generator.api.GeneratorContext;
@@ -42,12 +35,13 @@ import io.jshift.kit.common.Configs;
 import io.jshift.kit.common.util.MavenUtil;
 import io.jshift.kit.common.util.SpringBootConfigurationHelper;
 import io.jshift.kit.common.util.SpringBootUtil;
-import org.apache.commons.io.FileUtils;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.assembly.model.FileSet;
 import org.apache.maven.project.MavenProject;
 
+import static io.jshift.kit.common.util.FileUtil.getRelativePath;
 import static io.jshift.kit.common.util.SpringBootConfigurationHelper.DEV_TOOLS_REMOTE_SECRET;
 import static io.jshift.springboot.generator.SpringBootGenerator.Config.color;
 
@@ -58,6 +52,8 @@ import static io.jshift.springboot.generator.SpringBootGenerator.Config.color;
 public class SpringBootGenerator extends JavaExecGenerator {
 
     private static final String DEFAULT_SERVER_PORT = "8080";
+    private static final String JAR_LAUNCHER = "org.springframework.boot.loader.JarLauncher";
+    private static final String EXPLODED_FAT_JAR_DIR = "jshift-spring-boot-exploded";
 
     public enum Config implements Configs.Key {
         color {{ d = ""; }};
@@ -96,9 +92,32 @@ public class SpringBootGenerator extends JavaExecGenerator {
                 res.put(SpringBootConfigurationHelper.DEV_TOOLS_REMOTE_SECRET_ENV, secret);
             }
         }
+        if (isLayered() && isFatJar()) {
+            // The fat jar is added exploded, so that its libraries can go into their own layers
+            res.put(JAVA_MAIN_CLASS_ENV_VAR, JAR_LAUNCHER);
+        }
         return res;
     }
 
+    @Override
+    protected FileSet getFatJarFileSet(FatJarDetector.Result fatJar, MavenProject project) throws MojoExecutionException {
+        if (!isLayered()) {
+            return super.getFatJarFileSet(fatJar, project);
+        }
+        File buildDir = new File(project.getBuild().getDirectory());
+        File explodedDir = new File(buildDir, EXPLODED_FAT_JAR_DIR);
+        try {
+            FatJarUpdater.explode(fatJar.getArchiveFile(), explodedDir);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to unpack fat jar " + fatJar.getArchiveFile() + ". " + e, e);
+        }
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory(getRelativePath(project.getBasedir(), explodedDir).getPath());
+        fileSet.setOutputDirectory(".");
+        fileSet.setFileMode("0640");
+        return fileSet;
+    }
+
     @Override
     protected List<String> getExtraJavaOptions() {
         List<String> opts = super.getExtraJavaOptions();
@@ -146,7 +165,7 @@ public class SpringBootGenerator extends JavaExecGenerator {
             try {
                 File devToolsFile = getSpringBootDevToolsJar();
                 File applicationPropertiesFile = new File(getProject().getBasedir(), "target/classes/application.properties");
-                copyFilesToFatJar(Collections.singletonList(devToolsFile), Collections.singletonList(applicationPropertiesFile), target);
+                FatJarUpdater.copyFilesToFatJar(Collections.singletonList(devToolsFile), Collections.singletonList(applicationPropertiesFile), target);
             } catch (Exception e) {
                 throw new MojoExecutionException("Failed to add devtools files to fat jar " + target + ". " + e, e);
             }
@@ -161,88 +180,6 @@ public class SpringBootGenerator extends JavaExecGenerator {
         return fatJarDetectResult.getArchiveFile();
     }
 
-    private void copyFilesToFatJar(List<File> libs, List<File> classes, File target) throws IOException {
-        File tmpZip = File.createTempFile(target.getName(), null);
-        tmpZip.delete();
-
-        // Using Apache commons rename, because renameTo has issues across file systems
-        FileUtils.moveFile(target, tmpZip);
-
-        byte[] buffer = new byte[8192];
-        ZipInputStream zin = new ZipInputStream(new FileInputStream(tmpZip));
-        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(target));
-        for (ZipEntry ze = zin.getNextEntry(); ze != null; ze = zin.getNextEntry()) {
-            if (matchesFatJarEntry(libs, ze.getName(), true) || matchesFatJarEntry(classes, ze.getName(), false)) {
-                continue;
-            }
-            out.putNextEntry(ze);
-            for(int read = zin.read(buffer); read > -1; read = zin.read(buffer)){
-                out.write(buffer, 0, read);
-            }
-            out.closeEntry();
-        }
-
-        for (File lib : libs) {
-            try (InputStream in = new FileInputStream(lib)) {
-                out.putNextEntry(createZipEntry(lib, getFatJarFullPath(lib, true)));
-                for (int read = in.read(buffer); read > -1; read = in.read(buffer)) {
-                    out.write(buffer, 0, read);
-                }
-                out.closeEntry();
-            }
-        }
-
-        for (File cls : classes) {
-            try (InputStream in = new FileInputStream(cls)) {
-                out.putNextEntry(createZipEntry(cls, getFatJarFullPath(cls, false)));
-                for (int read = in.read(buffer); read > -1; read = in.read(buffer)) {
-                    out.write(buffer, 0, read);
-                }
-                out.closeEntry();
-            }
-        }
-
-        out.close();
-        tmpZip.delete();
-    }
-
-    private boolean matchesFatJarEntry(List<File> fatJarEntries, String path, boolean lib) {
-        for (File e : fatJarEntries) {
-            String fullPath = getFatJarFullPath(e, lib);
-            if (fullPath.equals(path)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private String getFatJarFullPath(File file, boolean lib) {
-        if (lib) {
-            return "BOOT-INF/lib/" + file.getName();
-        }
-        return "BOOT-INF/classes/" + file.getName();
-    }
-
-    private ZipEntry createZipEntry(File file, String fullPath) throws IOException {
-        ZipEntry entry = new ZipEntry(fullPath);
-
-        byte[] buffer = new byte[8192];
-        int bytesRead = -1;
-        try (InputStream is = new FileInputStream(file)) {
-            CRC32 crc = new CRC32();
-            int size = 0;
-            while ((bytesRead = is.read(buffer)) != -1) {
-                crc.update(buffer, 0, bytesRead);
-                size += bytesRead;
-            }
-            entry.setSize(size);
-            entry.setCompressedSize(size);
-            entry.setCrc(crc.getValue());
-            entry.setMethod(ZipEntry.STORED);
-            return entry;
-        }
-    }
-
     private void addSecretTokenToApplicationProperties() throws MojoExecutionException {
         String newToken = UUID.randomUUID().toString();
         log.verbose("Generating the spring devtools token in property: " + DEV_TOOLS_REMOTE_SECRET);
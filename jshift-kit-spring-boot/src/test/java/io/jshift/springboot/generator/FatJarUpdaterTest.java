@@ -0,0 +1,225 @@
+/**
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jshift.springboot.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class FatJarUpdaterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void addAndReplaceEntries() throws IOException {
+        File fatJar = createFatJar(folder.newFile("app.jar"), 5, 1024);
+        File lib = writeFile("spring-boot-devtools.jar", "devtools");
+        File props = writeFile("application.properties", "spring.devtools.remote.secret=s3cret\n");
+        // Replaces an existing entry
+        File existingLib = writeFile("lib-1.jar", "replaced");
+
+        FatJarUpdater.copyFilesToFatJar(Arrays.asList(lib, existingLib), Collections.singletonList(props), fatJar);
+
+        try (JarFile jar = new JarFile(fatJar)) {
+            assertNotNull(jar.getManifest());
+            assertEquals("devtools", read(jar, "BOOT-INF/lib/spring-boot-devtools.jar"));
+            assertEquals("replaced", read(jar, "BOOT-INF/lib/lib-1.jar"));
+            assertEquals("spring.devtools.remote.secret=s3cret\n", read(jar, "BOOT-INF/classes/application.properties"));
+            assertEquals(ZipEntry.STORED, jar.getEntry("BOOT-INF/lib/spring-boot-devtools.jar").getMethod());
+            assertEquals(1024, readBytes(fatJar, "BOOT-INF/lib/lib-0.jar").length);
+
+            int count = 0;
+            for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); entries.nextElement()) {
+                count++;
+            }
+            // Manifest, 5 libs, 1 class, devtools and application.properties
+            assertEquals(9, count);
+        }
+        // Fat jar must also be readable as stream, like the Spring Boot launcher does for nested jars
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(fatJar.toPath()))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                drain(in);
+            }
+        }
+    }
+
+    @Test
+    public void keepsExistingEntries() throws IOException {
+        File fatJar = createFatJar(folder.newFile("app.jar"), 3, 4096);
+        byte[] before = readBytes(fatJar, "BOOT-INF/lib/lib-2.jar");
+
+        FatJarUpdater.copyFilesToFatJar(Collections.singletonList(writeFile("extra.jar", "extra")),
+                                        Collections.<File>emptyList(), fatJar);
+
+        assertArrayEquals(before, readBytes(fatJar, "BOOT-INF/lib/lib-2.jar"));
+        assertEquals(0, folder.getRoot().listFiles((dir, name) -> name.endsWith(".tmp")).length);
+    }
+
+    @Test
+    public void rawCopyPreservesEntries() throws IOException {
+        File fatJar = createFatJar(folder.newFile("app.jar"), 4, 2048);
+        Map<String, ZipEntry> entriesBefore = readEntries(fatJar);
+        Map<String, byte[]> contentBefore = new LinkedHashMap<>();
+        for (String name : entriesBefore.keySet()) {
+            contentBefore.put(name, readBytes(fatJar, name));
+        }
+
+        FatJarUpdater.copyFilesToFatJar(Collections.singletonList(writeFile("spring-boot-devtools.jar", "devtools")),
+                                        Collections.<File>emptyList(), fatJar);
+
+        Map<String, ZipEntry> entriesAfter = readEntries(fatJar);
+        List<String> namesAfter = new ArrayList<>(entriesAfter.keySet());
+        // Existing entries keep their order, the new one is appended
+        assertEquals(new ArrayList<>(entriesBefore.keySet()), namesAfter.subList(0, entriesBefore.size()));
+        assertEquals("BOOT-INF/lib/spring-boot-devtools.jar", namesAfter.get(namesAfter.size() - 1));
+        for (Map.Entry<String, ZipEntry> before : entriesBefore.entrySet()) {
+            ZipEntry after = entriesAfter.get(before.getKey());
+            // Copied with their compressed data as it is
+            assertEquals(before.getValue().getMethod(), after.getMethod());
+            assertEquals(before.getValue().getCompressedSize(), after.getCompressedSize());
+            assertEquals(before.getValue().getCrc(), after.getCrc());
+            assertArrayEquals(contentBefore.get(before.getKey()), readBytes(fatJar, before.getKey()));
+        }
+    }
+
+    @Test
+    public void explode() throws IOException {
+        File fatJar = createFatJar(folder.newFile("app.jar"), 3, 2048);
+        File targetDir = folder.newFolder("exploded");
+        // Leftovers from a previous run are removed
+        writeFileIn(targetDir, "stale.jar");
+
+        FatJarUpdater.explode(fatJar, targetDir);
+
+        assertArrayEquals(readBytes(fatJar, "BOOT-INF/lib/lib-1.jar"),
+                          Files.readAllBytes(new File(targetDir, "BOOT-INF/lib/lib-1.jar").toPath()));
+        assertEquals(512, new File(targetDir, "BOOT-INF/classes/App.class").length());
+        assertTrue(new File(targetDir, "META-INF/MANIFEST.MF").exists());
+        assertFalse(new File(targetDir, "stale.jar").exists());
+    }
+
+    @Test(expected = IOException.class)
+    public void explodeRejectsEntriesOutsideOfTarget() throws IOException {
+        File fatJar = folder.newFile("evil.jar");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(fatJar))) {
+            out.putNextEntry(new ZipEntry("../evil.txt"));
+            out.closeEntry();
+        }
+        FatJarUpdater.explode(fatJar, new File(folder.getRoot(), "exploded"));
+    }
+
+    // Create a fat jar with random, compressed libs
+    static File createFatJar(File file, int libs, int libSize) throws IOException {
+        Random random = new Random(42);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            out.write("Manifest-Version: 1.0\nMain-Class: org.springframework.boot.loader.JarLauncher\n".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("BOOT-INF/classes/App.class"));
+            out.write(new byte[512]);
+            out.closeEntry();
+            byte[] data = new byte[libSize];
+            for (int i = 0; i < libs; i++) {
+                // Half random, half compressible content
+                random.nextBytes(data);
+                for (int j = 0; j < data.length / 2; j++) {
+                    data[j] = (byte) ('a' + j % 8);
+                }
+                out.putNextEntry(new ZipEntry("BOOT-INF/lib/lib-" + i + ".jar"));
+                out.write(data);
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private File writeFile(String name, String content) throws IOException {
+        File file = new File(folder.newFolder(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private void writeFileIn(File dir, String name) throws IOException {
+        Files.write(new File(dir, name).toPath(), name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<String, ZipEntry> readEntries(File file) throws IOException {
+        Map<String, ZipEntry> ret = new LinkedHashMap<>();
+        try (JarFile jar = new JarFile(file)) {
+            for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                JarEntry entry = entries.nextElement();
+                ret.put(entry.getName(), entry);
+            }
+        }
+        return ret;
+    }
+
+    private String read(JarFile jar, String name) throws IOException {
+        JarEntry entry = jar.getJarEntry(name);
+        try (InputStream in = jar.getInputStream(entry)) {
+            byte[] data = drain(in);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            assertEquals(entry.getCrc(), crc.getValue());
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] readBytes(File file, String name) throws IOException {
+        try (JarFile jar = new JarFile(file);
+             InputStream in = jar.getInputStream(jar.getEntry(name))) {
+            return drain(in);
+        }
+    }
+
+    private static byte[] drain(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read > -1; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}